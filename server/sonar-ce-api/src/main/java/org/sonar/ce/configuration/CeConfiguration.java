@@ -26,6 +26,12 @@ public interface CeConfiguration {
    */
   int getWorkerCount();
 
+  /**
+   * The number of threads a CeTask may use to execute independent computation steps concurrently, or independent
+   * parts of a computation step, such as the tracking of the issues of each file.
+   */
+  int getComputationStepThreadCount();
+
   /**
    * The delay in millisecond before a {@link org.sonar.ce.taskprocessor.CeWorker} shall try and find a task
    * to process when it's previous execution had nothing to do.
@@ -29,15 +29,19 @@ import static java.lang.String.format;
 
 /**
  * Immutable implementation of {@link CeConfiguration} which takes value returned by
- * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY} and
+ * {@link CeConfiguration#getWorkerCount()} from property {@link CeConfigurationImpl#CE_WORKERS_COUNT_PROPERTY}, the value
+ * returned by {@link CeConfiguration#getComputationStepThreadCount()} from property
+ * {@link CeConfigurationImpl#CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY} and
  * always returns {@link #DEFAULT_QUEUE_POLLING_DELAY} when {@link CeConfiguration#getQueuePollingDelay()} is called.
  */
 public class CeConfigurationImpl implements CeConfiguration, Startable {
   private static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  private static final String CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY = "sonar.ce.computationStepThreadCount";
 
   private static final Logger LOG = Loggers.get(CeConfigurationImpl.class);
 
   private static final int DEFAULT_WORKER_COUNT = 1;
+  private static final int DEFAULT_COMPUTATION_STEP_THREAD_COUNT = 1;
   // 2 seconds
   private static final long DEFAULT_QUEUE_POLLING_DELAY = 2 * 1000L;
   // 1 minute
@@ -46,33 +50,38 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
   private static final long CANCEL_WORN_OUTS_DELAY = 10;
 
   private final int workerCount;
+  private final int computationStepThreadCount;
 
   public CeConfigurationImpl(Settings settings) {
-    String workerCountAsStr = settings.getString(CE_WORKERS_COUNT_PROPERTY);
-    if (workerCountAsStr == null || workerCountAsStr.isEmpty()) {
-      this.workerCount = DEFAULT_WORKER_COUNT;
-    } else {
-      this.workerCount = parseStringValue(workerCountAsStr);
+    this.workerCount = readPositiveInt(settings, CE_WORKERS_COUNT_PROPERTY, DEFAULT_WORKER_COUNT);
+    this.computationStepThreadCount = readPositiveInt(settings, CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY, DEFAULT_COMPUTATION_STEP_THREAD_COUNT);
+  }
+
+  private static int readPositiveInt(Settings settings, String propertyKey, int defaultValue) {
+    String valueAsStr = settings.getString(propertyKey);
+    if (valueAsStr == null || valueAsStr.isEmpty()) {
+      return defaultValue;
     }
+    return parseStringValue(propertyKey, valueAsStr);
   }
 
-  private static int parseStringValue(String workerCountAsStr) {
+  private static int parseStringValue(String propertyKey, String valueAsStr) {
     try {
-      int value = Integer.parseInt(workerCountAsStr);
+      int value = Integer.parseInt(valueAsStr);
       if (value < 1) {
-        throw parsingError(workerCountAsStr);
+        throw parsingError(propertyKey, valueAsStr);
       }
       return value;
     } catch (NumberFormatException e) {
-      throw parsingError(workerCountAsStr);
+      throw parsingError(propertyKey, valueAsStr);
     }
   }
 
-  private static MessageException parsingError(String workerCountAsStr) {
+  private static MessageException parsingError(String propertyKey, String valueAsStr) {
     return MessageException.of(format(
       "value '%s' of property %s is invalid. It must an integer strictly greater than 0.",
-      workerCountAsStr,
-      CE_WORKERS_COUNT_PROPERTY)
+      valueAsStr,
+      propertyKey)
       );
   }
 
@@ -81,6 +90,9 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     if (this.workerCount > 1) {
       LOG.info("Compute Engine will use {} concurrent workers to process tasks", this.workerCount);
     }
+    if (this.computationStepThreadCount > 1) {
+      LOG.info("Compute Engine will use {} threads to execute independent computation steps", this.computationStepThreadCount);
+    }
   }
 
   @Override
@@ -93,6 +105,11 @@ public class CeConfigurationImpl implements CeConfiguration, Startable {
     return workerCount;
   }
 
+  @Override
+  public int getComputationStepThreadCount() {
+    return computationStepThreadCount;
+  }
+
   @Override
   public long getQueuePollingDelay() {
     return DEFAULT_QUEUE_POLLING_DELAY;
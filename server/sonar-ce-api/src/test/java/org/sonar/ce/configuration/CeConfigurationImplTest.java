@@ -32,6 +32,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 
 public class CeConfigurationImplTest {
   private static final String CE_WORKERS_COUNT_PROPERTY = "sonar.ce.workerCount";
+  private static final String CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY = "sonar.ce.computationStepThreadCount";
 
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
@@ -110,6 +111,29 @@ public class CeConfigurationImplTest {
       "It must an integer strictly greater than 0");
   }
 
+  @Test
+  public void getComputationStepThreadCount_returns_1_when_property_is_not_defined() {
+    assertThat(new CeConfigurationImpl(settings).getComputationStepThreadCount()).isEqualTo(1);
+  }
+
+  @Test
+  public void getComputationStepThreadCount_returns_value_when_property_is_integer_greater_than_1() {
+    settings.setProperty(CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY, 4);
+
+    assertThat(new CeConfigurationImpl(settings).getComputationStepThreadCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void constructor_throws_MessageException_when_computation_step_thread_count_property_is_0() {
+    settings.setProperty(CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY, "0");
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("value '0' of property " + CE_COMPUTATION_STEP_THREAD_COUNT_PROPERTY + " is invalid. " +
+      "It must an integer strictly greater than 0");
+
+    new CeConfigurationImpl(settings);
+  }
+
   @Test
   public void getCleanCeTasksInitialDelay_returns_1() {
     assertThat(new CeConfigurationImpl(settings).getCleanCeTasksInitialDelay())
@@ -0,0 +1,70 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce;
+
+import javax.annotation.CheckForNull;
+import org.picocontainer.Startable;
+import org.sonar.ce.cluster.HazelcastClientWrapper;
+import org.sonar.ce.taskprocessor.CeWorkerWakeUp;
+
+import static org.sonar.process.cluster.ClusterObjectKeys.CE_WORKERS_WAKE_UP;
+
+/**
+ * Propagates the wake ups of the workers of this Compute Engine to the other Compute Engines of a clustered
+ * SonarQube instance, and the other way around.
+ */
+public class ClusteredCeWorkerWakeUp implements Startable {
+  private final HazelcastClientWrapper hazelcastClientWrapper;
+  private final CeWorkerWakeUp ceWorkerWakeUp;
+  private final Runnable propagator = this::publish;
+
+  @CheckForNull
+  private String registrationId;
+
+  public ClusteredCeWorkerWakeUp(HazelcastClientWrapper hazelcastClientWrapper, CeWorkerWakeUp ceWorkerWakeUp) {
+    this.hazelcastClientWrapper = hazelcastClientWrapper;
+    this.ceWorkerWakeUp = ceWorkerWakeUp;
+  }
+
+  @Override
+  public void start() {
+    String localUuid = hazelcastClientWrapper.getClientUUID();
+    this.registrationId = hazelcastClientWrapper.<String>subscribe(CE_WORKERS_WAKE_UP, senderUuid -> {
+      // wake ups of this Compute Engine have already been processed
+      if (!localUuid.equals(senderUuid)) {
+        ceWorkerWakeUp.wakeUpLocally();
+      }
+    });
+    ceWorkerWakeUp.addPropagator(propagator);
+  }
+
+  private void publish() {
+    hazelcastClientWrapper.publish(CE_WORKERS_WAKE_UP, hazelcastClientWrapper.getClientUUID());
+  }
+
+  @Override
+  public void stop() {
+    ceWorkerWakeUp.removePropagator(propagator);
+    if (registrationId != null) {
+      hazelcastClientWrapper.unsubscribe(CE_WORKERS_WAKE_UP, registrationId);
+      registrationId = null;
+    }
+  }
+}
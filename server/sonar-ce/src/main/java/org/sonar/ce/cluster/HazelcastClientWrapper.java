@@ -24,6 +24,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
 
 /**
  * The interface Hazelcast client wrapper.
@@ -66,4 +67,21 @@ public interface HazelcastClientWrapper {
    * Gets lock among the cluster, identified by name
    */
   Lock getLock(String name);
+
+  /**
+   * Publishes a message to all the subscribers of the topic identified by name
+   */
+  <E> void publish(String topicName, E message);
+
+  /**
+   * Subscribes to the topic identified by name
+   *
+   * @return the id of the registration, to be used to unsubscribe
+   */
+  <E> String subscribe(String topicName, Consumer<E> listener);
+
+  /**
+   * Cancels a subscription to the topic identified by name
+   */
+  void unsubscribe(String topicName, String registrationId);
 }
@@ -43,6 +43,7 @@ import org.sonar.ce.CeConfigurationModule;
 import org.sonar.ce.CeDistributedInformationImpl;
 import org.sonar.ce.CeHttpModule;
 import org.sonar.ce.CeQueueModule;
+import org.sonar.ce.ClusteredCeWorkerWakeUp;
 import org.sonar.ce.CeTaskCommonsModule;
 import org.sonar.ce.StandaloneCeDistributedInformation;
 import org.sonar.ce.cleaning.CeCleaningModule;
@@ -68,6 +69,7 @@ import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DaoModule;
 import org.sonar.db.DatabaseChecker;
 import org.sonar.db.DbClient;
+import org.sonar.db.DbRowCounters;
 import org.sonar.db.DefaultDatabase;
 import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.process.Props;
@@ -76,6 +78,9 @@ import org.sonar.server.component.ComponentCleanerService;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.component.index.ComponentIndexer;
 import org.sonar.server.computation.task.projectanalysis.ProjectAnalysisTaskModule;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookCallerImpl;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStorage;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDispatcher;
 import org.sonar.server.debt.DebtModelPluginRepository;
 import org.sonar.server.debt.DebtRulesXMLImporter;
 import org.sonar.server.event.NewAlerts;
@@ -121,6 +126,7 @@ import org.sonar.server.platform.UrlSettings;
 import org.sonar.server.platform.cluster.ClusterImpl;
 import org.sonar.server.platform.db.migration.MigrationConfigurationModule;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
+import org.sonar.server.platform.monitoring.EsBulkMonitor;
 import org.sonar.server.plugins.InstalledPluginReferentialFactory;
 import org.sonar.server.plugins.ServerExtensionInstaller;
 import org.sonar.server.plugins.privileged.PrivilegedPluginsBootstraper;
@@ -138,6 +144,7 @@ import org.sonar.server.setting.DatabaseSettingsEnabler;
 import org.sonar.server.setting.ThreadLocalSettings;
 import org.sonar.server.startup.LogServerId;
 import org.sonar.server.test.index.TestIndexer;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.DefaultUserFinder;
 import org.sonar.server.user.DeprecatedUserFinder;
 import org.sonar.server.user.index.UserIndex;
@@ -181,7 +188,8 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
     if (props.valueAsBoolean("sonar.cluster.enabled")) {
       this.level4.add(
         HazelcastClientWrapperImpl.class,
-        CeDistributedInformationImpl.class
+        CeDistributedInformationImpl.class,
+        ClusteredCeWorkerWakeUp.class
       );
     } else {
       this.level4.add(
@@ -236,6 +244,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       // must instantiate deprecated class in 5.2 and only this one (and not its replacement)
       // to avoid having two SqlSessionFactory instances
       org.sonar.core.persistence.MyBatis.class,
+      DbRowCounters.class,
       PurgeProfiler.class,
       ServerFileSystemImpl.class,
       new TempFolderProvider(),
@@ -343,6 +352,7 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       PermissionUpdater.class,
       UserPermissionChanger.class,
       GroupPermissionChanger.class,
+      AuthorizationCache.class,
 
       // components
       ComponentFinder.class, // used in ComponentService
@@ -390,8 +400,14 @@ public class ComputeEngineContainerImpl implements ComputeEngineContainer {
       // Tests
       TestIndexer.class,
 
+      // Webhooks
+      WebhookCallerImpl.class,
+      WebhookDeliveryStorage.class,
+      WebhookDispatcher.class,
+
       // System
       ServerLogging.class,
+      EsBulkMonitor.class,
 
       // privileged plugins
       PrivilegedPluginsBootstraper.class,
@@ -19,6 +19,8 @@
  */
 package org.sonar.ce.monitoring;
 
+import java.util.Map;
+
 public interface CeTasksMBean {
 
   String OBJECT_NAME = "SonarQube:name=ComputeEngineTasks";
@@ -52,4 +54,29 @@ public interface CeTasksMBean {
    * Configured number of Workers.
    */
   int getWorkerCount();
+
+  /**
+   * Cumulative time spent in each computation step since startup, in milliseconds, by step description.
+   */
+  Map<String, Long> getStepsProcessingTime();
+
+  /**
+   * Maximum heap usage measured while processing reports since startup, in bytes.
+   */
+  long getPeakHeapUsage();
+
+  /**
+   * Count of database rows read while processing reports since startup.
+   */
+  long getDbRowsRead();
+
+  /**
+   * Count of database rows written while processing reports since startup.
+   */
+  long getDbRowsWritten();
+
+  /**
+   * Count of Elasticsearch documents indexed while processing reports since startup.
+   */
+  long getEsDocumentsIndexed();
 }
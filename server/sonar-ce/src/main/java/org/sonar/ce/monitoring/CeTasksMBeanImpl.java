@@ -19,19 +19,23 @@
  */
 package org.sonar.ce.monitoring;
 
+import java.util.Map;
 import org.picocontainer.Startable;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.server.computation.task.profile.TaskProfilesStatistics;
 
 public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSection {
   private final CEQueueStatus queueStatus;
   private final CeConfiguration ceConfiguration;
+  private final TaskProfilesStatistics taskProfilesStatistics;
 
-  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration) {
+  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration, TaskProfilesStatistics taskProfilesStatistics) {
     this.queueStatus = queueStatus;
     this.ceConfiguration = ceConfiguration;
+    this.taskProfilesStatistics = taskProfilesStatistics;
   }
 
   @Override
@@ -77,6 +81,31 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return ceConfiguration.getWorkerCount();
   }
 
+  @Override
+  public Map<String, Long> getStepsProcessingTime() {
+    return taskProfilesStatistics.getStepDurations();
+  }
+
+  @Override
+  public long getPeakHeapUsage() {
+    return taskProfilesStatistics.getMaxPeakHeapBytes();
+  }
+
+  @Override
+  public long getDbRowsRead() {
+    return taskProfilesStatistics.getDbRowsRead();
+  }
+
+  @Override
+  public long getDbRowsWritten() {
+    return taskProfilesStatistics.getDbRowsWritten();
+  }
+
+  @Override
+  public long getEsDocumentsIndexed() {
+    return taskProfilesStatistics.getEsDocumentsIndexed();
+  }
+
   @Override
   public ProtobufSystemInfo.Section toProtobuf() {
     ProtobufSystemInfo.Section.Builder builder = ProtobufSystemInfo.Section.newBuilder();
@@ -87,6 +116,10 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
+    builder.addAttributesBuilder().setKey("Peak Heap Usage (bytes)").setLongValue(getPeakHeapUsage()).build();
+    builder.addAttributesBuilder().setKey("Database Rows Read").setLongValue(getDbRowsRead()).build();
+    builder.addAttributesBuilder().setKey("Database Rows Written").setLongValue(getDbRowsWritten()).build();
+    builder.addAttributesBuilder().setKey("Elasticsearch Documents Indexed").setLongValue(getEsDocumentsIndexed()).build();
     return builder.build();
   }
 }
@@ -61,7 +61,12 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
     DefaultOrganizationProvider defaultOrganizationProvider) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    this(system2, dbClient, uuidFactory, queueStatus, defaultOrganizationProvider, new CeQueueListener[0]);
+  }
+
+  public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
+    DefaultOrganizationProvider defaultOrganizationProvider, CeQueueListener[] listeners) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, listeners);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
@@ -108,6 +113,8 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       updateError(activityDto, error);
       remove(dbSession, queueDto.get(), activityDto);
     }
+    // pending tasks of the same component can now be processed
+    notifyListeners();
   }
 
   private static void updateTaskResult(CeActivityDto activityDto, @Nullable CeTaskResult taskResult) {
@@ -19,10 +19,12 @@
  */
 package org.sonar.ce.taskprocessor;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -32,21 +34,27 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.ce.configuration.CeConfiguration;
 
-import static com.google.common.util.concurrent.Futures.addCallback;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
+/**
+ * Chains the executions of the {@link CeWorker}s. A worker which found a task to process is run again immediately,
+ * otherwise it is run again either once {@link CeWorkerWakeUp} signals that a task may be available or, as a fallback,
+ * after {@link CeConfiguration#getQueuePollingDelay()}.
+ */
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
   private static final Logger LOG = Loggers.get(CeProcessingSchedulerImpl.class);
 
   private final CeProcessingSchedulerExecutorService executorService;
+  private final CeWorkerWakeUp ceWorkerWakeUp;
 
   private final long delayBetweenTasks;
   private final TimeUnit timeUnit;
   private final ChainingCallback[] chainingCallbacks;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
-    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory) {
+    CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerFactory ceCeWorkerFactory, CeWorkerWakeUp ceWorkerWakeUp) {
     this.executorService = processingExecutorService;
+    this.ceWorkerWakeUp = ceWorkerWakeUp;
 
     this.delayBetweenTasks = ceConfiguration.getQueuePollingDelay();
     this.timeUnit = MILLISECONDS;
@@ -67,8 +75,8 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   @Override
   public void startScheduling() {
     for (ChainingCallback chainingCallback : chainingCallbacks) {
-      ListenableScheduledFuture<Boolean> future = executorService.schedule(chainingCallback.worker, delayBetweenTasks, timeUnit);
-      addCallback(future, chainingCallback, executorService);
+      ceWorkerWakeUp.addListener(chainingCallback.wakeUpListener);
+      chainingCallback.chainWithDelay();
     }
   }
 
@@ -82,9 +90,20 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   private class ChainingCallback implements FutureCallback<Boolean> {
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
     private final CeWorker worker;
+    private final Runnable wakeUpListener = this::wakeUp;
 
+    // fields below are guarded by this
     @CheckForNull
     private ListenableFuture<Boolean> workerFuture;
+    /**
+     * Generation of {@link CeWorkerWakeUp} when {@link #workerFuture} was created.
+     */
+    private long wakeUpGeneration;
+    /**
+     * Delayed execution of the worker run by {@link #workerFuture}, if any, which a wake up can preempt.
+     */
+    @CheckForNull
+    private DelayedExecution delayedExecution;
 
     public ChainingCallback(CeWorker worker) {
       this.worker = worker;
@@ -101,6 +120,10 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     @Override
     public void onFailure(Throwable t) {
+      if (t instanceof CancellationException) {
+        // delayed execution cancelled by a wake up or by stop, the worker has already been chained if required
+        return;
+      }
       if (t instanceof Error) {
         LOG.error("Compute Engine execution failed. Scheduled processing interrupted.", t);
       } else {
@@ -108,20 +131,39 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       }
     }
 
-    private void chainWithoutDelay() {
+    private synchronized void chainWithoutDelay() {
       if (keepRunning()) {
+        wakeUpGeneration = ceWorkerWakeUp.getGeneration();
+        delayedExecution = null;
         workerFuture = executorService.submit(worker);
       }
       addCallback();
     }
 
-    private void chainWithDelay() {
+    private synchronized void chainWithDelay() {
+      if (keepRunning() && wakeUpGeneration != ceWorkerWakeUp.getGeneration()) {
+        // woken up while the worker was running: a task may have been submitted after the worker polled the queue
+        chainWithoutDelay();
+        return;
+      }
       if (keepRunning()) {
-        workerFuture = executorService.schedule(worker, delayBetweenTasks, timeUnit);
+        delayedExecution = new DelayedExecution(worker);
+        workerFuture = executorService.schedule(delayedExecution, delayBetweenTasks, timeUnit);
       }
       addCallback();
     }
 
+    /**
+     * Runs the worker immediately if it is waiting for its delayed execution. If the worker is currently running,
+     * it will be run again immediately thanks to the change of generation of {@link CeWorkerWakeUp}.
+     */
+    private synchronized void wakeUp() {
+      if (keepRunning() && delayedExecution != null && workerFuture != null && delayedExecution.preempt()) {
+        workerFuture.cancel(false);
+        chainWithoutDelay();
+      }
+    }
+
     private void addCallback() {
       if (workerFuture != null && keepRunning()) {
         Futures.addCallback(workerFuture, this, executorService);
@@ -134,9 +176,49 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     public void stop() {
       this.keepRunning.set(false);
-      if (workerFuture != null) {
-        workerFuture.cancel(false);
+      ceWorkerWakeUp.removeListener(wakeUpListener);
+      synchronized (this) {
+        if (workerFuture != null) {
+          workerFuture.cancel(false);
+        }
+      }
+    }
+  }
+
+  /**
+   * Delayed execution of a {@link CeWorker} which does not run the worker if it has been preempted by a wake up.
+   * <p>
+   * Cancelling the future of the execution is not enough as cancellation succeeds even when the execution has
+   * already started.
+   * </p>
+   */
+  @VisibleForTesting
+  static final class DelayedExecution implements Callable<Boolean> {
+    private final CeWorker worker;
+    private final AtomicBoolean started = new AtomicBoolean(false);
+
+    private DelayedExecution(CeWorker worker) {
+      this.worker = worker;
+    }
+
+    CeWorker getWorker() {
+      return worker;
+    }
+
+    /**
+     * @return {@code false} if the execution has already started
+     */
+    private boolean preempt() {
+      return started.compareAndSet(false, true);
+    }
+
+    @Override
+    public Boolean call() throws Exception {
+      if (!started.compareAndSet(false, true)) {
+        // preempted by a wake up, the future of this execution has been cancelled
+        return false;
       }
+      return worker.call();
     }
   }
 }
@@ -28,6 +28,7 @@ public class CeTaskProcessorModule extends Module {
       CeTaskProcessorRepositoryImpl.class,
       CeWorkerFactoryImpl.class,
       CeProcessingSchedulerExecutorServiceImpl.class,
+      CeWorkerWakeUp.class,
       CeProcessingSchedulerImpl.class);
   }
 }
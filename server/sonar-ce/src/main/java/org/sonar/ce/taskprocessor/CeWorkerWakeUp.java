@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueueListener;
+
+/**
+ * Signal used to wake up the idle {@link CeWorker}s as soon as a change of the queue may have made a task available
+ * to them, rather than having them wait for the next polling of the queue.
+ * <p>
+ * Each wake up increments a generation number, which allows a worker to find out whether it has been woken up while
+ * it was busy polling the queue.
+ * </p>
+ * <p>
+ * Wake ups from changes of the queue made by this Compute Engine are also propagated to the other Compute Engines of
+ * the cluster, if any, through the registered propagators.
+ * </p>
+ */
+public class CeWorkerWakeUp implements CeQueueListener {
+  private static final Logger LOG = Loggers.get(CeWorkerWakeUp.class);
+
+  private final AtomicLong generation = new AtomicLong();
+  private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+  private final List<Runnable> propagators = new CopyOnWriteArrayList<>();
+
+  public long getGeneration() {
+    return generation.get();
+  }
+
+  /**
+   * Registers a listener called each time the workers of this Compute Engine are woken up.
+   */
+  public void addListener(Runnable listener) {
+    listeners.add(listener);
+  }
+
+  public void removeListener(Runnable listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Registers a propagator called each time the workers of this Compute Engine are woken up by a local change, in
+   * charge of waking up the workers of the other Compute Engines.
+   */
+  public void addPropagator(Runnable propagator) {
+    propagators.add(propagator);
+  }
+
+  public void removePropagator(Runnable propagator) {
+    propagators.remove(propagator);
+  }
+
+  @Override
+  public void onQueueChange() {
+    wakeUp();
+  }
+
+  /**
+   * Wakes up the workers of this Compute Engine and of the other Compute Engines of the cluster.
+   */
+  public void wakeUp() {
+    wakeUpLocally();
+    propagators.forEach(CeWorkerWakeUp::safelyRun);
+  }
+
+  /**
+   * Wakes up the workers of this Compute Engine only.
+   */
+  public void wakeUpLocally() {
+    generation.incrementAndGet();
+    listeners.forEach(CeWorkerWakeUp::safelyRun);
+  }
+
+  private static void safelyRun(Runnable runnable) {
+    try {
+      runnable.run();
+    } catch (RuntimeException e) {
+      LOG.warn("Failed to wake up Compute Engine workers", e);
+    }
+  }
+}
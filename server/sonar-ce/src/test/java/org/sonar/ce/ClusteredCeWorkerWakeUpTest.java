@@ -0,0 +1,96 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce;
+
+import java.util.function.Consumer;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.ce.cluster.HazelcastClientWrapper;
+import org.sonar.ce.taskprocessor.CeWorkerWakeUp;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.process.cluster.ClusterObjectKeys.CE_WORKERS_WAKE_UP;
+
+public class ClusteredCeWorkerWakeUpTest {
+  private static final String LOCAL_UUID = "local";
+  private static final String REGISTRATION_ID = "registration";
+
+  private HazelcastClientWrapper hzClientWrapper = mock(HazelcastClientWrapper.class);
+  private CeWorkerWakeUp ceWorkerWakeUp = spy(new CeWorkerWakeUp());
+  private ClusteredCeWorkerWakeUp underTest = new ClusteredCeWorkerWakeUp(hzClientWrapper, ceWorkerWakeUp);
+
+  @Test
+  public void local_wake_up_is_published_to_the_cluster() {
+    startUnderTest();
+
+    ceWorkerWakeUp.wakeUp();
+
+    verify(hzClientWrapper).publish(CE_WORKERS_WAKE_UP, LOCAL_UUID);
+  }
+
+  @Test
+  public void wake_up_of_another_Compute_Engine_wakes_up_local_workers_only() {
+    Consumer<String> listener = startUnderTest();
+
+    listener.accept("other");
+
+    verify(ceWorkerWakeUp).wakeUpLocally();
+    verify(hzClientWrapper, never()).publish(anyString(), any());
+  }
+
+  @Test
+  public void wake_up_published_by_this_Compute_Engine_is_ignored() {
+    Consumer<String> listener = startUnderTest();
+
+    listener.accept(LOCAL_UUID);
+
+    verify(ceWorkerWakeUp, never()).wakeUpLocally();
+  }
+
+  @Test
+  public void stop_unsubscribes_and_stops_publishing() {
+    startUnderTest();
+
+    underTest.stop();
+    ceWorkerWakeUp.wakeUp();
+
+    verify(hzClientWrapper).unsubscribe(CE_WORKERS_WAKE_UP, REGISTRATION_ID);
+    verify(hzClientWrapper, never()).publish(anyString(), any());
+  }
+
+  @SuppressWarnings("unchecked")
+  private Consumer<String> startUnderTest() {
+    when(hzClientWrapper.getClientUUID()).thenReturn(LOCAL_UUID);
+    when(hzClientWrapper.subscribe(eq(CE_WORKERS_WAKE_UP), any(Consumer.class))).thenReturn(REGISTRATION_ID);
+
+    underTest.start();
+
+    ArgumentCaptor<Consumer> listenerCaptor = ArgumentCaptor.forClass(Consumer.class);
+    verify(hzClientWrapper).subscribe(eq(CE_WORKERS_WAKE_UP), listenerCaptor.capture());
+    return listenerCaptor.getValue();
+  }
+}
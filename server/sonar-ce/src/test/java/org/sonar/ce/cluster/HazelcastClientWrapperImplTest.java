@@ -36,6 +36,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 import org.apache.commons.lang.RandomStringUtils;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -235,6 +238,24 @@ public class HazelcastClientWrapperImplTest {
     }
   }
 
+  @Test
+  public void client_must_receive_messages_published_on_subscribed_topic() throws InterruptedException {
+    try {
+      hzClient.start();
+
+      BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+      String registrationId = hzClient.<String>subscribe("TOPIC1", messages::add);
+      hzClient.publish("TOPIC1", "foo");
+      assertThat(messages.poll(30, TimeUnit.SECONDS)).isEqualTo("foo");
+
+      hzClient.unsubscribe("TOPIC1", registrationId);
+      hzClient.publish("TOPIC1", "bar");
+      assertThat(messages.poll(500, TimeUnit.MILLISECONDS)).isNull();
+    } finally {
+      hzClient.stop();
+    }
+  }
+
   @Test
   public void configuration_tweaks_of_hazelcast_must_be_present() {
     try {
@@ -28,6 +28,7 @@ import static com.google.common.base.Preconditions.checkArgument;
  */
 public class CeConfigurationRule extends ExternalResource implements CeConfiguration {
   private int workerCount = 1;
+  private int computationStepThreadCount = 1;
   private long queuePollingDelay = 2 * 1000L;
   private long cancelWornOutsInitialDelay = 1L;
   private long cancelWornOutsDelay = 10L;
@@ -43,6 +44,17 @@ public class CeConfigurationRule extends ExternalResource implements CeConfigura
     return this;
   }
 
+  @Override
+  public int getComputationStepThreadCount() {
+    return computationStepThreadCount;
+  }
+
+  public CeConfigurationRule setComputationStepThreadCount(int computationStepThreadCount) {
+    checkArgument(computationStepThreadCount >= 1, "computation step thread count must be >= 1");
+    this.computationStepThreadCount = computationStepThreadCount;
+    return this;
+  }
+
   @Override
   public long getQueuePollingDelay() {
     return queuePollingDelay;
@@ -37,6 +37,7 @@ import org.sonar.api.database.DatabaseProperties;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.ce.CeDistributedInformationImpl;
+import org.sonar.ce.ClusteredCeWorkerWakeUp;
 import org.sonar.ce.StandaloneCeDistributedInformation;
 import org.sonar.ce.cluster.HazelcastClientWrapperImpl;
 import org.sonar.ce.cluster.HazelcastTestHelper;
@@ -94,7 +95,7 @@ public class ComputeEngineContainerImplTest {
       picoContainer.getComponentAdapters().stream()
         .map(ComponentAdapter::getComponentImplementation)
         .collect(Collectors.toList())).contains((Class) HazelcastClientWrapperImpl.class,
-          (Class) CeDistributedInformationImpl.class);
+          (Class) CeDistributedInformationImpl.class, (Class) ClusteredCeWorkerWakeUp.class);
     underTest.stop();
   }
 
@@ -113,13 +114,13 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getComponentAdapters())
       .hasSize(
         CONTAINER_ITSELF
-          + 73 // level 4
+          + 78 // level 4
           + 4 // content of CeConfigurationModule
           + 4 // content of CeQueueModule
-          + 3 // content of CeHttpModule
+          + 4 // content of CeHttpModule
           + 3 // content of CeTaskCommonsModule
-          + 4 // content of ProjectAnalysisTaskModule
-          + 4 // content of CeTaskProcessorModule
+          + 5 // content of ProjectAnalysisTaskModule
+          + 5 // content of CeTaskProcessorModule
           + 3 // CeCleaningModule + its content
           + 1 // CeDistributedInformation
     );
@@ -129,14 +130,14 @@ public class ComputeEngineContainerImplTest {
     );
     assertThat(picoContainer.getParent().getParent().getComponentAdapters()).hasSize(
       CONTAINER_ITSELF
-        + 10 // MigrationConfigurationModule
+        + 11 // MigrationConfigurationModule
         + 17 // level 2
     );
     assertThat(picoContainer.getParent().getParent().getParent().getComponentAdapters()).hasSize(
       COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
-        + 23 // level 1
-        + 46 // content of DaoModule
-        + 3 // content of EsSearchModule
+        + 24 // level 1
+        + 47 // content of DaoModule
+        + 4 // content of EsSearchModule
         + 56 // content of CorePropertyDefinitions
     );
     assertThat(
@@ -27,8 +27,11 @@ import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
+import org.sonar.server.computation.task.profile.TaskProfile;
+import org.sonar.server.computation.task.profile.TaskProfilesStatistics;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
 
 public class CeTasksMBeanImplTest {
   private static final long PENDING_COUNT = 2;
@@ -38,7 +41,8 @@ public class CeTasksMBeanImplTest {
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_COUNT = 56;
 
-  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
+  private TaskProfilesStatistics taskProfilesStatistics = new TaskProfilesStatistics();
+  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration(), taskProfilesStatistics);
 
   @Test
   public void register_and_unregister() throws Exception {
@@ -65,11 +69,28 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getWorkerCount()).isEqualTo(WORKER_COUNT);
   }
 
+  @Test
+  public void profile_methods_delegate_to_the_TaskProfilesStatistics_instance() {
+    taskProfilesStatistics.add(TaskProfile.builder()
+      .addStep("step A", 10L)
+      .setPeakHeapBytes(500L)
+      .setDbRowsRead(1L)
+      .setDbRowsWritten(2L)
+      .setEsDocumentsIndexed(3L)
+      .build());
+
+    assertThat(underTest.getStepsProcessingTime()).containsExactly(entry("step A", 10L));
+    assertThat(underTest.getPeakHeapUsage()).isEqualTo(500L);
+    assertThat(underTest.getDbRowsRead()).isEqualTo(1L);
+    assertThat(underTest.getDbRowsWritten()).isEqualTo(2L);
+    assertThat(underTest.getEsDocumentsIndexed()).isEqualTo(3L);
+  }
+
   @Test
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(6);
+    assertThat(section.getAttributesCount()).isEqualTo(10);
   }
 
   /**
@@ -129,6 +150,11 @@ public class CeTasksMBeanImplTest {
       return WORKER_COUNT;
     }
 
+    @Override
+    public int getComputationStepThreadCount() {
+      throw new UnsupportedOperationException("getComputationStepThreadCount is not implemented");
+    }
+
     @Override
     public long getQueuePollingDelay() {
       throw new UnsupportedOperationException("getQueuePollingDelay is not implemented");
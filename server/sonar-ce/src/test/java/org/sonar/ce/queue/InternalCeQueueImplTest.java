@@ -52,6 +52,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class InternalCeQueueImplTest {
@@ -205,6 +207,22 @@ public class InternalCeQueueImplTest {
     assertThat(history.get().getAnalysisUuid()).isNull();
   }
 
+  @Test
+  public void submit_and_remove_notify_listeners() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider,
+      new CeQueueListener[] {listener});
+
+    underTest.submit(underTest.prepareSubmit().setType(CeTaskTypes.REPORT).setComponentUuid("PROJECT_1").build());
+    verify(listener).onQueueChange();
+
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+    verify(listener).onQueueChange();
+
+    underTest.remove(peek.get(), CeActivityDto.Status.SUCCESS, null, null);
+    verify(listener, times(2)).onQueueChange();
+  }
+
   @Test
   public void remove_sets_analysisUuid_in_CeActivity_when_CeTaskResult_has_analysis_uuid() {
     CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
@@ -52,6 +52,21 @@ public class PurgeCeActivitiesTest {
     assertThat(dbTester.getDbClient().ceActivityDao().selectByUuid(dbTester.getSession(), "RECENT").isPresent()).isTrue();
   }
 
+  @Test
+  public void delete_profiles_of_tasks_older_than_6_months() throws Exception {
+    insertWithDate("VERY_OLD", 1_000_000_000_000L);
+    insertWithDate("RECENT", 1_500_000_000_000L);
+    dbTester.getDbClient().ceTaskProfileDao().insert(dbTester.getSession(), "VERY_OLD", "{}");
+    dbTester.getDbClient().ceTaskProfileDao().insert(dbTester.getSession(), "RECENT", "{}");
+    dbTester.commit();
+    when(system2.now()).thenReturn(1_500_000_000_100L);
+
+    underTest.start();
+
+    assertThat(dbTester.getDbClient().ceTaskProfileDao().selectProfile(dbTester.getSession(), "VERY_OLD").isPresent()).isFalse();
+    assertThat(dbTester.getDbClient().ceTaskProfileDao().selectProfile(dbTester.getSession(), "RECENT").isPresent()).isTrue();
+  }
+
   private void insertWithDate(String uuid, long date) {
     CeQueueDto queueDto = new CeQueueDto();
     queueDto.setUuid(uuid);
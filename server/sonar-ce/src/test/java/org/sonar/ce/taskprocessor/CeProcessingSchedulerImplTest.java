@@ -40,6 +40,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Collectors;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import org.junit.Rule;
@@ -47,6 +48,7 @@ import org.junit.Test;
 import org.junit.rules.DisableOnDebug;
 import org.junit.rules.TestRule;
 import org.junit.rules.Timeout;
+import org.mockito.ArgumentCaptor;
 import org.sonar.ce.configuration.CeConfigurationRule;
 
 import static com.google.common.collect.ImmutableList.copyOf;
@@ -56,6 +58,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -76,7 +79,10 @@ public class CeProcessingSchedulerImplTest {
   private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorker, 2000L, MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorker);
 
-  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory);
+  private CeWorkerWakeUp ceWorkerWakeUp = new CeWorkerWakeUp();
+  private CeProcessingSchedulerExecutorService mockedExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+
+  private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, ceWorkerWakeUp);
 
   @Test
   public void polls_without_delay_when_CeWorkerCallable_returns_true() throws Exception {
@@ -120,6 +126,77 @@ public class CeProcessingSchedulerImplTest {
       );
   }
 
+  @Test
+  public void wake_up_runs_CeWorkerCallable_waiting_for_delayed_poll_without_delay() throws Exception {
+    when(ceWorker.call())
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    ceWorkerWakeUp.wakeUp();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll
+      );
+    verify(ceWorker, times(2)).call();
+  }
+
+  @Test
+  public void wake_up_while_CeWorkerCallable_is_running_makes_next_poll_without_delay() throws Exception {
+    when(ceWorker.call())
+      .thenAnswer(invocation -> {
+        ceWorkerWakeUp.wakeUp();
+        return false;
+      })
+      .thenReturn(false)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    startSchedulingAndRun();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      regularDelayedPoll,
+      notDelayedPoll,
+      regularDelayedPoll
+      );
+    verify(ceWorker, times(3)).call();
+  }
+
+  @Test
+  public void delayed_poll_preempted_by_wake_up_does_not_call_CeWorkerCallable() throws Exception {
+    CeProcessingSchedulerImpl.DelayedExecution delayedExecution = captureDelayedExecution();
+
+    ceWorkerWakeUp.wakeUp();
+
+    verify(mockedExecutorService).submit(ceWorker);
+    assertThat(delayedExecution.call()).isFalse();
+    verify(ceWorker, never()).call();
+  }
+
+  @Test
+  public void wake_up_does_not_preempt_delayed_poll_already_running() throws Exception {
+    when(ceWorker.call()).thenReturn(false);
+    CeProcessingSchedulerImpl.DelayedExecution delayedExecution = captureDelayedExecution();
+
+    assertThat(delayedExecution.call()).isFalse();
+    ceWorkerWakeUp.wakeUp();
+
+    verify(ceWorker).call();
+    verify(mockedExecutorService, never()).submit(any(Callable.class));
+  }
+
+  @Test
+  public void wake_up_after_stop_does_not_poll() throws Exception {
+    underTest.startScheduling();
+    underTest.stop();
+
+    ceWorkerWakeUp.wakeUp();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(regularDelayedPoll);
+  }
+
   @Test
   public void startScheduling_schedules_CeWorkerCallable_at_fixed_rate_run_head_of_queue() throws Exception {
     when(ceWorker.call())
@@ -204,24 +281,34 @@ public class CeProcessingSchedulerImplTest {
 
     ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
-    when(processingExecutorService.schedule(any(CeWorker.class), any(Long.class),any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
+    when(processingExecutorService.schedule(any(Callable.class), any(Long.class),any(TimeUnit.class))).thenReturn(listenableScheduledFuture);
 
     CeWorkerFactory ceWorkerFactory = spy(new TestCeWorkerFactory(workers));
-    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory);
-    when(processingExecutorService.schedule(ceWorker, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerFactory, ceWorkerWakeUp);
+    when(processingExecutorService.schedule(any(Callable.class), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS)))
         .thenReturn(listenableScheduledFuture);
 
     underTest.startScheduling();
     // No exception from TestCeWorkerFactory must be thrown
 
     // Verify that schedule has been called on all workers
-    for (int i = 0; i < workerCount; i++) {
-      verify(processingExecutorService).schedule(workers[i], ceConfiguration.getQueuePollingDelay(), MILLISECONDS);
-    }
+    ArgumentCaptor<Callable> scheduledCaptor = ArgumentCaptor.forClass(Callable.class);
+    verify(processingExecutorService, times(workerCount)).schedule(scheduledCaptor.capture(), eq(ceConfiguration.getQueuePollingDelay()), eq(MILLISECONDS));
+    assertThat(scheduledCaptor.getAllValues().stream().map(SchedulerCall::unwrap).collect(Collectors.toList())).containsExactly(workers);
     verify(listenableScheduledFuture, times(workerCount)).addListener(any(Runnable.class), eq(processingExecutorService));
     verify(ceWorkerFactory, times(workerCount)).create();
   }
 
+  private CeProcessingSchedulerImpl.DelayedExecution captureDelayedExecution() {
+    when(mockedExecutorService.schedule(any(Callable.class), any(Long.class), any(TimeUnit.class))).thenReturn(mock(ListenableScheduledFuture.class));
+    when(mockedExecutorService.submit(any(Callable.class))).thenReturn(mock(ListenableFuture.class));
+    new CeProcessingSchedulerImpl(ceConfiguration, mockedExecutorService, new TestCeWorkerFactory(ceWorker), ceWorkerWakeUp).startScheduling();
+
+    ArgumentCaptor<Callable> scheduledCaptor = ArgumentCaptor.forClass(Callable.class);
+    verify(mockedExecutorService).schedule(scheduledCaptor.capture(), any(Long.class), any(TimeUnit.class));
+    return (CeProcessingSchedulerImpl.DelayedExecution) scheduledCaptor.getValue();
+  }
+
   private void startSchedulingAndRun() throws ExecutionException, InterruptedException {
     underTest.startScheduling();
 
@@ -543,13 +630,20 @@ public class CeProcessingSchedulerImplTest {
     private final TimeUnit unit;
 
     private SchedulerCall(Callable<?> callable, long delay, TimeUnit unit) {
-      this.callable = callable;
+      this.callable = unwrap(callable);
       this.delay = delay;
       this.unit = unit;
     }
 
+    private static Callable<?> unwrap(Callable<?> callable) {
+      if (callable instanceof CeProcessingSchedulerImpl.DelayedExecution) {
+        return ((CeProcessingSchedulerImpl.DelayedExecution) callable).getWorker();
+      }
+      return callable;
+    }
+
     private SchedulerCall(Callable<?> callable) {
-      this.callable = callable;
+      this.callable = unwrap(callable);
       this.delay = -63366;
       this.unit = TimeUnit.NANOSECONDS;
     }
@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.taskprocessor;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CeWorkerWakeUpTest {
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private AtomicInteger listenerCalls = new AtomicInteger();
+  private AtomicInteger propagatorCalls = new AtomicInteger();
+  private Runnable listener = listenerCalls::incrementAndGet;
+  private Runnable propagator = propagatorCalls::incrementAndGet;
+  private CeWorkerWakeUp underTest = new CeWorkerWakeUp();
+
+  @Test
+  public void wakeUp_increments_generation_and_calls_listeners_and_propagators() {
+    underTest.addListener(listener);
+    underTest.addPropagator(propagator);
+    long generation = underTest.getGeneration();
+
+    underTest.wakeUp();
+
+    assertThat(underTest.getGeneration()).isEqualTo(generation + 1);
+    assertThat(listenerCalls.get()).isEqualTo(1);
+    assertThat(propagatorCalls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void wakeUpLocally_does_not_call_propagators() {
+    underTest.addListener(listener);
+    underTest.addPropagator(propagator);
+    long generation = underTest.getGeneration();
+
+    underTest.wakeUpLocally();
+
+    assertThat(underTest.getGeneration()).isEqualTo(generation + 1);
+    assertThat(listenerCalls.get()).isEqualTo(1);
+    assertThat(propagatorCalls.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void onQueueChange_wakes_up_workers() {
+    underTest.addListener(listener);
+    underTest.addPropagator(propagator);
+
+    underTest.onQueueChange();
+
+    assertThat(listenerCalls.get()).isEqualTo(1);
+    assertThat(propagatorCalls.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void removed_listeners_and_propagators_are_not_called() {
+    underTest.addListener(listener);
+    underTest.addPropagator(propagator);
+    underTest.removeListener(listener);
+    underTest.removePropagator(propagator);
+
+    underTest.wakeUp();
+
+    assertThat(listenerCalls.get()).isEqualTo(0);
+    assertThat(propagatorCalls.get()).isEqualTo(0);
+  }
+
+  @Test
+  public void failure_of_a_listener_does_not_prevent_other_listeners_from_being_called() {
+    underTest.addListener(() -> {
+      throw new IllegalStateException("faking a failing listener");
+    });
+    underTest.addListener(listener);
+    underTest.addPropagator(() -> {
+      throw new IllegalStateException("faking a failing propagator");
+    });
+    underTest.addPropagator(propagator);
+
+    underTest.wakeUp();
+
+    assertThat(listenerCalls.get()).isEqualTo(1);
+    assertThat(propagatorCalls.get()).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.WARN)).containsOnly("Failed to wake up Compute Engine workers");
+  }
+}
@@ -53,6 +53,7 @@ public final class SqTables {
     "ce_queue",
     "ce_task_input",
     "ce_scanner_context",
+    "ce_task_profile",
     "duplications_index",
     "events",
     "file_sources",
@@ -20,6 +20,7 @@
 package org.sonar.core.persistence;
 
 import org.sonar.db.Database;
+import org.sonar.db.DbRowCounters;
 
 /**
  * Kept for backward compatibility of plugins/libs (like sonar-license) that are directly calling classes from the core
@@ -33,4 +34,8 @@ public class MyBatis extends org.sonar.db.MyBatis {
     super(database);
   }
 
+  public MyBatis(Database database, DbRowCounters rowCounters) {
+    super(database, rowCounters);
+  }
+
 }
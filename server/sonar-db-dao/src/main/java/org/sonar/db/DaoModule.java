@@ -26,6 +26,7 @@ import org.sonar.db.ce.CeActivityDao;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeScannerContextDao;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.db.ce.CeTaskProfileDao;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.db.component.ComponentLinkDao;
@@ -81,6 +82,7 @@ public class DaoModule extends Module {
     CeQueueDao.class,
     CeScannerContextDao.class,
     CeTaskInputDao.class,
+    CeTaskProfileDao.class,
     ComponentDao.class,
     ComponentKeyUpdaterDao.class,
     ComponentLinkDao.class,
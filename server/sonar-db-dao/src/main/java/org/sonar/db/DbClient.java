@@ -25,6 +25,7 @@ import org.sonar.db.ce.CeActivityDao;
 import org.sonar.db.ce.CeQueueDao;
 import org.sonar.db.ce.CeScannerContextDao;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.db.ce.CeTaskProfileDao;
 import org.sonar.db.component.ComponentDao;
 import org.sonar.db.component.ComponentKeyUpdaterDao;
 import org.sonar.db.component.ComponentLinkDao;
@@ -99,6 +100,7 @@ public class DbClient {
   private final CeQueueDao ceQueueDao;
   private final CeTaskInputDao ceTaskInputDao;
   private final CeScannerContextDao ceScannerContextDao;
+  private final CeTaskProfileDao ceTaskProfileDao;
   private final FileSourceDao fileSourceDao;
   private final AuthorDao authorDao;
   private final ComponentLinkDao componentLinkDao;
@@ -154,6 +156,7 @@ public class DbClient {
     ceQueueDao = getDao(map, CeQueueDao.class);
     ceTaskInputDao = getDao(map, CeTaskInputDao.class);
     ceScannerContextDao = getDao(map, CeScannerContextDao.class);
+    ceTaskProfileDao = getDao(map, CeTaskProfileDao.class);
     fileSourceDao = getDao(map, FileSourceDao.class);
     authorDao = getDao(map, AuthorDao.class);
     componentLinkDao = getDao(map, ComponentLinkDao.class);
@@ -291,6 +294,10 @@ public class DbClient {
     return ceScannerContextDao;
   }
 
+  public CeTaskProfileDao ceTaskProfileDao() {
+    return ceTaskProfileDao;
+  }
+
   public FileSourceDao fileSourceDao() {
     return fileSourceDao;
   }
@@ -0,0 +1,115 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.List;
+import java.util.Properties;
+import org.apache.ibatis.executor.BatchExecutor;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * Feeds {@link DbRowCounters} with the number of rows returned by selects, including the ones streamed to a
+ * {@link ResultHandler}, and with the number of rows affected by inserts, updates and deletes. The counters
+ * bound to the current thread, if any, are fed too.
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}),
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class})
+})
+class DbRowCountInterceptor implements Interceptor {
+
+  private final DbRowCounters counters;
+
+  DbRowCountInterceptor(DbRowCounters counters) {
+    this.counters = counters;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    if ("update".equals(invocation.getMethod().getName())) {
+      int affectedRows = (int) invocation.proceed();
+      // statements of batch sessions are executed on flush, count one row per statement
+      onRowsWritten(counters, affectedRows == BatchExecutor.BATCH_UPDATE_RETURN_VALUE ? 1 : Math.max(affectedRows, 0));
+      return affectedRows;
+    }
+    Object[] args = invocation.getArgs();
+    ResultHandler handler = (ResultHandler) args[3];
+    if (handler != null) {
+      args[3] = new CountingResultHandler(handler, counters);
+      return invocation.proceed();
+    }
+    Object result = invocation.proceed();
+    if (result instanceof List) {
+      onRowsRead(counters, ((List) result).size());
+    }
+    return result;
+  }
+
+  private static void onRowsRead(DbRowCounters counters, long count) {
+    counters.onRowsRead(count);
+    DbRowCounters threadCounters = DbRowCounters.boundToCurrentThread();
+    if (threadCounters != null && threadCounters != counters) {
+      threadCounters.onRowsRead(count);
+    }
+  }
+
+  private static void onRowsWritten(DbRowCounters counters, long count) {
+    counters.onRowsWritten(count);
+    DbRowCounters threadCounters = DbRowCounters.boundToCurrentThread();
+    if (threadCounters != null && threadCounters != counters) {
+      threadCounters.onRowsWritten(count);
+    }
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no properties
+  }
+
+  private static class CountingResultHandler implements ResultHandler {
+    private final ResultHandler delegate;
+    private final DbRowCounters counters;
+
+    CountingResultHandler(ResultHandler delegate, DbRowCounters counters) {
+      this.delegate = delegate;
+      this.counters = counters;
+    }
+
+    @Override
+    public void handleResult(ResultContext context) {
+      onRowsRead(counters, 1);
+      delegate.handleResult(context);
+    }
+  }
+}
@@ -0,0 +1,73 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Counters of the rows read and written through {@link MyBatis} by all the sessions of the process.
+ * Rows read or written with plain JDBC statements are not counted.
+ * <p>
+ * Other instances can be bound to a thread with {@link #bindToCurrentThread(DbRowCounters)}, in order to count
+ * only the rows read and written by this thread, for example while it executes a Compute Engine task.
+ * </p>
+ */
+public class DbRowCounters {
+
+  private static final ThreadLocal<DbRowCounters> THREAD_COUNTERS = new ThreadLocal<>();
+
+  private final AtomicLong rowsRead = new AtomicLong();
+  private final AtomicLong rowsWritten = new AtomicLong();
+
+  /**
+   * Rows read and written by the current thread are also added to the specified counters, until this method is
+   * called again. {@code null} unbinds the counters of the current thread.
+   */
+  public static void bindToCurrentThread(@Nullable DbRowCounters counters) {
+    if (counters == null) {
+      THREAD_COUNTERS.remove();
+    } else {
+      THREAD_COUNTERS.set(counters);
+    }
+  }
+
+  @CheckForNull
+  public static DbRowCounters boundToCurrentThread() {
+    return THREAD_COUNTERS.get();
+  }
+
+  void onRowsRead(long count) {
+    rowsRead.addAndGet(count);
+  }
+
+  void onRowsWritten(long count) {
+    rowsWritten.addAndGet(count);
+  }
+
+  public long getRowsRead() {
+    return rowsRead.get();
+  }
+
+  public long getRowsWritten() {
+    return rowsWritten.get();
+  }
+}
@@ -33,6 +33,7 @@ import org.sonar.db.ce.CeActivityMapper;
 import org.sonar.db.ce.CeQueueMapper;
 import org.sonar.db.ce.CeScannerContextMapper;
 import org.sonar.db.ce.CeTaskInputMapper;
+import org.sonar.db.ce.CeTaskProfileMapper;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentDtoWithSnapshotId;
 import org.sonar.db.component.ComponentKeyUpdaterMapper;
@@ -124,17 +125,23 @@ import org.sonar.db.webhook.WebhookDeliveryMapper;
 public class MyBatis implements Startable {
 
   private final Database database;
+  private final DbRowCounters rowCounters;
   private SqlSessionFactory sessionFactory;
 
   public MyBatis(Database database) {
+    this(database, new DbRowCounters());
+  }
+
+  public MyBatis(Database database, DbRowCounters rowCounters) {
     this.database = database;
+    this.rowCounters = rowCounters;
   }
 
   @Override
   public void start() {
     LogFactory.useSlf4jLogging();
 
-    MyBatisConfBuilder confBuilder = new MyBatisConfBuilder(database);
+    MyBatisConfBuilder confBuilder = new MyBatisConfBuilder(database, rowCounters);
 
     // DTO aliases, keep them sorted alphabetically
     confBuilder.loadAlias("ActiveRule", ActiveRuleDto.class);
@@ -196,6 +203,7 @@ public class MyBatis implements Startable {
       CeQueueMapper.class,
       CeScannerContextMapper.class,
       CeTaskInputMapper.class,
+      CeTaskProfileMapper.class,
       ComponentKeyUpdaterMapper.class,
       ComponentLinkMapper.class,
       ComponentMapper.class,
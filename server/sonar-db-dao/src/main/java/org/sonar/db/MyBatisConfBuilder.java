@@ -37,7 +37,7 @@ import static java.lang.String.format;
 public final class MyBatisConfBuilder {
   private final Configuration conf;
 
-  public MyBatisConfBuilder(Database database) {
+  public MyBatisConfBuilder(Database database, DbRowCounters rowCounters) {
     this.conf = new Configuration();
     this.conf.setEnvironment(new Environment("production", createTransactionFactory(), database.getDataSource()));
     this.conf.setUseGeneratedKeys(true);
@@ -49,6 +49,7 @@ public final class MyBatisConfBuilder {
     this.conf.getVariables().setProperty("_false", dialect.getFalseSqlValue());
     this.conf.getVariables().setProperty("_scrollFetchSize", String.valueOf(dialect.getScrollDefaultFetchSize()));
     this.conf.setLocalCacheScope(LocalCacheScope.STATEMENT);
+    this.conf.addInterceptor(new DbRowCountInterceptor(rowCounters));
   }
 
   public void loadAlias(String alias, Class dtoClass) {
@@ -0,0 +1,90 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.Optional;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.System2;
+import org.sonar.db.Dao;
+import org.sonar.db.DatabaseUtils;
+import org.sonar.db.DbSession;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Performance profile of the execution of a task, as a JSON document.
+ */
+public class CeTaskProfileDao implements Dao {
+
+  private final System2 system;
+
+  public CeTaskProfileDao(System2 system) {
+    this.system = system;
+  }
+
+  /**
+   * @throws IllegalArgumentException if {@code profile} is empty
+   */
+  public void insert(DbSession dbSession, String taskUuid, String profile) {
+    checkArgument(!profile.isEmpty(), "Task profile can not be empty");
+    long now = system.now();
+    Connection connection = dbSession.getConnection();
+    try (PreparedStatement stmt = connection.prepareStatement(
+      "INSERT INTO ce_task_profile (task_uuid, created_at, updated_at, profile_data) VALUES (?, ?, ?, ?)")) {
+      stmt.setString(1, taskUuid);
+      stmt.setLong(2, now);
+      stmt.setLong(3, now);
+      stmt.setBytes(4, profile.getBytes(StandardCharsets.UTF_8));
+      stmt.executeUpdate();
+      connection.commit();
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to insert profile of task " + taskUuid, e);
+    }
+  }
+
+  public Optional<String> selectProfile(DbSession dbSession, String taskUuid) {
+    try (PreparedStatement stmt = dbSession.getConnection().prepareStatement("select profile_data from ce_task_profile where task_uuid=?")) {
+      stmt.setString(1, taskUuid);
+      try (ResultSet rs = stmt.executeQuery()) {
+        if (rs.next()) {
+          return Optional.of(IOUtils.toString(rs.getBinaryStream(1), StandardCharsets.UTF_8));
+        }
+        return Optional.empty();
+      }
+    } catch (SQLException | IOException e) {
+      throw new IllegalStateException("Fail to retrieve profile of task " + taskUuid, e);
+    }
+  }
+
+  public void deleteByUuids(DbSession dbSession, Collection<String> uuids) {
+    DatabaseUtils.executeLargeUpdates(uuids, mapper(dbSession)::deleteByUuids);
+  }
+
+  private static CeTaskProfileMapper mapper(DbSession dbSession) {
+    return dbSession.getMapper(CeTaskProfileMapper.class);
+  }
+}
@@ -127,6 +127,17 @@ public class ComponentDao implements Dao {
     return mapper(session).selectSubProjectsByComponentUuids(keys);
   }
 
+  /**
+   * Same as {@link #selectByUuids(DbSession, Collection)}, completed in a single query by the sub projects
+   * (see {@link #selectSubProjectsByComponentUuids(DbSession, Collection)}) and by the projects of the components.
+   */
+  public List<ComponentDto> selectByUuidsWithSubProjectsAndProjects(DbSession session, Collection<String> uuids) {
+    return executeLargeInputs(
+      uuids,
+      mapper(session)::selectByUuidsWithSubProjectsAndProjects,
+      partitionSize -> partitionSize / 3);
+  }
+
   public List<ComponentDto> selectDescendantModules(DbSession session, String rootComponentUuid) {
     return mapper(session).selectDescendantModules(rootComponentUuid, Scopes.PROJECT, false);
   }
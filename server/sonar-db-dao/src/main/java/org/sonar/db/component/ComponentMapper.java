@@ -45,6 +45,11 @@ public interface ComponentMapper {
    */
   List<ComponentDto> selectSubProjectsByComponentUuids(@Param("uuids") Collection<String> uuids);
 
+  /**
+   * Return components, their sub projects and their projects
+   */
+  List<ComponentDto> selectByUuidsWithSubProjectsAndProjects(@Param("uuids") Collection<String> uuids);
+
   List<ComponentDto> selectByKeys(@Param("keys") Collection<String> keys);
 
   List<ComponentDto> selectByIds(@Param("ids") Collection<Long> ids);
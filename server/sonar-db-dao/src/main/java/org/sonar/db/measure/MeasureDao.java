@@ -31,6 +31,7 @@ import org.sonar.db.component.ComponentDto;
 
 import static java.util.Collections.emptyList;
 import static org.sonar.db.DatabaseUtils.executeLargeInputs;
+import static org.sonar.db.DatabaseUtils.executeLargeInputsWithoutOutput;
 
 public class MeasureDao implements Dao {
 
@@ -85,13 +86,14 @@ public class MeasureDao implements Dao {
     mapper(dbSession).selectTreeByQuery(query, baseComponent.uuid(), query.getUuidPath(baseComponent), resultHandler);
   }
 
-  public List<PastMeasureDto> selectPastMeasures(DbSession dbSession, String componentUuid, String analysisUuid, Collection<Integer> metricIds) {
-    if (metricIds.isEmpty()) {
-      return emptyList();
-    }
-    return executeLargeInputs(
+  /**
+   * Streams the measures of all the components of an analysis for the given metrics, excluding measures
+   * on files and on developers. Measures are not sorted.
+   */
+  public void selectPastMeasures(DbSession dbSession, String analysisUuid, Collection<Integer> metricIds, ResultHandler resultHandler) {
+    executeLargeInputsWithoutOutput(
       metricIds,
-      ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(componentUuid, analysisUuid, ids));
+      ids -> mapper(dbSession).selectPastMeasuresOnSingleAnalysis(analysisUuid, ids, resultHandler));
   }
 
   /**
@@ -36,8 +36,7 @@ public interface MeasureMapper {
                          ResultHandler resultHandler);
 
 
-  List<PastMeasureDto> selectPastMeasuresOnSingleAnalysis(@Param("componentUuid") String componentUuid, @Param("analysisUuid") String analysisUuid,
-    @Param("metricIds") List<Integer> metricIds);
+  void selectPastMeasuresOnSingleAnalysis(@Param("analysisUuid") String analysisUuid, @Param("metricIds") List<Integer> metricIds, ResultHandler resultHandler);
 
   List<MeasureDto> selectPastMeasuresOnSeveralAnalyses(@Param("query") PastMeasureQuery query);
 
@@ -20,6 +20,7 @@
 package org.sonar.db.permission;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import javax.annotation.Nullable;
 import org.sonar.db.Dao;
@@ -73,6 +74,18 @@ public class AuthorizationDao implements Dao {
     return mapper(dbSession).selectProjectPermissionsOfAnonymous(projectUuid);
   }
 
+  /**
+   * Same as {@link #selectProjectPermissions(DbSession, String, long)} and {@link #selectProjectPermissionsOfAnonymous(DbSession, String)}
+   * for several projects at once. The permissions of anonymous are returned if {@code userId} is {@code null}.
+   * <strong>This method does not support public components</strong>
+   */
+  public List<ProjectPermission> selectProjectPermissionsOfProjects(DbSession dbSession, Collection<String> projectUuids, @Nullable Integer userId) {
+    return executeLargeInputs(
+      projectUuids,
+      partition -> mapper(dbSession).selectProjectPermissionsOfProjects(userId, partition),
+      partitionSize -> partitionSize / 3);
+  }
+
   /**
    * The number of users who will still have the permission if the group {@code excludedGroupId}
    * is deleted. The anyone virtual group is not taken into account.
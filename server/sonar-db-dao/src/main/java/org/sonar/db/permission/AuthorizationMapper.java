@@ -22,6 +22,7 @@ package org.sonar.db.permission;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.Nullable;
 import org.apache.ibatis.annotations.Param;
 
 /**
@@ -60,4 +61,6 @@ public interface AuthorizationMapper {
   Set<String> selectProjectPermissions(@Param("projectUuid") String projectUuid, @Param("userId") long userId);
 
   Set<String> selectProjectPermissionsOfAnonymous(@Param("projectUuid") String projectUuid);
+
+  List<ProjectPermission> selectProjectPermissionsOfProjects(@Nullable @Param("userId") Integer userId, @Param("projectUuids") Collection<String> projectUuids);
 }
@@ -76,6 +76,15 @@ public class InternalPropertiesDao implements Dao {
     mapper.insertAsEmpty(key, system2.now());
   }
 
+  /**
+   * Delete the property, if it exists.
+   */
+  public void delete(DbSession dbSession, String key) {
+    checkKey(key);
+
+    getMapper(dbSession).deleteByKey(key);
+  }
+
   /**
    * No streaming of value
    */
@@ -0,0 +1,181 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import com.google.protobuf.CodedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import net.jpountz.lz4.LZ4BlockInputStream;
+import net.jpountz.lz4.LZ4BlockOutputStream;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Encoding of the column FILE_SOURCES.BINARY_DATA which allows to decode a range of lines without
+ * decompressing and deserializing the whole file.
+ * <p/>
+ * Lines are grouped in chunks of a fixed number of lines. Chunk i contains the lines numbered from
+ * {@code i * linesPerChunk + 1} to {@code (i + 1) * linesPerChunk}. Each chunk is an LZ4-compressed
+ * {@link DbFileSources.Data} message. The chunks are preceded by a header:
+ * <ul>
+ *   <li>magic number (int)</li>
+ *   <li>number of lines per chunk (int)</li>
+ *   <li>number of chunks (int)</li>
+ *   <li>size in bytes of each chunk (int[])</li>
+ * </ul>
+ */
+public class ChunkedSourceData {
+
+  public static final int DEFAULT_LINES_PER_CHUNK = 500;
+
+  /**
+   * "SQC1". Can't be confused with the legacy format, which is a stream of LZ4 blocks starting with "LZ4Block".
+   */
+  private static final int MAGIC = 0x53514331;
+  private static final int FIXED_HEADER_SIZE = 3 * Integer.BYTES;
+
+  private final byte[] binaryData;
+  private final int linesPerChunk;
+  private final int[] chunkOffsets;
+  private final int[] chunkSizes;
+
+  private ChunkedSourceData(byte[] binaryData, int linesPerChunk, int[] chunkSizes) {
+    this.binaryData = binaryData;
+    this.linesPerChunk = linesPerChunk;
+    this.chunkSizes = chunkSizes;
+    this.chunkOffsets = new int[chunkSizes.length];
+    int offset = FIXED_HEADER_SIZE + chunkSizes.length * Integer.BYTES;
+    for (int i = 0; i < chunkSizes.length; i++) {
+      chunkOffsets[i] = offset;
+      offset += chunkSizes[i];
+    }
+  }
+
+  public static boolean isChunked(byte[] binaryData) {
+    return binaryData.length >= FIXED_HEADER_SIZE
+      && (((binaryData[0] & 0xFF) << 24) | ((binaryData[1] & 0xFF) << 16) | ((binaryData[2] & 0xFF) << 8) | (binaryData[3] & 0xFF)) == MAGIC;
+  }
+
+  /**
+   * Reads the header of data encoded by {@link #encode(DbFileSources.Data, int)}. Chunks are not decoded.
+   */
+  public static ChunkedSourceData parse(byte[] binaryData) throws IOException {
+    checkArgument(isChunked(binaryData), "Source data is not chunked");
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(binaryData));
+    input.readInt();
+    int linesPerChunk = input.readInt();
+    int chunkCount = input.readInt();
+    int[] chunkSizes = new int[chunkCount];
+    long expectedSize = FIXED_HEADER_SIZE + (long) chunkCount * Integer.BYTES;
+    for (int i = 0; i < chunkCount; i++) {
+      chunkSizes[i] = input.readInt();
+      expectedSize += chunkSizes[i];
+    }
+    if (linesPerChunk <= 0 || expectedSize != binaryData.length) {
+      throw new IOException("Corrupted header of chunked source data");
+    }
+    return new ChunkedSourceData(binaryData, linesPerChunk, chunkSizes);
+  }
+
+  public static byte[] encode(DbFileSources.Data data, int linesPerChunk) throws IOException {
+    checkArgument(linesPerChunk > 0, "Number of lines per chunk must be positive");
+    List<byte[]> chunks = new ArrayList<>();
+    DbFileSources.Data.Builder chunk = DbFileSources.Data.newBuilder();
+    for (DbFileSources.Line line : data.getLinesList()) {
+      // lines without number and unordered lines stay in the current chunk, so that
+      // decoding all the chunks always gives back the initial list of lines
+      int chunkIndex = line.hasLine() ? Math.max(chunks.size(), chunkIndexOf(line.getLine(), linesPerChunk)) : chunks.size();
+      while (chunks.size() < chunkIndex) {
+        chunks.add(compress(chunk.build()));
+        chunk.clear();
+      }
+      chunk.addLines(line);
+    }
+    if (chunk.getLinesCount() > 0) {
+      chunks.add(compress(chunk.build()));
+    }
+
+    int totalSize = FIXED_HEADER_SIZE + chunks.size() * Integer.BYTES + chunks.stream().mapToInt(c -> c.length).sum();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(totalSize);
+    DataOutputStream output = new DataOutputStream(bytes);
+    output.writeInt(MAGIC);
+    output.writeInt(linesPerChunk);
+    output.writeInt(chunks.size());
+    for (byte[] c : chunks) {
+      output.writeInt(c.length);
+    }
+    for (byte[] c : chunks) {
+      output.write(c);
+    }
+    output.flush();
+    return bytes.toByteArray();
+  }
+
+  public int getLinesPerChunk() {
+    return linesPerChunk;
+  }
+
+  public int getChunkCount() {
+    return chunkSizes.length;
+  }
+
+  /**
+   * Index of the chunk containing the given line number. It can be greater than or equal to
+   * {@link #getChunkCount()} if the file has less lines.
+   */
+  public int chunkIndexOf(int line) {
+    return chunkIndexOf(line, linesPerChunk);
+  }
+
+  public static int chunkIndexOf(int line, int linesPerChunk) {
+    return Math.max(0, line - 1) / linesPerChunk;
+  }
+
+  public List<DbFileSources.Line> decodeChunk(int chunkIndex) throws IOException {
+    checkArgument(chunkIndex >= 0 && chunkIndex < chunkSizes.length, "Chunk %s does not exist. Number of chunks is %s", chunkIndex, chunkSizes.length);
+    try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData, chunkOffsets[chunkIndex], chunkSizes[chunkIndex]))) {
+      CodedInputStream input = CodedInputStream.newInstance(lz4Input);
+      input.setSizeLimit(Integer.MAX_VALUE);
+      return DbFileSources.Data.parseFrom(input).getLinesList();
+    }
+  }
+
+  public DbFileSources.Data decodeAll() throws IOException {
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    for (int i = 0; i < chunkSizes.length; i++) {
+      data.addAllLines(decodeChunk(i));
+    }
+    return data.build();
+  }
+
+  private static byte[] compress(DbFileSources.Data chunk) throws IOException {
+    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput)) {
+      chunk.writeTo(compressedOutput);
+    }
+    return byteOutput.toByteArray();
+  }
+}
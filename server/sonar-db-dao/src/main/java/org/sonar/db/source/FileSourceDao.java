@@ -44,6 +44,15 @@ public class FileSourceDao implements Dao {
     return mapper(session).select(fileUuid, Type.SOURCE);
   }
 
+  /**
+   * MD5 of the column BINARY_DATA of the sources of the given file, or {@code null} if the file has no sources.
+   * Allows to check whether cached data is up-to-date without loading BINARY_DATA.
+   */
+  @CheckForNull
+  public String selectSourceDataHash(DbSession session, String fileUuid) {
+    return mapper(session).selectDataHash(fileUuid, Type.SOURCE);
+  }
+
   @CheckForNull
   public FileSourceDto selectTest(DbSession dbSession, String fileUuid) {
     return mapper(dbSession).select(fileUuid, Type.TEST);
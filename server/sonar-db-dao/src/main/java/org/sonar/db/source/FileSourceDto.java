@@ -104,6 +104,10 @@ public class FileSourceDto {
   }
 
   private static DbFileSources.Data decodeRegularSourceData(byte[] binaryData) throws IOException {
+    if (ChunkedSourceData.isChunked(binaryData)) {
+      return ChunkedSourceData.parse(binaryData).decodeAll();
+    }
+    // data not persisted since the introduction of chunks
     try (LZ4BlockInputStream lz4Input = new LZ4BlockInputStream(new ByteArrayInputStream(binaryData))) {
       return DbFileSources.Data.parseFrom(lz4Input);
     } catch (InvalidProtocolBufferException e) {
@@ -124,19 +128,15 @@ public class FileSourceDto {
 
   /**
    * Serialize and compress protobuf message {@link org.sonar.db.protobuf.DbFileSources.Data}
-   * in the column BINARY_DATA.
+   * in the column BINARY_DATA, by chunks of lines.
+   *
+   * @see ChunkedSourceData
    */
   public static byte[] encodeSourceData(DbFileSources.Data data) {
-    ByteArrayOutputStream byteOutput = new ByteArrayOutputStream();
-    LZ4BlockOutputStream compressedOutput = new LZ4BlockOutputStream(byteOutput);
     try {
-      data.writeTo(compressedOutput);
-      compressedOutput.close();
-      return byteOutput.toByteArray();
+      return ChunkedSourceData.encode(data, ChunkedSourceData.DEFAULT_LINES_PER_CHUNK);
     } catch (IOException e) {
       throw new IllegalStateException("Fail to serialize and compress source data", e);
-    } finally {
-      IOUtils.closeQuietly(compressedOutput);
     }
   }
 
@@ -44,10 +44,48 @@ public class WebhookDeliveryDao implements Dao {
     return mapper(dbSession).selectOrderedByCeTaskUuid(ceTaskUuid);
   }
 
+  /**
+   * The deliveries which are not sent yet or which are waiting for being retried, and which are not claimed
+   * by a Compute Engine node. Results are ordered by ascending date.
+   */
+  public List<WebhookDeliveryDto> selectUnclaimedPending(DbSession dbSession) {
+    return mapper(dbSession).selectUnclaimedPending();
+  }
+
   public void insert(DbSession dbSession, WebhookDeliveryDto dto) {
     mapper(dbSession).insert(dto);
   }
 
+  /**
+   * Updates the result of the delivery: success, pending, HTTP status, duration, error, node and date
+   */
+  public void update(DbSession dbSession, WebhookDeliveryDto dto) {
+    mapper(dbSession).update(dto);
+  }
+
+  /**
+   * Claims a pending delivery on behalf of a Compute Engine node.
+   *
+   * @return {@code false} if the delivery is not pending anymore or if it is already claimed by another node
+   */
+  public boolean claim(DbSession dbSession, String uuid, String nodeUuid) {
+    return mapper(dbSession).claim(uuid, nodeUuid) == 1;
+  }
+
+  /**
+   * The pending deliveries claimed by the node can then be claimed by any node
+   */
+  public void releaseClaims(DbSession dbSession, String nodeUuid) {
+    mapper(dbSession).releaseClaimsOfNode(nodeUuid);
+  }
+
+  /**
+   * Same as {@link #releaseClaims(DbSession, String)} for all the nodes
+   */
+  public void releaseAllClaims(DbSession dbSession) {
+    mapper(dbSession).releaseAllClaims();
+  }
+
   public void deleteComponentBeforeDate(DbSession dbSession, String componentUuid, long beforeDate) {
     mapper(dbSession).deleteComponentBeforeDate(componentUuid, beforeDate);
   }
@@ -28,6 +28,10 @@ public class WebhookDeliveryDto extends WebhookDeliveryLiteDto<WebhookDeliveryDt
   private String errorStacktrace;
   /** The payload that has been sent, cannot be null */
   private String payload;
+  /** Connect and read timeout in ms, null if the default timeouts of the HTTP client are used */
+  private Integer timeoutMs;
+  /** Uuid of the Compute Engine node which sends the pending delivery, null if not claimed by any node */
+  private String nodeUuid;
 
   @CheckForNull
   public String getErrorStacktrace() {
@@ -49,6 +53,26 @@ public class WebhookDeliveryDto extends WebhookDeliveryLiteDto<WebhookDeliveryDt
     return this;
   }
 
+  @CheckForNull
+  public Integer getTimeoutMs() {
+    return timeoutMs;
+  }
+
+  public WebhookDeliveryDto setTimeoutMs(@Nullable Integer i) {
+    this.timeoutMs = i;
+    return this;
+  }
+
+  @CheckForNull
+  public String getNodeUuid() {
+    return nodeUuid;
+  }
+
+  public WebhookDeliveryDto setNodeUuid(@Nullable String s) {
+    this.nodeUuid = s;
+    return this;
+  }
+
   @Override
   public String toString() {
     return new ToStringBuilder(this)
@@ -56,10 +80,13 @@ public class WebhookDeliveryDto extends WebhookDeliveryLiteDto<WebhookDeliveryDt
       .append("componentUuid", componentUuid)
       .append("name", name)
       .append("success", success)
+      .append("pending", pending)
       .append("httpStatus", httpStatus)
       .append("durationMs", durationMs)
       .append("url", url)
       .append("errorStacktrace", errorStacktrace)
+      .append("timeoutMs", timeoutMs)
+      .append("nodeUuid", nodeUuid)
       .append("createdAt", createdAt)
       .toString();
   }
@@ -33,6 +33,8 @@ public class WebhookDeliveryLiteDto<T extends WebhookDeliveryLiteDto> {
   /** Name, can't be null */
   protected String name;
   protected boolean success;
+  /** True if the webhook is not sent yet or if it's waiting for being retried */
+  protected boolean pending;
   /** HTTP response status. Null if HTTP request cannot be sent */
   protected Integer httpStatus;
   /** Duration in ms. Null if HTTP request cannot be sent */
@@ -87,6 +89,15 @@ public class WebhookDeliveryLiteDto<T extends WebhookDeliveryLiteDto> {
     return (T)this;
   }
 
+  public boolean isPending() {
+    return pending;
+  }
+
+  public T setPending(boolean b) {
+    this.pending = b;
+    return (T)this;
+  }
+
   @CheckForNull
   public Integer getHttpStatus() {
     return httpStatus;
@@ -133,6 +144,7 @@ public class WebhookDeliveryLiteDto<T extends WebhookDeliveryLiteDto> {
       .append("ceTaskUuid", ceTaskUuid)
       .append("name", name)
       .append("success", success)
+      .append("pending", pending)
       .append("httpStatus", httpStatus)
       .append("durationMs", durationMs)
       .append("url", url)
@@ -32,7 +32,17 @@ public interface WebhookDeliveryMapper {
 
   List<WebhookDeliveryLiteDto> selectOrderedByCeTaskUuid(@Param("ceTaskUuid") String ceTaskUuid);
 
+  List<WebhookDeliveryDto> selectUnclaimedPending();
+
   void insert(WebhookDeliveryDto dto);
 
+  void update(WebhookDeliveryDto dto);
+
+  int claim(@Param("uuid") String uuid, @Param("nodeUuid") String nodeUuid);
+
+  void releaseClaimsOfNode(@Param("nodeUuid") String nodeUuid);
+
+  void releaseAllClaims();
+
   void deleteComponentBeforeDate(@Param("componentUuid") String componentUuid, @Param("beforeDate") long beforeDate);
 }
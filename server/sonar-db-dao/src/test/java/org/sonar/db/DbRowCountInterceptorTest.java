@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.metric.MetricDao;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.db.metric.MetricTesting.newMetricDto;
+
+public class DbRowCountInterceptorTest {
+
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbRowCounters counters = new DbRowCounters();
+  private MetricDao metricDao = db.getDbClient().metricDao();
+  private DbSession dbSession;
+
+  @Before
+  public void setUp() {
+    MyBatis myBatis = new MyBatis(db.database(), counters);
+    myBatis.start();
+    dbSession = myBatis.openSession(false);
+  }
+
+  @After
+  public void tearDown() {
+    DbRowCounters.bindToCurrentThread(null);
+    dbSession.close();
+  }
+
+  @Test
+  public void count_rows_written() {
+    metricDao.insert(dbSession, newMetricDto(), newMetricDto());
+    dbSession.commit();
+
+    assertThat(counters.getRowsWritten()).isEqualTo(2);
+    assertThat(counters.getRowsRead()).isZero();
+  }
+
+  @Test
+  public void count_rows_returned_by_selects() {
+    metricDao.insert(dbSession, newMetricDto(), newMetricDto(), newMetricDto());
+    dbSession.commit();
+
+    assertThat(metricDao.selectAll(dbSession)).hasSize(3);
+
+    assertThat(counters.getRowsRead()).isEqualTo(3);
+  }
+
+  @Test
+  public void count_rows_streamed_to_result_handler() {
+    metricDao.insert(dbSession, newMetricDto(), newMetricDto());
+    dbSession.commit();
+
+    List<Object> rows = new ArrayList<>();
+    dbSession.select("org.sonar.db.metric.MetricMapper.selectAll", context -> rows.add(context.getResultObject()));
+
+    assertThat(rows).hasSize(2);
+    assertThat(counters.getRowsRead()).isEqualTo(2);
+  }
+
+  @Test
+  public void count_rows_of_current_thread_in_bound_counters() throws InterruptedException {
+    DbRowCounters threadCounters = new DbRowCounters();
+    DbRowCounters.bindToCurrentThread(threadCounters);
+
+    metricDao.insert(dbSession, newMetricDto(), newMetricDto());
+    dbSession.commit();
+    Thread otherThread = new Thread(() -> metricDao.selectAll(dbSession));
+    otherThread.start();
+    otherThread.join();
+    assertThat(metricDao.selectAll(dbSession)).hasSize(2);
+
+    assertThat(threadCounters.getRowsWritten()).isEqualTo(2);
+    assertThat(threadCounters.getRowsRead()).isEqualTo(2);
+    assertThat(counters.getRowsRead()).isEqualTo(4);
+  }
+
+  @Test
+  public void stop_counting_rows_of_current_thread_once_unbound() {
+    DbRowCounters threadCounters = new DbRowCounters();
+    DbRowCounters.bindToCurrentThread(threadCounters);
+    DbRowCounters.bindToCurrentThread(null);
+
+    metricDao.insert(dbSession, newMetricDto());
+    dbSession.commit();
+
+    assertThat(DbRowCounters.boundToCurrentThread()).isNull();
+    assertThat(threadCounters.getRowsWritten()).isZero();
+    assertThat(counters.getRowsWritten()).isEqualTo(1);
+  }
+}
@@ -44,7 +44,7 @@ public class MyBatisTest {
     database.stop();
   }
 
-  private MyBatis underTest = new MyBatis(database);
+  private MyBatis underTest = new MyBatis(database, new DbRowCounters());
 
   @After
   public void tearDown() throws Exception {
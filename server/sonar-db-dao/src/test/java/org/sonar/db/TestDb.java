@@ -43,7 +43,7 @@ class TestDb extends CoreTestDb {
 
   @Override
   protected void extendStart(Database db) {
-    myBatis = new MyBatis(db);
+    myBatis = new MyBatis(db, new DbRowCounters());
     myBatis.start();
   }
 
@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.ce;
+
+import com.google.common.collect.ImmutableSet;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static java.util.Collections.singleton;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class CeTaskProfileDaoTest {
+
+  private static final String TABLE_NAME = "ce_task_profile";
+  private static final String SOME_UUID = "some UUID";
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private System2 system = mock(System2.class);
+  private DbSession dbSession = dbTester.getSession();
+
+  private CeTaskProfileDao underTest = new CeTaskProfileDao(system);
+
+  @Test
+  public void selectProfile_returns_empty_on_empty_table() {
+    assertThat(underTest.selectProfile(dbSession, SOME_UUID)).isEmpty();
+  }
+
+  @Test
+  public void insert_and_select_profile() {
+    String profile = "{\"steps\":[{\"name\":\"Load report\",\"durationMs\":12}]}";
+    underTest.insert(dbSession, SOME_UUID, profile);
+    dbSession.commit();
+
+    assertThat(underTest.selectProfile(dbSession, SOME_UUID)).contains(profile);
+    assertThat(underTest.selectProfile(dbSession, "OTHER_uuid")).isEmpty();
+  }
+
+  @Test
+  public void insert_fails_with_IAE_if_profile_is_empty() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Task profile can not be empty");
+
+    underTest.insert(dbSession, SOME_UUID, "");
+  }
+
+  @Test
+  public void insert_fails_if_row_already_exists_for_taskUuid() {
+    underTest.insert(dbSession, SOME_UUID, "{}");
+    dbSession.commit();
+
+    assertThat(dbTester.countRowsOfTable(dbSession, TABLE_NAME)).isEqualTo(1);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to insert profile of task " + SOME_UUID);
+
+    underTest.insert(dbSession, SOME_UUID, "{}");
+  }
+
+  @Test
+  public void deleteByUuids_does_not_fail_on_empty_table() {
+    underTest.deleteByUuids(dbSession, singleton("some uuid"));
+  }
+
+  @Test
+  public void deleteByUuids_deletes_specified_existing_uuids() {
+    underTest.insert(dbSession, SOME_UUID, "{1}");
+    underTest.insert(dbSession, "UUID_2", "{2}");
+    underTest.insert(dbSession, "UUID_3", "{3}");
+    dbSession.commit();
+
+    underTest.deleteByUuids(dbSession, ImmutableSet.of(SOME_UUID, "UUID_3", "UUID_4"));
+
+    assertThat(underTest.selectProfile(dbSession, SOME_UUID)).isEmpty();
+    assertThat(underTest.selectProfile(dbSession, "UUID_2")).contains("{2}");
+    assertThat(underTest.selectProfile(dbSession, "UUID_3")).isEmpty();
+  }
+}
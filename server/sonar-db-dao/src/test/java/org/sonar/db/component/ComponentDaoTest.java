@@ -26,6 +26,7 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
@@ -397,6 +398,28 @@ public class ComponentDaoTest {
     assertThat(underTest.selectSubProjectsByComponentUuids(dbSession, Collections.emptyList())).isEmpty();
   }
 
+  @Test
+  public void select_by_uuids_with_sub_projects_and_projects() {
+    db.prepareDbUnit(getClass(), "multi-modules.xml");
+
+    // file
+    assertThat(underTest.selectByUuidsWithSubProjectsAndProjects(dbSession, newArrayList("HIJK"))).extracting("uuid").containsOnly("HIJK", "FGHI", "ABCD");
+    // sub module
+    assertThat(underTest.selectByUuidsWithSubProjectsAndProjects(dbSession, newArrayList("FGHI"))).extracting("uuid").containsOnly("FGHI", "ABCD");
+    // project
+    assertThat(underTest.selectByUuidsWithSubProjectsAndProjects(dbSession, newArrayList("ABCD"))).extracting("uuid").containsOnly("ABCD");
+    // same as selectByUuids() and selectSubProjectsByComponentUuids()
+    List<String> uuids = newArrayList("HIJK", "GHIJ", "EFGH");
+    assertThat(underTest.selectByUuidsWithSubProjectsAndProjects(dbSession, uuids)).extracting("uuid").containsOnly(
+      Stream.concat(underTest.selectByUuids(dbSession, uuids).stream(), underTest.selectSubProjectsByComponentUuids(dbSession, uuids).stream())
+        .flatMap(c -> Stream.of(c.uuid(), c.projectUuid()))
+        .distinct()
+        .toArray(String[]::new));
+
+    assertThat(underTest.selectByUuidsWithSubProjectsAndProjects(dbSession, newArrayList("unknown"))).isEmpty();
+    assertThat(underTest.selectByUuidsWithSubProjectsAndProjects(dbSession, Collections.emptyList())).isEmpty();
+  }
+
   @Test
   public void select_enabled_modules_tree() {
     db.prepareDbUnit(getClass(), "multi-modules.xml");
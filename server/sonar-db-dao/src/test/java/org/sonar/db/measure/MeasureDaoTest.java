@@ -40,9 +40,11 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.api.resources.Qualifiers.FILE;
 import static org.sonar.api.resources.Qualifiers.UNIT_TEST_FILE;
 import static org.sonar.api.utils.DateUtils.parseDate;
+import static org.sonar.db.component.ComponentTesting.newDirectory;
 import static org.sonar.db.component.ComponentTesting.newFileDto;
 import static org.sonar.db.component.ComponentTesting.newModuleDto;
 import static org.sonar.db.component.SnapshotTesting.newAnalysis;
@@ -445,6 +447,64 @@ public class MeasureDaoTest {
       .setLast(isLast));
   }
 
-  // TODO test selectPastMeasures
+  @Test
+  public void selectPastMeasures_streams_measures_of_all_components_of_analysis() {
+    ComponentDto project = db.components().insertPrivateProject();
+    ComponentDto module = db.components().insertComponent(newModuleDto(project).setUuid("C1"));
+    db.components().insertComponent(newDirectory(module, "dir").setUuid("C2"));
+    insertAnalysis(LAST_ANALYSIS_UUID, project.uuid(), true);
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    insertMeasure("M1", OTHER_ANALYSIS_UUID, "C2", NCLOC_METRIC_ID);
+    insertMeasure("M2", OTHER_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID);
+    insertMeasure("M3", OTHER_ANALYSIS_UUID, "C1", COVERAGE_METRIC_ID);
+    // metric is not requested
+    insertMeasure("M4", OTHER_ANALYSIS_UUID, "C1", COMPLEXITY_METRIC_ID);
+    // measure on developer
+    insertMeasureOnPerson("M5", OTHER_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID, A_PERSON_ID);
+    // other analysis
+    insertMeasure("M6", LAST_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.selectPastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, asList(NCLOC_METRIC_ID, COVERAGE_METRIC_ID),
+      context -> result.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(result).extracting(PastMeasureDto::getComponentUuid, PastMeasureDto::getMetricId).containsOnly(
+      tuple("C1", NCLOC_METRIC_ID),
+      tuple("C1", COVERAGE_METRIC_ID),
+      tuple("C2", NCLOC_METRIC_ID));
+    assertThat(result).hasSize(3).allMatch(PastMeasureDto::hasValue);
+  }
+
+  @Test
+  public void selectPastMeasures_excludes_measures_on_files() {
+    ComponentDto project = db.components().insertPrivateProject();
+    db.components().insertComponent(newFileDto(project).setUuid("C1"));
+    db.components().insertComponent(newFileDto(project).setUuid("C2").setQualifier(UNIT_TEST_FILE));
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    insertMeasure("M1", OTHER_ANALYSIS_UUID, project.uuid(), NCLOC_METRIC_ID);
+    insertMeasure("M2", OTHER_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID);
+    insertMeasure("M3", OTHER_ANALYSIS_UUID, "C2", NCLOC_METRIC_ID);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.selectPastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, singletonList(NCLOC_METRIC_ID), context -> result.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(result).extracting(PastMeasureDto::getComponentUuid).containsExactly(project.uuid());
+  }
+
+  @Test
+  public void selectPastMeasures_does_nothing_if_no_metrics() {
+    ComponentDto project = db.components().insertPrivateProject();
+    db.components().insertComponent(newModuleDto(project).setUuid("C1"));
+    insertAnalysis(OTHER_ANALYSIS_UUID, project.uuid(), false);
+    insertMeasure("M1", OTHER_ANALYSIS_UUID, "C1", NCLOC_METRIC_ID);
+    db.commit();
+
+    List<PastMeasureDto> result = new ArrayList<>();
+    underTest.selectPastMeasures(db.getSession(), OTHER_ANALYSIS_UUID, emptyList(), context -> result.add((PastMeasureDto) context.getResultObject()));
+
+    assertThat(result).isEmpty();
+  }
 
 }
@@ -41,8 +41,10 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 
 import static com.google.common.collect.Sets.newHashSet;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.core.permission.GlobalPermissions.QUALITY_GATE_ADMIN;
 import static org.sonar.core.permission.GlobalPermissions.SCAN_EXECUTION;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
@@ -886,6 +888,37 @@ public class AuthorizationDaoTest {
     assertThat(underTest.selectProjectPermissions(dbSession, project.uuid(), user.getId())).containsOnly("p1", "p2", "p3");
   }
 
+  @Test
+  public void selectProjectPermissionsOfProjects_returns_permissions_of_logged_in_user_on_specified_projects() {
+    ComponentDto project1 = db.components().insertPrivateProject(organization);
+    ComponentDto project2 = db.components().insertPublicProject(organization);
+    ComponentDto otherProject = db.components().insertPrivateProject(organization);
+    db.users().insertProjectPermissionOnUser(user, "p1", project1);
+    db.users().insertProjectPermissionOnGroup(group1, "p2", project1);
+    db.users().insertProjectPermissionOnAnyone("p3", project2);
+    db.users().insertProjectPermissionOnGroup(group2, "ignored", project2);
+    db.users().insertProjectPermissionOnUser(user, "ignored", otherProject);
+    db.users().insertMember(group1, user);
+
+    assertThat(underTest.selectProjectPermissionsOfProjects(dbSession, asList(project1.uuid(), project2.uuid()), user.getId()))
+      .extracting(ProjectPermission::getProjectUuid, ProjectPermission::getPermission)
+      .containsOnly(tuple(project1.uuid(), "p1"), tuple(project1.uuid(), "p2"), tuple(project2.uuid(), "p3"));
+  }
+
+  @Test
+  public void selectProjectPermissionsOfProjects_returns_permissions_of_anonymous_if_user_is_null() {
+    ComponentDto project1 = db.components().insertPublicProject(organization);
+    ComponentDto project2 = db.components().insertPublicProject(organization);
+    db.users().insertProjectPermissionOnUser(user, "ignored", project1);
+    db.users().insertProjectPermissionOnGroup(group1, "ignored", project1);
+    db.users().insertProjectPermissionOnAnyone("p1", project1);
+    db.users().insertProjectPermissionOnAnyone("p2", project2);
+
+    assertThat(underTest.selectProjectPermissionsOfProjects(dbSession, asList(project1.uuid(), project2.uuid(), "missing"), null))
+      .extracting(ProjectPermission::getProjectUuid, ProjectPermission::getPermission)
+      .containsOnly(tuple(project1.uuid(), "p1"), tuple(project2.uuid(), "p2"));
+  }
+
   @Test
   public void keepAuthorizedProjectUuids_filters_projects_authorized_to_logged_in_user_by_direct_permission() {
     ComponentDto privateProject = db.components().insertPrivateProject(organization);
@@ -275,6 +275,29 @@ public class InternalPropertiesDaoTest {
     assertThat(underTest.selectByKey(dbSession, A_KEY)).contains(VALUE_SIZE_4001);
   }
 
+  @Test
+  public void delete_throws_IAE_when_key_is_empty() {
+    expectKeyNullOrEmptyIAE();
+
+    underTest.delete(dbSession, EMPTY_STRING);
+  }
+
+  @Test
+  public void delete_removes_property() {
+    underTest.save(dbSession, A_KEY, VALUE_SMALL);
+
+    underTest.delete(dbSession, A_KEY);
+
+    assertThat(underTest.selectByKey(dbSession, A_KEY)).isEmpty();
+  }
+
+  @Test
+  public void delete_does_nothing_when_property_does_not_exist() {
+    underTest.delete(dbSession, A_KEY);
+
+    assertThat(underTest.selectByKey(dbSession, A_KEY)).isEmpty();
+  }
+
   private void expectKeyNullOrEmptyIAE() {
     expectedException.expect(IllegalArgumentException.class);
     expectedException.expectMessage("key can't be null nor empty");
@@ -0,0 +1,129 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.source;
+
+import java.io.IOException;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ChunkedSourceDataTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void encode_and_decode_by_chunks() throws IOException {
+    byte[] bytes = ChunkedSourceData.encode(newData(25), 10);
+
+    assertThat(ChunkedSourceData.isChunked(bytes)).isTrue();
+    ChunkedSourceData underTest = ChunkedSourceData.parse(bytes);
+    assertThat(underTest.getLinesPerChunk()).isEqualTo(10);
+    assertThat(underTest.getChunkCount()).isEqualTo(3);
+    assertThat(lineNumbers(underTest.decodeChunk(0))).containsExactly(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+    assertThat(lineNumbers(underTest.decodeChunk(2))).containsExactly(21, 22, 23, 24, 25);
+    assertThat(underTest.decodeChunk(1).get(0).getSource()).isEqualTo("line 11");
+    assertThat(underTest.decodeAll()).isEqualTo(newData(25));
+  }
+
+  @Test
+  public void chunkIndexOf() throws IOException {
+    ChunkedSourceData underTest = ChunkedSourceData.parse(ChunkedSourceData.encode(newData(25), 10));
+
+    assertThat(underTest.chunkIndexOf(1)).isEqualTo(0);
+    assertThat(underTest.chunkIndexOf(10)).isEqualTo(0);
+    assertThat(underTest.chunkIndexOf(11)).isEqualTo(1);
+    assertThat(underTest.chunkIndexOf(25)).isEqualTo(2);
+    assertThat(underTest.chunkIndexOf(1_000)).isEqualTo(99);
+  }
+
+  @Test
+  public void encode_empty_data() throws IOException {
+    ChunkedSourceData underTest = ChunkedSourceData.parse(ChunkedSourceData.encode(DbFileSources.Data.getDefaultInstance(), 10));
+
+    assertThat(underTest.getChunkCount()).isEqualTo(0);
+    assertThat(underTest.decodeAll().getLinesCount()).isEqualTo(0);
+  }
+
+  @Test
+  public void keep_lines_which_are_not_in_the_expected_chunk() throws IOException {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("a"))
+      .addLines(DbFileSources.Line.newBuilder().setSource("no line number"))
+      .addLines(DbFileSources.Line.newBuilder().setLine(25).setSource("b"))
+      .addLines(DbFileSources.Line.newBuilder().setLine(3).setSource("unordered"))
+      .build();
+
+    ChunkedSourceData underTest = ChunkedSourceData.parse(ChunkedSourceData.encode(data, 10));
+
+    assertThat(underTest.getChunkCount()).isEqualTo(3);
+    assertThat(underTest.decodeChunk(0)).hasSize(2);
+    assertThat(underTest.decodeChunk(1)).isEmpty();
+    assertThat(underTest.decodeChunk(2)).hasSize(2);
+    assertThat(underTest.decodeAll()).isEqualTo(data);
+  }
+
+  @Test
+  public void legacy_format_is_not_chunked() {
+    assertThat(ChunkedSourceData.isChunked("LZ4Block".getBytes())).isFalse();
+    assertThat(ChunkedSourceData.isChunked(new byte[] {1, 2})).isFalse();
+  }
+
+  @Test
+  public void fail_to_parse_truncated_data() throws IOException {
+    byte[] bytes = ChunkedSourceData.encode(newData(25), 10);
+    byte[] truncated = new byte[bytes.length - 1];
+    System.arraycopy(bytes, 0, truncated, 0, truncated.length);
+
+    try {
+      ChunkedSourceData.parse(truncated);
+      fail("IOException expected");
+    } catch (IOException e) {
+      assertThat(e).hasMessage("Corrupted header of chunked source data");
+    }
+  }
+
+  @Test
+  public void fail_to_decode_chunk_which_does_not_exist() throws IOException {
+    ChunkedSourceData underTest = ChunkedSourceData.parse(ChunkedSourceData.encode(newData(25), 10));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Chunk 3 does not exist. Number of chunks is 3");
+
+    underTest.decodeChunk(3);
+  }
+
+  private static DbFileSources.Data newData(int lines) {
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    for (int i = 1; i <= lines; i++) {
+      data.addLines(DbFileSources.Line.newBuilder().setLine(i).setSource("line " + i));
+    }
+    return data.build();
+  }
+
+  private static int[] lineNumbers(List<DbFileSources.Line> lines) {
+    return lines.stream().mapToInt(DbFileSources.Line::getLine).toArray();
+  }
+}
@@ -59,6 +59,21 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void select_source_data_hash() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    assertThat(underTest.selectSourceDataHash(session, "FILE1_UUID")).isEqualTo("hash");
+    assertThat(underTest.selectSourceDataHash(session, "unknown")).isNull();
+  }
+
+  @Test
+  public void select_source_data_hash_ignores_test_data() {
+    dbTester.prepareDbUnit(getClass(), "no_line_hashes_when_only_test_data.xml");
+
+    assertThat(underTest.selectSourceDataHash(session, "FILE1_UUID")).isNull();
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -19,8 +19,11 @@
  */
 package org.sonar.db.source;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -80,6 +83,34 @@ public class FileSourceDtoTest {
     assertThat(data.getLinesCount()).isEqualTo(build.getLinesCount());
   }
 
+  @Test
+  public void getSourceData_reads_data_persisted_before_chunks() throws IOException {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("foo"))
+      .addLines(DbFileSources.Line.newBuilder().setLine(2).setSource("bar"))
+      .build();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream output = new LZ4BlockOutputStream(bytes)) {
+      data.writeTo(output);
+    }
+
+    FileSourceDto underTest = new FileSourceDto().setBinaryData(bytes.toByteArray());
+
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
+  @Test
+  public void setSourceData_encodes_data_by_chunks() {
+    DbFileSources.Data data = DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("foo"))
+      .build();
+
+    FileSourceDto underTest = new FileSourceDto().setSourceData(data);
+
+    assertThat(ChunkedSourceData.isChunked(underTest.getBinaryData())).isTrue();
+    assertThat(underTest.getSourceData()).isEqualTo(data);
+  }
+
   private static DbFileSources.Data createOver64MBDataStructure() {
     DbFileSources.Data.Builder dataBuilder = DbFileSources.Data.newBuilder();
     DbFileSources.Line.Builder lineBuilder = DbFileSources.Line.newBuilder();
@@ -46,6 +46,7 @@ public class WebhookDbTesting {
       .setHttpStatus(nextInt())
       .setSuccess(nextBoolean())
       .setPayload(randomAlphanumeric(10))
+      .setTimeoutMs(nextInt())
       .setCreatedAt(nextLong());
   }
 
@@ -104,7 +104,8 @@ public class WebhookDeliveryDaoTest {
     WebhookDeliveryDto dto = newDto("DELIVERY_1", "COMPONENT_1", "TASK_1")
       .setHttpStatus(null)
       .setDurationMs(null)
-      .setErrorStacktrace(null);
+      .setErrorStacktrace(null)
+      .setTimeoutMs(null);
 
     underTest.insert(dbSession, dto);
 
@@ -115,11 +116,13 @@ public class WebhookDeliveryDaoTest {
     assertThat(stored.getHttpStatus()).isNull();
     assertThat(stored.getDurationMs()).isNull();
     assertThat(stored.getErrorStacktrace()).isNull();
+    assertThat(stored.getTimeoutMs()).isNull();
+    assertThat(stored.getNodeUuid()).isNull();
   }
 
   @Test
   public void insert_row_with_all_columns() {
-    WebhookDeliveryDto dto = newDto("DELIVERY_1", "COMPONENT_1", "TASK_1");
+    WebhookDeliveryDto dto = newDto("DELIVERY_1", "COMPONENT_1", "TASK_1").setNodeUuid("NODE_1");
 
     underTest.insert(dbSession, dto);
 
@@ -128,6 +131,114 @@ public class WebhookDeliveryDaoTest {
     assertThat(stored.getHttpStatus()).isEqualTo(dto.getHttpStatus());
     assertThat(stored.getDurationMs()).isEqualTo(dto.getDurationMs());
     assertThat(stored.getErrorStacktrace()).isEqualTo(dto.getErrorStacktrace());
+    assertThat(stored.getTimeoutMs()).isEqualTo(dto.getTimeoutMs());
+    assertThat(stored.getNodeUuid()).isEqualTo("NODE_1");
+  }
+
+  @Test
+  public void selectUnclaimedPending_returns_pending_records_ordered_by_date() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1").setPending(true).setCreatedAt(NOW));
+    underTest.insert(dbSession, newDto("D2", "COMPONENT_1", "TASK_1").setPending(false).setCreatedAt(BEFORE));
+    underTest.insert(dbSession, newDto("D3", "COMPONENT_2", "TASK_2").setPending(true).setCreatedAt(BEFORE));
+
+    List<WebhookDeliveryDto> deliveries = underTest.selectUnclaimedPending(dbSession);
+
+    assertThat(deliveries).extracting(WebhookDeliveryDto::getUuid).containsExactly("D3", "D1");
+    assertThat(deliveries).extracting(WebhookDeliveryDto::getPayload).doesNotContainNull();
+  }
+
+  @Test
+  public void selectUnclaimedPending_ignores_records_without_pending_flag() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1"));
+    dbSession.commit();
+    dbTester.executeUpdateSql("update webhook_deliveries set pending = null");
+
+    assertThat(underTest.selectUnclaimedPending(dbSession)).isEmpty();
+    assertThat(selectByUuid("D1").isPending()).isFalse();
+  }
+
+  @Test
+  public void selectUnclaimedPending_ignores_records_claimed_by_a_node() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1").setPending(true).setNodeUuid("NODE_1"));
+    underTest.insert(dbSession, newDto("D2", "COMPONENT_1", "TASK_1").setPending(true));
+
+    assertThat(underTest.selectUnclaimedPending(dbSession)).extracting(WebhookDeliveryDto::getUuid).containsExactly("D2");
+  }
+
+  @Test
+  public void claim_sets_node_of_unclaimed_pending_record() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1").setPending(true));
+
+    assertThat(underTest.claim(dbSession, "D1", "NODE_1")).isTrue();
+    assertThat(selectByUuid("D1").getNodeUuid()).isEqualTo("NODE_1");
+
+    // already claimed
+    assertThat(underTest.claim(dbSession, "D1", "NODE_2")).isFalse();
+    assertThat(selectByUuid("D1").getNodeUuid()).isEqualTo("NODE_1");
+  }
+
+  @Test
+  public void claim_ignores_records_which_are_not_pending() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1").setPending(false));
+
+    assertThat(underTest.claim(dbSession, "D1", "NODE_1")).isFalse();
+    assertThat(underTest.claim(dbSession, "DOES_NOT_EXIST", "NODE_1")).isFalse();
+    assertThat(selectByUuid("D1").getNodeUuid()).isNull();
+  }
+
+  @Test
+  public void releaseClaims_resets_node_of_records_claimed_by_the_node() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1").setPending(true).setNodeUuid("NODE_1"));
+    underTest.insert(dbSession, newDto("D2", "COMPONENT_1", "TASK_1").setPending(true).setNodeUuid("NODE_2"));
+
+    underTest.releaseClaims(dbSession, "NODE_1");
+
+    assertThat(selectByUuid("D1").getNodeUuid()).isNull();
+    assertThat(selectByUuid("D2").getNodeUuid()).isEqualTo("NODE_2");
+  }
+
+  @Test
+  public void releaseAllClaims_resets_node_of_all_records() {
+    underTest.insert(dbSession, newDto("D1", "COMPONENT_1", "TASK_1").setPending(true).setNodeUuid("NODE_1"));
+    underTest.insert(dbSession, newDto("D2", "COMPONENT_1", "TASK_1").setPending(true).setNodeUuid("NODE_2"));
+
+    underTest.releaseAllClaims(dbSession);
+
+    assertThat(underTest.selectUnclaimedPending(dbSession)).extracting(WebhookDeliveryDto::getUuid).containsOnly("D1", "D2");
+  }
+
+  @Test
+  public void update_sets_result_of_delivery() {
+    WebhookDeliveryDto dto = newDto("D1", "COMPONENT_1", "TASK_1")
+      .setPending(true)
+      .setSuccess(false)
+      .setHttpStatus(null)
+      .setDurationMs(null)
+      .setErrorStacktrace(null)
+      .setNodeUuid("NODE_1")
+      .setCreatedAt(BEFORE);
+    underTest.insert(dbSession, dto);
+
+    underTest.update(dbSession, newDto("D1", "OTHER_COMPONENT", "OTHER_TASK")
+      .setPending(false)
+      .setSuccess(true)
+      .setHttpStatus(200)
+      .setDurationMs(1_000)
+      .setErrorStacktrace("error")
+      .setCreatedAt(NOW));
+
+    WebhookDeliveryDto stored = selectByUuid("D1");
+    assertThat(stored.isPending()).isFalse();
+    assertThat(stored.isSuccess()).isTrue();
+    assertThat(stored.getNodeUuid()).isNull();
+    assertThat(stored.getHttpStatus()).isEqualTo(200);
+    assertThat(stored.getDurationMs()).isEqualTo(1_000);
+    assertThat(stored.getErrorStacktrace()).isEqualTo("error");
+    assertThat(stored.getCreatedAt()).isEqualTo(NOW);
+    // identity of the delivery is not updated
+    assertThat(stored.getComponentUuid()).isEqualTo("COMPONENT_1");
+    assertThat(stored.getCeTaskUuid()).isEqualTo("TASK_1");
+    assertThat(stored.getPayload()).isEqualTo(dto.getPayload());
   }
 
   @Test
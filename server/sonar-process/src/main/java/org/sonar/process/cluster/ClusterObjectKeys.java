@@ -59,4 +59,9 @@ public final class ClusterObjectKeys {
    * {@link CeCleaningSchedulerImpl}
    */
   public static final String CE_CLEANING_JOB_LOCK = "CE_CLEANING_JOB_LOCK";
+
+  /**
+   * The key of the topic used to wake up the CeWorkers of the cluster when tasks may be available in the queue
+   */
+  public static final String CE_WORKERS_WAKE_UP = "CE_WORKERS_WAKE_UP";
 }
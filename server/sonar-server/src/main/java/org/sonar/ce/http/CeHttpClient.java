@@ -42,6 +42,7 @@ public class CeHttpClient {
 
   private static final String PATH_CHANGE_LOG_LEVEL = "changeLogLevel";
   private static final String PATH_SYSTEM_INFO = "systemInfo";
+  private static final String PATH_WAKE_UP_WORKERS = "wakeUpWorkers";
 
   private final File ipcSharedDir;
 
@@ -119,6 +120,46 @@ public class CeHttpClient {
     }
   }
 
+  /**
+   * Requests the Compute Engine to wake up its workers, for them to immediately look for pending tasks in the queue.
+   * Nothing is done if the Compute Engine is not up.
+   */
+  public void wakeUpWorkers() {
+    call(WakeUpWorkersActionClient.INSTANCE);
+  }
+
+  private enum WakeUpWorkersActionClient implements ActionClient<Void> {
+    INSTANCE;
+
+    @Override
+    public String getPath() {
+      return PATH_WAKE_UP_WORKERS;
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) throws Exception {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url)
+        .build();
+      okhttp3.Response response = new OkHttpClient().newCall(request).execute();
+      if (response.code() != 200) {
+        throw new IOException(
+          String.format(
+            "Failed to wake up workers of Compute Engine. Code was '%s' and response was '%s' for url '%s'",
+            response.code(),
+            response.body().string(),
+            url));
+      }
+      return null;
+    }
+  }
+
   private <T> T call(ActionClient<T> actionClient) {
     try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(ipcSharedDir, COMPUTE_ENGINE.getIpcIndex())) {
       if (commands.isUp()) {
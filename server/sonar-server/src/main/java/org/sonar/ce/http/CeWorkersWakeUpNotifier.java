@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueueListener;
+
+/**
+ * Requests the Compute Engine to wake up its workers when tasks are submitted from the Web Server, so that they
+ * are processed without waiting for the next polling of the queue.
+ * <p>
+ * Calls are made asynchronously, so that submitting a task never waits for the Compute Engine, and are coalesced:
+ * there is at most one pending call at a time. Failures are ignored as the workers eventually poll the queue.
+ * </p>
+ */
+public class CeWorkersWakeUpNotifier implements CeQueueListener, Startable {
+  private static final Logger LOG = Loggers.get(CeWorkersWakeUpNotifier.class);
+
+  private final CeHttpClient ceHttpClient;
+  private final ExecutorService executorService;
+  private final AtomicBoolean callPending = new AtomicBoolean(false);
+
+  public CeWorkersWakeUpNotifier(CeHttpClient ceHttpClient) {
+    this(ceHttpClient, Executors.newSingleThreadExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat("CeWorkersWakeUp-%d")
+        .setDaemon(true)
+        .build()));
+  }
+
+  @VisibleForTesting
+  CeWorkersWakeUpNotifier(CeHttpClient ceHttpClient, ExecutorService executorService) {
+    this.ceHttpClient = ceHttpClient;
+    this.executorService = executorService;
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void onQueueChange() {
+    if (callPending.compareAndSet(false, true)) {
+      executorService.execute(this::wakeUpWorkers);
+    }
+  }
+
+  private void wakeUpWorkers() {
+    // reset before the call so that a change made during the call triggers another one
+    callPending.set(false);
+    try {
+      ceHttpClient.wakeUpWorkers();
+    } catch (RuntimeException e) {
+      LOG.debug("Failed to wake up workers of Compute Engine", e);
+    }
+  }
+
+  @Override
+  public void stop() {
+    executorService.shutdownNow();
+  }
+}
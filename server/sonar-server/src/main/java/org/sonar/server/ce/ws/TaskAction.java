@@ -39,6 +39,7 @@ import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.permission.OrganizationPermission;
+import org.sonar.server.computation.task.profile.TaskProfile;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.ws.WsUtils;
 import org.sonarqube.ws.WsCe;
@@ -69,7 +70,8 @@ public class TaskAction implements CeWsAction {
     WebService.NewAction action = controller.createAction(ACTION)
       .setDescription("Give Compute Engine task details such as type, status, duration and associated component.<br />" +
         "Requires 'Administer System' or 'Execute Analysis' permission.<br/>" +
-        "Since 6.1, field \"logs\" is deprecated and its value is always false.")
+        "Since 6.1, field \"logs\" is deprecated and its value is always false.<br/>" +
+        "Since 6.5, the performance profile of the task can be requested with additional field \"profile\".")
       .setResponseExample(getClass().getResource("task-example.json"))
       .setSince("5.2")
       .setHandler(this);
@@ -101,8 +103,8 @@ public class TaskAction implements CeWsAction {
         checkPermission(component);
         Set<AdditionalField> additionalFields = AdditionalField.getFromRequest(wsRequest);
         maskErrorStacktrace(ceActivityDto, additionalFields);
-        wsTaskResponse.setTask(
-          wsTaskFormatter.formatActivity(dbSession, ceActivityDto, component, extractScannerContext(dbSession, ceActivityDto, additionalFields)));
+        WsCe.Task task = wsTaskFormatter.formatActivity(dbSession, ceActivityDto, component, extractScannerContext(dbSession, ceActivityDto, additionalFields));
+        wsTaskResponse.setTask(addProfile(dbSession, task, additionalFields));
       }
       writeProtobuf(wsTaskResponse.build(), wsRequest, wsResponse);
     }
@@ -144,9 +146,37 @@ public class TaskAction implements CeWsAction {
     return null;
   }
 
+  private WsCe.Task addProfile(DbSession dbSession, WsCe.Task task, Set<AdditionalField> additionalFields) {
+    if (!additionalFields.contains(AdditionalField.PROFILE)) {
+      return task;
+    }
+    return dbClient.ceTaskProfileDao().selectProfile(dbSession, task.getId())
+      .map(json -> task.toBuilder().setProfile(toWsProfile(TaskProfile.fromJson(json))).build())
+      .orElse(task);
+  }
+
+  private static WsCe.TaskProfile toWsProfile(TaskProfile profile) {
+    WsCe.TaskProfile.Builder builder = WsCe.TaskProfile.newBuilder()
+      .setPeakHeapBytes(profile.getPeakHeapBytes())
+      .setDbRowsRead(profile.getDbRowsRead())
+      .setDbRowsWritten(profile.getDbRowsWritten())
+      .setEsDocumentsIndexed(profile.getEsDocumentsIndexed());
+    profile.getSteps().forEach(step -> builder.addSteps(toWsDuration(step)));
+    profile.getVisitors().forEach(visitor -> builder.addVisitors(toWsDuration(visitor)));
+    return builder.build();
+  }
+
+  private static WsCe.TaskProfileDuration toWsDuration(TaskProfile.Duration duration) {
+    return WsCe.TaskProfileDuration.newBuilder()
+      .setName(duration.getName())
+      .setDurationMs(duration.getDurationMs())
+      .build();
+  }
+
   private enum AdditionalField {
     STACKTRACE("stacktrace"),
-    SCANNER_CONTEXT("scannerContext");
+    SCANNER_CONTEXT("scannerContext"),
+    PROFILE("profile");
 
     private final String label;
 
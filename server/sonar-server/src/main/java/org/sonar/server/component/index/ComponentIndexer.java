@@ -30,6 +30,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.ProjectIndexer;
@@ -47,10 +48,12 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
 
-  public ComponentIndexer(DbClient dbClient, EsClient esClient) {
+  public ComponentIndexer(DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
   }
 
   @Override
@@ -89,7 +92,7 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
    * <b>Warning:</b> only use {@code null} during startup.
    */
   private void doIndexByProjectUuid(@Nullable String projectUuid, Size bulkSize) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT.getIndex(), bulkSize);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT.getIndex(), bulkSize, bulkIndexerMetrics);
 
     bulk.start();
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -104,21 +107,21 @@ public class ComponentIndexer implements ProjectIndexer, NeedAuthorizationIndexe
 
   @Override
   public void deleteProject(String projectUuid) {
-    BulkIndexer.delete(esClient, INDEX_TYPE_COMPONENT.getIndex(), esClient.prepareSearch(INDEX_TYPE_COMPONENT)
+    BulkIndexer.delete(esClient, bulkIndexerMetrics, INDEX_TYPE_COMPONENT.getIndex(), esClient.prepareSearch(INDEX_TYPE_COMPONENT)
       .setQuery(boolQuery()
         .filter(
           termQuery(ComponentIndexDefinition.FIELD_PROJECT_UUID, projectUuid))));
   }
 
   public void delete(String projectUuid, Collection<String> disabledComponentUuids) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT.getIndex(), Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT.getIndex(), Size.REGULAR, bulkIndexerMetrics);
     bulk.start();
     disabledComponentUuids.forEach(uuid -> bulk.addDeletion(INDEX_TYPE_COMPONENT, uuid, projectUuid));
     bulk.stop();
   }
 
   void index(ComponentDto... docs) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT.getIndex(), Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_COMPONENT.getIndex(), Size.REGULAR, bulkIndexerMetrics);
     bulk.start();
     Arrays.stream(docs)
       .map(ComponentIndexer::toDocument)
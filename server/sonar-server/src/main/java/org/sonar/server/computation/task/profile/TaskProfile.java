@@ -0,0 +1,171 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.profile;
+
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Performance profile of the execution of a Compute Engine task. It is persisted as JSON in table CE_TASK_PROFILE.
+ * <p>
+ * Database rows and Elasticsearch documents are counted per task: only the work done by the worker thread and by the
+ * threads created with {@link TaskProfiler#taskThreadFactory(java.util.concurrent.ThreadFactory)} is counted, so the
+ * tasks executed concurrently by other workers are excluded. Rows read or written through plain JDBC are not counted.
+ * </p>
+ */
+public class TaskProfile {
+
+  private static final Gson GSON = new Gson();
+
+  private final List<Duration> steps;
+  private final List<Duration> visitors;
+  private final long peakHeapBytes;
+  private final long dbRowsRead;
+  private final long dbRowsWritten;
+  private final long esDocumentsIndexed;
+
+  private TaskProfile(Builder builder) {
+    this.steps = unmodifiableList(new ArrayList<>(builder.steps));
+    this.visitors = unmodifiableList(new ArrayList<>(builder.visitors));
+    this.peakHeapBytes = builder.peakHeapBytes;
+    this.dbRowsRead = builder.dbRowsRead;
+    this.dbRowsWritten = builder.dbRowsWritten;
+    this.esDocumentsIndexed = builder.esDocumentsIndexed;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Durations of computation steps, in order of completion
+   */
+  public List<Duration> getSteps() {
+    return steps;
+  }
+
+  /**
+   * Cumulative durations of the component visitors executed by step "Execute component visitors"
+   */
+  public List<Duration> getVisitors() {
+    return visitors;
+  }
+
+  /**
+   * Maximum heap usage measured after each step, in bytes
+   */
+  public long getPeakHeapBytes() {
+    return peakHeapBytes;
+  }
+
+  public long getDbRowsRead() {
+    return dbRowsRead;
+  }
+
+  public long getDbRowsWritten() {
+    return dbRowsWritten;
+  }
+
+  public long getEsDocumentsIndexed() {
+    return esDocumentsIndexed;
+  }
+
+  public String toJson() {
+    return GSON.toJson(this);
+  }
+
+  public static TaskProfile fromJson(String json) {
+    return GSON.fromJson(json, TaskProfile.class);
+  }
+
+  public static final class Duration {
+    private final String name;
+    private final long durationMs;
+
+    public Duration(String name, long durationMs) {
+      this.name = requireNonNull(name);
+      this.durationMs = durationMs;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getDurationMs() {
+      return durationMs;
+    }
+
+    @Override
+    public String toString() {
+      return name + "=" + durationMs + "ms";
+    }
+  }
+
+  public static final class Builder {
+    private final List<Duration> steps = new ArrayList<>();
+    private final List<Duration> visitors = new ArrayList<>();
+    private long peakHeapBytes = 0L;
+    private long dbRowsRead = 0L;
+    private long dbRowsWritten = 0L;
+    private long esDocumentsIndexed = 0L;
+
+    private Builder() {
+      // use TaskProfile.builder()
+    }
+
+    public Builder addStep(String name, long durationMs) {
+      steps.add(new Duration(name, durationMs));
+      return this;
+    }
+
+    public Builder addVisitor(String name, long durationMs) {
+      visitors.add(new Duration(name, durationMs));
+      return this;
+    }
+
+    public Builder setPeakHeapBytes(long peakHeapBytes) {
+      this.peakHeapBytes = peakHeapBytes;
+      return this;
+    }
+
+    public Builder setDbRowsRead(long dbRowsRead) {
+      this.dbRowsRead = dbRowsRead;
+      return this;
+    }
+
+    public Builder setDbRowsWritten(long dbRowsWritten) {
+      this.dbRowsWritten = dbRowsWritten;
+      return this;
+    }
+
+    public Builder setEsDocumentsIndexed(long esDocumentsIndexed) {
+      this.esDocumentsIndexed = esDocumentsIndexed;
+      return this;
+    }
+
+    public TaskProfile build() {
+      return new TaskProfile(this);
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.profile;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.LongSupplier;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbRowCounters;
+import org.sonar.db.DbSession;
+import org.sonar.server.computation.task.container.EagerStart;
+import org.sonar.server.es.BulkIndexerMetrics;
+
+import static java.util.Collections.singleton;
+
+/**
+ * Records the {@link TaskProfile} of the task executed by the container. Steps may be executed concurrently,
+ * hence all methods are thread-safe.
+ * <p>
+ * DB rows and ES documents are counted by counters dedicated to the task, which are bound to the thread starting the
+ * container and to the threads created by the factories returned by {@link #taskThreadFactory(ThreadFactory)}. The
+ * I/O of the other tasks executed concurrently by the other workers is therefore not counted.
+ * </p>
+ */
+@EagerStart
+public class TaskProfiler implements Startable {
+
+  private static final Logger LOGGER = Loggers.get(TaskProfiler.class);
+
+  private final CeTask ceTask;
+  private final DbClient dbClient;
+  private final TaskProfilesStatistics statistics;
+  private final DbRowCounters taskRowCounters;
+  private final BulkIndexerMetrics taskIndexerMetrics;
+  private final LongSupplier heapUsage;
+
+  private final TaskProfile.Builder profile = TaskProfile.builder();
+  private long peakHeapBytes = 0L;
+
+  public TaskProfiler(CeTask ceTask, DbClient dbClient, TaskProfilesStatistics statistics) {
+    this(ceTask, dbClient, statistics, new DbRowCounters(), new BulkIndexerMetrics(),
+      () -> ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed());
+  }
+
+  @VisibleForTesting
+  TaskProfiler(CeTask ceTask, DbClient dbClient, TaskProfilesStatistics statistics, DbRowCounters taskRowCounters,
+    BulkIndexerMetrics taskIndexerMetrics, LongSupplier heapUsage) {
+    this.ceTask = ceTask;
+    this.dbClient = dbClient;
+    this.statistics = statistics;
+    this.taskRowCounters = taskRowCounters;
+    this.taskIndexerMetrics = taskIndexerMetrics;
+    this.heapUsage = heapUsage;
+  }
+
+  /**
+   * Wraps {@code threadFactory} so that the threads it creates count their I/O in the counters bound to the thread
+   * which creates them. Must be used by the pools of threads created while executing a task, so that their I/O is
+   * attributed to the task.
+   */
+  public static ThreadFactory taskThreadFactory(ThreadFactory threadFactory) {
+    return runnable -> {
+      DbRowCounters rowCounters = DbRowCounters.boundToCurrentThread();
+      BulkIndexerMetrics indexerMetrics = BulkIndexerMetrics.boundToCurrentThread();
+      return threadFactory.newThread(() -> {
+        bindToCurrentThread(rowCounters, indexerMetrics);
+        try {
+          runnable.run();
+        } finally {
+          bindToCurrentThread(null, null);
+        }
+      });
+    };
+  }
+
+  private static void bindToCurrentThread(@Nullable DbRowCounters rowCounters, @Nullable BulkIndexerMetrics indexerMetrics) {
+    DbRowCounters.bindToCurrentThread(rowCounters);
+    BulkIndexerMetrics.bindToCurrentThread(indexerMetrics);
+  }
+
+  @Override
+  public synchronized void start() {
+    bindToCurrentThread(taskRowCounters, taskIndexerMetrics);
+    sampleHeap();
+  }
+
+  @Override
+  public void stop() {
+    // safety call in case finish() has not been called
+    bindToCurrentThread(null, null);
+  }
+
+  public synchronized void addStep(String description, long durationMs) {
+    profile.addStep(description, durationMs);
+    sampleHeap();
+  }
+
+  public synchronized void addVisitor(String name, long durationMs) {
+    profile.addVisitor(name, durationMs);
+  }
+
+  private void sampleHeap() {
+    peakHeapBytes = Math.max(peakHeapBytes, heapUsage.getAsLong());
+  }
+
+  /**
+   * Builds the profile, persists it and adds it to the statistics of the process. Failures are logged but not
+   * propagated, so that they can't hide the outcome of the task. Counters of the task are unbound from the current
+   * thread.
+   */
+  public synchronized TaskProfile finish() {
+    bindToCurrentThread(null, null);
+    sampleHeap();
+    TaskProfile result = profile
+      .setPeakHeapBytes(peakHeapBytes)
+      .setDbRowsRead(taskRowCounters.getRowsRead())
+      .setDbRowsWritten(taskRowCounters.getRowsWritten())
+      .setEsDocumentsIndexed(taskIndexerMetrics.getDocuments())
+      .build();
+    statistics.add(result);
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      // in case the task was restarted, a profile might have been already persisted
+      dbClient.ceTaskProfileDao().deleteByUuids(dbSession, singleton(ceTask.getUuid()));
+      dbClient.ceTaskProfileDao().insert(dbSession, ceTask.getUuid(), result.toJson());
+      dbSession.commit();
+    } catch (Exception e) {
+      LOGGER.warn("Failed to persist profile of task " + ceTask.getUuid(), e);
+    }
+    return result;
+  }
+}
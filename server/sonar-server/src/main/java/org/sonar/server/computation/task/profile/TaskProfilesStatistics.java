@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.profile;
+
+import java.util.Map;
+import java.util.TreeMap;
+import org.sonar.api.ce.ComputeEngineSide;
+
+/**
+ * Aggregation of the {@link TaskProfile} of all the tasks executed since startup of the Compute Engine.
+ */
+@ComputeEngineSide
+public class TaskProfilesStatistics {
+
+  private final Map<String, Long> stepDurations = new TreeMap<>();
+  private long taskCount = 0L;
+  private long maxPeakHeapBytes = 0L;
+  private long dbRowsRead = 0L;
+  private long dbRowsWritten = 0L;
+  private long esDocumentsIndexed = 0L;
+
+  public synchronized void add(TaskProfile profile) {
+    taskCount++;
+    profile.getSteps().forEach(step -> stepDurations.merge(step.getName(), step.getDurationMs(), Long::sum));
+    maxPeakHeapBytes = Math.max(maxPeakHeapBytes, profile.getPeakHeapBytes());
+    dbRowsRead += profile.getDbRowsRead();
+    dbRowsWritten += profile.getDbRowsWritten();
+    esDocumentsIndexed += profile.getEsDocumentsIndexed();
+  }
+
+  public synchronized long getTaskCount() {
+    return taskCount;
+  }
+
+  /**
+   * Cumulative duration of each step, in milliseconds, by step description
+   */
+  public synchronized Map<String, Long> getStepDurations() {
+    return new TreeMap<>(stepDurations);
+  }
+
+  public synchronized long getMaxPeakHeapBytes() {
+    return maxPeakHeapBytes;
+  }
+
+  public synchronized long getDbRowsRead() {
+    return dbRowsRead;
+  }
+
+  public synchronized long getDbRowsWritten() {
+    return dbRowsWritten;
+  }
+
+  public synchronized long getEsDocumentsIndexed() {
+    return esDocumentsIndexed;
+  }
+}
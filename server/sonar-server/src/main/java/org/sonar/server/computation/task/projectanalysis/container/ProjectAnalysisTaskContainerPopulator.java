@@ -29,6 +29,7 @@ import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.core.platform.ContainerPopulator;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.profile.TaskProfiler;
 import org.sonar.server.computation.task.projectanalysis.analysis.AnalysisMetadataHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.api.posttask.PostProjectAnalysisTasksExecutor;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
@@ -141,6 +142,7 @@ public final class ProjectAnalysisTaskContainerPopulator implements ContainerPop
     return Arrays.asList(
       PostProjectAnalysisTasksExecutor.class,
       ComputationStepExecutor.class,
+      TaskProfiler.class,
 
       // File System
       new ComputationTempFolderProvider(),
@@ -23,20 +23,29 @@ import com.google.common.base.Splitter;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import org.sonar.api.resources.Qualifiers;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
@@ -60,10 +69,12 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Splitter.on;
 import static com.google.common.collect.FluentIterable.from;
 import static java.util.Arrays.asList;
+import static org.sonar.server.computation.task.profile.TaskProfiler.taskThreadFactory;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
 
 public class FileMoveDetectionStep implements ComputationStep {
   protected static final int MIN_REQUIRED_SCORE = 85;
+  private static final int DB_FILES_BATCH_SIZE = 500;
   private static final Logger LOG = Loggers.get(FileMoveDetectionStep.class);
   private static final List<String> FILE_QUALIFIERS = asList(Qualifiers.FILE, Qualifiers.UNIT_TEST_FILE);
   private static final Splitter LINES_HASHES_SPLITTER = on('\n');
@@ -74,15 +85,23 @@ public class FileMoveDetectionStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final FileSimilarity fileSimilarity;
   private final MutableMovedFilesRepository movedFilesRepository;
+  private final int threadCount;
 
   public FileMoveDetectionStep(AnalysisMetadataHolder analysisMetadataHolder, TreeRootHolder rootHolder, DbClient dbClient,
     SourceLinesRepository sourceLinesRepository, FileSimilarity fileSimilarity, MutableMovedFilesRepository movedFilesRepository) {
+    this(analysisMetadataHolder, rootHolder, dbClient, sourceLinesRepository, fileSimilarity, movedFilesRepository, null);
+  }
+
+  public FileMoveDetectionStep(AnalysisMetadataHolder analysisMetadataHolder, TreeRootHolder rootHolder, DbClient dbClient,
+    SourceLinesRepository sourceLinesRepository, FileSimilarity fileSimilarity, MutableMovedFilesRepository movedFilesRepository,
+    @Nullable CeConfiguration ceConfiguration) {
     this.analysisMetadataHolder = analysisMetadataHolder;
     this.rootHolder = rootHolder;
     this.dbClient = dbClient;
     this.sourceLinesRepository = sourceLinesRepository;
     this.fileSimilarity = fileSimilarity;
     this.movedFilesRepository = movedFilesRepository;
+    this.threadCount = ceConfiguration == null ? 1 : ceConfiguration.getComputationStepThreadCount();
   }
 
   @Override
@@ -196,33 +215,82 @@ public class FileMoveDetectionStep implements ComputationStep {
     return builder.build();
   }
 
+  /**
+   * Db files are loaded by batches of {@link #DB_FILES_BATCH_SIZE} on the current thread (a {@link DbSession} is not
+   * thread-safe), then the files of each batch are scored against all report files by a pool of
+   * {@link CeConfiguration#getComputationStepThreadCount()} threads. Pairs which can not reach
+   * {@link #MIN_REQUIRED_SCORE} are pruned and not stored in the matrix.
+   */
   private ScoreMatrix computeScoreMatrix(Map<String, DbComponent> dtosByKey, Set<String> dbFileKeys, Map<String, File> reportFileSourcesByKey) {
-    int[][] scoreMatrix = new int[dbFileKeys.size()][reportFileSourcesByKey.size()];
-    int maxScore = 0;
-
+    List<String> reportFileKeys = new ArrayList<>(reportFileSourcesByKey.keySet());
+    List<File> reportFiles = reportFileKeys.stream().map(reportFileSourcesByKey::get).collect(Collectors.toList());
+    List<String> scoredDbFileKeys = new ArrayList<>(dbFileKeys.size());
+    List<ScoreMatrix.Row> rows = new ArrayList<>(dbFileKeys.size());
+
+    ExecutorService executorService = threadCount > 1 ? Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder()
+      .setThreadFactory(taskThreadFactory(Executors.defaultThreadFactory()))
+      .setNameFormat("FileMoveDetection-%d")
+      .setDaemon(true)
+      .build()) : null;
     try (DbSession dbSession = dbClient.openSession(false)) {
-      int dbFileIndex = 0;
-      for (String removedFileKey : dbFileKeys) {
-        File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
-        if (fileInDb == null) {
-          continue;
-        }
-
-        int reportFileIndex = 0;
-        for (Map.Entry<String, File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-          File unmatchedFile = reportFileSourceAndKey.getValue();
-          int score = fileSimilarity.score(fileInDb, unmatchedFile);
-          scoreMatrix[dbFileIndex][reportFileIndex] = score;
-          if (score > maxScore) {
-            maxScore = score;
+      for (List<String> batch : Iterables.partition(dbFileKeys, DB_FILES_BATCH_SIZE)) {
+        List<File> batchFiles = new ArrayList<>(batch.size());
+        for (String removedFileKey : batch) {
+          File fileInDb = getFile(dbSession, dtosByKey.get(removedFileKey));
+          if (fileInDb != null) {
+            scoredDbFileKeys.add(removedFileKey);
+            batchFiles.add(fileInDb);
           }
-          reportFileIndex++;
         }
-        dbFileIndex++;
+        rows.addAll(scoreRows(executorService, batchFiles, reportFiles));
+      }
+    } finally {
+      if (executorService != null) {
+        executorService.shutdownNow();
       }
     }
 
-    return new ScoreMatrix(dbFileKeys, reportFileSourcesByKey, scoreMatrix, maxScore);
+    int maxScore = rows.stream().mapToInt(ScoreMatrix.Row::getMaxScore).max().orElse(0);
+    return new ScoreMatrix(scoredDbFileKeys, reportFileKeys, rows.toArray(new ScoreMatrix.Row[rows.size()]), maxScore);
+  }
+
+  /**
+   * @return the rows of the specified db files, in the same order
+   */
+  private List<ScoreMatrix.Row> scoreRows(@Nullable ExecutorService executorService, List<File> dbFiles, List<File> reportFiles) {
+    if (executorService == null) {
+      return dbFiles.stream().map(fileInDb -> scoreRow(fileInDb, reportFiles)).collect(Collectors.toList());
+    }
+    List<Callable<ScoreMatrix.Row>> scorings = dbFiles.stream()
+      .map(fileInDb -> (Callable<ScoreMatrix.Row>) () -> scoreRow(fileInDb, reportFiles))
+      .collect(Collectors.toList());
+    try {
+      List<ScoreMatrix.Row> rows = new ArrayList<>(dbFiles.size());
+      for (Future<ScoreMatrix.Row> future : executorService.invokeAll(scorings)) {
+        rows.add(future.get());
+      }
+      return rows;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while detecting file moves", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private ScoreMatrix.Row scoreRow(File fileInDb, List<File> reportFiles) {
+    ScoreMatrix.Row.Builder row = new ScoreMatrix.Row.Builder();
+    for (int reportFileIndex = 0; reportFileIndex < reportFiles.size(); reportFileIndex++) {
+      row.add(reportFileIndex, fileSimilarity.score(fileInDb, reportFiles.get(reportFileIndex), MIN_REQUIRED_SCORE));
+    }
+    return row.build();
   }
 
   @CheckForNull
@@ -28,10 +28,12 @@ public interface FileSimilarity {
   final class File {
     private final String path;
     private final List<String> lineHashes;
+    private final int[] sortedLineHashCodes;
 
     public File(String path, List<String> lineHashes) {
       this.path = requireNonNull(path, "path can not be null");
       this.lineHashes = requireNonNull(lineHashes, "lineHashes can not be null");
+      this.sortedLineHashCodes = lineHashes.stream().mapToInt(String::hashCode).sorted().toArray();
     }
 
     public String getPath() {
@@ -45,7 +47,20 @@ public interface FileSimilarity {
     public List<String> getLineHashes() {
       return lineHashes;
     }
+
+    /**
+     * Cheap signature of the file: the sorted hash codes of {@link #getLineHashes()}.
+     */
+    int[] getSortedLineHashCodes() {
+      return sortedLineHashCodes;
+    }
   }
 
   int score(File file1, File file2);
+
+  /**
+   * Same as {@link #score(File, File)} but returns 0 as soon as the score is known to be lower than {@code minScore}.
+   * Implementations must be thread-safe.
+   */
+  int score(File file1, File file2, int minScore);
 }
@@ -19,6 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
 public class FileSimilarityImpl implements FileSimilarity {
 
   private final SourceSimilarity sourceSimilarity;
@@ -35,4 +38,45 @@ public class FileSimilarityImpl implements FileSimilarity {
 
     return sourceSimilarity.score(file1.getLineHashes(), file2.getLineHashes());
   }
+
+  @Override
+  public int score(File file1, File file2, int minScore) {
+    int size1 = file1.getLineHashes().size();
+    int size2 = file2.getLineHashes().size();
+    int maxSize = max(size1, size2);
+    if (maxSize == 0) {
+      return 0;
+    }
+    // edit distance is at least the difference of size
+    if (SourceSimilarityImpl.score(maxSize - min(size1, size2), maxSize) < minScore) {
+      return 0;
+    }
+    // edit distance is at least the number of lines of the biggest file which can not be matched with a line of the other
+    int commonLines = commonCount(file1.getSortedLineHashCodes(), file2.getSortedLineHashCodes());
+    if (SourceSimilarityImpl.score(maxSize - commonLines, maxSize) < minScore) {
+      return 0;
+    }
+    return sourceSimilarity.score(file1.getLineHashes(), file2.getLineHashes(), minScore);
+  }
+
+  /**
+   * Size of the intersection of two multisets represented as sorted arrays. Hash collisions can only make it greater.
+   */
+  private static int commonCount(int[] sorted1, int[] sorted2) {
+    int res = 0;
+    int i = 0;
+    int j = 0;
+    while (i < sorted1.length && j < sorted2.length) {
+      if (sorted1[i] == sorted2[j]) {
+        res++;
+        i++;
+        j++;
+      } else if (sorted1[i] < sorted2[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return res;
+  }
 }
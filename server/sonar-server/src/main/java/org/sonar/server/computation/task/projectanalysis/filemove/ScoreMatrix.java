@@ -19,33 +19,57 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
 
+/**
+ * Sparse matrix of the scores between removed files (db files) and added files (report files). Only strictly
+ * positive scores are stored, pairs which have not been scored (or scored 0) are implicitly scored 0.
+ */
 final class ScoreMatrix {
-  private final Set<String> dbFileKeys;
-  private final Map<String, FileSimilarity.File> reportFileSourcesByKey;
-  private final int[][] scores;
+  private static final int[] NO_INT = new int[0];
+
+  private final List<String> dbFileKeys;
+  private final List<String> reportFileKeys;
+  private final Row[] rows;
   private final int maxScore;
 
   public ScoreMatrix(Set<String> dbFileKeys, Map<String, FileSimilarity.File> reportFileSourcesByKey, int[][] scores, int maxScore) {
+    this(new ArrayList<>(dbFileKeys), new ArrayList<>(reportFileSourcesByKey.keySet()), toRows(scores), maxScore);
+  }
+
+  ScoreMatrix(List<String> dbFileKeys, List<String> reportFileKeys, Row[] rows, int maxScore) {
     this.dbFileKeys = dbFileKeys;
-    this.reportFileSourcesByKey = reportFileSourcesByKey;
-    this.scores = scores;
+    this.reportFileKeys = reportFileKeys;
+    this.rows = rows;
     this.maxScore = maxScore;
   }
 
+  private static Row[] toRows(int[][] scores) {
+    Row[] res = new Row[scores.length];
+    for (int i = 0; i < scores.length; i++) {
+      Row.Builder builder = new Row.Builder();
+      for (int j = 0; j < scores[i].length; j++) {
+        builder.add(j, scores[i][j]);
+      }
+      res[i] = builder.build();
+    }
+    return res;
+  }
+
+  /**
+   * Visits the non zero scores of the matrix, row by row (ie. db file by db file).
+   */
   public void accept(ScoreMatrixVisitor visitor) {
-    int dbFileIndex = 0;
-    for (String dbFileKey : dbFileKeys) {
-      int reportFileIndex = 0;
-      for (Map.Entry<String, FileSimilarity.File> reportFileSourceAndKey : reportFileSourcesByKey.entrySet()) {
-        int score = scores[dbFileIndex][reportFileIndex];
-        visitor.visit(dbFileKey, reportFileSourceAndKey.getKey(), score);
-        reportFileIndex++;
+    for (int dbFileIndex = 0; dbFileIndex < rows.length; dbFileIndex++) {
+      String dbFileKey = dbFileKeys.get(dbFileIndex);
+      Row row = rows[dbFileIndex];
+      for (int i = 0; i < row.reportFileIndexes.length; i++) {
+        visitor.visit(dbFileKey, reportFileKeys.get(row.reportFileIndexes[i]), row.scores[i]);
       }
-      dbFileIndex++;
     }
   }
 
@@ -53,22 +77,22 @@ final class ScoreMatrix {
     StringBuilder res = new StringBuilder();
     // first row: empty column, then one column for each report file (its key)
     res.append(separator);
-    for (Map.Entry<String, FileSimilarity.File> reportEntry : reportFileSourcesByKey.entrySet()) {
-      res.append(reportEntry.getKey()).append(separator);
+    for (String reportFileKey : reportFileKeys) {
+      res.append(reportFileKey).append(separator);
     }
     // rows with data: column with db file (its key), then one column for each value
-    accept(new ScoreMatrixVisitor() {
-      private String previousDbFileKey = null;
-
-      @Override
-      public void visit(String dbFileKey, String reportFileKey, int score) {
-        if (!Objects.equals(previousDbFileKey, dbFileKey)) {
-          res.append('\n').append(dbFileKey).append(separator);
-          previousDbFileKey = dbFileKey;
-        }
+    int[] denseRow = new int[reportFileKeys.size()];
+    for (int dbFileIndex = 0; dbFileIndex < rows.length; dbFileIndex++) {
+      res.append('\n').append(dbFileKeys.get(dbFileIndex)).append(separator);
+      Arrays.fill(denseRow, 0);
+      Row row = rows[dbFileIndex];
+      for (int i = 0; i < row.reportFileIndexes.length; i++) {
+        denseRow[row.reportFileIndexes[i]] = row.scores[i];
+      }
+      for (int score : denseRow) {
         res.append(score).append(separator);
       }
-    });
+    }
     return res.toString();
   }
 
@@ -80,4 +104,53 @@ final class ScoreMatrix {
   public int getMaxScore() {
     return maxScore;
   }
+
+  /**
+   * Non zero scores of a db file, sorted by index of report file.
+   */
+  static final class Row {
+    private final int[] reportFileIndexes;
+    private final int[] scores;
+
+    private Row(int[] reportFileIndexes, int[] scores) {
+      this.reportFileIndexes = reportFileIndexes;
+      this.scores = scores;
+    }
+
+    int getMaxScore() {
+      int res = 0;
+      for (int score : scores) {
+        res = Math.max(res, score);
+      }
+      return res;
+    }
+
+    static final class Builder {
+      private int[] reportFileIndexes = NO_INT;
+      private int[] scores = NO_INT;
+      private int size = 0;
+
+      /**
+       * Report file indexes must be added in increasing order. Scores lower or equal to 0 are ignored.
+       */
+      Builder add(int reportFileIndex, int score) {
+        if (score <= 0) {
+          return this;
+        }
+        if (size == scores.length) {
+          int newCapacity = Math.max(4, size * 2);
+          reportFileIndexes = Arrays.copyOf(reportFileIndexes, newCapacity);
+          scores = Arrays.copyOf(scores, newCapacity);
+        }
+        reportFileIndexes[size] = reportFileIndex;
+        scores[size] = score;
+        size++;
+        return this;
+      }
+
+      Row build() {
+        return new Row(Arrays.copyOf(reportFileIndexes, size), Arrays.copyOf(scores, size));
+      }
+    }
+  }
 }
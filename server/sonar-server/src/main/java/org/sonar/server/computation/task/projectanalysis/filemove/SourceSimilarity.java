@@ -28,4 +28,10 @@ public interface SourceSimilarity {
    * Range: between 0 and 100
    */
   <T extends Object> int score(List<T> left, List<T> right);
+
+  /**
+   * Same as {@link #score(List, List)} but implementation can stop computing the score as soon as it is known to be
+   * lower than {@code minScore}, in which case 0 is returned.
+   */
+  <T extends Object> int score(List<T> left, List<T> right, int minScore);
 }
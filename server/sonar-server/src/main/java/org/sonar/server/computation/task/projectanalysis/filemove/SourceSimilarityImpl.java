@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.filemove;
 
 import java.util.List;
 
+import static java.lang.Math.abs;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 
@@ -28,37 +29,86 @@ public class SourceSimilarityImpl implements SourceSimilarity {
 
   @Override
   public <T> int score(List<T> left, List<T> right) {
+    return score(left, right, 0);
+  }
+
+  @Override
+  public <T> int score(List<T> left, List<T> right, int minScore) {
     if (left.isEmpty() && right.isEmpty()) {
       return 0;
     }
-    int distance = levenshteinDistance(left, right);
-    return (int) (100 * (1.0 - ((double) distance) / (max(left.size(), right.size()))));
+    int maxSize = max(left.size(), right.size());
+    int maxDistance = maxDistance(maxSize, minScore);
+    if (maxDistance < 0) {
+      return 0;
+    }
+    int distance = levenshteinDistance(left, right, maxDistance);
+    if (distance > maxDistance) {
+      return 0;
+    }
+    return score(distance, maxSize);
   }
 
-  private static <T> int levenshteinDistance(List<T> left, List<T> right) {
-    int len0 = left.size() + 1;
-    int len1 = right.size() + 1;
+  static int score(int distance, int maxSize) {
+    return (int) (100 * (1.0 - ((double) distance) / maxSize));
+  }
+
+  /**
+   * Greatest distance between two lists, the biggest one having {@code maxSize} elements, which results in a score
+   * greater or equal to {@code minScore}. Returns -1 if {@code minScore} can not be reached.
+   */
+  static int maxDistance(int maxSize, int minScore) {
+    if (minScore <= 0) {
+      return maxSize;
+    }
+    int res = min(maxSize, (int) ((long) maxSize * (100 - minScore) / 100));
+    while (res < maxSize && score(res + 1, maxSize) >= minScore) {
+      res++;
+    }
+    while (res >= 0 && score(res, maxSize) < minScore) {
+      res--;
+    }
+    return res;
+  }
+
+  /**
+   * Levenshtein distance which gives up as soon as the distance is known to be greater than {@code maxDistance}, in
+   * which case {@code maxDistance + 1} is returned. Only the diagonal band of width {@code 2 * maxDistance + 1} of the
+   * distance matrix is computed.
+   */
+  private static <T> int levenshteinDistance(List<T> left, List<T> right, int maxDistance) {
+    int len0 = left.size();
+    int len1 = right.size();
+    // the distance is at least the difference of size
+    if (abs(len0 - len1) > maxDistance) {
+      return maxDistance + 1;
+    }
+    // any value greater than maxDistance is considered as infinite
+    int infinite = maxDistance + 1;
 
     // the array of distances
-    int[] cost = new int[len0];
-    int[] newcost = new int[len0];
+    int[] cost = new int[len0 + 1];
+    int[] newcost = new int[len0 + 1];
 
-    // initial cost of skipping prefix in String s0
-    for (int i = 0; i < len0; i++) {
-      cost[i] = i;
+    // initial cost of skipping prefix in left
+    for (int i = 0; i <= len0; i++) {
+      cost[i] = min(i, infinite);
     }
 
-    // dynamically computing the array of distances
+    // transformation cost for each element of right
+    for (int j = 1; j <= len1; j++) {
+      int from = max(1, j - maxDistance);
+      int to = min(len0, j + maxDistance);
 
-    // transformation cost for each letter in s1
-    for (int j = 1; j < len1; j++) {
-      // initial cost of skipping prefix in String s1
-      newcost[0] = j;
+      // initial cost of skipping prefix in right, cells before the band are out of reach
+      newcost[0] = min(j, infinite);
+      newcost[from - 1] = from == 1 ? newcost[0] : infinite;
+      int rowMin = newcost[from - 1];
 
-      // transformation cost for each letter in s0
-      for (int i = 1; i < len0; i++) {
-        // matching current letters in both strings
-        int match = left.get(i - 1).equals(right.get(j - 1)) ? 0 : 1;
+      T rightElement = right.get(j - 1);
+      for (int i = from; i <= to; i++) {
+        // matching current elements of both lists
+        int match = left.get(i - 1).equals(rightElement) ? 0 : 1;
 
         // computing cost for each transformation
         int costReplace = cost[i - 1] + match;
@@ -66,7 +116,16 @@ public class SourceSimilarityImpl implements SourceSimilarity {
         int costDelete = newcost[i - 1] + 1;
 
         // keep minimum cost
-        newcost[i] = min(min(costInsert, costDelete), costReplace);
+        newcost[i] = min(min(min(costInsert, costDelete), costReplace), infinite);
+        rowMin = min(rowMin, newcost[i]);
+      }
+      // cell after the band is out of reach
+      if (to < len0) {
+        newcost[to + 1] = infinite;
+      }
+      // costs never decrease along a transformation path
+      if (rowMin > maxDistance) {
+        return infinite;
       }
 
       // swap cost/newcost arrays
@@ -75,7 +134,7 @@ public class SourceSimilarityImpl implements SourceSimilarity {
       newcost = swap;
     }
 
-    // the distance is the cost for transforming all letters in both strings
-    return cost[len0 - 1];
+    // the distance is the cost for transforming all elements of both lists
+    return cost[len0];
   }
 }
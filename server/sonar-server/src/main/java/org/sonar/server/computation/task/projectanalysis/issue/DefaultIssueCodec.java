@@ -0,0 +1,460 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.db.protobuf.DbIssues;
+import org.sonar.server.util.cache.ObjectCodec;
+
+/**
+ * Hand-written binary encoding of {@link DefaultIssue} used by {@link IssueCache}. It is much more compact and faster
+ * than Java serialization.
+ * <p>
+ * References between {@link DefaultIssue#currentChange()} and the elements of {@link DefaultIssue#changes()} are
+ * preserved, the current change being usually the last element of the changes.
+ * </p>
+ */
+final class DefaultIssueCodec implements ObjectCodec<DefaultIssue> {
+  private static final int NULL = -1;
+
+  private static final byte LOCATIONS_NONE = 0;
+  private static final byte LOCATIONS_PROTOBUF = 1;
+  private static final byte LOCATIONS_SERIALIZED = 2;
+
+  private static final byte VALUE_NULL = 0;
+  private static final byte VALUE_STRING = 1;
+  private static final byte VALUE_LONG = 2;
+  private static final byte VALUE_INTEGER = 3;
+  private static final byte VALUE_DOUBLE = 4;
+  private static final byte VALUE_BOOLEAN = 5;
+  private static final byte VALUE_DATE = 6;
+  private static final byte VALUE_SERIALIZED = 7;
+
+  @Override
+  public void write(DefaultIssue issue, DataOutput output) throws IOException {
+    writeString(output, issue.key());
+    RuleType type = issue.type();
+    output.writeInt(type == null ? NULL : type.getDbConstant());
+    writeString(output, issue.componentUuid());
+    writeString(output, issue.componentKey());
+    writeString(output, issue.moduleUuid());
+    writeString(output, issue.moduleUuidPath());
+    writeString(output, issue.projectUuid());
+    writeString(output, issue.projectKey());
+    RuleKey ruleKey = issue.ruleKey();
+    writeString(output, ruleKey == null ? null : ruleKey.toString());
+    writeString(output, issue.language());
+    writeString(output, issue.severity());
+    output.writeBoolean(issue.manualSeverity());
+    writeString(output, issue.message());
+    Integer line = issue.line();
+    output.writeInt(line == null ? NULL : line);
+    Double gap = issue.gap();
+    output.writeBoolean(gap != null);
+    if (gap != null) {
+      output.writeDouble(gap);
+    }
+    Duration effort = issue.effort();
+    writeLong(output, effort == null ? null : effort.toMinutes());
+    writeString(output, issue.status());
+    writeString(output, issue.resolution());
+    writeString(output, issue.assignee());
+    writeString(output, issue.checksum());
+    writeStringMap(output, issue.attributes());
+    writeString(output, issue.authorLogin());
+    writeComments(output, issue);
+    writeStringSet(output, issue.tags());
+    writeLocations(output, issue.getLocations());
+    writeDate(output, issue.creationDate());
+    writeDate(output, issue.updateDate());
+    writeDate(output, issue.closeDate());
+    writeChanges(output, issue);
+    output.writeBoolean(issue.isNew());
+    output.writeBoolean(issue.isBeingClosed());
+    output.writeBoolean(issue.isOnDisabledRule());
+    output.writeBoolean(issue.isChanged());
+    output.writeBoolean(issue.mustSendNotifications());
+    writeLong(output, issue.selectedAt());
+  }
+
+  @Override
+  public DefaultIssue read(DataInput input) throws IOException {
+    DefaultIssue issue = new DefaultIssue();
+    issue.setKey(readString(input));
+    int type = input.readInt();
+    issue.setType(type == NULL ? null : RuleType.valueOf(type));
+    issue.setComponentUuid(readString(input));
+    issue.setComponentKey(readString(input));
+    issue.setModuleUuid(readString(input));
+    issue.setModuleUuidPath(readString(input));
+    issue.setProjectUuid(readString(input));
+    issue.setProjectKey(readString(input));
+    String ruleKey = readString(input);
+    issue.setRuleKey(ruleKey == null ? null : RuleKey.parse(ruleKey));
+    issue.setLanguage(readString(input));
+    issue.setSeverity(readString(input));
+    issue.setManualSeverity(input.readBoolean());
+    issue.setMessage(readString(input));
+    int line = input.readInt();
+    issue.setLine(line == NULL ? null : line);
+    issue.setGap(input.readBoolean() ? input.readDouble() : null);
+    Long effort = readLong(input);
+    issue.setEffort(effort == null ? null : Duration.create(effort));
+    String status = readString(input);
+    if (status != null) {
+      issue.setStatus(status);
+    }
+    issue.setResolution(readString(input));
+    issue.setAssignee(readString(input));
+    issue.setChecksum(readString(input));
+    readStringMap(input, issue);
+    issue.setAuthorLogin(readString(input));
+    readComments(input, issue);
+    readStringSet(input, issue);
+    issue.setLocations(readLocations(input));
+    issue.setCreationDate(readDate(input));
+    issue.setUpdateDate(readDate(input));
+    issue.setCloseDate(readDate(input));
+    readChanges(input, issue);
+    issue.setNew(input.readBoolean());
+    issue.setBeingClosed(input.readBoolean());
+    issue.setOnDisabledRule(input.readBoolean());
+    issue.setChanged(input.readBoolean());
+    issue.setSendNotifications(input.readBoolean());
+    issue.setSelectedAt(readLong(input));
+    return issue;
+  }
+
+  private static void writeComments(DataOutput output, DefaultIssue issue) throws IOException {
+    output.writeInt(issue.comments().size());
+    for (Object o : issue.comments()) {
+      DefaultIssueComment comment = (DefaultIssueComment) o;
+      writeString(output, comment.key());
+      writeString(output, comment.issueKey());
+      writeString(output, comment.userLogin());
+      writeString(output, comment.markdownText());
+      writeDate(output, comment.createdAt());
+      writeDate(output, comment.updatedAt());
+      output.writeBoolean(comment.isNew());
+    }
+  }
+
+  private static void readComments(DataInput input, DefaultIssue issue) throws IOException {
+    int count = input.readInt();
+    for (int i = 0; i < count; i++) {
+      DefaultIssueComment comment = new DefaultIssueComment()
+        .setKey(readString(input))
+        .setIssueKey(readString(input))
+        .setUserLogin(readString(input))
+        .setMarkdownText(readString(input))
+        .setCreatedAt(readDate(input))
+        .setUpdatedAt(readDate(input))
+        .setNew(input.readBoolean());
+      issue.addComment(comment);
+    }
+  }
+
+  /**
+   * Distinct {@link FieldDiffs} (by reference) are written once, then {@link DefaultIssue#changes()} and
+   * {@link DefaultIssue#currentChange()} are written as indexes of these instances.
+   */
+  private static void writeChanges(DataOutput output, DefaultIssue issue) throws IOException {
+    List<FieldDiffs> changes = issue.changes();
+    FieldDiffs currentChange = issue.currentChange();
+    Map<FieldDiffs, Integer> indexes = new IdentityHashMap<>();
+    List<FieldDiffs> distinct = new ArrayList<>();
+    for (FieldDiffs change : changes) {
+      if (indexes.putIfAbsent(change, distinct.size()) == null) {
+        distinct.add(change);
+      }
+    }
+    if (currentChange != null && indexes.putIfAbsent(currentChange, distinct.size()) == null) {
+      distinct.add(currentChange);
+    }
+
+    output.writeInt(distinct.size());
+    for (FieldDiffs change : distinct) {
+      writeFieldDiffs(output, change);
+    }
+    output.writeInt(changes.size());
+    for (FieldDiffs change : changes) {
+      output.writeInt(indexes.get(change));
+    }
+    output.writeInt(currentChange == null ? NULL : indexes.get(currentChange));
+  }
+
+  private static void readChanges(DataInput input, DefaultIssue issue) throws IOException {
+    int distinctCount = input.readInt();
+    List<FieldDiffs> distinct = new ArrayList<>(distinctCount);
+    for (int i = 0; i < distinctCount; i++) {
+      distinct.add(readFieldDiffs(input));
+    }
+    int changeCount = input.readInt();
+    List<FieldDiffs> changes = new ArrayList<>(changeCount);
+    for (int i = 0; i < changeCount; i++) {
+      changes.add(distinct.get(input.readInt()));
+    }
+    int currentChangeIndex = input.readInt();
+    if (currentChangeIndex != NULL) {
+      // setCurrentChange() also adds the change to the changes, which are then replaced by setChanges()
+      issue.setCurrentChange(distinct.get(currentChangeIndex));
+    }
+    if (!changes.isEmpty()) {
+      issue.setChanges(changes);
+    }
+  }
+
+  private static void writeFieldDiffs(DataOutput output, FieldDiffs fieldDiffs) throws IOException {
+    writeString(output, fieldDiffs.issueKey());
+    writeString(output, fieldDiffs.userLogin());
+    writeDate(output, fieldDiffs.creationDate());
+    Map<String, FieldDiffs.Diff> diffs = fieldDiffs.diffs();
+    output.writeInt(diffs.size());
+    for (Map.Entry<String, FieldDiffs.Diff> entry : diffs.entrySet()) {
+      writeString(output, entry.getKey());
+      writeValue(output, entry.getValue().oldValue());
+      writeValue(output, entry.getValue().newValue());
+    }
+  }
+
+  private static FieldDiffs readFieldDiffs(DataInput input) throws IOException {
+    FieldDiffs fieldDiffs = new FieldDiffs();
+    String issueKey = readString(input);
+    if (issueKey != null) {
+      fieldDiffs.setIssueKey(issueKey);
+    }
+    fieldDiffs.setUserLogin(readString(input));
+    fieldDiffs.setCreationDate(readDate(input));
+    int count = input.readInt();
+    for (int i = 0; i < count; i++) {
+      String field = readString(input);
+      Serializable oldValue = readValue(input);
+      Serializable newValue = readValue(input);
+      fieldDiffs.setDiff(field, oldValue, newValue);
+    }
+    return fieldDiffs;
+  }
+
+  private static void writeValue(DataOutput output, @Nullable Serializable value) throws IOException {
+    if (value == null) {
+      output.writeByte(VALUE_NULL);
+    } else if (value instanceof String) {
+      output.writeByte(VALUE_STRING);
+      writeString(output, (String) value);
+    } else if (value instanceof Long) {
+      output.writeByte(VALUE_LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Integer) {
+      output.writeByte(VALUE_INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Double) {
+      output.writeByte(VALUE_DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte(VALUE_BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof Date) {
+      output.writeByte(VALUE_DATE);
+      output.writeLong(((Date) value).getTime());
+    } else {
+      output.writeByte(VALUE_SERIALIZED);
+      writeSerialized(output, value);
+    }
+  }
+
+  @CheckForNull
+  private static Serializable readValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case VALUE_NULL:
+        return null;
+      case VALUE_STRING:
+        return readString(input);
+      case VALUE_LONG:
+        return input.readLong();
+      case VALUE_INTEGER:
+        return input.readInt();
+      case VALUE_DOUBLE:
+        return input.readDouble();
+      case VALUE_BOOLEAN:
+        return input.readBoolean();
+      case VALUE_DATE:
+        return new Date(input.readLong());
+      case VALUE_SERIALIZED:
+        return (Serializable) readSerialized(input);
+      default:
+        throw new IllegalStateException("Unsupported type of value: " + type);
+    }
+  }
+
+  private static void writeLocations(DataOutput output, @Nullable Object locations) throws IOException {
+    if (locations == null) {
+      output.writeByte(LOCATIONS_NONE);
+    } else if (locations instanceof DbIssues.Locations) {
+      output.writeByte(LOCATIONS_PROTOBUF);
+      writeBytes(output, ((DbIssues.Locations) locations).toByteArray());
+    } else {
+      output.writeByte(LOCATIONS_SERIALIZED);
+      writeSerialized(output, locations);
+    }
+  }
+
+  @CheckForNull
+  private static Object readLocations(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case LOCATIONS_NONE:
+        return null;
+      case LOCATIONS_PROTOBUF:
+        return DbIssues.Locations.parseFrom(readBytes(input));
+      case LOCATIONS_SERIALIZED:
+        return readSerialized(input);
+      default:
+        throw new IllegalStateException("Unsupported type of locations: " + type);
+    }
+  }
+
+  private static void writeSerialized(DataOutput output, Object object) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+      objectOutput.writeObject(object);
+    }
+    writeBytes(output, bytes.toByteArray());
+  }
+
+  private static Object readSerialized(DataInput input) throws IOException {
+    try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+      return objectInput.readObject();
+    } catch (ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to deserialize object", e);
+    }
+  }
+
+  private static void writeStringMap(DataOutput output, Map<String, String> map) throws IOException {
+    output.writeInt(map.size());
+    for (Map.Entry<String, String> entry : map.entrySet()) {
+      writeString(output, entry.getKey());
+      writeString(output, entry.getValue());
+    }
+  }
+
+  private static void readStringMap(DataInput input, DefaultIssue issue) throws IOException {
+    int count = input.readInt();
+    for (int i = 0; i < count; i++) {
+      issue.setAttribute(readString(input), readString(input));
+    }
+  }
+
+  private static void writeStringSet(DataOutput output, Set<String> set) throws IOException {
+    output.writeInt(set.size());
+    for (String s : set) {
+      writeString(output, s);
+    }
+  }
+
+  private static void readStringSet(DataInput input, DefaultIssue issue) throws IOException {
+    int count = input.readInt();
+    if (count == 0) {
+      return;
+    }
+    List<String> tags = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      tags.add(readString(input));
+    }
+    issue.setTags(tags);
+  }
+
+  private static void writeDate(DataOutput output, @Nullable Date date) throws IOException {
+    writeLong(output, date == null ? null : date.getTime());
+  }
+
+  @CheckForNull
+  private static Date readDate(DataInput input) throws IOException {
+    Long time = readLong(input);
+    return time == null ? null : new Date(time);
+  }
+
+  private static void writeLong(DataOutput output, @Nullable Long value) throws IOException {
+    output.writeBoolean(value != null);
+    if (value != null) {
+      output.writeLong(value);
+    }
+  }
+
+  @CheckForNull
+  private static Long readLong(DataInput input) throws IOException {
+    return input.readBoolean() ? input.readLong() : null;
+  }
+
+  /**
+   * Unlike {@link DataOutput#writeUTF(String)}, supports strings of any length and null
+   */
+  private static void writeString(DataOutput output, @Nullable String s) throws IOException {
+    writeBytes(output, s == null ? null : s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @CheckForNull
+  private static String readString(DataInput input) throws IOException {
+    byte[] bytes = readBytes(input);
+    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeBytes(DataOutput output, @Nullable byte[] bytes) throws IOException {
+    if (bytes == null) {
+      output.writeInt(NULL);
+    } else {
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+  }
+
+  @CheckForNull
+  private static byte[] readBytes(DataInput input) throws IOException {
+    int length = input.readInt();
+    if (length == NULL) {
+      return null;
+    }
+    byte[] bytes = new byte[length];
+    input.readFully(bytes);
+    return bytes;
+  }
+}
@@ -35,9 +35,9 @@ import static java.util.Objects.requireNonNull;
 public class RuleRepositoryImpl implements RuleRepository {
 
   @CheckForNull
-  private Map<RuleKey, Rule> rulesByKey;
+  private volatile Map<RuleKey, Rule> rulesByKey;
   @CheckForNull
-  private Map<Integer, Rule> rulesById;
+  private volatile Map<Integer, Rule> rulesById;
 
   private final DbClient dbClient;
   private final AnalysisMetadataHolder analysisMetadataHolder;
@@ -87,10 +87,17 @@ public class RuleRepositoryImpl implements RuleRepository {
     requireNonNull(key, "RuleKey can not be null");
   }
 
+  /**
+   * Rules may be requested concurrently, for example by the concurrent tracking of issues.
+   */
   private void ensureInitialized() {
     if (rulesByKey == null) {
-      try (DbSession dbSession = dbClient.openSession(false)) {
-        loadRulesFromDb(dbSession);
+      synchronized (this) {
+        if (rulesByKey == null) {
+          try (DbSession dbSession = dbClient.openSession(false)) {
+            loadRulesFromDb(dbSession);
+          }
+        }
       }
     }
   }
@@ -104,8 +111,9 @@ public class RuleRepositoryImpl implements RuleRepository {
       rulesByKeyBuilder.put(ruleDto.getKey(), rule);
       rulesByIdBuilder.put(ruleDto.getId(), rule);
     }
-    this.rulesByKey = rulesByKeyBuilder.build();
+    // rulesByKey is assigned last as it flags the initialization
     this.rulesById = rulesByIdBuilder.build();
+    this.rulesByKey = rulesByKeyBuilder.build();
   }
 
 }
@@ -19,25 +19,186 @@
  */
 package org.sonar.server.computation.task.projectanalysis.issue;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.core.issue.tracking.Tracking;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 
-public class TrackerExecution {
+import static org.sonar.server.computation.task.profile.TaskProfiler.taskThreadFactory;
+
+/**
+ * Tracks the issues of components.
+ * <p>
+ * When {@link CeConfiguration#getComputationStepThreadCount()} is greater than 1, the issues of the components of the
+ * tree are tracked concurrently, ahead of the calls to {@link #track(Component)}, in the order the components are
+ * visited by {@link IntegrateIssuesVisitor}, ie. depth-first in post-order. The number of trackings computed in
+ * advance is bounded so that only the issues of a few components are held in memory.
+ * </p>
+ */
+public class TrackerExecution implements Startable {
+  private static final int MAX_PENDING_TRACKINGS_PER_THREAD = 2;
 
   private final TrackerBaseInputFactory baseInputFactory;
   private final TrackerRawInputFactory rawInputFactory;
   private final Tracker<DefaultIssue, DefaultIssue> tracker;
+  @CheckForNull
+  private final TreeRootHolder treeRootHolder;
+  private final int threadCount;
+
+  @CheckForNull
+  private ConcurrentTrackings concurrentTrackings;
 
   public TrackerExecution(TrackerBaseInputFactory baseInputFactory, TrackerRawInputFactory rawInputFactory,
     Tracker<DefaultIssue, DefaultIssue> tracker) {
+    this(baseInputFactory, rawInputFactory, tracker, null, null);
+  }
+
+  public TrackerExecution(TrackerBaseInputFactory baseInputFactory, TrackerRawInputFactory rawInputFactory,
+    Tracker<DefaultIssue, DefaultIssue> tracker, @Nullable TreeRootHolder treeRootHolder, @Nullable CeConfiguration ceConfiguration) {
     this.baseInputFactory = baseInputFactory;
     this.rawInputFactory = rawInputFactory;
     this.tracker = tracker;
+    this.treeRootHolder = treeRootHolder;
+    this.threadCount = treeRootHolder == null || ceConfiguration == null ? 1 : ceConfiguration.getComputationStepThreadCount();
+  }
+
+  @Override
+  public void start() {
+    // nothing to do, threads are created on first call to track(Component)
   }
 
   public Tracking<DefaultIssue, DefaultIssue> track(Component component) {
+    if (threadCount > 1) {
+      if (concurrentTrackings == null) {
+        concurrentTrackings = new ConcurrentTrackings(visitOrder(treeRootHolder.getRoot()));
+      }
+      Tracking<DefaultIssue, DefaultIssue> tracking = concurrentTrackings.take(component);
+      if (tracking != null) {
+        return tracking;
+      }
+    }
+    return doTrack(component);
+  }
+
+  private Tracking<DefaultIssue, DefaultIssue> doTrack(Component component) {
     return tracker.track(rawInputFactory.create(component), baseInputFactory.create(component));
   }
+
+  @Override
+  public void stop() {
+    if (concurrentTrackings != null) {
+      concurrentTrackings.shutdown();
+    }
+  }
+
+  private static List<Component> visitOrder(Component root) {
+    List<Component> res = new ArrayList<>();
+    addInPostOrder(root, res);
+    return res;
+  }
+
+  private static void addInPostOrder(Component component, List<Component> res) {
+    for (Component child : component.getChildren()) {
+      addInPostOrder(child, res);
+    }
+    res.add(component);
+  }
+
+  /**
+   * Trackings of the components computed concurrently, which must be taken in the order of the components.
+   */
+  private final class ConcurrentTrackings {
+    private final Iterator<Component> componentsToTrack;
+    private final Deque<PendingTracking> pendingTrackings = new ArrayDeque<>();
+    private final ExecutorService executorService;
+    private boolean disabled = false;
+
+    private ConcurrentTrackings(List<Component> components) {
+      this.componentsToTrack = components.iterator();
+      this.executorService = Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder()
+        .setThreadFactory(taskThreadFactory(Executors.defaultThreadFactory()))
+        .setNameFormat("IssueTracking-%d")
+        .setDaemon(true)
+        .build());
+    }
+
+    /**
+     * @return {@code null} if the tracking of the specified component has not been computed concurrently
+     */
+    @CheckForNull
+    private Tracking<DefaultIssue, DefaultIssue> take(Component component) {
+      if (disabled) {
+        return null;
+      }
+      fillPendingTrackings();
+      PendingTracking pendingTracking = pendingTrackings.pollFirst();
+      if (pendingTracking == null || !pendingTracking.component.equals(component)) {
+        // components are not visited in the expected order, stop computing trackings in advance
+        Loggers.get(TrackerExecution.class).debug("Issues of component {} have not been tracked in advance", component.getKey());
+        shutdown();
+        return null;
+      }
+      Tracking<DefaultIssue, DefaultIssue> tracking = getTracking(pendingTracking.future);
+      fillPendingTrackings();
+      return tracking;
+    }
+
+    private void fillPendingTrackings() {
+      while (pendingTrackings.size() < threadCount * MAX_PENDING_TRACKINGS_PER_THREAD && componentsToTrack.hasNext()) {
+        Component component = componentsToTrack.next();
+        pendingTrackings.add(new PendingTracking(component, executorService.submit(() -> doTrack(component))));
+      }
+    }
+
+    private void shutdown() {
+      disabled = true;
+      pendingTrackings.forEach(pendingTracking -> pendingTracking.future.cancel(true));
+      pendingTrackings.clear();
+      executorService.shutdownNow();
+    }
+  }
+
+  private static Tracking<DefaultIssue, DefaultIssue> getTracking(Future<Tracking<DefaultIssue, DefaultIssue>> future) {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while tracking issues", e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+
+  private static final class PendingTracking {
+    private final Component component;
+    private final Future<Tracking<DefaultIssue, DefaultIssue>> future;
+
+    private PendingTracking(Component component, Future<Tracking<DefaultIssue, DefaultIssue>> future) {
+      this.component = component;
+      this.future = future;
+    }
+  }
 }
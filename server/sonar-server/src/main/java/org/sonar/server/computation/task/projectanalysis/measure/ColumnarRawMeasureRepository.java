@@ -0,0 +1,272 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures and stores them by column: one column per
+ * metric, in which measures are indexed by a dense index of component (typically the ref of the component in the
+ * scanner report).
+ * <p>
+ * Primitive measures (see {@link Measure#isPrimitive()}), which are the vast majority of the measures of files, are
+ * stored as a value type and a {@code double} in arrays and the {@link Measure} objects are created when they are read.
+ * Other measures (string or level values, data, variation, quality gate status, developer) are kept as is in side
+ * storage.
+ * </p>
+ * <p>
+ * Behavior is the same as {@link MapBasedRawMeasureRepository} and this implementation is thread safe as well.
+ * </p>
+ */
+public final class ColumnarRawMeasureRepository implements MeasureRepository {
+  private final ToIntFunction<Component> componentToIndex;
+  private final Map<String, Column> columnsByMetricKey = new ConcurrentHashMap<>();
+
+  public ColumnarRawMeasureRepository(ToIntFunction<Component> componentToIndex) {
+    this.componentToIndex = requireNonNull(componentToIndex);
+  }
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    return Optional.fromNullable(find(component, metric, null));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    // check and write are atomic, as the measures of a metric may be added by concurrent steps
+    Column column = columnsByMetricKey.computeIfAbsent(metric.getKey(), Column::new);
+    if (!column.putIfAbsent(toIndex(component), measure)) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null || !column.replace(toIndex(component), measure)) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    column.forEach(toIndex(component), builder::add);
+    return builder.build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int componentIndex = toIndex(component);
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Column column : columnsByMetricKey.values()) {
+      column.forEach(componentIndex, measure -> builder.put(column.metricKey, measure));
+    }
+    return builder.build();
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    int componentIndex = toIndex(component);
+    Column column = columnsByMetricKey.computeIfAbsent(metric.getKey(), Column::new);
+    column.put(componentIndex, measure, overridePolicy);
+  }
+
+  @CheckForNull
+  private Measure find(Component component, Metric metric, @Nullable Developer developer) {
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return null;
+    }
+    return column.get(toIndex(component), developer);
+  }
+
+  private int toIndex(Component component) {
+    int index = componentToIndex.applyAsInt(component);
+    checkArgument(index >= 0, "Index of component %s can not be negative: %s", component.getKey(), index);
+    return index;
+  }
+
+  /**
+   * Measures of a single metric. Methods are synchronized: columns are written by a single computation step most of
+   * the time, so contention only happens when concurrent steps read the same metric.
+   */
+  private static final class Column {
+    private static final int MIN_CAPACITY = 16;
+    private static final byte NONE = 0;
+
+    private final String metricKey;
+    /**
+     * Ordinal of {@link Measure.ValueType} + 1 of the primitive measure of each component, {@link #NONE} if the
+     * component has no primitive measure.
+     */
+    private byte[] valueTypes = new byte[0];
+    private double[] values = new double[0];
+    /**
+     * Non primitive measures without developer, by component index.
+     */
+    private final Map<Integer, Measure> otherMeasures = new HashMap<>();
+    private final Map<Integer, Map<Developer, Measure>> developerMeasures = new HashMap<>();
+
+    private Column(String metricKey) {
+      this.metricKey = metricKey;
+    }
+
+    @CheckForNull
+    synchronized Measure get(int componentIndex, @Nullable Developer developer) {
+      if (developer != null) {
+        Map<Developer, Measure> measures = developerMeasures.get(componentIndex);
+        return measures == null ? null : measures.get(developer);
+      }
+      if (componentIndex < valueTypes.length && valueTypes[componentIndex] != NONE) {
+        return Measure.restorePrimitive(Measure.ValueType.values()[valueTypes[componentIndex] - 1], values[componentIndex]);
+      }
+      return otherMeasures.get(componentIndex);
+    }
+
+    synchronized void forEach(int componentIndex, Consumer<Measure> consumer) {
+      Measure measure = get(componentIndex, null);
+      if (measure != null) {
+        consumer.accept(measure);
+      }
+      Map<Developer, Measure> measures = developerMeasures.get(componentIndex);
+      if (measures != null) {
+        measures.values().forEach(consumer);
+      }
+    }
+
+    synchronized void put(int componentIndex, Measure measure, OverridePolicy overridePolicy) {
+      if (overridePolicy == OverridePolicy.DO_NOT_OVERRIDE && get(componentIndex, measure.getDeveloper()) != null) {
+        return;
+      }
+      write(componentIndex, measure);
+    }
+
+    /**
+     * @return false if the component already has a measure, which is kept unchanged
+     */
+    synchronized boolean putIfAbsent(int componentIndex, Measure measure) {
+      if (get(componentIndex, measure.getDeveloper()) != null) {
+        return false;
+      }
+      write(componentIndex, measure);
+      return true;
+    }
+
+    /**
+     * @return false if the component has no measure, in which case the measure is not added
+     */
+    synchronized boolean replace(int componentIndex, Measure measure) {
+      if (get(componentIndex, measure.getDeveloper()) == null) {
+        return false;
+      }
+      write(componentIndex, measure);
+      return true;
+    }
+
+    private void write(int componentIndex, Measure measure) {
+      Developer developer = measure.getDeveloper();
+      if (developer != null) {
+        developerMeasures.computeIfAbsent(componentIndex, k -> new HashMap<>()).put(developer, measure);
+      } else if (measure.isPrimitive()) {
+        ensureCapacity(componentIndex + 1);
+        valueTypes[componentIndex] = (byte) (measure.getValueType().ordinal() + 1);
+        values[componentIndex] = measure.getPrimitiveValue();
+        otherMeasures.remove(componentIndex);
+      } else {
+        if (componentIndex < valueTypes.length) {
+          valueTypes[componentIndex] = NONE;
+        }
+        otherMeasures.put(componentIndex, measure);
+      }
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > valueTypes.length) {
+        int newCapacity = Math.max(Math.max(capacity, MIN_CAPACITY), valueTypes.length + (valueTypes.length >> 1));
+        valueTypes = Arrays.copyOf(valueTypes, newCapacity);
+        values = Arrays.copyOf(values, newCapacity);
+      }
+    }
+  }
+}
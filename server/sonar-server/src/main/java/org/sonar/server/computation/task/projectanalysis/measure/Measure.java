@@ -100,6 +100,36 @@ public final class Measure {
     return new UpdateMeasureBuilder(measure);
   }
 
+  /**
+   * Restores a measure for which {@link #isPrimitive()} is {@code true} from its value type and its value. The value
+   * is not scaled again.
+   */
+  static Measure restorePrimitive(ValueType valueType, double value) {
+    if (valueType == ValueType.NO_VALUE) {
+      return new Measure(valueType, null, null, null, null, null, null);
+    }
+    checkArgument(valueType != ValueType.STRING && valueType != ValueType.LEVEL, "ValueType %s is not primitive", valueType);
+    return new Measure(valueType, null, value, null, null, null, null);
+  }
+
+  /**
+   * A measure is primitive when it can be fully restored from its value type and a {@code double} value, ie. when it
+   * has no developer, data, quality gate status nor variation and its value is either numerical or boolean (or absent).
+   */
+  boolean isPrimitive() {
+    return developer == null && data == null && dataLevel == null && qualityGateStatus == null && variation == null
+      && valueType != ValueType.STRING && valueType != ValueType.LEVEL;
+  }
+
+  /**
+   * Value of a primitive measure, {@code 0} if the measure has no value.
+   *
+   * @see #isPrimitive()
+   */
+  double getPrimitiveValue() {
+    return value == null ? 0d : value;
+  }
+
   public static final class NewMeasureBuilder {
     private Developer developer;
     private QualityGateStatus qualityGateStatus;
@@ -20,8 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.scm;
 
 import com.google.common.base.Optional;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.db.DbClient;
@@ -44,7 +44,7 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
   private final DbClient dbClient;
   private final SourceHashRepository sourceHashRepository;
 
-  private final Map<Component, ScmInfo> scmInfoCache = new HashMap<>();
+  private final Map<Component, ScmInfo> scmInfoCache = new ConcurrentHashMap<>();
 
   public ScmInfoRepositoryImpl(BatchReportReader batchReportReader, AnalysisMetadataHolder analysisMetadataHolder, DbClient dbClient, SourceHashRepository sourceHashRepository) {
     this.batchReportReader = batchReportReader;
@@ -63,14 +63,7 @@ public class ScmInfoRepositoryImpl implements ScmInfoRepository {
     if (component.getType() != Component.Type.FILE) {
       return Optional.absent();
     }
-    ScmInfo scmInfo = scmInfoCache.get(component);
-    if (scmInfo != null) {
-      return optionalOf(scmInfo);
-    }
-
-    scmInfo = getScmInfoForComponent(component);
-    scmInfoCache.put(component, scmInfo);
-    return optionalOf(scmInfo);
+    return optionalOf(scmInfoCache.computeIfAbsent(component, this::getScmInfoForComponent));
   }
 
   private static Optional<ScmInfo> optionalOf(ScmInfo scmInfo) {
@@ -21,6 +21,8 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
@@ -35,7 +37,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.api.measures.CoreMetrics.COMMENTED_OUT_CODE_LINES_KEY;
 import static org.sonar.api.measures.CoreMetrics.COMMENT_LINES_DENSITY_KEY;
@@ -49,7 +51,11 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes comments measures on files and then aggregates them on higher components.
  */
-public class CommentMeasuresStep implements ComputationStep {
+public class CommentMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of(NCLOC_KEY);
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    COMMENTED_OUT_CODE_LINES_KEY, COMMENT_LINES_KEY, COMMENT_LINES_DENSITY_KEY, PUBLIC_API_KEY,
+    PUBLIC_UNDOCUMENTED_API_KEY, PUBLIC_DOCUMENTED_API_DENSITY_KEY);
 
   private final TreeRootHolder treeRootHolder;
   private final MetricRepository metricRepository;
@@ -198,6 +204,16 @@ public class CommentMeasuresStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute comment measures";
@@ -20,6 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.AverageFormula;
@@ -28,7 +30,7 @@ import org.sonar.server.computation.task.projectanalysis.formula.Formula;
 import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutorComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.api.measures.CoreMetrics.CLASSES_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASS_COMPLEXITY_DISTRIBUTION_KEY;
@@ -48,7 +50,12 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes complexity measures on files and then aggregates them on higher components.
  */
-public class ComplexityMeasuresStep implements ComputationStep {
+public class ComplexityMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of(FILES_KEY, CLASSES_KEY, FUNCTIONS_KEY);
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    COMPLEXITY_KEY, COMPLEXITY_IN_CLASSES_KEY, COMPLEXITY_IN_FUNCTIONS_KEY, COGNITIVE_COMPLEXITY_KEY,
+    FUNCTION_COMPLEXITY_DISTRIBUTION_KEY, FILE_COMPLEXITY_DISTRIBUTION_KEY, CLASS_COMPLEXITY_DISTRIBUTION_KEY,
+    FILE_COMPLEXITY_KEY, CLASS_COMPLEXITY_KEY, FUNCTION_COMPLEXITY_KEY);
 
   private static final ImmutableList<Formula> FORMULAS = ImmutableList.<Formula>of(
     createIntSumFormula(COMPLEXITY_KEY),
@@ -88,6 +95,16 @@ public class ComplexityMeasuresStep implements ComputationStep {
       .visit(treeRootHolder.getRoot());
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute complexity measures";
@@ -20,15 +20,13 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
-import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.StreamSupport;
-import javax.annotation.CheckForNull;
-import javax.annotation.Nullable;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -39,18 +37,14 @@ import org.sonar.server.computation.task.projectanalysis.component.DepthTraversa
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
-import org.sonar.server.computation.task.projectanalysis.measure.MeasureKey;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
-import static java.util.function.Function.identity;
-import static org.sonar.core.util.stream.MoreCollectors.uniqueIndex;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.SUBVIEW;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
@@ -59,10 +53,15 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
  * Set variations on all numeric measures found in the repository.
  * This step MUST be executed after all steps that create some measures
  * <p/>
+ * Past measures of all the components are loaded by a single query before visiting the tree.
+ * <p/>
  * Note that measures on developer are not handle yet.
  */
 public class ComputeMeasureVariationsStep implements ComputationStep {
 
+  // measures on files are currently purged, so past measures are not available on files
+  private static final CrawlerDepthLimit VISIT_DEPTH = CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW);
+
   private final DbClient dbClient;
   private final TreeRootHolder treeRootHolder;
   private final PeriodHolder periodHolder;
@@ -80,54 +79,70 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
 
   @Override
   public void execute() {
+    if (!periodHolder.hasPeriod()) {
+      return;
+    }
     try (DbSession dbSession = dbClient.openSession(false)) {
       List<Metric> metrics = StreamSupport.stream(metricRepository.getAll().spliterator(), false).filter(isNumeric()).collect(MoreCollectors.toList());
-      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(dbSession, metrics))
+      Map<String, double[]> pastValuesByComponentUuid = loadPastValues(dbSession, metrics);
+      new DepthTraversalTypeAwareCrawler(new VariationMeasuresVisitor(metrics, pastValuesByComponentUuid))
         .visit(treeRootHolder.getRoot());
     }
   }
 
+  /**
+   * Loads in a single streamed query the past measures of all the components of the tree. Values are stored by component
+   * in an array indexed like {@code metrics}. Missing past measures have value 0.
+   */
+  private Map<String, double[]> loadPastValues(DbSession dbSession, List<Metric> metrics) {
+    Set<String> componentUuids = new HashSet<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(VISIT_DEPTH, PRE_ORDER) {
+      @Override
+      public void visitAny(Component component) {
+        componentUuids.add(component.getUuid());
+      }
+    }).visit(treeRootHolder.getRoot());
+
+    Map<Integer, Integer> metricIndexesById = new HashMap<>();
+    for (int i = 0; i < metrics.size(); i++) {
+      metricIndexesById.put(metrics.get(i).getId(), i);
+    }
+    Map<String, double[]> pastValuesByComponentUuid = new HashMap<>();
+    dbClient.measureDao().selectPastMeasures(dbSession, periodHolder.getPeriod().getAnalysisUuid(), metricIndexesById.keySet(), context -> {
+      PastMeasureDto pastMeasure = (PastMeasureDto) context.getResultObject();
+      if (pastMeasure.hasValue() && componentUuids.contains(pastMeasure.getComponentUuid())) {
+        double[] pastValues = pastValuesByComponentUuid.computeIfAbsent(pastMeasure.getComponentUuid(), uuid -> new double[metrics.size()]);
+        pastValues[metricIndexesById.get(pastMeasure.getMetricId())] = pastMeasure.getValue();
+      }
+    });
+    return pastValuesByComponentUuid;
+  }
+
   private class VariationMeasuresVisitor extends TypeAwareVisitorAdapter {
 
-    private final DbSession session;
-    private final Set<Integer> metricIds;
     private final List<Metric> metrics;
+    private final Map<String, double[]> pastValuesByComponentUuid;
 
-    VariationMeasuresVisitor(DbSession session, List<Metric> metrics) {
-      // measures on files are currently purged, so past measures are not available on files
-      super(CrawlerDepthLimit.reportMaxDepth(DIRECTORY).withViewsMaxDepth(SUBVIEW), PRE_ORDER);
-      this.session = session;
-      this.metricIds = metrics.stream().map(Metric::getId).collect(MoreCollectors.toSet());
+    VariationMeasuresVisitor(List<Metric> metrics, Map<String, double[]> pastValuesByComponentUuid) {
+      super(VISIT_DEPTH, PRE_ORDER);
       this.metrics = metrics;
+      this.pastValuesByComponentUuid = pastValuesByComponentUuid;
     }
 
     @Override
     public void visitAny(Component component) {
-      MeasuresWithVariationRepository measuresWithVariationRepository = computeMeasuresWithVariations(component);
-      processMeasuresWithVariation(component, measuresWithVariationRepository);
-    }
-
-    private MeasuresWithVariationRepository computeMeasuresWithVariations(Component component) {
-      MeasuresWithVariationRepository measuresWithVariationRepository = new MeasuresWithVariationRepository();
-      if (periodHolder.hasPeriod()) {
-        Period period = periodHolder.getPeriod();
-        List<PastMeasureDto> pastMeasures = dbClient.measureDao()
-          .selectPastMeasures(session, component.getUuid(), period.getAnalysisUuid(), metricIds);
-        setVariationMeasures(component, pastMeasures, measuresWithVariationRepository);
-      }
-      return measuresWithVariationRepository;
-    }
-
-    private void setVariationMeasures(Component component, List<PastMeasureDto> pastMeasures, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      Map<MeasureKey, PastMeasureDto> pastMeasuresByMeasureKey = pastMeasures
-        .stream()
-        .collect(uniqueIndex(m -> new MeasureKey(metricRepository.getById((long) m.getMetricId()).getKey(), null), identity()));
-      for (Metric metric : metrics) {
+      // values of a component are not needed anymore once it is visited
+      double[] pastValues = pastValuesByComponentUuid.remove(component.getUuid());
+      for (int i = 0; i < metrics.size(); i++) {
+        Metric metric = metrics.get(i);
         Optional<Measure> measure = measureRepository.getRawMeasure(component, metric);
         if (measure.isPresent() && !measure.get().hasVariation()) {
-          PastMeasureDto pastMeasure = pastMeasuresByMeasureKey.get(new MeasureKey(metric.getKey(), null));
-          double pastValue = (pastMeasure != null && pastMeasure.hasValue()) ? pastMeasure.getValue() : 0d;
-          measuresWithVariationRepository.add(metric, measure.get(), computeVariation(measure.get(), pastValue));
+          checkArgument(measure.get().getDeveloper() == null, "%s does not support computing variations of Measures for Developer",
+            ComputeMeasureVariationsStep.class.getSimpleName());
+          double pastValue = pastValues == null ? 0d : pastValues[i];
+          measureRepository.update(component, metric, Measure.updatedMeasureBuilder(measure.get())
+            .setVariation(computeVariation(measure.get(), pastValue))
+            .create());
         }
       }
     }
@@ -146,60 +161,6 @@ public class ComputeMeasureVariationsStep implements ComputationStep {
           throw new IllegalArgumentException(format("Unsupported Measure.ValueType on measure '%s'", measure));
       }
     }
-
-    private void processMeasuresWithVariation(Component component, MeasuresWithVariationRepository measuresWithVariationRepository) {
-      for (MeasureWithVariation measureWithVariation : measuresWithVariationRepository.measures()) {
-        Metric metric = measureWithVariation.getMetric();
-        Measure measure = Measure.updatedMeasureBuilder(measureWithVariation.getMeasure())
-          .setVariation(measureWithVariation.getVariation())
-          .create();
-        measureRepository.update(component, metric, measure);
-      }
-    }
-  }
-
-  private static final class MeasuresWithVariationRepository {
-
-    private final Map<MeasureKey, MeasureWithVariation> measuresWithVariations = new HashMap<>();
-
-    public void add(Metric metric, final Measure measure, double variationValue) {
-      checkArgument(measure.getDeveloper() == null, "%s does not support computing variations of Measures for Developer", getClass().getSimpleName());
-      MeasureKey measureKey = new MeasureKey(metric.getKey(), null);
-      MeasureWithVariation measureWithVariation = measuresWithVariations.computeIfAbsent(measureKey, k -> new MeasureWithVariation(metric, measure));
-      measureWithVariation.setVariation(variationValue);
-    }
-
-    public Collection<MeasureWithVariation> measures() {
-      return measuresWithVariations.values();
-    }
-  }
-
-  private static final class MeasureWithVariation {
-    private final Metric metric;
-    private final Measure measure;
-    private Double variation;
-
-    MeasureWithVariation(Metric metric, Measure measure) {
-      this.metric = metric;
-      this.measure = measure;
-    }
-
-    public Measure getMeasure() {
-      return measure;
-    }
-
-    public Metric getMetric() {
-      return metric;
-    }
-
-    public void setVariation(@Nullable Double value) {
-      this.variation = value;
-    }
-
-    @CheckForNull
-    public Double getVariation() {
-      return variation;
-    }
   }
 
   private static Predicate<Metric> isNumeric() {
@@ -20,6 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.formula.Formula;
@@ -30,7 +32,7 @@ import org.sonar.server.computation.task.projectanalysis.formula.coverage.Single
 import org.sonar.server.computation.task.projectanalysis.formula.coverage.SingleWithUncoveredMetricKeys;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.api.measures.CoreMetrics.BRANCH_COVERAGE_KEY;
 import static org.sonar.api.measures.CoreMetrics.CONDITIONS_TO_COVER_KEY;
@@ -44,7 +46,12 @@ import static org.sonar.server.computation.task.projectanalysis.formula.SumFormu
 /**
  * Computes coverage measures on files and then aggregates them on higher components.
  */
-public class CoverageMeasuresStep implements ComputationStep {
+public class CoverageMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of();
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    LINES_TO_COVER_KEY, UNCOVERED_LINES_KEY, CONDITIONS_TO_COVER_KEY, UNCOVERED_CONDITIONS_KEY, COVERAGE_KEY,
+    BRANCH_COVERAGE_KEY, LINE_COVERAGE_KEY);
+
   private static final ImmutableList<Formula> COVERAGE_FORMULAS = ImmutableList.<Formula>of(
     createIntSumFormula(LINES_TO_COVER_KEY),
     createIntSumFormula(UNCOVERED_LINES_KEY),
@@ -98,6 +105,16 @@ public class CoverageMeasuresStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute coverage measures";
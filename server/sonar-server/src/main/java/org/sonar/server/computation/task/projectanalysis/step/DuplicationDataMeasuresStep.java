@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
+import com.google.common.collect.ImmutableSet;
+import java.util.Set;
 import org.apache.commons.lang.StringEscapeUtils;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -36,7 +38,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static com.google.common.collect.Iterables.isEmpty;
 import static org.sonar.api.measures.CoreMetrics.DUPLICATIONS_DATA_KEY;
@@ -45,7 +47,9 @@ import static org.sonar.server.computation.task.projectanalysis.component.Compon
 /**
  * Compute duplication data measures on files, based on the {@link DuplicationRepository}
  */
-public class DuplicationDataMeasuresStep implements ComputationStep {
+public class DuplicationDataMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of();
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(DUPLICATIONS_DATA_KEY);
 
   private final MeasureRepository measureRepository;
   private final TreeRootHolder treeRootHolder;
@@ -134,6 +138,16 @@ public class DuplicationDataMeasuresStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute duplication data measures";
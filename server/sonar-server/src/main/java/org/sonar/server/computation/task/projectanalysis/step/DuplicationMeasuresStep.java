@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.util.HashSet;
 import java.util.Set;
 import javax.annotation.CheckForNull;
@@ -42,7 +43,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Iterables.isEmpty;
@@ -60,7 +61,10 @@ import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
  * 
  * This step must be executed after {@link CommentMeasuresStep} as it depends on {@link CoreMetrics#COMMENT_LINES}
  */
-public class DuplicationMeasuresStep implements ComputationStep {
+public class DuplicationMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of(NCLOC_KEY, LINES_KEY, COMMENT_LINES_KEY);
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    DUPLICATED_FILES_KEY, DUPLICATED_BLOCKS_KEY, DUPLICATED_LINES_KEY, DUPLICATED_LINES_DENSITY_KEY);
 
   private final ImmutableList<Formula> formulas;
 
@@ -83,6 +87,16 @@ public class DuplicationMeasuresStep implements ComputationStep {
     this(treeRootHolder, metricRepository, measureRepository, null);
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute duplication measures";
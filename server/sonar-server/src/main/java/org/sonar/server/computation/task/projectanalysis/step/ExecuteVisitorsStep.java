@@ -21,8 +21,11 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import java.util.List;
 import java.util.Map;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.profile.TaskProfiler;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
@@ -34,10 +37,20 @@ public class ExecuteVisitorsStep implements ComputationStep {
 
   private final TreeRootHolder treeRootHolder;
   private final List<ComponentVisitor> visitors;
+  @CheckForNull
+  private final TaskProfiler taskProfiler;
 
+  /**
+   * Used when no {@link TaskProfiler} is available in pico container.
+   */
   public ExecuteVisitorsStep(TreeRootHolder treeRootHolder, List<ComponentVisitor> visitors) {
+    this(treeRootHolder, visitors, null);
+  }
+
+  public ExecuteVisitorsStep(TreeRootHolder treeRootHolder, List<ComponentVisitor> visitors, @Nullable TaskProfiler taskProfiler) {
     this.treeRootHolder = treeRootHolder;
     this.visitors = visitors;
+    this.taskProfiler = taskProfiler;
   }
 
   @Override
@@ -47,9 +60,19 @@ public class ExecuteVisitorsStep implements ComputationStep {
 
   @Override
   public void execute() {
-    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, LOGGER.isDebugEnabled());
+    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, taskProfiler != null || LOGGER.isDebugEnabled());
     visitorsCrawler.visit(treeRootHolder.getRoot());
     logVisitorExecutionDurations(visitors, visitorsCrawler);
+    recordVisitorExecutionDurations(visitors, visitorsCrawler);
+  }
+
+  private void recordVisitorExecutionDurations(List<ComponentVisitor> visitors, VisitorsCrawler visitorsCrawler) {
+    if (taskProfiler != null) {
+      Map<ComponentVisitor, Long> cumulativeDurations = visitorsCrawler.getCumulativeDurations();
+      for (ComponentVisitor visitor : visitors) {
+        taskProfiler.addVisitor(visitor.getClass().getSimpleName(), cumulativeDurations.get(visitor));
+      }
+    }
   }
 
   private static void logVisitorExecutionDurations(List<ComponentVisitor> visitors, VisitorsCrawler visitorsCrawler) {
@@ -24,6 +24,8 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.TempFolder;
 import org.sonar.api.utils.ZipUtils;
@@ -31,12 +33,18 @@ import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeTaskInputDao;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.SingleFileReport;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 
 /**
  * Extracts the content zip file of the {@link CeTask} to a temp directory and adds a {@link File}
  * representing that temp directory to the {@link MutableBatchReportDirectoryHolder}.
+ * <p>
+ * Reports uploaded as a {@link SingleFileReport} are not extracted. They are copied as is in the temp directory,
+ * then read directly by {@link org.sonar.scanner.protocol.output.ScannerReportReader}.
+ * </p>
  */
 public class ExtractReportStep implements ComputationStep {
 
@@ -61,7 +69,11 @@ public class ExtractReportStep implements ComputationStep {
         File unzippedDir = tempFolder.newDir();
         try (CeTaskInputDao.DataStream reportStream = opt.get();
              InputStream zipStream = new BufferedInputStream(reportStream.getInputStream())) {
-          ZipUtils.unzip(zipStream, unzippedDir);
+          if (isSingleFileReport(zipStream)) {
+            FileUtils.copyInputStreamToFile(zipStream, new FileStructure(unzippedDir).singleFileReport());
+          } else {
+            ZipUtils.unzip(zipStream, unzippedDir);
+          }
         } catch (IOException e) {
           throw new IllegalStateException("Fail to extract report " + task.getUuid() + " from database", e);
         }
@@ -72,6 +84,14 @@ public class ExtractReportStep implements ComputationStep {
     }
   }
 
+  private static boolean isSingleFileReport(InputStream input) throws IOException {
+    byte[] header = new byte[Integer.BYTES];
+    input.mark(header.length);
+    int read = IOUtils.read(input, header);
+    input.reset();
+    return read == header.length && SingleFileReport.isSingleFileReport(header);
+  }
+
   @Override
   public String getDescription() {
     return "Extract report";
@@ -22,9 +22,11 @@ package org.sonar.server.computation.task.projectanalysis.step;
 import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Multiset;
 import com.google.common.collect.TreeMultiset;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import org.sonar.api.measures.CoreMetrics;
@@ -40,16 +42,19 @@ import org.sonar.server.computation.task.projectanalysis.formula.FormulaExecutor
 import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static com.google.common.collect.Maps.asMap;
+import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_LANGUAGE_DISTRIBUTION_KEY;
 import static org.sonar.api.utils.KeyValueFormat.format;
 import static org.sonar.api.utils.KeyValueFormat.newIntegerConverter;
 import static org.sonar.api.utils.KeyValueFormat.newStringConverter;
 import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
 
-public class LanguageDistributionMeasuresStep implements ComputationStep {
+public class LanguageDistributionMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of(NCLOC_KEY);
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(NCLOC_LANGUAGE_DISTRIBUTION_KEY);
 
   private static final String UNKNOWN_LANGUAGE_KEY = "<null>";
 
@@ -145,6 +150,16 @@ public class LanguageDistributionMeasuresStep implements ComputationStep {
     }
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute language distribution";
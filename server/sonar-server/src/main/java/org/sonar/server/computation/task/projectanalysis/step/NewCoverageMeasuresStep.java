@@ -21,10 +21,12 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
@@ -53,14 +55,19 @@ import org.sonar.server.computation.task.projectanalysis.period.Period;
 import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
 
 /**
  * Computes measures related to the New Coverage. These measures do not have values, only variations.
  */
-public class NewCoverageMeasuresStep implements ComputationStep {
+public class NewCoverageMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of();
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    CoreMetrics.NEW_LINES_TO_COVER_KEY, CoreMetrics.NEW_UNCOVERED_LINES_KEY, CoreMetrics.NEW_CONDITIONS_TO_COVER_KEY,
+    CoreMetrics.NEW_UNCOVERED_CONDITIONS_KEY, CoreMetrics.NEW_COVERAGE_KEY, CoreMetrics.NEW_BRANCH_COVERAGE_KEY,
+    CoreMetrics.NEW_LINE_COVERAGE_KEY);
 
   private static final List<Formula> FORMULAS = ImmutableList.of(
     // UT coverage
@@ -109,6 +116,16 @@ public class NewCoverageMeasuresStep implements ComputationStep {
             .visit(treeRootHolder.getRoot());
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute new coverage";
@@ -21,6 +21,7 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import java.util.HashSet;
 import java.util.Set;
@@ -47,7 +48,7 @@ import org.sonar.server.computation.task.projectanalysis.period.PeriodHolder;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfo;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.api.measures.CoreMetrics.NEW_BLOCKS_DUPLICATED_KEY;
 import static org.sonar.api.measures.CoreMetrics.NEW_DUPLICATED_LINES_DENSITY_KEY;
@@ -57,7 +58,10 @@ import static org.sonar.api.measures.CoreMetrics.NEW_LINES_KEY;
 /**
  * Computes measures on new code related to the size
  */
-public class NewSizeMeasuresStep implements ComputationStep {
+public class NewSizeMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of();
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    NEW_LINES_KEY, NEW_DUPLICATED_LINES_KEY, NEW_DUPLICATED_LINES_DENSITY_KEY, NEW_BLOCKS_DUPLICATED_KEY);
 
   private final TreeRootHolder treeRootHolder;
   private final PeriodHolder periodHolder;
@@ -74,6 +78,16 @@ public class NewSizeMeasuresStep implements ComputationStep {
     this.duplicationFormula = new NewDuplicationFormula(scmInfoRepository, duplicationRepository);
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute size measures on new code";
@@ -21,19 +21,26 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.lang.ObjectUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
-import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.db.source.FileSourceDto.Type;
 import org.sonar.scanner.protocol.output.ScannerReport;
@@ -58,10 +65,23 @@ import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepos
 import org.sonar.server.computation.task.projectanalysis.source.SymbolsLineReader;
 import org.sonar.server.computation.task.step.ComputationStep;
 
+import static org.sonar.server.computation.task.profile.TaskProfiler.taskThreadFactory;
 import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
 
+/**
+ * Persists the sources of files in table FILE_SOURCES.
+ * <p>
+ * Data of files are computed, serialized and compressed by a pool of {@link CeConfiguration#getComputationStepThreadCount()}
+ * threads, while the calling thread persists them in the order of the files. Only a bounded number of files is computed
+ * in advance. Rows are inserted or updated by JDBC batches, which are flushed as soon as they hold
+ * {@link #MAX_BATCH_BYTES} bytes of BINARY_DATA, so that big files don't produce OOM.
+ * </p>
+ */
 public class PersistFileSourcesStep implements ComputationStep {
 
+  static final int MAX_BATCH_BYTES = 8 * 1024 * 1024;
+  private static final int MAX_PENDING_FILES_PER_THREAD = 2;
+
   private final DbClient dbClient;
   private final System2 system2;
   private final TreeRootHolder treeRootHolder;
@@ -69,9 +89,15 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final int threadCount;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
     ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    this(dbClient, system2, treeRootHolder, reportReader, sourceLinesRepository, scmInfoRepository, duplicationRepository, null);
+  }
+
+  public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, @Nullable CeConfiguration ceConfiguration) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -79,27 +105,41 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.threadCount = ceConfiguration == null ? 1 : ceConfiguration.getComputationStepThreadCount();
   }
 
   @Override
   public void execute() {
-    // Don't use batch insert for file_sources since keeping all data in memory can produce OOM for big files
-    try (DbSession dbSession = dbClient.openSession(false)) {
-      new DepthTraversalTypeAwareCrawler(new FileSourceVisitor(dbSession))
-        .visit(treeRootHolder.getRoot());
+    try (DbSession dbSession = dbClient.openSession(true)) {
+      FileSourceVisitor visitor = new FileSourceVisitor(dbSession);
+      try {
+        new DepthTraversalTypeAwareCrawler(visitor).visit(treeRootHolder.getRoot());
+        visitor.finish();
+      } finally {
+        visitor.shutdown();
+      }
     }
   }
 
   private class FileSourceVisitor extends TypeAwareVisitorAdapter {
 
     private final DbSession session;
+    @CheckForNull
+    private final ExecutorService executorService;
+    private final Deque<PendingFileSource> pendingFileSources = new ArrayDeque<>();
 
     private Map<String, FileSourceDto> previousFileSourcesByUuid = new HashMap<>();
     private String projectUuid;
+    private long batchBytes = 0L;
 
     private FileSourceVisitor(DbSession session) {
       super(CrawlerDepthLimit.FILE, PRE_ORDER);
       this.session = session;
+      this.executorService = threadCount > 1 ? Executors.newFixedThreadPool(threadCount, new ThreadFactoryBuilder()
+        .setThreadFactory(taskThreadFactory(Executors.defaultThreadFactory()))
+        .setNameFormat("FileSources-%d")
+        .setDaemon(true)
+        .build()) : null;
     }
 
     @Override
@@ -114,69 +154,153 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
+      // readers are opened by the current thread as repositories are not all thread-safe
       CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
       LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
-      try {
-        ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
-        ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
-        persistSource(fileSourceData, file.getUuid(), lineReaders.getLatestChange());
-      } catch (Exception e) {
-        throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
-      } finally {
-        linesIterator.close();
-        lineReaders.close();
+      if (executorService == null) {
+        persistSource(computeSource(file, linesIterator, lineReaders));
+        return;
+      }
+      pendingFileSources.add(new PendingFileSource(linesIterator, lineReaders,
+        executorService.submit(() -> computeSource(file, linesIterator, lineReaders))));
+      while (pendingFileSources.size() >= threadCount * MAX_PENDING_FILES_PER_THREAD) {
+        persistSource(pendingFileSources.pollFirst().get());
       }
     }
 
-    private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
-      DbFileSources.Data fileData = fileSourceData.getFileSourceData();
+    private void finish() {
+      while (!pendingFileSources.isEmpty()) {
+        persistSource(pendingFileSources.pollFirst().get());
+      }
+      session.commit();
+    }
 
-      byte[] data = FileSourceDto.encodeSourceData(fileData);
-      String dataHash = DigestUtils.md5Hex(data);
-      String srcHash = fileSourceData.getSrcHash();
-      String lineHashes = fileSourceData.getLineHashes();
-      FileSourceDto previousDto = previousFileSourcesByUuid.get(componentUuid);
+    private void shutdown() {
+      if (executorService != null) {
+        for (PendingFileSource pendingFileSource : pendingFileSources) {
+          pendingFileSource.cancel();
+        }
+        pendingFileSources.clear();
+        executorService.shutdown();
+      }
+    }
+
+    private void persistSource(FileSource fileSource) {
+      FileSourceDto previousDto = previousFileSourcesByUuid.get(fileSource.componentUuid);
 
       if (previousDto == null) {
         FileSourceDto dto = new FileSourceDto()
           .setProjectUuid(projectUuid)
-          .setFileUuid(componentUuid)
+          .setFileUuid(fileSource.componentUuid)
           .setDataType(Type.SOURCE)
-          .setBinaryData(data)
-          .setSrcHash(srcHash)
-          .setDataHash(dataHash)
-          .setLineHashes(lineHashes)
+          .setBinaryData(fileSource.data)
+          .setSrcHash(fileSource.srcHash)
+          .setDataHash(fileSource.dataHash)
+          .setLineHashes(fileSource.lineHashes)
           .setCreatedAt(system2.now())
           .setUpdatedAt(system2.now())
-          .setRevision(computeRevision(latestChange));
+          .setRevision(fileSource.revision);
         dbClient.fileSourceDao().insert(session, dto);
-        session.commit();
+        addToBatch(fileSource);
       } else {
         // Update only if data_hash has changed or if src_hash is missing or revision is missing (progressive migration)
-        boolean binaryDataUpdated = !dataHash.equals(previousDto.getDataHash());
-        boolean srcHashUpdated = !srcHash.equals(previousDto.getSrcHash());
-        String revision = computeRevision(latestChange);
-        boolean revisionUpdated = !ObjectUtils.equals(revision, previousDto.getRevision());
+        boolean binaryDataUpdated = !fileSource.dataHash.equals(previousDto.getDataHash());
+        boolean srcHashUpdated = !fileSource.srcHash.equals(previousDto.getSrcHash());
+        boolean revisionUpdated = !ObjectUtils.equals(fileSource.revision, previousDto.getRevision());
         if (binaryDataUpdated || srcHashUpdated || revisionUpdated) {
           previousDto
-            .setBinaryData(data)
-            .setDataHash(dataHash)
-            .setSrcHash(srcHash)
-            .setLineHashes(lineHashes)
-            .setRevision(revision)
+            .setBinaryData(fileSource.data)
+            .setDataHash(fileSource.dataHash)
+            .setSrcHash(fileSource.srcHash)
+            .setLineHashes(fileSource.lineHashes)
+            .setRevision(fileSource.revision)
             .setUpdatedAt(system2.now());
           dbClient.fileSourceDao().update(session, previousDto);
-          session.commit();
+          addToBatch(fileSource);
         }
       }
     }
 
+    private void addToBatch(FileSource fileSource) {
+      batchBytes += fileSource.data.length + fileSource.lineHashes.length();
+      if (batchBytes >= MAX_BATCH_BYTES) {
+        session.commit();
+        batchBytes = 0L;
+      }
+    }
+  }
+
+  private static FileSource computeSource(Component file, CloseableIterator<String> linesIterator, LineReaders lineReaders) {
+    try {
+      ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
+      return new FileSource(file.getUuid(), computeFileSourceData.compute(), lineReaders.getLatestChange());
+    } catch (Exception e) {
+      throw new IllegalStateException(String.format("Cannot persist sources of %s", file.getKey()), e);
+    } finally {
+      linesIterator.close();
+      lineReaders.close();
+    }
+  }
+
+  /**
+   * Data of a file, ready to be persisted
+   */
+  private static final class FileSource {
+    private final String componentUuid;
+    private final byte[] data;
+    private final String dataHash;
+    private final String srcHash;
+    private final String lineHashes;
     @CheckForNull
-    private String computeRevision(@Nullable Changeset latestChange) {
-      if (latestChange == null) {
-        return null;
+    private final String revision;
+
+    private FileSource(String componentUuid, ComputeFileSourceData.Data fileSourceData, @Nullable Changeset latestChange) {
+      this.componentUuid = componentUuid;
+      this.data = FileSourceDto.encodeSourceData(fileSourceData.getFileSourceData());
+      this.dataHash = DigestUtils.md5Hex(data);
+      this.srcHash = fileSourceData.getSrcHash();
+      this.lineHashes = fileSourceData.getLineHashes();
+      this.revision = latestChange == null ? null : latestChange.getRevision();
+    }
+  }
+
+  private static final class PendingFileSource {
+    private final CloseableIterator<String> linesIterator;
+    private final LineReaders lineReaders;
+    private final Future<FileSource> future;
+
+    private PendingFileSource(CloseableIterator<String> linesIterator, LineReaders lineReaders, Future<FileSource> future) {
+      this.linesIterator = linesIterator;
+      this.lineReaders = lineReaders;
+      this.future = future;
+    }
+
+    private FileSource get() {
+      try {
+        return future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while computing sources", e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw new IllegalStateException(cause);
+      }
+    }
+
+    /**
+     * Readers are closed by the task itself, unless it is cancelled before being started
+     */
+    private void cancel() {
+      if (future.cancel(false)) {
+        linesIterator.close();
+        lineReaders.close();
       }
-      return latestChange.getRevision();
     }
   }
 
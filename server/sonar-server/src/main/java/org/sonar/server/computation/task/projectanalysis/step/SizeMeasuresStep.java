@@ -21,7 +21,9 @@ package org.sonar.server.computation.task.projectanalysis.step;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import java.util.List;
+import java.util.Set;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
 import org.sonar.server.computation.task.projectanalysis.component.PathAwareCrawler;
@@ -33,7 +35,7 @@ import org.sonar.server.computation.task.projectanalysis.measure.Measure;
 import org.sonar.server.computation.task.projectanalysis.measure.MeasureRepository;
 import org.sonar.server.computation.task.projectanalysis.metric.Metric;
 import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository;
-import org.sonar.server.computation.task.step.ComputationStep;
+import org.sonar.server.computation.task.step.ConcurrentComputationStep;
 
 import static org.sonar.api.measures.CoreMetrics.ACCESSORS_KEY;
 import static org.sonar.api.measures.CoreMetrics.CLASSES_KEY;
@@ -52,7 +54,12 @@ import static org.sonar.server.computation.task.projectanalysis.measure.Measure.
 /**
  * Compute size measures
  */
-public class SizeMeasuresStep implements ComputationStep {
+public class SizeMeasuresStep implements ConcurrentComputationStep {
+  private static final Set<String> READ_KEYS = ImmutableSet.of();
+  private static final Set<String> WRITTEN_KEYS = ImmutableSet.of(
+    DIRECTORIES_KEY, FILES_KEY, LINES_KEY, GENERATED_LINES_KEY, NCLOC_KEY, GENERATED_NCLOC_KEY, FUNCTIONS_KEY,
+    STATEMENTS_KEY, CLASSES_KEY, ACCESSORS_KEY);
+
   private static final CounterStackElementFactory COUNTER_STACK_ELEMENT_FACTORY = new CounterStackElementFactory();
   private static final List<Formula> AGGREGATED_SIZE_MEASURE_FORMULAS = ImmutableList.<Formula>of(
     createIntSumFormula(GENERATED_LINES_KEY),
@@ -85,6 +92,16 @@ public class SizeMeasuresStep implements ComputationStep {
         .visit(treeRootHolder.getRoot());
   }
 
+  @Override
+  public Set<String> getReadKeys() {
+    return READ_KEYS;
+  }
+
+  @Override
+  public Set<String> getWrittenKeys() {
+    return WRITTEN_KEYS;
+  }
+
   @Override
   public String getDescription() {
     return "Compute size measures";
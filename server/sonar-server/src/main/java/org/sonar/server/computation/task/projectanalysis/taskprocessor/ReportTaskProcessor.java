@@ -30,6 +30,7 @@ import org.sonar.core.platform.ComponentContainer;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
+import org.sonar.server.computation.task.profile.TaskProfiler;
 import org.sonar.server.computation.task.projectanalysis.container.ContainerFactory;
 import org.sonar.server.computation.task.step.ComputationStepExecutor;
 import org.sonar.server.computation.taskprocessor.TaskResultHolder;
@@ -75,6 +76,7 @@ public class ReportTaskProcessor implements CeTaskProcessor {
       ceContainer.getComponentByType(ComputationStepExecutor.class).execute();
       return ceContainer.getComponentByType(TaskResultHolder.class).getResult();
     } finally {
+      ceContainer.getComponentByType(TaskProfiler.class).finish();
       ensureThreadLocalIsClean(ceContainer);
 
       ceContainer.cleanup();
@@ -19,6 +19,8 @@
  */
 package org.sonar.server.computation.task.projectanalysis.webhook;
 
+import java.util.Optional;
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 import static java.util.Objects.requireNonNull;
@@ -30,12 +32,21 @@ public class Webhook {
   private final String ceTaskUuid;
   private final String name;
   private final String url;
+  private final Integer timeoutMs;
 
   public Webhook(String componentUuid, String ceTaskUuid, String name, String url) {
+    this(componentUuid, ceTaskUuid, name, url, null);
+  }
+
+  /**
+   * @param timeoutMs connect and read timeout of the endpoint. If null, then the timeouts of the HTTP client are used.
+   */
+  public Webhook(String componentUuid, String ceTaskUuid, String name, String url, @Nullable Integer timeoutMs) {
     this.componentUuid = requireNonNull(componentUuid);
     this.ceTaskUuid = requireNonNull(ceTaskUuid);
     this.name = requireNonNull(name);
     this.url = requireNonNull(url);
+    this.timeoutMs = timeoutMs;
   }
 
   public String getComponentUuid() {
@@ -53,4 +64,8 @@ public class Webhook {
   public String getUrl() {
     return url;
   }
+
+  public Optional<Integer> getTimeoutMs() {
+    return Optional.ofNullable(timeoutMs);
+  }
 }
@@ -32,6 +32,7 @@ import org.sonar.api.utils.System2;
 import static java.lang.String.format;
 import static java.net.HttpURLConnection.HTTP_MOVED_PERM;
 import static java.net.HttpURLConnection.HTTP_MOVED_TEMP;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static okhttp3.internal.http.StatusLine.HTTP_PERM_REDIRECT;
 import static okhttp3.internal.http.StatusLine.HTTP_TEMP_REDIRECT;
 
@@ -60,7 +61,7 @@ public class WebhookCallerImpl implements WebhookCaller {
 
     try {
       Request request = buildHttpRequest(webhook, payload);
-      try (Response response = execute(request)) {
+      try (Response response = execute(clientFor(webhook), request)) {
         builder.setHttpStatus(response.code());
         builder.setDurationInMs((int) (system.now() - startedAt));
       }
@@ -79,8 +80,22 @@ public class WebhookCallerImpl implements WebhookCaller {
     return request.build();
   }
 
-  private Response execute(Request request) throws IOException {
-    Response response = okHttpClient.newCall(request).execute();
+  /**
+   * The client shares its connection pool and dispatcher with the default client, only the timeouts
+   * are specific to the webhook.
+   */
+  private OkHttpClient clientFor(Webhook webhook) {
+    return webhook.getTimeoutMs()
+      .map(timeoutMs -> okHttpClient.newBuilder()
+        .connectTimeout(timeoutMs, MILLISECONDS)
+        .readTimeout(timeoutMs, MILLISECONDS)
+        .writeTimeout(timeoutMs, MILLISECONDS)
+        .build())
+      .orElse(okHttpClient);
+  }
+
+  private static Response execute(OkHttpClient client, Request request) throws IOException {
+    Response response = client.newCall(request).execute();
     switch (response.code()) {
       case HTTP_MOVED_PERM:
       case HTTP_MOVED_TEMP:
@@ -92,7 +107,7 @@ public class WebhookCallerImpl implements WebhookCaller {
         // See:
         // https://github.com/square/okhttp/blob/07309c1c7d9e296014268ebd155ebf7ef8679f6c/okhttp/src/main/java/okhttp3/internal/http/RetryAndFollowUpInterceptor.java#L316
         // https://github.com/square/okhttp/issues/936#issuecomment-266430151
-        return followPostRedirect(response);
+        return followPostRedirect(client, response);
       default:
         return response;
     }
@@ -101,7 +116,7 @@ public class WebhookCallerImpl implements WebhookCaller {
   /**
    * Inspired by https://github.com/square/okhttp/blob/parent-3.6.0/okhttp/src/main/java/okhttp3/internal/http/RetryAndFollowUpInterceptor.java#L286
    */
-  private Response followPostRedirect(Response response) throws IOException {
+  private static Response followPostRedirect(OkHttpClient client, Response response) throws IOException {
     String location = response.header("Location");
     if (location == null) {
       throw new IllegalStateException(format("Missing HTTP header 'Location' in redirect of %s", response.request().url()));
@@ -116,7 +131,7 @@ public class WebhookCallerImpl implements WebhookCaller {
     Request.Builder redirectRequest = response.request().newBuilder();
     redirectRequest.post(response.request().body());
     response.body().close();
-    return okHttpClient.newCall(redirectRequest.url(url).build()).execute();
+    return client.newCall(redirectRequest.url(url).build()).execute();
   }
 
   private static OkHttpClient newClientWithoutRedirect(OkHttpClient client) {
@@ -20,16 +20,25 @@
 package org.sonar.server.computation.task.projectanalysis.webhook;
 
 import com.google.common.base.Throwables;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.utils.System2;
 import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.db.webhook.WebhookDeliveryDao;
 import org.sonar.db.webhook.WebhookDeliveryDto;
+import org.sonar.server.platform.cluster.Cluster;
 
 /**
- * Persist and purge {@link WebhookDelivery} into database
+ * Persist and purge {@link WebhookDelivery} into database. Deliveries which are not sent yet are
+ * persisted as pending, so that they can be resumed after a restart of the Compute Engine.
+ * <p/>
+ * Pending deliveries are claimed by the Compute Engine node which sends them, so that they are not sent
+ * by the other nodes of a cluster. A node releases its claims when it stops.
  */
 @ComputeEngineSide
 public class WebhookDeliveryStorage {
@@ -39,21 +48,111 @@ public class WebhookDeliveryStorage {
   private final DbClient dbClient;
   private final System2 system;
   private final UuidFactory uuidFactory;
+  private final boolean clusterEnabled;
+  /**
+   * Identifies the pending deliveries claimed by this Compute Engine node
+   */
+  private final String nodeUuid;
 
-  public WebhookDeliveryStorage(DbClient dbClient, System2 system, UuidFactory uuidFactory) {
+  public WebhookDeliveryStorage(DbClient dbClient, System2 system, UuidFactory uuidFactory, Cluster cluster) {
     this.dbClient = dbClient;
     this.system = system;
     this.uuidFactory = uuidFactory;
+    this.clusterEnabled = cluster.isEnabled();
+    this.nodeUuid = uuidFactory.create();
   }
 
   public void persist(WebhookDelivery delivery) {
     WebhookDeliveryDao dao = dbClient.webhookDeliveryDao();
     try (DbSession dbSession = dbClient.openSession(false)) {
-      dao.insert(dbSession, toDto(delivery));
+      dao.insert(dbSession, toDto(uuidFactory.create(), delivery));
       dbSession.commit();
     }
   }
 
+  /**
+   * Persists a delivery which is not sent yet. It is claimed by this node.
+   *
+   * @return the uuid of the delivery, to be passed to {@link #complete(String, WebhookDelivery)}
+   */
+  public String persistPending(Webhook webhook, WebhookPayload payload) {
+    WebhookDeliveryDto dto = new WebhookDeliveryDto();
+    dto.setUuid(uuidFactory.create());
+    dto.setComponentUuid(webhook.getComponentUuid());
+    dto.setCeTaskUuid(webhook.getCeTaskUuid());
+    dto.setName(webhook.getName());
+    dto.setUrl(webhook.getUrl());
+    dto.setTimeoutMs(webhook.getTimeoutMs().orElse(null));
+    dto.setSuccess(false);
+    dto.setPending(true);
+    dto.setNodeUuid(nodeUuid);
+    dto.setPayload(payload.getJson());
+    dto.setCreatedAt(system.now());
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.webhookDeliveryDao().insert(dbSession, dto);
+      dbSession.commit();
+    }
+    return dto.getUuid();
+  }
+
+  /**
+   * Stores the result of a delivery persisted by {@link #persistPending(Webhook, WebhookPayload)}
+   */
+  public void complete(String deliveryUuid, WebhookDelivery delivery) {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.webhookDeliveryDao().update(dbSession, toDto(deliveryUuid, delivery));
+      dbSession.commit();
+    }
+  }
+
+  /**
+   * Claims the deliveries persisted by {@link #persistPending(Webhook, WebhookPayload)} which are not completed yet
+   * and which are not claimed by another node. Deliveries of projects which don't exist anymore are ignored.
+   * <p/>
+   * When cluster is disabled, the deliveries still claimed by a previous execution of the Compute Engine, which
+   * did not stop properly, are claimed too. In a cluster they stay claimed by the node which sent them.
+   *
+   * @return the claimed deliveries, ordered by date
+   */
+  public List<PendingDelivery> claimPending() {
+    WebhookDeliveryDao dao = dbClient.webhookDeliveryDao();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      if (!clusterEnabled) {
+        dao.releaseAllClaims(dbSession);
+        dbSession.commit();
+      }
+      List<PendingDelivery> claimed = new ArrayList<>();
+      for (WebhookDeliveryDto dto : dao.selectUnclaimedPending(dbSession)) {
+        Optional<PendingDelivery> delivery = toPendingDelivery(dbSession, dto);
+        // the claim is committed immediately, so that concurrent nodes do not claim the same delivery
+        if (delivery.isPresent() && dao.claim(dbSession, dto.getUuid(), nodeUuid)) {
+          claimed.add(delivery.get());
+        }
+        dbSession.commit();
+      }
+      return claimed;
+    }
+  }
+
+  /**
+   * Releases the pending deliveries claimed by this node, so that they are claimed by the next node to start
+   */
+  public void releasePending() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.webhookDeliveryDao().releaseClaims(dbSession, nodeUuid);
+      dbSession.commit();
+    }
+  }
+
+  private Optional<PendingDelivery> toPendingDelivery(DbSession dbSession, WebhookDeliveryDto dto) {
+    return dbClient.componentDao().selectByUuid(dbSession, dto.getComponentUuid())
+      .map(ComponentDto::getKey)
+      .map(projectKey -> new PendingDelivery(
+        dto.getUuid(),
+        new Webhook(dto.getComponentUuid(), dto.getCeTaskUuid(), dto.getName(), dto.getUrl(), dto.getTimeoutMs()),
+        new WebhookPayload(projectKey, dto.getPayload())));
+  }
+
   public void purge(String componentUuid) {
     long beforeDate = system.now() - ALIVE_DELAY_MS;
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -62,13 +161,14 @@ public class WebhookDeliveryStorage {
     }
   }
 
-  private WebhookDeliveryDto toDto(WebhookDelivery delivery) {
+  private static WebhookDeliveryDto toDto(String uuid, WebhookDelivery delivery) {
     WebhookDeliveryDto dto = new WebhookDeliveryDto();
-    dto.setUuid(uuidFactory.create());
+    dto.setUuid(uuid);
     dto.setComponentUuid(delivery.getWebhook().getComponentUuid());
     dto.setCeTaskUuid(delivery.getWebhook().getCeTaskUuid());
     dto.setName(delivery.getWebhook().getName());
     dto.setUrl(delivery.getWebhook().getUrl());
+    dto.setTimeoutMs(delivery.getWebhook().getTimeoutMs().orElse(null));
     dto.setSuccess(delivery.isSuccess());
     dto.setHttpStatus(delivery.getHttpStatus().orElse(null));
     dto.setDurationMs(delivery.getDurationInMs().orElse(null));
@@ -77,4 +177,28 @@ public class WebhookDeliveryStorage {
     dto.setCreatedAt(delivery.getAt());
     return dto;
   }
+
+  public static class PendingDelivery {
+    private final String uuid;
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+
+    PendingDelivery(String uuid, Webhook webhook, WebhookPayload payload) {
+      this.uuid = uuid;
+      this.webhook = webhook;
+      this.payload = payload;
+    }
+
+    public String getUuid() {
+      return uuid;
+    }
+
+    public Webhook getWebhook() {
+      return webhook;
+    }
+
+    public WebhookPayload getPayload() {
+      return payload;
+    }
+  }
 }
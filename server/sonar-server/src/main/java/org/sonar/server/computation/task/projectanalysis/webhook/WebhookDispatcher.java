@@ -0,0 +1,296 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.picocontainer.Startable;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStorage.PendingDelivery;
+
+/**
+ * Sends webhooks asynchronously, so that slow or unreachable endpoints do not delay the
+ * Compute Engine workers:
+ * <ul>
+ *   <li>webhooks are sent concurrently by a pool of {@link #THREADS} threads. Each call is bounded by the
+ *   timeout of the webhook, or by the connect and read timeouts of the HTTP client if the webhook does not define it</li>
+ *   <li>calls that fail because of a connectivity problem, a timeout or a server error (HTTP status 429 or 5xx)
+ *   are retried after a backoff delay, up to {@link #MAX_ATTEMPTS} attempts</li>
+ *   <li>at most {@link #MAX_PENDING_DELIVERIES} deliveries can be pending. Others are not sent</li>
+ *   <li>each delivery is persisted as pending by {@link WebhookDeliveryStorage} before being sent, then completed
+ *   with its result. Deliveries which are still pending when the Compute Engine stops are resumed on next startup.
+ *   As a consequence a webhook may be sent more than once</li>
+ *   <li>in a cluster, a pending delivery is claimed by the node which sends it, so that it is not resumed by another
+ *   node which restarts meanwhile. See {@link WebhookDeliveryStorage#claimPending()}</li>
+ * </ul>
+ */
+@ComputeEngineSide
+public class WebhookDispatcher implements Startable {
+
+  static final int THREADS = 5;
+  static final int MAX_ATTEMPTS = 3;
+  static final int MAX_PENDING_DELIVERIES = 1_000;
+  private static final long[] RETRY_DELAYS_MS = {10_000L, 60_000L};
+  private static final long STOP_TIMEOUT_MS = 5_000L;
+  private static final Logger LOGGER = Loggers.get(WebhookDispatcher.class);
+
+  private final WebhookCaller caller;
+  private final WebhookDeliveryStorage deliveryStorage;
+  private final System2 system;
+  private final long[] retryDelaysMs;
+  private final Set<Delivery> pendingDeliveries = ConcurrentHashMap.newKeySet();
+
+  @CheckForNull
+  private ScheduledThreadPoolExecutor executor;
+
+  public WebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system) {
+    this(caller, deliveryStorage, system, RETRY_DELAYS_MS);
+  }
+
+  @VisibleForTesting
+  WebhookDispatcher(WebhookCaller caller, WebhookDeliveryStorage deliveryStorage, System2 system, long... retryDelaysMs) {
+    this.caller = caller;
+    this.deliveryStorage = deliveryStorage;
+    this.system = system;
+    this.retryDelaysMs = Arrays.copyOf(retryDelaysMs, retryDelaysMs.length);
+  }
+
+  /**
+   * Resumes the deliveries which were pending when the Compute Engine stopped and which are not claimed by another node.
+   */
+  @Override
+  public void start() {
+    ScheduledThreadPoolExecutor e = new ScheduledThreadPoolExecutor(THREADS,
+      new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("WebhookDispatcher-%d")
+        .build());
+    // retries scheduled after shutdown are abandoned. They are resumed on next startup.
+    e.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    executor = e;
+
+    List<PendingDelivery> pending;
+    try {
+      pending = deliveryStorage.claimPending();
+    } catch (RuntimeException ex) {
+      LOGGER.error("Failed to load pending webhook deliveries", ex);
+      return;
+    }
+    if (!pending.isEmpty()) {
+      LOGGER.info("Resume {} pending webhook deliveries", pending.size());
+    }
+    for (PendingDelivery p : pending) {
+      submit(e, new Delivery(p.getUuid(), p.getWebhook(), p.getPayload()));
+    }
+  }
+
+  /**
+   * Waits a short delay for the deliveries in progress. The deliveries which are still pending
+   * then are resumed on next startup.
+   */
+  @Override
+  public void stop() {
+    ScheduledThreadPoolExecutor e = executor;
+    if (e == null) {
+      return;
+    }
+    executor = null;
+    e.shutdown();
+    try {
+      e.awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    e.shutdownNow();
+    for (Delivery delivery : pendingDeliveries) {
+      delivery.suspend();
+    }
+    try {
+      deliveryStorage.releasePending();
+    } catch (RuntimeException ex) {
+      LOGGER.error("Failed to release pending webhook deliveries", ex);
+    }
+  }
+
+  /**
+   * Does not wait for the webhook to be delivered.
+   */
+  public void dispatch(Webhook webhook, WebhookPayload payload) {
+    ScheduledThreadPoolExecutor e = executor;
+    if (e == null) {
+      new Delivery(null, webhook, payload).abort("Compute Engine is not started");
+      return;
+    }
+    if (pendingDeliveries.size() >= MAX_PENDING_DELIVERIES) {
+      new Delivery(null, webhook, payload).abort("Too many webhooks are waiting to be delivered");
+      return;
+    }
+    submit(e, new Delivery(persistPending(webhook, payload), webhook, payload));
+  }
+
+  /**
+   * @return null if the delivery can't be persisted. It is sent anyway, but it is not resumed if
+   * the Compute Engine stops before it's delivered.
+   */
+  @CheckForNull
+  private String persistPending(Webhook webhook, WebhookPayload payload) {
+    try {
+      return deliveryStorage.persistPending(webhook, payload);
+    } catch (RuntimeException e) {
+      LOGGER.error("Failed to persist pending delivery of webhook '" + webhook.getName() + "'", e);
+      return null;
+    }
+  }
+
+  private void submit(ScheduledThreadPoolExecutor e, Delivery delivery) {
+    pendingDeliveries.add(delivery);
+    try {
+      e.execute(delivery);
+    } catch (RejectedExecutionException ex) {
+      delivery.suspend();
+    }
+  }
+
+  @VisibleForTesting
+  int countPendingDeliveries() {
+    return pendingDeliveries.size();
+  }
+
+  private static boolean isRetryable(WebhookDelivery delivery) {
+    if (delivery.getError().isPresent()) {
+      return true;
+    }
+    int status = delivery.getHttpStatus().orElse(0);
+    return status == 429 || status >= 500;
+  }
+
+  private static void log(WebhookDelivery delivery) {
+    Optional<String> error = delivery.getErrorMessage();
+    if (error.isPresent()) {
+      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
+    } else {
+      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
+        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+    }
+  }
+
+  private class Delivery implements Runnable {
+    /**
+     * Uuid of the pending row in database, null if the delivery is not persisted yet
+     */
+    @CheckForNull
+    private final String uuid;
+    private final Webhook webhook;
+    private final WebhookPayload payload;
+    private final AtomicBoolean completed = new AtomicBoolean(false);
+    private int attempts = 0;
+
+    Delivery(@Nullable String uuid, Webhook webhook, WebhookPayload payload) {
+      this.uuid = uuid;
+      this.webhook = webhook;
+      this.payload = payload;
+    }
+
+    @Override
+    public void run() {
+      attempts++;
+      WebhookDelivery result = caller.call(webhook, payload);
+      if (result.isSuccess() || !isRetryable(result) || attempts >= MAX_ATTEMPTS || retryDelaysMs.length == 0) {
+        complete(result);
+      } else if (!scheduleRetry()) {
+        // the Compute Engine is stopping
+        if (uuid == null) {
+          complete(result);
+        } else {
+          suspend();
+        }
+      }
+    }
+
+    private boolean scheduleRetry() {
+      ScheduledThreadPoolExecutor e = executor;
+      if (e == null) {
+        return false;
+      }
+      long delay = retryDelaysMs[Math.min(attempts, retryDelaysMs.length) - 1];
+      LOGGER.debug("Webhook '{}' | url={} | attempt {} failed, retrying in {}ms", webhook.getName(), webhook.getUrl(), attempts, delay);
+      try {
+        e.schedule(this, delay, TimeUnit.MILLISECONDS);
+        return true;
+      } catch (RejectedExecutionException ex) {
+        return false;
+      }
+    }
+
+    /**
+     * The delivery is kept pending in database, so that it's resumed on next startup. It's aborted
+     * if it's not persisted.
+     */
+    void suspend() {
+      if (uuid == null) {
+        abort("Compute Engine stopped before webhook is delivered");
+        return;
+      }
+      pendingDeliveries.remove(this);
+      LOGGER.debug("Webhook '{}' | url={} | delivery will be resumed on next startup", webhook.getName(), webhook.getUrl());
+    }
+
+    void abort(String message) {
+      complete(new WebhookDelivery.Builder()
+        .setWebhook(webhook)
+        .setPayload(payload)
+        .setAt(system.now())
+        .setError(new IllegalStateException(message))
+        .build());
+    }
+
+    private void complete(WebhookDelivery result) {
+      if (!completed.compareAndSet(false, true)) {
+        return;
+      }
+      pendingDeliveries.remove(this);
+      log(result);
+      try {
+        if (uuid == null) {
+          deliveryStorage.persist(result);
+        } else {
+          deliveryStorage.complete(uuid, result);
+        }
+      } catch (RuntimeException e) {
+        LOGGER.error("Failed to persist delivery of webhook '" + webhook.getName() + "'", e);
+      }
+    }
+  }
+}
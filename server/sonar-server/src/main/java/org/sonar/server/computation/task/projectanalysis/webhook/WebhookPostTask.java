@@ -22,11 +22,11 @@ package org.sonar.server.computation.task.projectanalysis.webhook;
 import com.google.common.collect.Iterables;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTask;
 import org.sonar.api.config.Settings;
-import org.sonar.api.utils.log.Logger;
-import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.config.WebhookProperties;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepository;
@@ -35,22 +35,24 @@ import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolde
 import static java.lang.String.format;
 import static org.sonar.core.config.WebhookProperties.MAX_WEBHOOKS_PER_TYPE;
 
+/**
+ * Webhooks are sent asynchronously by {@link WebhookDispatcher}, so this task does not wait for
+ * the endpoints to respond.
+ */
 public class WebhookPostTask implements PostProjectAnalysisTask {
 
-  private static final Logger LOGGER = Loggers.get(WebhookPostTask.class);
-
   private final TreeRootHolder rootHolder;
   private final SettingsRepository settingsRepository;
   private final WebhookPayloadFactory payloadFactory;
-  private final WebhookCaller caller;
+  private final WebhookDispatcher dispatcher;
   private final WebhookDeliveryStorage deliveryStorage;
 
   public WebhookPostTask(TreeRootHolder rootHolder, SettingsRepository settingsRepository, WebhookPayloadFactory payloadFactory,
-    WebhookCaller caller, WebhookDeliveryStorage deliveryStorage) {
+    WebhookDispatcher dispatcher, WebhookDeliveryStorage deliveryStorage) {
     this.rootHolder = rootHolder;
     this.settingsRepository = settingsRepository;
     this.payloadFactory = payloadFactory;
-    this.caller = caller;
+    this.dispatcher = dispatcher;
     this.deliveryStorage = deliveryStorage;
   }
 
@@ -80,24 +82,28 @@ public class WebhookPostTask implements PostProjectAnalysisTask {
     for (String webhookProp : webhookProperties) {
       String name = settings.getString(format("%s.%s", webhookProp, WebhookProperties.NAME_FIELD));
       String url = settings.getString(format("%s.%s", webhookProp, WebhookProperties.URL_FIELD));
+      Integer timeoutMs = getTimeoutMs(settings.getString(format("%s.%s", webhookProp, WebhookProperties.TIMEOUT_FIELD)));
       // as webhooks are defined as property sets, we can't ensure validity of fields on creation.
       if (name != null && url != null) {
-        Webhook webhook = new Webhook(analysis.getProject().getUuid(), analysis.getCeTask().getId(), name, url);
-        WebhookDelivery delivery = caller.call(webhook, payload);
-        log(delivery);
-        deliveryStorage.persist(delivery);
+        Webhook webhook = new Webhook(analysis.getProject().getUuid(), analysis.getCeTask().getId(), name, url, timeoutMs);
+        dispatcher.dispatch(webhook, payload);
       }
     }
   }
 
-  private static void log(WebhookDelivery delivery) {
-    Optional<String> error = delivery.getErrorMessage();
-    if (error.isPresent()) {
-      LOGGER.debug("Failed to send webhook '{}' | url={} | message={}",
-        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), error.get());
-    } else {
-      LOGGER.debug("Sent webhook '{}' | url={} | time={}ms | status={}",
-        delivery.getWebhook().getName(), delivery.getWebhook().getUrl(), delivery.getDurationInMs().orElse(-1), delivery.getHttpStatus().orElse(-1));
+  /**
+   * Invalid or non-positive timeouts are ignored, so that the default timeouts of the HTTP client are used.
+   */
+  @CheckForNull
+  private static Integer getTimeoutMs(@Nullable String timeoutInSeconds) {
+    if (timeoutInSeconds == null) {
+      return null;
+    }
+    try {
+      long seconds = Long.parseLong(timeoutInSeconds.trim());
+      return seconds > 0 ? (int) Math.min(TimeUnit.SECONDS.toMillis(seconds), Integer.MAX_VALUE) : null;
+    } catch (NumberFormatException e) {
+      return null;
     }
   }
 }
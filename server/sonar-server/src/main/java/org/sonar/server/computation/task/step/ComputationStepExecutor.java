@@ -23,7 +23,9 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.core.util.logs.Profiler;
+import org.sonar.server.computation.task.profile.TaskProfiler;
 
 public final class ComputationStepExecutor {
   private static final Logger LOGGER = Loggers.get(ComputationStepExecutor.class);
@@ -31,6 +33,9 @@ public final class ComputationStepExecutor {
   private final ComputationSteps steps;
   @CheckForNull
   private final Listener listener;
+  private final int threadCount;
+  @CheckForNull
+  private final TaskProfiler taskProfiler;
 
   /**
    * Used when no {@link ComputationStepExecutor.Listener} is available in pico
@@ -40,9 +45,19 @@ public final class ComputationStepExecutor {
     this(steps, null);
   }
 
+  /**
+   * Used when neither {@link CeConfiguration} nor {@link TaskProfiler} is available in pico container.
+   */
   public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener) {
+    this(steps, listener, null, null);
+  }
+
+  public ComputationStepExecutor(ComputationSteps steps, @Nullable Listener listener, @Nullable CeConfiguration ceConfiguration,
+    @Nullable TaskProfiler taskProfiler) {
     this.steps = steps;
     this.listener = listener;
+    this.threadCount = ceConfiguration == null ? 1 : ceConfiguration.getComputationStepThreadCount();
+    this.taskProfiler = taskProfiler;
   }
 
   public void execute() {
@@ -59,10 +74,27 @@ public final class ComputationStepExecutor {
   }
 
   private void executeSteps(Profiler stepProfiler) {
+    if (threadCount > 1) {
+      new ComputationStepScheduler(steps.instances()).execute(threadCount, this::executeStep);
+      return;
+    }
     for (ComputationStep step : steps.instances()) {
       stepProfiler.start();
       step.execute();
-      stepProfiler.stopDebug(step.getDescription());
+      recordStep(step, stepProfiler.stopDebug(step.getDescription()));
+    }
+  }
+
+  private void executeStep(ComputationStep step) {
+    // Profiler is not thread safe, hence one instance per concurrently executed step
+    Profiler stepProfiler = Profiler.create(LOGGER).start();
+    step.execute();
+    recordStep(step, stepProfiler.stopDebug(step.getDescription()));
+  }
+
+  private void recordStep(ComputationStep step, long durationMs) {
+    if (taskProfiler != null) {
+      taskProfiler.addStep(step.getDescription(), durationMs);
     }
   }
 
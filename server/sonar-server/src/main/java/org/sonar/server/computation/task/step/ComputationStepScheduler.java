@@ -0,0 +1,168 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import org.slf4j.MDC;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.copyOf;
+import static org.sonar.server.computation.task.profile.TaskProfiler.taskThreadFactory;
+
+/**
+ * Executes a list of {@link ComputationStep} on a bounded pool of threads, each step being started as soon as all the
+ * preceding steps it conflicts with are done.
+ * <p>
+ * Two steps conflict when any of them is not a {@link ConcurrentComputationStep} or when one of them writes a key the
+ * other reads or writes. Non concurrent steps therefore act as barriers and the order of the list is preserved for
+ * conflicting steps.
+ * </p>
+ */
+final class ComputationStepScheduler {
+  private final List<ComputationStep> steps;
+  private final List<List<Integer>> successors;
+  private final int[] predecessorCounts;
+
+  ComputationStepScheduler(Iterable<ComputationStep> steps) {
+    this.steps = copyOf(steps);
+    int size = this.steps.size();
+    this.successors = new ArrayList<>(size);
+    this.predecessorCounts = new int[size];
+    for (int i = 0; i < size; i++) {
+      successors.add(new ArrayList<>());
+      for (int j = 0; j < i; j++) {
+        if (conflict(this.steps.get(j), this.steps.get(i))) {
+          successors.get(j).add(i);
+          predecessorCounts[i]++;
+        }
+      }
+    }
+  }
+
+  static boolean conflict(ComputationStep first, ComputationStep second) {
+    if (!(first instanceof ConcurrentComputationStep) || !(second instanceof ConcurrentComputationStep)) {
+      return true;
+    }
+    ConcurrentComputationStep a = (ConcurrentComputationStep) first;
+    ConcurrentComputationStep b = (ConcurrentComputationStep) second;
+    return intersect(a.getWrittenKeys(), b.getReadKeys())
+      || intersect(a.getWrittenKeys(), b.getWrittenKeys())
+      || intersect(a.getReadKeys(), b.getWrittenKeys());
+  }
+
+  private static boolean intersect(Set<String> a, Set<String> b) {
+    return !Collections.disjoint(a, b);
+  }
+
+  /**
+   * Runs {@code stepRunner} for each step on at most {@code threadCount} threads. Once a step fails, no new step is
+   * started and the first failure is propagated as is after the running ones completed.
+   */
+  void execute(int threadCount, Consumer<ComputationStep> stepRunner) {
+    checkArgument(threadCount > 0, "thread count must be strictly greater than 0");
+    ExecutorService executorService = Executors.newFixedThreadPool(threadCount,
+      new ThreadFactoryBuilder()
+        .setThreadFactory(taskThreadFactory(Executors.defaultThreadFactory()))
+        .setNameFormat("CE_Step-%d")
+        .setDaemon(true)
+        .build());
+    try {
+      execute(new ExecutorCompletionService<>(executorService), stepRunner);
+    } finally {
+      executorService.shutdownNow();
+    }
+  }
+
+  private void execute(CompletionService<Integer> completionService, Consumer<ComputationStep> stepRunner) {
+    Map<String, String> loggingContext = MDC.getCopyOfContextMap();
+    int[] remainingPredecessors = predecessorCounts.clone();
+    int running = 0;
+    for (int i = 0; i < steps.size(); i++) {
+      if (remainingPredecessors[i] == 0) {
+        submit(completionService, i, stepRunner, loggingContext);
+        running++;
+      }
+    }
+
+    Throwable failure = null;
+    while (running > 0) {
+      int done;
+      try {
+        done = completionService.take().get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while executing computation steps", e);
+      } catch (ExecutionException e) {
+        failure = failure == null ? e.getCause() : failure;
+        running--;
+        continue;
+      }
+      running--;
+      if (failure == null) {
+        for (int successor : successors.get(done)) {
+          remainingPredecessors[successor]--;
+          if (remainingPredecessors[successor] == 0) {
+            submit(completionService, successor, stepRunner, loggingContext);
+            running++;
+          }
+        }
+      }
+    }
+    if (failure != null) {
+      propagate(failure);
+    }
+  }
+
+  private void submit(CompletionService<Integer> completionService, int index, Consumer<ComputationStep> stepRunner, Map<String, String> loggingContext) {
+    ComputationStep step = steps.get(index);
+    completionService.submit(() -> {
+      if (loggingContext != null) {
+        MDC.setContextMap(loggingContext);
+      }
+      try {
+        stepRunner.accept(step);
+        return index;
+      } finally {
+        MDC.clear();
+      }
+    });
+  }
+
+  private static void propagate(Throwable failure) {
+    if (failure instanceof RuntimeException) {
+      throw (RuntimeException) failure;
+    }
+    if (failure instanceof Error) {
+      throw (Error) failure;
+    }
+    throw new IllegalStateException(failure);
+  }
+}
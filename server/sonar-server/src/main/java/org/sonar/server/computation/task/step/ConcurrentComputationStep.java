@@ -0,0 +1,43 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import java.util.Set;
+
+/**
+ * A {@link ComputationStep} which declares the data it reads and writes so that it can be executed concurrently with
+ * the other steps it does not share any data with.
+ * <p>
+ * Keys are free-form (typically metric keys). A step conflicts with a preceding step when one of them writes a key
+ * the other one reads or writes. Steps not implementing this interface are considered to read and write everything.
+ * </p>
+ */
+public interface ConcurrentComputationStep extends ComputationStep {
+
+  /**
+   * Keys of the data read by this step and which may be written by another step.
+   */
+  Set<String> getReadKeys();
+
+  /**
+   * Keys of the data written by this step.
+   */
+  Set<String> getWrittenKeys();
+}
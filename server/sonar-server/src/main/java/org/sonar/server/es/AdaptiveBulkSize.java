@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+/**
+ * Threshold, in bytes, above which the requests buffered by {@link BulkIndexer} are sent
+ * to Elasticsearch. The threshold grows as long as Elasticsearch answers quickly and
+ * shrinks when bulk requests become slow or are rejected because its queues are full.
+ */
+class AdaptiveBulkSize {
+
+  static final long MIN_BYTES = 256L * 1024;
+  static final long INITIAL_BYTES = 1024L * 1024;
+  static final long MAX_BYTES = 10L * 1024 * 1024;
+  static final long FAST_BULK_MS = 500L;
+  static final long SLOW_BULK_MS = 2_000L;
+
+  private long bytes = INITIAL_BYTES;
+
+  synchronized long get() {
+    return bytes;
+  }
+
+  /**
+   * Called when a bulk request has been fully processed by Elasticsearch
+   */
+  synchronized void onSuccess(long durationMs) {
+    if (durationMs < FAST_BULK_MS) {
+      bytes = Math.min(MAX_BYTES, bytes + bytes / 4);
+    } else if (durationMs > SLOW_BULK_MS) {
+      bytes = Math.max(MIN_BYTES, bytes - bytes / 4);
+    }
+  }
+
+  /**
+   * Called when some items of a bulk request have been rejected by Elasticsearch
+   */
+  synchronized void onRejection() {
+    bytes = Math.max(MIN_BYTES, bytes / 2);
+  }
+}
@@ -20,26 +20,32 @@
 package org.sonar.server.es;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.admin.indices.settings.put.UpdateSettingsRequestBuilder;
 import org.elasticsearch.action.bulk.BackoffPolicy;
 import org.elasticsearch.action.bulk.BulkItemResponse;
-import org.elasticsearch.action.bulk.BulkProcessor;
-import org.elasticsearch.action.bulk.BulkProcessor.Listener;
 import org.elasticsearch.action.bulk.BulkRequest;
 import org.elasticsearch.action.bulk.BulkResponse;
 import org.elasticsearch.action.delete.DeleteRequestBuilder;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
-import org.elasticsearch.common.unit.ByteSizeUnit;
-import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.search.SearchHit;
 import org.elasticsearch.search.SearchHitField;
 import org.elasticsearch.search.sort.SortOrder;
@@ -53,56 +59,247 @@ import static java.lang.String.format;
 /**
  * Helper to bulk requests in an efficient way :
  * <ul>
- *   <li>bulk request is sent on the wire when its size is higher than 5Mb</li>
+ *   <li>bulk request is sent on the wire when its size is higher than a threshold, adapted to
+ *   the latency of Elasticsearch (see {@link AdaptiveBulkSize})</li>
+ *   <li>items rejected by Elasticsearch because its queues are full are sent again after a backoff</li>
+ *   <li>requests can be added concurrently by multiple threads</li>
  *   <li>on large table indexing, replicas and automatic refresh can be temporarily disabled</li>
  * </ul>
+ * Activity is reported to {@link BulkIndexerMetrics}, and to the metrics bound to the thread which added the
+ * requests, if any (see {@link BulkIndexerMetrics#bindToCurrentThread(BulkIndexerMetrics)}).
  */
 public class BulkIndexer implements Startable {
 
   private static final Logger LOGGER = Loggers.get(BulkIndexer.class);
-  private static final ByteSizeValue FLUSH_BYTE_SIZE = new ByteSizeValue(1, ByteSizeUnit.MB);
-  private static final int FLUSH_ACTIONS = -1;
+  private static final BackoffPolicy BACKOFF_POLICY = BackoffPolicy.exponentialBackoff();
   private static final String REFRESH_INTERVAL_SETTING = "index.refresh_interval";
   private static final int DEFAULT_NUMBER_OF_SHARDS = 5;
 
   private final EsClient client;
   private final String indexName;
-  private final BulkProcessor bulkProcessor;
   private final AtomicLong counter = new AtomicLong(0L);
   private final SizeHandler sizeHandler;
+  private final BulkIndexerMetrics metrics;
+  private final AdaptiveBulkSize bulkSize = new AdaptiveBulkSize();
+  private final int permits;
+  private final Semaphore semaphore;
+  private final Object lock = new Object();
 
-  public BulkIndexer(EsClient client, String indexName, Size size) {
+  // guarded by lock
+  private BulkRequest bulkRequest = new BulkRequest();
+
+  @CheckForNull
+  private ExecutorService executorService;
+
+  public BulkIndexer(EsClient client, String indexName, Size size, BulkIndexerMetrics metrics) {
     this.client = client;
     this.indexName = indexName;
     this.sizeHandler = size.createHandler(Runtime2.INSTANCE);
-    this.bulkProcessor = BulkProcessor.builder(client.nativeClient(), new BulkProcessorListener())
-      .setBackoffPolicy(BackoffPolicy.exponentialBackoff())
-      .setBulkSize(FLUSH_BYTE_SIZE)
-      .setBulkActions(FLUSH_ACTIONS)
-      .setConcurrentRequests(sizeHandler.getConcurrentRequests())
-      .build();
+    this.metrics = metrics;
+    int concurrentRequests = sizeHandler.getConcurrentRequests();
+    // requests executed in the threads of producers are not limited, but must be tracked by flush()
+    this.permits = concurrentRequests > 0 ? concurrentRequests : Integer.MAX_VALUE;
+    this.semaphore = new Semaphore(permits, true);
   }
 
   @Override
   public void start() {
     sizeHandler.beforeStart(this);
     counter.set(0L);
+    int concurrentRequests = sizeHandler.getConcurrentRequests();
+    if (concurrentRequests > 0) {
+      executorService = Executors.newFixedThreadPool(concurrentRequests,
+        new ThreadFactoryBuilder()
+          .setDaemon(true)
+          .setNameFormat("BulkIndexer[" + indexName + "]-%d")
+          .build());
+    }
   }
 
   @Override
   public void stop() {
+    sendBuffer();
+    awaitPendingRequests();
+    client.prepareRefresh(indexName).get();
+    sizeHandler.afterStop(this);
+  }
+
+  private void awaitPendingRequests() {
+    ExecutorService executor = executorService;
+    if (executor == null) {
+      return;
+    }
+    executorService = null;
+    executor.shutdown();
     try {
-      bulkProcessor.awaitClose(10, TimeUnit.MINUTES);
+      if (!executor.awaitTermination(10, TimeUnit.MINUTES)) {
+        throw new IllegalStateException("Elasticsearch bulk requests still being executed after 10 minutes");
+      }
     } catch (InterruptedException e) {
       Thread.currentThread().interrupt();
-      throw new IllegalStateException("Elasticsearch bulk requests still being executed after 10 minutes", e);
+      throw new IllegalStateException("Interrupted while waiting for Elasticsearch bulk requests", e);
     }
-    client.prepareRefresh(indexName).get();
-    sizeHandler.afterStop(this);
   }
 
+  /**
+   * Buffers the request. Buffer is sent to Elasticsearch when it becomes larger than the current bulk size.
+   * This method is thread-safe. It blocks when the maximum number of concurrent bulk requests is reached.
+   */
   public void add(ActionRequest<?> request) {
-    bulkProcessor.add(request);
+    BulkRequest toExecute = null;
+    synchronized (lock) {
+      bulkRequest.add(request);
+      if (bulkRequest.estimatedSizeInBytes() >= bulkSize.get()) {
+        toExecute = swapBuffer();
+      }
+    }
+    if (toExecute != null) {
+      execute(toExecute);
+    }
+  }
+
+  /**
+   * Sends the buffered requests and waits for all the pending bulk requests to be processed
+   * by Elasticsearch, including the ones sent by other threads. Indexer can still be used afterwards.
+   */
+  public void flush() {
+    sendBuffer();
+    acquire(permits);
+    semaphore.release(permits);
+  }
+
+  private void sendBuffer() {
+    BulkRequest toExecute = null;
+    synchronized (lock) {
+      if (bulkRequest.numberOfActions() > 0) {
+        toExecute = swapBuffer();
+      }
+    }
+    if (toExecute != null) {
+      execute(toExecute);
+    }
+  }
+
+  /**
+   * Must be called while holding the lock, so that {@link #flush()} can not miss a request
+   * that has been removed from buffer but not sent yet.
+   */
+  private BulkRequest swapBuffer() {
+    BulkRequest toExecute = bulkRequest;
+    bulkRequest = new BulkRequest();
+    acquire(1);
+    metrics.onRequestQueued();
+    return toExecute;
+  }
+
+  private void acquire(int nbPermits) {
+    try {
+      semaphore.acquire(nbPermits);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for Elasticsearch bulk requests", e);
+    }
+  }
+
+  private void execute(BulkRequest request) {
+    // requests may be sent by another thread, which is not bound to the metrics of the producer
+    BulkIndexerMetrics threadMetrics = BulkIndexerMetrics.boundToCurrentThread();
+    ExecutorService executor = executorService;
+    if (executor == null) {
+      sendAndRelease(request, threadMetrics);
+    } else {
+      executor.execute(() -> sendAndRelease(request, threadMetrics));
+    }
+  }
+
+  private void sendAndRelease(BulkRequest request, @Nullable BulkIndexerMetrics threadMetrics) {
+    try {
+      send(request, threadMetrics);
+    } finally {
+      semaphore.release();
+      metrics.onRequestDone();
+    }
+  }
+
+  private void send(BulkRequest request, @Nullable BulkIndexerMetrics threadMetrics) {
+    Iterator<TimeValue> backoff = BACKOFF_POLICY.iterator();
+    BulkRequest toSend = request;
+    while (toSend != null) {
+      toSend = sendOnce(toSend, backoff, threadMetrics);
+    }
+  }
+
+  private void report(@Nullable BulkIndexerMetrics threadMetrics, Consumer<BulkIndexerMetrics> event) {
+    event.accept(metrics);
+    if (threadMetrics != null && threadMetrics != metrics) {
+      event.accept(threadMetrics);
+    }
+  }
+
+  /**
+   * @return the items to be sent again, or {@code null} if all items have been processed
+   */
+  @CheckForNull
+  private BulkRequest sendOnce(BulkRequest request, Iterator<TimeValue> backoff, @Nullable BulkIndexerMetrics threadMetrics) {
+    boolean canRetry = backoff.hasNext();
+    long start = System.currentTimeMillis();
+    BulkResponse response;
+    try {
+      response = client.nativeClient().bulk(request).actionGet();
+    } catch (RuntimeException e) {
+      if (canRetry && isRejection(e)) {
+        bulkSize.onRejection();
+        return retry(request, backoff.next(), threadMetrics);
+      }
+      report(threadMetrics, m -> m.onFailure(request.numberOfActions()));
+      LOGGER.error("Fail to execute bulk index request: " + request, e);
+      return null;
+    }
+    long duration = System.currentTimeMillis() - start;
+
+    BulkRequest rejected = new BulkRequest();
+    int failures = 0;
+    for (BulkItemResponse item : response.getItems()) {
+      if (item.isFailed()) {
+        if (canRetry && isRejection(item.getFailure().getCause())) {
+          rejected.add(request.requests().get(item.getItemId()));
+        } else {
+          failures++;
+          LOGGER.error("index [{}], type [{}], id [{}], message [{}]", item.getIndex(), item.getType(), item.getId(), item.getFailureMessage());
+        }
+      }
+    }
+    int processed = response.getItems().length - rejected.numberOfActions();
+    counter.addAndGet(processed);
+    long processedBytes = request.estimatedSizeInBytes() - rejected.estimatedSizeInBytes();
+    int failed = failures;
+    report(threadMetrics, m -> {
+      m.onBulk(processed, processedBytes);
+      m.onFailure(failed);
+    });
+
+    if (rejected.numberOfActions() > 0) {
+      bulkSize.onRejection();
+      return retry(rejected, backoff.next(), threadMetrics);
+    }
+    bulkSize.onSuccess(duration);
+    return null;
+  }
+
+  private BulkRequest retry(BulkRequest request, TimeValue delay, @Nullable BulkIndexerMetrics threadMetrics) {
+    report(threadMetrics, m -> m.onRetry(request.numberOfActions()));
+    LOGGER.debug("Elasticsearch rejected {} requests on index {}. Retrying in {}", request.numberOfActions(), indexName, delay);
+    try {
+      Thread.sleep(delay.millis());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting to retry Elasticsearch bulk request", e);
+    }
+    return request;
+  }
+
+  private static boolean isRejection(Throwable t) {
+    return ExceptionsHelper.unwrapCause(t) instanceof EsRejectedExecutionException;
   }
 
   public void addDeletion(SearchRequestBuilder searchRequest) {
@@ -153,37 +350,13 @@ public class BulkIndexer implements Startable {
    *
    * Note that the parameter indexName could be removed if progress logs are not needed.
    */
-  public static void delete(EsClient client, String indexName, SearchRequestBuilder searchRequest) {
-    BulkIndexer bulk = new BulkIndexer(client, indexName, Size.REGULAR);
+  public static void delete(EsClient client, BulkIndexerMetrics metrics, String indexName, SearchRequestBuilder searchRequest) {
+    BulkIndexer bulk = new BulkIndexer(client, indexName, Size.REGULAR, metrics);
     bulk.start();
     bulk.addDeletion(searchRequest);
     bulk.stop();
   }
 
-  private final class BulkProcessorListener implements Listener {
-
-    @Override
-    public void beforeBulk(long executionId, BulkRequest request) {
-      // no action required
-    }
-
-    @Override
-    public void afterBulk(long executionId, BulkRequest request, BulkResponse response) {
-      counter.addAndGet(response.getItems().length);
-
-      for (BulkItemResponse item : response.getItems()) {
-        if (item.isFailed()) {
-          LOGGER.error("index [{}], type [{}], id [{}], message [{}]", item.getIndex(), item.getType(), item.getId(), item.getFailureMessage());
-        }
-      }
-    }
-
-    @Override
-    public void afterBulk(long executionId, BulkRequest req, Throwable e) {
-      LOGGER.error("Fail to execute bulk index request: " + req, e);
-    }
-  }
-
   public enum Size {
     /** Use this size for a limited number of documents. */
     REGULAR {
@@ -219,7 +392,8 @@ public class BulkIndexer implements Startable {
 
   static class SizeHandler {
     /**
-     * @see BulkProcessor.Builder#setConcurrentRequests(int)
+     * Maximum number of bulk requests executed concurrently in background threads. Zero
+     * means that requests are executed in the thread adding the documents.
      */
     int getConcurrentRequests() {
       // in the same thread by default
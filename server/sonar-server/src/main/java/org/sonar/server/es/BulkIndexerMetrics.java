@@ -0,0 +1,156 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import com.google.common.annotations.VisibleForTesting;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+/**
+ * Counters shared by all the instances of {@link BulkIndexer} of the process. Registered
+ * once in the container and injected into indexers.
+ * <p>
+ * Other instances can be bound to a thread with {@link #bindToCurrentThread(BulkIndexerMetrics)}, in order to
+ * count only the documents added by this thread, for example while it executes a Compute Engine task.
+ * </p>
+ */
+public class BulkIndexerMetrics {
+
+  private static final long RATE_WINDOW_MS = TimeUnit.SECONDS.toMillis(10);
+  private static final ThreadLocal<BulkIndexerMetrics> THREAD_METRICS = new ThreadLocal<>();
+
+  private final LongSupplier clock;
+  private final AtomicLong documents = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong pendingRequests = new AtomicLong();
+
+  // guarded by this
+  private long windowStart;
+  private long windowDocuments = 0L;
+  private double documentsPerSecond = 0.0;
+
+  public BulkIndexerMetrics() {
+    this(System::currentTimeMillis);
+  }
+
+  @VisibleForTesting
+  BulkIndexerMetrics(LongSupplier clock) {
+    this.clock = clock;
+    this.windowStart = clock.getAsLong();
+  }
+
+  /**
+   * Activity of the bulk requests of the documents added by the current thread is also reported to the specified
+   * metrics, until this method is called again. {@code null} unbinds the metrics of the current thread.
+   */
+  public static void bindToCurrentThread(@Nullable BulkIndexerMetrics metrics) {
+    if (metrics == null) {
+      THREAD_METRICS.remove();
+    } else {
+      THREAD_METRICS.set(metrics);
+    }
+  }
+
+  @CheckForNull
+  public static BulkIndexerMetrics boundToCurrentThread() {
+    return THREAD_METRICS.get();
+  }
+
+  void onRequestQueued() {
+    pendingRequests.incrementAndGet();
+  }
+
+  void onRequestDone() {
+    pendingRequests.decrementAndGet();
+  }
+
+  void onBulk(int nbDocuments, long nbBytes) {
+    documents.addAndGet(nbDocuments);
+    bytes.addAndGet(nbBytes);
+    synchronized (this) {
+      long now = clock.getAsLong();
+      if (now - windowStart >= 2 * RATE_WINDOW_MS) {
+        // indexing was idle, do not dilute the throughput over the idle period
+        windowStart = now;
+        windowDocuments = 0L;
+      }
+      windowDocuments += nbDocuments;
+      long elapsed = now - windowStart;
+      if (elapsed >= RATE_WINDOW_MS) {
+        documentsPerSecond = windowDocuments * 1000.0 / elapsed;
+        windowStart = now;
+        windowDocuments = 0L;
+      }
+    }
+  }
+
+  void onRetry(int nbDocuments) {
+    retries.addAndGet(nbDocuments);
+  }
+
+  void onFailure(int nbDocuments) {
+    failures.addAndGet(nbDocuments);
+  }
+
+  /**
+   * Number of documents processed by Elasticsearch, including failures
+   */
+  public long getDocuments() {
+    return documents.get();
+  }
+
+  public long getBytes() {
+    return bytes.get();
+  }
+
+  /**
+   * Number of documents rejected by Elasticsearch then sent again
+   */
+  public long getRetries() {
+    return retries.get();
+  }
+
+  public long getFailures() {
+    return failures.get();
+  }
+
+  /**
+   * Number of bulk requests that are waiting for a response from Elasticsearch
+   */
+  public long getPendingRequests() {
+    return pendingRequests.get();
+  }
+
+  /**
+   * Indexing throughput over the last completed window of 10 seconds. Zero if
+   * nothing has been indexed recently.
+   */
+  public synchronized double getDocumentsPerSecond() {
+    if (clock.getAsLong() - windowStart >= 2 * RATE_WINDOW_MS) {
+      return 0.0;
+    }
+    return documentsPerSecond;
+  }
+}
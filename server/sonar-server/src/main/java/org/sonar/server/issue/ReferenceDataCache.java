@@ -0,0 +1,121 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.user.UserDto;
+
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+
+/**
+ * Slowly-changing data referenced by issues (rule definitions, users and organizations), shared by all
+ * the requests of api/issues/search and of the web services returning issues.
+ * <p>
+ * Changes of rules and users must be notified through {@link #invalidateRules()} and {@link #invalidateUsers()}.
+ * Organizations do not need to be invalidated as only their immutable keys are returned. Entries also expire
+ * after {@link #EXPIRATION_SECONDS}, which bounds the delay before changes that are not notified (for example
+ * done by another process) are taken into account.
+ * </p>
+ */
+@ServerSide
+public class ReferenceDataCache {
+
+  static final long EXPIRATION_SECONDS = 60L;
+  private static final long MAX_ENTRIES = 20_000L;
+
+  private final Entries<RuleKey, RuleDefinitionDto> rules = new Entries<>(RuleDefinitionDto::getKey);
+  private final Entries<String, UserDto> users = new Entries<>(UserDto::getLogin);
+  private final Entries<String, OrganizationDto> organizations = new Entries<>(OrganizationDto::getUuid);
+
+  /**
+   * Definitions of the given rules. Rules which are not in cache are loaded with a single call to {@code loader}.
+   */
+  public List<RuleDefinitionDto> getRules(Collection<RuleKey> keys, Function<Collection<RuleKey>, List<RuleDefinitionDto>> loader) {
+    return rules.getAll(keys, loader);
+  }
+
+  /**
+   * Users with the given logins. Users which are not in cache are loaded with a single call to {@code loader}.
+   */
+  public List<UserDto> getUsers(Collection<String> logins, Function<Collection<String>, List<UserDto>> loader) {
+    return users.getAll(logins, loader);
+  }
+
+  /**
+   * Organizations with the given uuids. Organizations which are not in cache are loaded with a single call to {@code loader}.
+   */
+  public List<OrganizationDto> getOrganizations(Collection<String> uuids, Function<Collection<String>, List<OrganizationDto>> loader) {
+    return organizations.getAll(uuids, loader);
+  }
+
+  public void invalidateRules() {
+    rules.invalidate();
+  }
+
+  public void invalidateUsers() {
+    users.invalidate();
+  }
+
+  private static class Entries<K, V> {
+    private final Function<V, K> keyFunction;
+    private final AtomicLong version = new AtomicLong();
+    private final Cache<K, V> cache = CacheBuilder.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .expireAfterWrite(EXPIRATION_SECONDS, TimeUnit.SECONDS)
+      .build();
+
+    private Entries(Function<V, K> keyFunction) {
+      this.keyFunction = keyFunction;
+    }
+
+    List<V> getAll(Collection<K> keys, Function<Collection<K>, List<V>> loader) {
+      Map<K, V> present = cache.getAllPresent(keys);
+      List<V> result = new ArrayList<>(present.values());
+      List<K> missingKeys = keys.stream().filter(key -> !present.containsKey(key)).collect(toList());
+      if (!missingKeys.isEmpty()) {
+        long versionBeforeLoad = version.get();
+        List<V> loaded = loader.apply(missingKeys);
+        result.addAll(loaded);
+        // do not keep values which may have been loaded before an invalidation
+        if (version.get() == versionBeforeLoad) {
+          loaded.forEach(value -> cache.put(keyFunction.apply(value), value));
+        }
+      }
+      return result;
+    }
+
+    void invalidate() {
+      version.incrementAndGet();
+      cache.invalidateAll();
+    }
+  }
+}
@@ -24,13 +24,16 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.elasticsearch.action.bulk.BulkRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
 import org.sonar.api.resources.Qualifiers;
+import org.sonar.db.DbClient;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsUtils;
 import org.sonar.server.es.IndexType;
@@ -48,13 +51,26 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
 
   private static final String DELETE_ERROR_MESSAGE = "Fail to delete some issues of project [%s]";
   private static final int MAX_BATCH_SIZE = 1000;
+  private static final int MAX_STARTUP_INDEXING_THREADS = 4;
   private static final AuthorizationScope AUTHORIZATION_SCOPE = new AuthorizationScope(INDEX_TYPE_ISSUE, project -> Qualifiers.PROJECT.equals(project.getQualifier()));
 
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
+  @CheckForNull
+  private final DbClient dbClient;
   private final IssueIteratorFactory issueIteratorFactory;
 
-  public IssueIndexer(EsClient esClient, IssueIteratorFactory issueIteratorFactory) {
+  /**
+   * Used when progress of indexing on startup does not need to be persisted
+   */
+  public IssueIndexer(EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics, IssueIteratorFactory issueIteratorFactory) {
+    this(esClient, bulkIndexerMetrics, null, issueIteratorFactory);
+  }
+
+  public IssueIndexer(EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics, @Nullable DbClient dbClient, IssueIteratorFactory issueIteratorFactory) {
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
+    this.dbClient = dbClient;
     this.issueIteratorFactory = issueIteratorFactory;
   }
 
@@ -68,9 +84,16 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
     return ImmutableSet.of(INDEX_TYPE_ISSUE);
   }
 
+  /**
+   * Issues are loaded and indexed concurrently by ranges of projects. See {@link IssueStartupIndexing}.
+   */
   @Override
   public void indexOnStartup(Set<IndexType> emptyIndexTypes) {
-    doIndex(createBulkIndexer(Size.LARGE), (String) null);
+    int threads = Math.min(MAX_STARTUP_INDEXING_THREADS, Runtime.getRuntime().availableProcessors());
+    BulkIndexer bulk = createBulkIndexer(Size.LARGE);
+    bulk.start();
+    new IssueStartupIndexing(esClient, dbClient, issueIteratorFactory, IssueIndexer::newIndexRequest, threads).execute(bulk);
+    bulk.stop();
   }
 
   @Override
@@ -108,7 +131,7 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
     }
   }
 
-  private void doIndex(BulkIndexer bulk, @Nullable String projectUuid) {
+  private void doIndex(BulkIndexer bulk, String projectUuid) {
     try (IssueIterator issues = issueIteratorFactory.createForProject(projectUuid)) {
       doIndex(bulk, issues);
     }
@@ -125,7 +148,7 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
 
   @Override
   public void deleteProject(String uuid) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_ISSUE.getIndex(), Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_ISSUE.getIndex(), Size.REGULAR, bulkIndexerMetrics);
     bulk.start();
     SearchRequestBuilder search = esClient.prepareSearch(INDEX_TYPE_ISSUE)
       .setRouting(uuid)
@@ -157,7 +180,7 @@ public class IssueIndexer implements ProjectIndexer, NeedAuthorizationIndexer, S
   }
 
   private BulkIndexer createBulkIndexer(Size bulkSize) {
-    return new BulkIndexer(esClient, INDEX_TYPE_ISSUE.getIndex(), bulkSize);
+    return new BulkIndexer(esClient, INDEX_TYPE_ISSUE.getIndex(), bulkSize, bulkIndexerMetrics);
   }
 
   private static IndexRequest newIndexRequest(IssueDoc issue) {
@@ -19,12 +19,22 @@
  */
 package org.sonar.server.issue.index;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import javax.annotation.Nullable;
 import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 
 public class IssueIteratorFactory {
 
+  private static final String SQL_ROOT_UUIDS = "select p.uuid from projects p where p.uuid=p.project_uuid";
+  private static final String ROOT_UUIDS_FROM_FILTER = " and p.uuid>=?";
+  private static final String ROOT_UUIDS_ORDER = " order by p.uuid";
+
   private final DbClient dbClient;
 
   public IssueIteratorFactory(DbClient dbClient) {
@@ -39,7 +49,40 @@ public class IssueIteratorFactory {
     return new IssueIteratorForSingleChunk(dbClient, projectUuid, null);
   }
 
+  /**
+   * Issues of the projects whose uuid is in the range {@code [fromProjectUuid, toProjectUuid[}, as compared
+   * by the database. Bounds are ignored when {@code null}.
+   */
+  public IssueIterator createForProjectUuidRange(@Nullable String fromProjectUuid, @Nullable String toProjectUuid) {
+    return new IssueIteratorForSingleChunk(dbClient, null, null, fromProjectUuid, toProjectUuid);
+  }
+
   public IssueIterator createForIssueKeys(Collection<String> issueKeys) {
     return new IssueIteratorForMultipleChunks(dbClient, issueKeys);
   }
+
+  /**
+   * Uuids of root components (projects and views, including disabled ones) in the order of the database,
+   * so that they can be used as bounds of {@link #createForProjectUuidRange(String, String)}.
+   *
+   * @param fromUuid if not null, only the uuids greater than or equal to this value are returned
+   */
+  public List<String> selectRootUuids(@Nullable String fromUuid) {
+    String sql = SQL_ROOT_UUIDS + (fromUuid == null ? "" : ROOT_UUIDS_FROM_FILTER) + ROOT_UUIDS_ORDER;
+    try (DbSession session = dbClient.openSession(false);
+      PreparedStatement stmt = dbClient.getMyBatis().newScrollingSelectStatement(session, sql)) {
+      if (fromUuid != null) {
+        stmt.setString(1, fromUuid);
+      }
+      List<String> uuids = new ArrayList<>();
+      try (ResultSet rs = stmt.executeQuery()) {
+        while (rs.next()) {
+          uuids.add(rs.getString(1));
+        }
+      }
+      return uuids;
+    } catch (SQLException e) {
+      throw new IllegalStateException("Fail to select uuids of root components", e);
+    }
+  }
 }
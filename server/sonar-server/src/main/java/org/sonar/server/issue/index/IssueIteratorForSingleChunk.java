@@ -94,6 +94,8 @@ class IssueIteratorForSingleChunk implements IssueIterator {
     "inner join projects root on root.uuid=i.project_uuid";
 
   private static final String PROJECT_FILTER = " AND root.uuid=?";
+  private static final String PROJECT_RANGE_FROM_FILTER = " AND i.project_uuid>=?";
+  private static final String PROJECT_RANGE_TO_FILTER = " AND i.project_uuid<?";
   private static final String ISSUE_KEY_FILTER_PREFIX = " AND i.kee IN (";
   private static final String ISSUE_KEY_FILTER_SUFFIX = ")";
 
@@ -108,14 +110,31 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   @CheckForNull
   private final Collection<String> issueKeys;
 
+  @CheckForNull
+  private final String fromProjectUuid;
+
+  @CheckForNull
+  private final String toProjectUuid;
+
   private final PreparedStatement stmt;
   private final ResultSetIterator<IssueDoc> iterator;
 
   IssueIteratorForSingleChunk(DbClient dbClient, @Nullable String projectUuid, @Nullable Collection<String> issueKeys) {
+    this(dbClient, projectUuid, issueKeys, null, null);
+  }
+
+  /**
+   * @param fromProjectUuid if not null, only the issues of projects whose uuid is greater than or equal to this value are returned
+   * @param toProjectUuid if not null, only the issues of projects whose uuid is strictly less than this value are returned
+   */
+  IssueIteratorForSingleChunk(DbClient dbClient, @Nullable String projectUuid, @Nullable Collection<String> issueKeys,
+    @Nullable String fromProjectUuid, @Nullable String toProjectUuid) {
     checkArgument(issueKeys == null || issueKeys.size() <= DatabaseUtils.PARTITION_SIZE_FOR_ORACLE,
       "Cannot search for more than " + DatabaseUtils.PARTITION_SIZE_FOR_ORACLE + " issue keys at once. Please provide the keys in smaller chunks.");
     this.projectUuid = projectUuid;
     this.issueKeys = issueKeys;
+    this.fromProjectUuid = fromProjectUuid;
+    this.toProjectUuid = toProjectUuid;
     this.session = dbClient.openSession(false);
 
     try {
@@ -151,6 +170,8 @@ class IssueIteratorForSingleChunk implements IssueIterator {
   private String createSql() {
     String sql = SQL_ALL;
     sql += projectUuid == null ? "" : PROJECT_FILTER;
+    sql += fromProjectUuid == null ? "" : PROJECT_RANGE_FROM_FILTER;
+    sql += toProjectUuid == null ? "" : PROJECT_RANGE_TO_FILTER;
     if (issueKeys != null && !issueKeys.isEmpty()) {
       sql += ISSUE_KEY_FILTER_PREFIX;
       sql += IntStream.range(0, issueKeys.size()).mapToObj(i -> "?").collect(Collectors.joining(","));
@@ -165,6 +186,14 @@ class IssueIteratorForSingleChunk implements IssueIterator {
       stmt.setString(index, projectUuid);
       index++;
     }
+    if (fromProjectUuid != null) {
+      stmt.setString(index, fromProjectUuid);
+      index++;
+    }
+    if (toProjectUuid != null) {
+      stmt.setString(index, toProjectUuid);
+      index++;
+    }
     if (issueKeys != null) {
       for (String key : issueKeys) {
         stmt.setString(index, key);
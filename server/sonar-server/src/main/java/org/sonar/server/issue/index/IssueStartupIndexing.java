@@ -0,0 +1,171 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.index;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.index.IndexRequest;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.EsClient;
+
+import static org.sonar.server.issue.index.IssueIndexDefinition.INDEX_TYPE_ISSUE;
+
+/**
+ * Indexes all the issues of table ISSUES. The table is split in ranges of project uuids, which are
+ * read and indexed concurrently, each one through its own DB connection.
+ * <p>
+ * Progress is persisted in internal properties: when all the ranges up to a given project uuid are indexed,
+ * this uuid is saved as checkpoint. If the server stops before the end, next startup resumes indexing
+ * from this checkpoint, as long as the index has not been re-created in the meantime.
+ */
+class IssueStartupIndexing {
+
+  static final String CHECKPOINT_PROPERTY = "es.issues.startupIndexing.checkpoint";
+  private static final String CHECKPOINT_SEPARATOR = ":";
+  private static final int RANGES_PER_THREAD = 4;
+  private static final Logger LOGGER = Loggers.get(IssueStartupIndexing.class);
+
+  private final EsClient esClient;
+  @CheckForNull
+  private final DbClient dbClient;
+  private final IssueIteratorFactory issueIteratorFactory;
+  private final Function<IssueDoc, IndexRequest> indexRequestFactory;
+  private final int threads;
+
+  IssueStartupIndexing(EsClient esClient, @Nullable DbClient dbClient, IssueIteratorFactory issueIteratorFactory,
+    Function<IssueDoc, IndexRequest> indexRequestFactory, int threads) {
+    this.esClient = esClient;
+    this.dbClient = dbClient;
+    this.issueIteratorFactory = issueIteratorFactory;
+    this.indexRequestFactory = indexRequestFactory;
+    this.threads = threads;
+  }
+
+  void execute(BulkIndexer bulk) {
+    String indexUuid = esClient.nativeClient().admin().indices().prepareGetSettings(INDEX_TYPE_ISSUE.getIndex()).get()
+      .getSetting(INDEX_TYPE_ISSUE.getIndex(), IndexMetaData.SETTING_INDEX_UUID);
+    String checkpoint = loadCheckpoint(indexUuid).orElse(null);
+    if (checkpoint != null) {
+      LOGGER.info("Resume indexing of issues from project {}", checkpoint);
+    }
+    List<String> bounds = splitInRanges(checkpoint);
+
+    ExecutorService executor = Executors.newFixedThreadPool(threads,
+      new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("IssueIndexer-%d")
+        .build());
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < bounds.size() - 1; i++) {
+        String from = bounds.get(i);
+        String to = bounds.get(i + 1);
+        futures.add(executor.submit(() -> indexRange(bulk, from, to)));
+      }
+      // ranges are awaited in order, so that checkpoint is always the end of the ranges already indexed
+      for (int i = 0; i < futures.size(); i++) {
+        futures.get(i).get();
+        String nextFrom = bounds.get(i + 1);
+        if (nextFrom != null) {
+          bulk.flush();
+          saveCheckpoint(indexUuid, nextFrom);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while indexing issues", e);
+    } catch (ExecutionException e) {
+      throw Throwables.propagate(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    deleteCheckpoint();
+  }
+
+  /**
+   * @return the bounds of the ranges, the first one being {@code fromUuid} and the last one {@code null}
+   */
+  private List<String> splitInRanges(@Nullable String fromUuid) {
+    List<String> rootUuids = issueIteratorFactory.selectRootUuids(fromUuid);
+    int nbRanges = Math.max(1, Math.min(threads * RANGES_PER_THREAD, rootUuids.size()));
+    List<String> bounds = new ArrayList<>(nbRanges + 1);
+    bounds.add(fromUuid);
+    for (int i = 1; i < nbRanges; i++) {
+      bounds.add(rootUuids.get(i * rootUuids.size() / nbRanges));
+    }
+    bounds.add(null);
+    return bounds;
+  }
+
+  private void indexRange(BulkIndexer bulk, @Nullable String fromProjectUuid, @Nullable String toProjectUuid) {
+    try (IssueIterator issues = issueIteratorFactory.createForProjectUuidRange(fromProjectUuid, toProjectUuid)) {
+      while (issues.hasNext()) {
+        bulk.add(indexRequestFactory.apply(issues.next()));
+      }
+    }
+  }
+
+  private Optional<String> loadCheckpoint(String indexUuid) {
+    if (dbClient == null) {
+      return Optional.empty();
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      String prefix = indexUuid + CHECKPOINT_SEPARATOR;
+      return dbClient.internalPropertiesDao().selectByKey(dbSession, CHECKPOINT_PROPERTY)
+        .filter(value -> value.startsWith(prefix))
+        .map(value -> value.substring(prefix.length()));
+    }
+  }
+
+  private void saveCheckpoint(String indexUuid, String projectUuid) {
+    if (dbClient == null) {
+      return;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.internalPropertiesDao().save(dbSession, CHECKPOINT_PROPERTY, indexUuid + CHECKPOINT_SEPARATOR + projectUuid);
+      dbSession.commit();
+    }
+  }
+
+  private void deleteCheckpoint() {
+    if (dbClient == null) {
+      return;
+    }
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.internalPropertiesDao().delete(dbSession, CHECKPOINT_PROPERTY);
+      dbSession.commit();
+    }
+  }
+}
@@ -38,6 +38,7 @@ import org.sonar.db.issue.IssueDto;
 import org.sonar.db.protobuf.DbIssues;
 import org.sonar.server.es.Facets;
 import org.sonar.server.issue.ActionFinder;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.issue.TransitionService;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.issue.IssuesWsParameters;
@@ -58,12 +59,15 @@ public class SearchResponseLoader {
   private final DbClient dbClient;
   private final ActionFinder actionService;
   private final TransitionService transitionService;
+  private final ReferenceDataCache referenceDataCache;
 
-  public SearchResponseLoader(UserSession userSession, DbClient dbClient, ActionFinder actionService, TransitionService transitionService) {
+  public SearchResponseLoader(UserSession userSession, DbClient dbClient, ActionFinder actionService, TransitionService transitionService,
+    ReferenceDataCache referenceDataCache) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.actionService = actionService;
     this.transitionService = transitionService;
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
@@ -89,7 +93,7 @@ public class SearchResponseLoader {
 
   private void loadUsers(Collector collector, DbSession dbSession, SearchResponseData result) {
     if (collector.contains(USERS)) {
-      result.setUsers(dbClient.userDao().selectByLogins(dbSession, collector.<String>get(USERS)));
+      result.setUsers(referenceDataCache.getUsers(collector.get(USERS), logins -> dbClient.userDao().selectByLogins(dbSession, logins)));
     }
   }
 
@@ -112,20 +116,17 @@ public class SearchResponseLoader {
 
   private void loadRules(Collector collector, DbSession dbSession, SearchResponseData result) {
     if (collector.contains(RULES)) {
-      result.setRules(dbClient.ruleDao().selectDefinitionByKeys(dbSession, collector.get(RULES)));
+      result.setRules(referenceDataCache.getRules(collector.get(RULES), keys -> dbClient.ruleDao().selectDefinitionByKeys(dbSession, keys)));
     }
   }
 
   private void loadComponents(Collector collector, DbSession dbSession, SearchResponseData result) {
     // always load components and projects, because some issue fields still relate to component ids/keys.
     // They should be dropped but are kept for backward-compatibility (see SearchResponseFormat)
-    result.addComponents(dbClient.componentDao().selectByUuids(dbSession, collector.getComponentUuids()));
-    result.addComponents(dbClient.componentDao().selectSubProjectsByComponentUuids(dbSession, collector.getComponentUuids()));
-    for (ComponentDto component : result.getComponents()) {
-      collector.addProjectUuid(component.projectUuid());
-    }
-    List<ComponentDto> projects = dbClient.componentDao().selectByUuids(dbSession, collector.getProjectUuids());
-    result.addComponents(projects);
+    // Components, their sub-projects and their projects are loaded by a single query.
+    Set<String> uuids = new HashSet<>(collector.getComponentUuids());
+    uuids.addAll(collector.getProjectUuids());
+    result.addComponents(dbClient.componentDao().selectByUuidsWithSubProjectsAndProjects(dbSession, uuids));
   }
 
   private void loadOrganizations(DbSession dbSession, SearchResponseData result) {
@@ -133,9 +134,9 @@ public class SearchResponseLoader {
     if (components == null) {
       return;
     }
-    dbClient.organizationDao().selectByUuids(
-      dbSession,
-      components.stream().map(ComponentDto::getOrganizationUuid).collect(MoreCollectors.toSet()))
+    referenceDataCache.getOrganizations(
+      components.stream().map(ComponentDto::getOrganizationUuid).collect(MoreCollectors.toSet()),
+      uuids -> dbClient.organizationDao().selectByUuids(dbSession, new HashSet<>(uuids)))
       .forEach(result::addOrganization);
   }
 
@@ -32,6 +32,7 @@ import org.sonar.db.measure.ProjectMeasuresIndexerIterator;
 import org.sonar.db.measure.ProjectMeasuresIndexerIterator.ProjectMeasures;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.ProjectIndexer;
@@ -47,10 +48,12 @@ public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorization
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
 
-  public ProjectMeasuresIndexer(DbClient dbClient, EsClient esClient) {
+  public ProjectMeasuresIndexer(DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
   }
 
   @Override
@@ -111,7 +114,7 @@ public class ProjectMeasuresIndexer implements ProjectIndexer, NeedAuthorization
   }
 
   private BulkIndexer createBulkIndexer(Size bulkSize) {
-    return new BulkIndexer(esClient, INDEX_TYPE_PROJECT_MEASURES.getIndex(), bulkSize);
+    return new BulkIndexer(esClient, INDEX_TYPE_PROJECT_MEASURES.getIndex(), bulkSize, bulkIndexerMetrics);
   }
 
   private static IndexRequest newIndexRequest(ProjectMeasuresDoc doc) {
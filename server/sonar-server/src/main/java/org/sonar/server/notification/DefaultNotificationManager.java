@@ -26,8 +26,11 @@ import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -87,13 +90,35 @@ public class DefaultNotificationManager implements NotificationManager {
     }
     notificationQueueDao.delete(notificationDtos);
 
-    return convertToNotification(notificationDtos);
+    return convertToNotification(notificationDtos.get(0));
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  /**
+   * Give at most {@code batchSize} notifications of the queue, the oldest first. They are removed from the queue.
+   * Notifications that can't be read are ignored. The returned list is empty only if the queue is empty.
+   */
+  public List<Notification> getFromQueue(int batchSize) {
+    List<Notification> notifications = new ArrayList<>(batchSize);
+    while (notifications.isEmpty()) {
+      List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
+      if (notificationDtos.isEmpty()) {
+        return Collections.emptyList();
+      }
+      notificationQueueDao.delete(notificationDtos);
+      for (NotificationQueueDto dto : notificationDtos) {
+        Notification notification = convertToNotification(dto);
+        if (notification != null) {
+          notifications.add(notification);
+        }
+      }
+    }
+    return notifications;
+  }
+
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -21,7 +21,15 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import org.picocontainer.Startable;
@@ -29,10 +37,16 @@ import org.sonar.api.Properties;
 import org.sonar.api.Property;
 import org.sonar.api.config.Settings;
 import org.sonar.api.notifications.Notification;
+import org.sonar.api.notifications.NotificationChannel;
 import org.sonar.api.server.ServerSide;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 
+/**
+ * Delivers the notifications of the queue. Notifications are dequeued by batches, then grouped by
+ * recipient and channel. Groups are delivered concurrently by a pool of workers, while the notifications
+ * of a given recipient and channel are delivered in order.
+ */
 @Properties({
   @Property(
     key = NotificationDaemon.PROPERTY_DELAY,
@@ -43,34 +57,53 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_WORKERS,
+    defaultValue = "" + NotificationDaemon.DEFAULT_WORKERS,
+    name = "Number of threads delivering notifications",
     global = false)
 })
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String WORKER_THREAD_NAME_PREFIX = "sq-notification-worker-";
+  static final int DEFAULT_WORKERS = 4;
+  static final int BATCH_SIZE = 100;
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_WORKERS = "sonar.notifications.workers";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int workers;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
+  private final NotificationDeliveryMetrics metrics;
 
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private ExecutorService workerService;
+  private volatile boolean stopping = false;
 
-  public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
+  public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service, NotificationDeliveryMetrics metrics) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
     this.delayBeforeReportingStatusInSeconds = settings.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS);
+    this.workers = Math.max(1, settings.getInt(PROPERTY_WORKERS));
     this.manager = manager;
     this.service = service;
+    this.metrics = metrics;
   }
 
   @Override
   public void start() {
+    workerService = Executors.newFixedThreadPool(workers,
+      new ThreadFactoryBuilder()
+        .setNameFormat(WORKER_THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build());
     executorService = Executors.newSingleThreadScheduledExecutor(
       new ThreadFactoryBuilder()
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
@@ -83,7 +116,7 @@ public class NotificationDaemon implements Startable {
         LOG.error("Error in NotificationService", e);
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
-    LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    LOG.info("Notification service started (delay {} sec., {} workers)", delayInSeconds, workers);
   }
 
   @Override
@@ -92,6 +125,8 @@ public class NotificationDaemon implements Startable {
       stopping = true;
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      workerService.shutdown();
+      workerService.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -104,10 +139,10 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    List<Notification> notifsToSend = manager.getFromQueue(BATCH_SIZE);
+    while (!notifsToSend.isEmpty()) {
+      deliver(notifsToSend);
+      notifSentCount += notifsToSend.size();
       if (stopping) {
         break;
       }
@@ -118,18 +153,81 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(BATCH_SIZE);
+    }
+  }
+
+  private void deliver(List<Notification> notifications) {
+    Map<RecipientAndChannel, List<Notification>> notificationsByRecipient = new LinkedHashMap<>();
+    for (Notification notification : notifications) {
+      for (Map.Entry<String, NotificationChannel> recipient : service.findRecipients(notification).entries()) {
+        notificationsByRecipient
+          .computeIfAbsent(new RecipientAndChannel(recipient.getKey(), recipient.getValue()), k -> new ArrayList<>())
+          .add(notification);
+      }
+    }
+
+    List<Future<?>> futures = new ArrayList<>(notificationsByRecipient.size());
+    for (Map.Entry<RecipientAndChannel, List<Notification>> entry : notificationsByRecipient.entrySet()) {
+      RecipientAndChannel recipient = entry.getKey();
+      LOG.debug("For user {} via {}", recipient.username, recipient.channel);
+      futures.add(workerService.submit(() -> deliver(recipient, entry.getValue())));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch (ExecutionException e) {
+        LOG.error("Error in NotificationService", e.getCause());
+      }
+    }
+  }
+
+  private void deliver(RecipientAndChannel recipient, List<Notification> notifications) {
+    for (Notification notification : notifications) {
+      long start = System.nanoTime();
+      boolean success = NotificationService.deliver(notification, recipient.username, recipient.channel);
+      metrics.onDelivery(recipient.channel.getKey(), success, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
     }
   }
 
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
-    LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
-      notifSentCount, spentTimeInMinutes, remainingNotifCount);
+    LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent ({})",
+      notifSentCount, spentTimeInMinutes, remainingNotifCount, metrics);
   }
 
   @VisibleForTesting
   long now() {
     return System.currentTimeMillis();
   }
+
+  private static final class RecipientAndChannel {
+    private final String username;
+    private final NotificationChannel channel;
+
+    private RecipientAndChannel(String username, NotificationChannel channel) {
+      this.username = username;
+      this.channel = channel;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      RecipientAndChannel that = (RecipientAndChannel) o;
+      return username.equals(that.username) && channel.equals(that.channel);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(username, channel);
+    }
+  }
 }
@@ -0,0 +1,103 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.sonar.api.server.ServerSide;
+
+/**
+ * Counters of the notifications delivered by {@link NotificationDaemon}, by channel.
+ */
+@ServerSide
+public class NotificationDeliveryMetrics {
+
+  private final ConcurrentMap<String, ChannelMetrics> metricsByChannel = new ConcurrentHashMap<>();
+
+  void onDelivery(String channelKey, boolean success, long durationMs) {
+    ChannelMetrics metrics = metricsByChannel.computeIfAbsent(channelKey, k -> new ChannelMetrics());
+    if (success) {
+      metrics.delivered.incrementAndGet();
+    } else {
+      metrics.failures.incrementAndGet();
+    }
+    metrics.durationMs.addAndGet(durationMs);
+  }
+
+  /**
+   * Metrics by key of channel
+   */
+  public SortedMap<String, ChannelMetrics> getByChannel() {
+    return new TreeMap<>(metricsByChannel);
+  }
+
+  public long getDelivered() {
+    return metricsByChannel.values().stream().mapToLong(ChannelMetrics::getDelivered).sum();
+  }
+
+  public long getFailures() {
+    return metricsByChannel.values().stream().mapToLong(ChannelMetrics::getFailures).sum();
+  }
+
+  public static class ChannelMetrics {
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong durationMs = new AtomicLong();
+
+    public long getDelivered() {
+      return delivered.get();
+    }
+
+    public long getFailures() {
+      return failures.get();
+    }
+
+    /**
+     * Number of notifications delivered per second spent in the channel. As deliveries can
+     * be concurrent, the overall throughput of the channel can be higher.
+     */
+    public double getDeliveriesPerSecond() {
+      long duration = durationMs.get();
+      long count = delivered.get() + failures.get();
+      return duration == 0 ? 0.0 : (count * 1000.0 / duration);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("delivered=%d, failures=%d, deliveries/s=%.1f", getDelivered(), getFailures(), getDeliveriesPerSecond());
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, ChannelMetrics> entry : getByChannel().entrySet()) {
+      if (sb.length() > 0) {
+        sb.append(" | ");
+      }
+      sb.append(entry.getKey()).append(": ").append(entry.getValue());
+    }
+    return sb.toString();
+  }
+}
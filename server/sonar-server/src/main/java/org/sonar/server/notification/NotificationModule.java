@@ -38,6 +38,7 @@ public class NotificationModule extends Module {
       NotificationUpdater.class,
       DefaultNotificationManager.class,
       NotificationDaemon.class,
+      NotificationDeliveryMetrics.class,
       AlertsEmailTemplate.class,
       EmailNotificationChannel.class,
       // WS
@@ -60,6 +60,13 @@ public class NotificationService {
   }
 
   public void deliver(Notification notification) {
+    dispatch(notification, findRecipients(notification));
+  }
+
+  /**
+   * Channels to be used for each recipient of the notification, as defined by dispatchers.
+   */
+  SetMultimap<String, NotificationChannel> findRecipients(Notification notification) {
     SetMultimap<String, NotificationChannel> recipients = HashMultimap.create();
     for (NotificationDispatcher dispatcher : dispatchers) {
       NotificationDispatcher.Context context = new ContextImpl(recipients);
@@ -70,7 +77,7 @@ public class NotificationService {
         LOG.warn(String.format("Unable to dispatch notification %s using %s", notification, dispatcher), e);
       }
     }
-    dispatch(notification, recipients);
+    return recipients;
   }
 
   private static void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
@@ -79,16 +86,25 @@ public class NotificationService {
       Collection<NotificationChannel> userChannels = entry.getValue();
       LOG.debug("For user {} via {}", username, userChannels);
       for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
+        deliver(notification, username, channel);
       }
     }
   }
 
+  /**
+   * @return false if the channel failed to deliver the notification
+   */
+  static boolean deliver(Notification notification, String username, NotificationChannel channel) {
+    try {
+      channel.deliver(notification, username);
+      return true;
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
+      return false;
+    }
+  }
+
   @VisibleForTesting
   List<NotificationDispatcher> getDispatchers() {
     return dispatchers;
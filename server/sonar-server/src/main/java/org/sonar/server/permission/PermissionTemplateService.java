@@ -47,6 +47,7 @@ import org.sonar.db.permission.template.PermissionTemplateUserDto;
 import org.sonar.server.permission.index.PermissionIndexer;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolver;
 import org.sonar.server.permission.ws.template.DefaultTemplatesResolverImpl;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -62,13 +63,15 @@ public class PermissionTemplateService {
   private final PermissionIndexer permissionIndexer;
   private final UserSession userSession;
   private final DefaultTemplatesResolver defaultTemplatesResolver;
+  private final AuthorizationCache authorizationCache;
 
   public PermissionTemplateService(DbClient dbClient, PermissionIndexer permissionIndexer, UserSession userSession,
-    DefaultTemplatesResolver defaultTemplatesResolver) {
+    DefaultTemplatesResolver defaultTemplatesResolver, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.permissionIndexer = permissionIndexer;
     this.userSession = userSession;
     this.defaultTemplatesResolver = defaultTemplatesResolver;
+    this.authorizationCache = authorizationCache;
   }
 
   public boolean wouldUserHaveScanPermissionWithDefaultTemplate(DbSession dbSession,
@@ -131,6 +134,7 @@ public class PermissionTemplateService {
   }
 
   private void indexProjectPermissions(DbSession dbSession, List<String> projectOrViewUuids) {
+    authorizationCache.invalidate();
     permissionIndexer.indexProjectsByUuids(dbSession, projectOrViewUuids);
   }
 
@@ -28,6 +28,7 @@ import java.util.Set;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.user.AuthorizationCache;
 
 /**
  * Add or remove global/project permissions to a group. This class
@@ -40,13 +41,15 @@ public class PermissionUpdater {
   private final PermissionIndexer permissionIndexer;
   private final UserPermissionChanger userPermissionChanger;
   private final GroupPermissionChanger groupPermissionChanger;
+  private final AuthorizationCache authorizationCache;
 
   public PermissionUpdater(DbClient dbClient, PermissionIndexer permissionIndexer,
-                           UserPermissionChanger userPermissionChanger, GroupPermissionChanger groupPermissionChanger) {
+                           UserPermissionChanger userPermissionChanger, GroupPermissionChanger groupPermissionChanger, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.permissionIndexer = permissionIndexer;
     this.userPermissionChanger = userPermissionChanger;
     this.groupPermissionChanger = groupPermissionChanger;
+    this.authorizationCache = authorizationCache;
   }
 
   public void apply(DbSession dbSession, Collection<PermissionChange> changes) {
@@ -64,6 +67,7 @@ public class PermissionUpdater {
       dbClient.resourceDao().updateAuthorizationDate(projectId, dbSession);
     }
     dbSession.commit();
+    authorizationCache.invalidate();
 
     if (!projectIds.isEmpty()) {
       permissionIndexer.indexProjectsByUuids(dbSession, projectOrViewUuids);
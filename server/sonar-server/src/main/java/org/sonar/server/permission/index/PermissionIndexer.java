@@ -34,6 +34,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.ProjectIndexer;
@@ -57,18 +58,20 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
   private final Collection<AuthorizationScope> authorizationScopes;
 
-  public PermissionIndexer(DbClient dbClient, EsClient esClient, NeedAuthorizationIndexer... needAuthorizationIndexers) {
-    this(dbClient, esClient, Arrays.stream(needAuthorizationIndexers)
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics, NeedAuthorizationIndexer... needAuthorizationIndexers) {
+    this(dbClient, esClient, bulkIndexerMetrics, Arrays.stream(needAuthorizationIndexers)
       .map(NeedAuthorizationIndexer::getAuthorizationScope)
       .collect(MoreCollectors.toList(needAuthorizationIndexers.length)));
   }
 
   @VisibleForTesting
-  public PermissionIndexer(DbClient dbClient, EsClient esClient, Collection<AuthorizationScope> authorizationScopes) {
+  public PermissionIndexer(DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics, Collection<AuthorizationScope> authorizationScopes) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
     this.authorizationScopes = authorizationScopes;
   }
 
@@ -148,7 +151,7 @@ public class PermissionIndexer implements ProjectIndexer, StartupIndexer {
   private void index(Collection<PermissionIndexerDao.Dto> authorizations, AuthorizationScope scope, Size bulkSize) {
     IndexType indexType = scope.getIndexType();
 
-    BulkIndexer bulkIndexer = new BulkIndexer(esClient, indexType.getIndex(), bulkSize);
+    BulkIndexer bulkIndexer = new BulkIndexer(esClient, indexType.getIndex(), bulkSize, bulkIndexerMetrics);
     bulkIndexer.start();
 
     authorizations.stream()
@@ -35,6 +35,7 @@ import org.sonar.db.dialect.Oracle;
 import org.sonar.db.version.SqTables;
 import org.sonar.server.component.index.ComponentIndexDefinition;
 import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.measure.index.ProjectMeasuresIndexDefinition;
@@ -48,7 +49,7 @@ public class BackendCleanup {
 
   private static final String[] ANALYSIS_TABLES = {
     "authors",
-    "ce_activity", "ce_queue", "ce_task_input", "ce_scanner_context",
+    "ce_activity", "ce_queue", "ce_task_input", "ce_scanner_context", "ce_task_profile",
     "duplications_index", "events", "issues", "issue_changes", "manual_measures",
     "notifications", "project_links", "project_measures", "projects",
     "snapshots", "file_sources", "webhook_deliveries"
@@ -64,10 +65,12 @@ public class BackendCleanup {
     "schema_migrations", BackendCleanup::truncateSchemaMigrations);
 
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
   private final DbClient dbClient;
 
-  public BackendCleanup(EsClient esClient, DbClient dbClient) {
+  public BackendCleanup(EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics, DbClient dbClient) {
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
     this.dbClient = dbClient;
   }
 
@@ -167,7 +170,7 @@ public class BackendCleanup {
    * Completely remove a index with all types
    */
   public void clearIndex(String indexName) {
-    BulkIndexer.delete(esClient, indexName, esClient.prepareSearch(indexName).setQuery(matchAllQuery()));
+    BulkIndexer.delete(esClient, bulkIndexerMetrics, indexName, esClient.prepareSearch(indexName).setQuery(matchAllQuery()));
   }
 
   @FunctionalInterface
@@ -0,0 +1,83 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.es.BulkIndexerMetrics;
+
+/**
+ * Activity of the bulk indexing requests sent to Elasticsearch by the current process
+ */
+public class EsBulkMonitor extends BaseMonitorMBean implements EsBulkMonitorMBean {
+
+  private final BulkIndexerMetrics metrics;
+
+  public EsBulkMonitor(BulkIndexerMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String name() {
+    return "ElasticsearchBulk";
+  }
+
+  @Override
+  public long getIndexedDocuments() {
+    return metrics.getDocuments();
+  }
+
+  @Override
+  public long getIndexedBytes() {
+    return metrics.getBytes();
+  }
+
+  @Override
+  public double getIndexedDocumentsPerSecond() {
+    return metrics.getDocumentsPerSecond();
+  }
+
+  @Override
+  public long getRetriedDocuments() {
+    return metrics.getRetries();
+  }
+
+  @Override
+  public long getFailedDocuments() {
+    return metrics.getFailures();
+  }
+
+  @Override
+  public long getPendingBulkRequests() {
+    return metrics.getPendingRequests();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Indexed Documents", getIndexedDocuments());
+    attributes.put("Indexed Bytes", getIndexedBytes());
+    attributes.put("Indexed Documents per Second", getIndexedDocumentsPerSecond());
+    attributes.put("Retried Documents", getRetriedDocuments());
+    attributes.put("Failed Documents", getFailedDocuments());
+    attributes.put("Pending Bulk Requests", getPendingBulkRequests());
+    return attributes;
+  }
+}
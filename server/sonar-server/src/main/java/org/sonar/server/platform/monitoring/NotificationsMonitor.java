@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDeliveryMetrics;
+
+/**
+ * Activity of the notifications delivered by the web server, by channel
+ */
+public class NotificationsMonitor extends BaseMonitorMBean implements NotificationsMonitorMBean {
+
+  private final DefaultNotificationManager manager;
+  private final NotificationDeliveryMetrics metrics;
+
+  public NotificationsMonitor(DefaultNotificationManager manager, NotificationDeliveryMetrics metrics) {
+    this.manager = manager;
+    this.metrics = metrics;
+  }
+
+  @Override
+  public String name() {
+    return "Notifications";
+  }
+
+  @Override
+  public long getPendingNotifications() {
+    return manager.count();
+  }
+
+  @Override
+  public long getDeliveredNotifications() {
+    return metrics.getDelivered();
+  }
+
+  @Override
+  public long getFailedNotifications() {
+    return metrics.getFailures();
+  }
+
+  @Override
+  public Map<String, Object> attributes() {
+    Map<String, Object> attributes = new LinkedHashMap<>();
+    attributes.put("Pending Notifications", getPendingNotifications());
+    attributes.put("Delivered Notifications", getDeliveredNotifications());
+    attributes.put("Failed Notifications", getFailedNotifications());
+    metrics.getByChannel().forEach((channel, channelMetrics) -> {
+      Map<String, Object> channelAttributes = new LinkedHashMap<>();
+      channelAttributes.put("Delivered", channelMetrics.getDelivered());
+      channelAttributes.put("Failures", channelMetrics.getFailures());
+      channelAttributes.put("Deliveries per Second", channelMetrics.getDeliveriesPerSecond());
+      attributes.put(channel, channelAttributes);
+    });
+    return attributes;
+  }
+}
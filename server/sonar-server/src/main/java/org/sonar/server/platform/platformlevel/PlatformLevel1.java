@@ -33,6 +33,7 @@ import org.sonar.core.util.UuidFactoryImpl;
 import org.sonar.db.DaoModule;
 import org.sonar.db.DatabaseChecker;
 import org.sonar.db.DbClient;
+import org.sonar.db.DbRowCounters;
 import org.sonar.db.DefaultDatabase;
 import org.sonar.db.purge.PurgeProfiler;
 import org.sonar.db.semaphore.SemaphoresImpl;
@@ -89,6 +90,7 @@ public class PlatformLevel1 extends PlatformLevel {
       // must instantiate deprecated class in 5.2 and only this one (and not its replacement)
       // to avoid having two SqlSessionFactory instances
       org.sonar.core.persistence.MyBatis.class,
+      DbRowCounters.class,
       PurgeProfiler.class,
       ServerFileSystemImpl.class,
       SemaphoresImpl.class,
@@ -58,6 +58,7 @@ import org.sonar.server.favorite.FavoriteModule;
 import org.sonar.server.issue.AddTagsAction;
 import org.sonar.server.issue.AssignAction;
 import org.sonar.server.issue.CommentAction;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.issue.RemoveTagsAction;
 import org.sonar.server.issue.SetSeverityAction;
 import org.sonar.server.issue.SetTypeAction;
@@ -100,8 +101,10 @@ import org.sonar.server.platform.PersistentSettings;
 import org.sonar.server.platform.ServerLogging;
 import org.sonar.server.platform.SettingsChangeNotifier;
 import org.sonar.server.platform.monitoring.DatabaseMonitor;
+import org.sonar.server.platform.monitoring.EsBulkMonitor;
 import org.sonar.server.platform.monitoring.EsMonitor;
 import org.sonar.server.platform.monitoring.JvmPropsMonitor;
+import org.sonar.server.platform.monitoring.NotificationsMonitor;
 import org.sonar.server.platform.monitoring.PluginsMonitor;
 import org.sonar.server.platform.monitoring.SettingsMonitor;
 import org.sonar.server.platform.monitoring.SonarQubeMonitor;
@@ -175,6 +178,7 @@ import org.sonar.server.rule.ws.RuleWsSupport;
 import org.sonar.server.rule.ws.RulesWs;
 import org.sonar.server.rule.ws.TagsAction;
 import org.sonar.server.serverid.ws.ServerIdWsModule;
+import org.sonar.server.setting.SettingsSnapshotInvalidator;
 import org.sonar.server.setting.ws.SettingsWsModule;
 import org.sonar.server.source.HtmlSourceDecorator;
 import org.sonar.server.source.SourceService;
@@ -195,6 +199,7 @@ import org.sonar.server.ui.PageDecorations;
 import org.sonar.server.ui.PageRepository;
 import org.sonar.server.ui.ws.NavigationWsModule;
 import org.sonar.server.updatecenter.UpdateCenterModule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.DefaultUserFinder;
 import org.sonar.server.user.DeprecatedUserFinder;
 import org.sonar.server.user.NewUserNotifier;
@@ -240,6 +245,7 @@ public class PlatformLevel4 extends PlatformLevel {
       ResourceTypes.class,
       DefaultResourceTypes.get(),
       SettingsChangeNotifier.class,
+      SettingsSnapshotInvalidator.class,
       PageDecorations.class,
       Periods.class,
       ServerWs.class,
@@ -339,6 +345,7 @@ public class PlatformLevel4 extends PlatformLevel {
 
       // users
       UserSessionFactoryImpl.class,
+      AuthorizationCache.class,
       SecurityRealmFactory.class,
       DeprecatedUserFinder.class,
       NewUserNotifier.class,
@@ -390,6 +397,7 @@ public class PlatformLevel4 extends PlatformLevel {
       IssueIndexer.class,
       IssueIteratorFactory.class,
       PermissionIndexer.class,
+      ReferenceDataCache.class,
       IssueWsModule.class,
       NewIssuesEmailTemplate.class,
       MyNewIssuesEmailTemplate.class,
@@ -479,6 +487,8 @@ public class PlatformLevel4 extends PlatformLevel {
       SettingsMonitor.class,
       SonarQubeMonitor.class,
       EsMonitor.class,
+      EsBulkMonitor.class,
+      NotificationsMonitor.class,
       PluginsMonitor.class,
       JvmPropsMonitor.class,
       DatabaseMonitor.class,
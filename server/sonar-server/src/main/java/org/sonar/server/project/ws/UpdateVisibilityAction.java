@@ -36,6 +36,7 @@ import org.sonar.db.permission.UserPermissionDto;
 import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.permission.index.PermissionIndexer;
 import org.sonar.server.project.Visibility;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.project.ProjectsWsParameters;
 
@@ -55,14 +56,16 @@ public class UpdateVisibilityAction implements ProjectsWsAction {
   private final UserSession userSession;
   private final PermissionIndexer permissionIndexer;
   private final ProjectsWsSupport projectsWsSupport;
+  private final AuthorizationCache authorizationCache;
 
   public UpdateVisibilityAction(DbClient dbClient, ComponentFinder componentFinder, UserSession userSession,
-    PermissionIndexer permissionIndexer, ProjectsWsSupport projectsWsSupport) {
+    PermissionIndexer permissionIndexer, ProjectsWsSupport projectsWsSupport, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.componentFinder = componentFinder;
     this.userSession = userSession;
     this.permissionIndexer = permissionIndexer;
     this.projectsWsSupport = projectsWsSupport;
+    this.authorizationCache = authorizationCache;
   }
 
   public void define(WebService.NewController context) {
@@ -109,6 +112,7 @@ public class UpdateVisibilityAction implements ProjectsWsAction {
           updatePermissionsToPublic(dbSession, component);
         }
         dbSession.commit();
+        authorizationCache.invalidate();
         permissionIndexer.indexProjectsByUuids(dbSession, singletonList(component.uuid()));
       }
     }
@@ -33,6 +33,7 @@ import org.sonar.db.qualityprofile.ActiveRuleKey;
 import org.sonar.server.es.BaseIndexer;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.qualityprofile.ActiveRuleChange;
 
@@ -45,10 +46,12 @@ import static org.sonar.server.rule.index.RuleIndexDefinition.INDEX_TYPE_ACTIVE_
 public class ActiveRuleIndexer extends BaseIndexer {
 
   private final DbClient dbClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
 
-  public ActiveRuleIndexer(System2 system2, DbClient dbClient, EsClient esClient) {
+  public ActiveRuleIndexer(System2 system2, DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics) {
     super(system2, esClient, 300, INDEX_TYPE_ACTIVE_RULE, FIELD_ACTIVE_RULE_UPDATED_AT);
     this.dbClient = dbClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
   }
 
   @Override
@@ -114,7 +117,7 @@ public class ActiveRuleIndexer extends BaseIndexer {
   }
 
   private BulkIndexer createBulkIndexer() {
-    return new BulkIndexer(esClient, INDEX_TYPE_ACTIVE_RULE.getIndex(), Size.REGULAR);
+    return new BulkIndexer(esClient, INDEX_TYPE_ACTIVE_RULE.getIndex(), Size.REGULAR, bulkIndexerMetrics);
   }
 
   private static IndexRequest newIndexRequest(ActiveRuleDoc doc) {
@@ -46,6 +46,7 @@ import org.sonar.db.qualityprofile.ActiveRuleParamDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.rule.index.RuleIndexer;
 import org.sonar.server.user.UserSession;
 
@@ -61,11 +62,13 @@ public class RuleUpdater {
   private final DbClient dbClient;
   private final RuleIndexer ruleIndexer;
   private final System2 system;
+  private final ReferenceDataCache referenceDataCache;
 
-  public RuleUpdater(DbClient dbClient, RuleIndexer ruleIndexer, System2 system) {
+  public RuleUpdater(DbClient dbClient, RuleIndexer ruleIndexer, System2 system, ReferenceDataCache referenceDataCache) {
     this.dbClient = dbClient;
     this.ruleIndexer = ruleIndexer;
     this.system = system;
+    this.referenceDataCache = referenceDataCache;
   }
 
   /**
@@ -82,6 +85,7 @@ public class RuleUpdater {
     update(dbSession, rule);
     updateParameters(dbSession, organization, update, rule);
     dbSession.commit();
+    referenceDataCache.invalidateRules();
 
     RuleKey ruleKey = rule.getKey();
     ruleIndexer.indexRuleDefinition(ruleKey);
@@ -31,6 +31,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.StartupIndexer;
@@ -42,10 +43,12 @@ import static org.sonar.server.rule.index.RuleIndexDefinition.INDEX_TYPE_RULE_EX
 public class RuleIndexer implements StartupIndexer {
 
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
   private final DbClient dbClient;
 
-  public RuleIndexer(EsClient esClient, DbClient dbClient) {
+  public RuleIndexer(EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics, DbClient dbClient) {
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
     this.dbClient = dbClient;
   }
 
@@ -56,7 +59,7 @@ public class RuleIndexer implements StartupIndexer {
 
   @Override
   public void indexOnStartup(Set<IndexType> uninitializedIndexTypes) {
-    BulkIndexer bulk = new BulkIndexer(esClient, RuleIndexDefinition.INDEX, Size.LARGE);
+    BulkIndexer bulk = new BulkIndexer(esClient, RuleIndexDefinition.INDEX, Size.LARGE, bulkIndexerMetrics);
     bulk.start();
 
     // index all definitions and system extensions
@@ -81,7 +84,7 @@ public class RuleIndexer implements StartupIndexer {
   }
 
   public void indexRuleDefinitions(List<RuleKey> ruleKeys) {
-    BulkIndexer bulk = new BulkIndexer(esClient, RuleIndexDefinition.INDEX, Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, RuleIndexDefinition.INDEX, Size.REGULAR, bulkIndexerMetrics);
     bulk.start();
 
     try (RuleIterator rules = new RuleIteratorForMultipleChunks(dbClient, ruleKeys)) {
@@ -99,7 +102,7 @@ public class RuleIndexer implements StartupIndexer {
         .map(Arrays::asList)
         .map(List::iterator)
         .ifPresent(metadata -> {
-          BulkIndexer bulk = new BulkIndexer(esClient, RuleIndexDefinition.INDEX, Size.REGULAR);
+          BulkIndexer bulk = new BulkIndexer(esClient, RuleIndexDefinition.INDEX, Size.REGULAR, bulkIndexerMetrics);
           bulk.start();
           doIndexRuleExtensions(metadata, bulk);
           bulk.stop();
@@ -28,6 +28,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.qualityprofile.RuleActivator;
 import org.sonar.server.rule.index.RuleIndexer;
 
@@ -42,13 +43,16 @@ public class DeleteAction implements RulesWsAction {
   private final DbClient dbClient;
   private final RuleActivator ruleActivator;
   private final RuleWsSupport ruleWsSupport;
+  private final ReferenceDataCache referenceDataCache;
 
-  public DeleteAction(System2 system2, RuleIndexer ruleIndexer, DbClient dbClient, RuleActivator ruleActivator, RuleWsSupport ruleWsSupport) {
+  public DeleteAction(System2 system2, RuleIndexer ruleIndexer, DbClient dbClient, RuleActivator ruleActivator, RuleWsSupport ruleWsSupport,
+    ReferenceDataCache referenceDataCache) {
     this.system2 = system2;
     this.ruleIndexer = ruleIndexer;
     this.dbClient = dbClient;
     this.ruleActivator = ruleActivator;
     this.ruleWsSupport = ruleWsSupport;
+    this.referenceDataCache = referenceDataCache;
   }
 
   @Override
@@ -90,6 +94,7 @@ public class DeleteAction implements RulesWsAction {
       dbClient.ruleDao().update(dbSession, rule);
 
       dbSession.commit();
+      referenceDataCache.invalidateRules();
       ruleIndexer.indexRuleDefinition(ruleKey);
     }
   }
@@ -20,6 +20,7 @@
 package org.sonar.server.search;
 
 import org.sonar.core.platform.Module;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClientProvider;
 import org.sonar.server.es.EsClientStopper;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
@@ -30,5 +31,6 @@ public class EsSearchModule extends Module {
     add(AuthorizationTypeSupport.class);
     add(new EsClientProvider());
     add(EsClientStopper.class);
+    add(BulkIndexerMetrics.class);
   }
 }
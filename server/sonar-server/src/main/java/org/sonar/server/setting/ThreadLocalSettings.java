@@ -26,12 +26,17 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.config.Encryption;
 import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.config.Settings;
 import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.System2;
 
 import static com.google.common.base.Preconditions.checkState;
 
@@ -44,28 +49,44 @@ import static com.google.common.base.Preconditions.checkState;
  * </p>
  *
  * <p>
+ * Database properties are read from a snapshot shared by all the threads of the process. The snapshot
+ * is loaded with a single SQL request, then reloaded when it is invalidated (see {@link #invalidate()})
+ * or when it is older than {@link #SNAPSHOT_TTL_MS}. The expiration bounds the delay before a change
+ * done by another process, or not notified to this one, is visible.
+ * </p>
+ *
+ * <p>
  * The thread-local cache is optional. It is disabled when the method {@link #unload()} has not
  * been called. That allows to remove complexity with handling of cleanup of thread-local cache
- * on daemon threads (notifications) or startup "main" thread.
+ * on daemon threads (notifications) or startup "main" thread. When enabled, the thread keeps reading
+ * the snapshot that was current when {@link #load()} was called, so that settings do not change in the
+ * middle of a HTTP request or of a Compute Engine task.
  * </p>
  */
 @ComputeEngineSide
 @ServerSide
 public class ThreadLocalSettings extends Settings {
 
+  static final long SNAPSHOT_TTL_MS = 10_000L;
+
   private final Properties systemProps;
-  private static final ThreadLocal<Map<String, String>> CACHE = new ThreadLocal<>();
+  private static final ThreadLocal<ThreadCache> CACHE = new ThreadLocal<>();
+  private final System2 system;
+  private final AtomicLong version = new AtomicLong();
+  private final AtomicReference<Snapshot> snapshot = new AtomicReference<>();
+  private final Object snapshotLock = new Object();
   private SettingLoader settingLoader;
 
   public ThreadLocalSettings(PropertyDefinitions definitions, Properties props) {
-    this(definitions, props, new NopSettingLoader());
+    this(definitions, props, new NopSettingLoader(), System2.INSTANCE);
   }
 
   @VisibleForTesting
-  ThreadLocalSettings(PropertyDefinitions definitions, Properties props, SettingLoader settingLoader) {
+  ThreadLocalSettings(PropertyDefinitions definitions, Properties props, SettingLoader settingLoader, System2 system) {
     super(definitions, new Encryption(null));
     this.settingLoader = settingLoader;
     this.systemProps = props;
+    this.system = system;
 
     // TODO something wrong about lifecycle here. It could be improved
     getEncryption().setPathToSecretKey(props.getProperty(CoreProperties.ENCRYPTION_SECRET_KEY_PATH));
@@ -78,6 +99,7 @@ public class ThreadLocalSettings extends Settings {
 
   protected void setSettingLoader(SettingLoader settingLoader) {
     this.settingLoader = Objects.requireNonNull(settingLoader);
+    invalidate();
   }
 
   @Override
@@ -85,47 +107,73 @@ public class ThreadLocalSettings extends Settings {
     // search for the first value available in
     // 1. system properties
     // 2. thread local cache (if enabled)
-    // 3. db
+    // 3. snapshot of db
 
     String value = systemProps.getProperty(key);
     if (value != null) {
       return Optional.of(value);
     }
 
-    Map<String, String> dbProps = CACHE.get();
+    ThreadCache threadCache = CACHE.get();
     // caching is disabled
-    if (dbProps == null) {
-      return Optional.ofNullable(settingLoader.load(key));
+    if (threadCache == null) {
+      return Optional.ofNullable(getSnapshot().get(key));
     }
-
-    String loadedValue;
-    if (dbProps.containsKey(key)) {
-      // property may not exist in db. In this case key is present
-      // in cache but value is null
-      loadedValue = dbProps.get(key);
-    } else {
-      // cache the effective value (null if the property
-      // is not persisted)
-      loadedValue = settingLoader.load(key);
-      dbProps.put(key, loadedValue);
-    }
-    return Optional.ofNullable(loadedValue);
+    return Optional.ofNullable(threadCache.get(key));
   }
 
   @Override
   protected void set(String key, String value) {
-    Map<String, String> dbProps = CACHE.get();
-    if (dbProps != null) {
-      dbProps.put(key, value);
+    ThreadCache threadCache = CACHE.get();
+    if (threadCache != null) {
+      threadCache.changes.put(key, value);
     }
+    invalidate();
   }
 
   @Override
   protected void remove(String key) {
-    Map<String, String> dbProps = CACHE.get();
-    if (dbProps != null) {
-      dbProps.remove(key);
+    ThreadCache threadCache = CACHE.get();
+    if (threadCache != null) {
+      // property is known to be missing, it must not be read from the snapshot
+      threadCache.changes.put(key, null);
     }
+    invalidate();
+  }
+
+  /**
+   * Marks the shared snapshot of database properties as outdated. It is reloaded on next read. Threads
+   * that enabled the thread-local cache keep their own snapshot until {@link #unload()}.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+  }
+
+  private Map<String, String> getSnapshot() {
+    Snapshot current = snapshot.get();
+    if (isUpToDate(current)) {
+      return current.properties;
+    }
+    synchronized (snapshotLock) {
+      // another thread may have reloaded the snapshot in the meantime
+      current = snapshot.get();
+      if (isUpToDate(current)) {
+        return current.properties;
+      }
+      // version is read before loading, so that a change done during the load
+      // is not hidden by the new snapshot
+      long loadedVersion = version.get();
+      long loadedAt = system.now();
+      ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
+      settingLoader.loadAll(builder);
+      Snapshot loaded = new Snapshot(loadedVersion, loadedAt, builder.build());
+      snapshot.set(loaded);
+      return loaded.properties;
+    }
+  }
+
+  private boolean isUpToDate(@Nullable Snapshot s) {
+    return s != null && s.version == version.get() && system.now() - s.loadedAt < SNAPSHOT_TTL_MS;
   }
 
   /**
@@ -136,7 +184,7 @@ public class ThreadLocalSettings extends Settings {
   public void load() {
     checkState(CACHE.get() == null,
       "load called twice for thread '%s' or state wasn't cleared last time it was used", Thread.currentThread().getName());
-    CACHE.set(new HashMap<>());
+    CACHE.set(new ThreadCache(getSnapshot()));
   }
 
   /**
@@ -148,9 +196,51 @@ public class ThreadLocalSettings extends Settings {
 
   @Override
   public Map<String, String> getProperties() {
-    ImmutableMap.Builder<String, String> builder = ImmutableMap.builder();
-    settingLoader.loadAll(builder);
-    systemProps.entrySet().forEach(entry -> builder.put((String) entry.getKey(), (String) entry.getValue()));
-    return builder.build();
+    ThreadCache threadCache = CACHE.get();
+    Map<String, String> result = new HashMap<>();
+    if (threadCache == null) {
+      result.putAll(getSnapshot());
+    } else {
+      result.putAll(threadCache.snapshot);
+      threadCache.changes.forEach((key, value) -> {
+        if (value == null) {
+          result.remove(key);
+        } else {
+          result.put(key, value);
+        }
+      });
+    }
+    systemProps.entrySet().forEach(entry -> result.put((String) entry.getKey(), (String) entry.getValue()));
+    return ImmutableMap.copyOf(result);
+  }
+
+  private static final class Snapshot {
+    private final long version;
+    private final long loadedAt;
+    private final Map<String, String> properties;
+
+    private Snapshot(long version, long loadedAt, Map<String, String> properties) {
+      this.version = version;
+      this.loadedAt = loadedAt;
+      this.properties = properties;
+    }
+  }
+
+  private static final class ThreadCache {
+    private final Map<String, String> snapshot;
+    // changes done by the thread. Value is null if property has been removed.
+    private final Map<String, String> changes = new HashMap<>();
+
+    private ThreadCache(Map<String, String> snapshot) {
+      this.snapshot = snapshot;
+    }
+
+    @CheckForNull
+    private String get(String key) {
+      if (changes.containsKey(key)) {
+        return changes.get(key);
+      }
+      return snapshot.get(key);
+    }
   }
 }
@@ -19,24 +19,63 @@
  */
 package org.sonar.server.source;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 import java.util.function.Function;
+import javax.annotation.CheckForNull;
 import org.sonar.core.util.stream.MoreCollectors;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.ChunkedSourceData;
 import org.sonar.db.source.FileSourceDto;
 
 import static com.google.common.base.Preconditions.checkArgument;
 
 public class SourceService {
 
+  /**
+   * Maximum size of the cached chunks of lines, in serialized bytes
+   */
+  private static final long DEFAULT_CACHE_MAX_WEIGHT = 16L * 1024 * 1024;
+  private static final long HEADERS_CACHE_MAX_SIZE = 10_000L;
+
+  /**
+   * Marker of the sources which were not persisted by chunks
+   */
+  private static final ChunksHeader NOT_CHUNKED = new ChunksHeader(0, 0);
+
   private final DbClient dbClient;
   private final HtmlSourceDecorator htmlDecorator;
 
+  /**
+   * Cached data are keyed by file uuid and MD5 of FILE_SOURCES.BINARY_DATA, so they
+   * never need to be invalidated
+   */
+  private final Cache<String, ChunksHeader> headersCache;
+  private final Cache<String, List<DbFileSources.Line>> chunksCache;
+
   public SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator) {
+    this(dbClient, htmlDecorator, DEFAULT_CACHE_MAX_WEIGHT);
+  }
+
+  @VisibleForTesting
+  SourceService(DbClient dbClient, HtmlSourceDecorator htmlDecorator, long cacheMaxWeight) {
     this.dbClient = dbClient;
     this.htmlDecorator = htmlDecorator;
+    this.headersCache = CacheBuilder.newBuilder()
+      .maximumSize(HEADERS_CACHE_MAX_SIZE)
+      .build();
+    this.chunksCache = CacheBuilder.newBuilder()
+      .maximumWeight(cacheMaxWeight)
+      .weigher((String key, List<DbFileSources.Line> lines) -> lines.stream().mapToInt(DbFileSources.Line::getSerializedSize).sum())
+      .recordStats()
+      .build();
   }
 
   /**
@@ -60,20 +99,111 @@ public class SourceService {
     return getLines(dbSession, fileUuid, from, toInclusive, lineToHtml());
   }
 
+  @VisibleForTesting
+  long getCacheHitCount() {
+    return chunksCache.stats().hitCount();
+  }
+
   private <E> Optional<Iterable<E>> getLines(DbSession dbSession, String fileUuid, int from, int toInclusive, Function<DbFileSources.Line, E> function) {
     verifyLine(from);
     checkArgument(toInclusive >= from, String.format("Line number must greater than or equal to %d, got %d", from, toInclusive));
-    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
-    if (dto == null) {
+    List<DbFileSources.Line> lines = loadLines(dbSession, fileUuid, from, toInclusive);
+    if (lines == null) {
       return Optional.empty();
     }
-    return Optional.of(dto.getSourceData().getLinesList().stream()
+    return Optional.of(lines.stream()
       .filter(line -> line.hasLine() && line.getLine() >= from)
       .limit((toInclusive - from) + 1L)
       .map(function)
       .collect(MoreCollectors.toList()));
   }
 
+  /**
+   * Loads the lines of the chunks covering the given range. Only the missing chunks are decoded,
+   * and BINARY_DATA is not even loaded if all of them are cached. BINARY_DATA is loaded at most once.
+   */
+  @CheckForNull
+  private List<DbFileSources.Line> loadLines(DbSession dbSession, String fileUuid, int from, int toInclusive) {
+    String dataHash = dbClient.fileSourceDao().selectSourceDataHash(dbSession, fileUuid);
+    if (dataHash == null) {
+      return loadAllLines(dbSession, fileUuid);
+    }
+
+    String sourceKey = fileUuid + ':' + dataHash;
+    ChunkedSourceData source = null;
+    ChunksHeader header = headersCache.getIfPresent(sourceKey);
+    if (header == NOT_CHUNKED) {
+      return loadAllLines(dbSession, fileUuid);
+    }
+    if (header == null) {
+      FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+      if (dto == null) {
+        return null;
+      }
+      if (!dataHash.equals(dto.getDataHash())) {
+        // sources have just been updated by an analysis
+        return dto.getSourceData().getLinesList();
+      }
+      if (!ChunkedSourceData.isChunked(dto.getBinaryData())) {
+        // sources not persisted since the introduction of chunks
+        headersCache.put(sourceKey, NOT_CHUNKED);
+        return dto.getSourceData().getLinesList();
+      }
+      source = parseChunkedSource(dto);
+      header = new ChunksHeader(source);
+      headersCache.put(sourceKey, header);
+    }
+
+    int lastChunk = Math.min(header.chunkIndexOf(toInclusive), header.chunkCount - 1);
+    List<DbFileSources.Line> lines = new ArrayList<>();
+    for (int chunk = header.chunkIndexOf(from); chunk <= lastChunk; chunk++) {
+      String chunkKey = sourceKey + ':' + chunk;
+      List<DbFileSources.Line> chunkLines = chunksCache.getIfPresent(chunkKey);
+      if (chunkLines == null) {
+        if (source == null) {
+          FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+          if (dto == null) {
+            return null;
+          }
+          if (!dataHash.equals(dto.getDataHash())) {
+            // sources have just been updated by an analysis
+            return dto.getSourceData().getLinesList();
+          }
+          source = parseChunkedSource(dto);
+        }
+        chunkLines = decodeChunk(source, chunk, fileUuid);
+        chunksCache.put(chunkKey, chunkLines);
+      }
+      lines.addAll(chunkLines);
+    }
+    return lines;
+  }
+
+  private static ChunkedSourceData parseChunkedSource(FileSourceDto dto) {
+    try {
+      return ChunkedSourceData.parse(dto.getBinaryData());
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read source data of file %s", dto.getFileUuid()), e);
+    }
+  }
+
+  private static List<DbFileSources.Line> decodeChunk(ChunkedSourceData source, int chunk, String fileUuid) {
+    try {
+      return source.decodeChunk(chunk);
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to decompress and deserialize source data of file %s", fileUuid), e);
+    }
+  }
+
+  @CheckForNull
+  private List<DbFileSources.Line> loadAllLines(DbSession dbSession, String fileUuid) {
+    FileSourceDto dto = dbClient.fileSourceDao().selectSourceByFileUuid(dbSession, fileUuid);
+    if (dto == null) {
+      return null;
+    }
+    return dto.getSourceData().getLinesList();
+  }
+
   private static void verifyLine(int line) {
     checkArgument(line >= 1, String.format("Line number must start at 1, got %d", line));
   }
@@ -82,4 +212,22 @@ public class SourceService {
     return line -> htmlDecorator.getDecoratedSourceAsHtml(line.getSource(), line.getHighlighting(), line.getSymbols());
   }
 
+  private static final class ChunksHeader {
+    private final int linesPerChunk;
+    private final int chunkCount;
+
+    private ChunksHeader(ChunkedSourceData source) {
+      this(source.getLinesPerChunk(), source.getChunkCount());
+    }
+
+    private ChunksHeader(int linesPerChunk, int chunkCount) {
+      this.linesPerChunk = linesPerChunk;
+      this.chunkCount = chunkCount;
+    }
+
+    private int chunkIndexOf(int line) {
+      return ChunkedSourceData.chunkIndexOf(line, linesPerChunk);
+    }
+  }
+
 }
@@ -29,6 +29,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.ProjectIndexer;
@@ -46,10 +47,12 @@ public class TestIndexer implements ProjectIndexer, StartupIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
 
-  public TestIndexer(DbClient dbClient, EsClient esClient) {
+  public TestIndexer(DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
   }
 
   @Override
@@ -82,12 +85,12 @@ public class TestIndexer implements ProjectIndexer, StartupIndexer {
   }
 
   public long index(Iterator<FileSourcesUpdaterHelper.Row> dbRows) {
-    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_TEST.getIndex(), Size.REGULAR);
+    BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_TEST.getIndex(), Size.REGULAR, bulkIndexerMetrics);
     return doIndex(bulk, dbRows);
   }
 
   private long doIndex(@Nullable String projectUuid, Size bulkSize) {
-    final BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_TEST.getIndex(), bulkSize);
+    final BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_TEST.getIndex(), bulkSize, bulkIndexerMetrics);
 
     try (DbSession dbSession = dbClient.openSession(false)) {
       TestResultSetIterator rowIt = TestResultSetIterator.create(dbClient, dbSession, projectUuid);
@@ -112,7 +115,7 @@ public class TestIndexer implements ProjectIndexer, StartupIndexer {
   public void deleteByFile(String fileUuid) {
     SearchRequestBuilder searchRequest = esClient.prepareSearch(INDEX_TYPE_TEST)
       .setQuery(QueryBuilders.termsQuery(FIELD_FILE_UUID, fileUuid));
-    BulkIndexer.delete(esClient, INDEX_TYPE_TEST.getIndex(), searchRequest);
+    BulkIndexer.delete(esClient, bulkIndexerMetrics, INDEX_TYPE_TEST.getIndex(), searchRequest);
   }
 
   @Override
@@ -120,6 +123,6 @@ public class TestIndexer implements ProjectIndexer, StartupIndexer {
     SearchRequestBuilder searchRequest = esClient.prepareSearch(INDEX_TYPE_TEST)
       .setTypes(INDEX_TYPE_TEST.getType())
       .setQuery(QueryBuilders.termQuery(TestIndexDefinition.FIELD_PROJECT_UUID, projectUuid));
-    BulkIndexer.delete(esClient, INDEX_TYPE_TEST.getIndex(), searchRequest);
+    BulkIndexer.delete(esClient, bulkIndexerMetrics, INDEX_TYPE_TEST.getIndex(), searchRequest);
   }
 }
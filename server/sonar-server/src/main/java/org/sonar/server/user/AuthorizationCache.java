@@ -0,0 +1,193 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.user;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.permission.OrganizationPermission;
+import org.sonar.db.user.GroupDto;
+import org.sonar.server.platform.cluster.Cluster;
+
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+
+/**
+ * Effective permissions of users on organizations and projects, shared by the {@link ServerUserSession}s
+ * of all the HTTP requests.
+ * <p>
+ * Entries are identified by the user and the groups of the user. Components changing permissions, group
+ * memberships, groups or organizations must call {@link #invalidate()} once their changes are committed.
+ * Entries also expire after {@link #EXPIRATION_SECONDS}, which bounds the delay before changes that are
+ * not notified (for example done by another process) are taken into account.
+ * </p>
+ * <p>
+ * Invalidation is local to the web server. As the other web servers of a cluster would keep revoked
+ * permissions up to {@link #EXPIRATION_SECONDS}, permissions are not cached when cluster is enabled.
+ * </p>
+ */
+@ServerSide
+public class AuthorizationCache {
+
+  static final long EXPIRATION_SECONDS = 30L;
+  private static final long MAX_ENTRIES = 100_000L;
+
+  private final AtomicLong version = new AtomicLong();
+  private final Cache<Key, Set<String>> projectPermissions;
+  private final Cache<Key, Set<OrganizationPermission>> organizationPermissions;
+  private final Cache<String, String> projectUuidByComponentUuid;
+
+  public AuthorizationCache(Cluster cluster) {
+    // a cache with a maximum size of zero does not retain any entry
+    long maxPermissionEntries = cluster.isEnabled() ? 0L : MAX_ENTRIES;
+    this.projectPermissions = CacheBuilder.newBuilder()
+      .maximumSize(maxPermissionEntries)
+      .expireAfterWrite(EXPIRATION_SECONDS, TimeUnit.SECONDS)
+      .build();
+    this.organizationPermissions = CacheBuilder.newBuilder()
+      .maximumSize(maxPermissionEntries)
+      .expireAfterWrite(EXPIRATION_SECONDS, TimeUnit.SECONDS)
+      .build();
+    // the project of a component never changes
+    this.projectUuidByComponentUuid = CacheBuilder.newBuilder()
+      .maximumSize(MAX_ENTRIES)
+      .build();
+  }
+
+  /**
+   * Identifies the permissions of a user, or of anonymous if {@code userId} is {@code null}, as of the
+   * current version of the cache.
+   */
+  Subject subject(@Nullable Integer userId, Collection<GroupDto> groups) {
+    return new Subject(version.get(), userId, groups.stream().map(GroupDto::getId).sorted().collect(toList()));
+  }
+
+  @CheckForNull
+  Set<String> getProjectPermissions(Subject subject, String projectUuid) {
+    return projectPermissions.getIfPresent(new Key(subject, projectUuid));
+  }
+
+  Set<String> getProjectPermissions(Subject subject, String projectUuid, Function<String, Set<String>> loader) {
+    return get(projectPermissions, new Key(subject, projectUuid), loader);
+  }
+
+  void putProjectPermissions(Subject subject, String projectUuid, Set<String> permissions) {
+    projectPermissions.put(new Key(subject, projectUuid), permissions);
+  }
+
+  Set<OrganizationPermission> getOrganizationPermissions(Subject subject, String organizationUuid, Function<String, Set<OrganizationPermission>> loader) {
+    return get(organizationPermissions, new Key(subject, organizationUuid), loader);
+  }
+
+  @CheckForNull
+  String getProjectUuid(String componentUuid) {
+    return projectUuidByComponentUuid.getIfPresent(componentUuid);
+  }
+
+  void putProjectUuid(String componentUuid, String projectUuid) {
+    projectUuidByComponentUuid.put(componentUuid, projectUuid);
+  }
+
+  /**
+   * Permissions loaded before this call are not used anymore. Must be called when permissions of
+   * users or groups, group memberships, or visibility of projects, are changed.
+   */
+  public void invalidate() {
+    version.incrementAndGet();
+    projectPermissions.invalidateAll();
+    organizationPermissions.invalidateAll();
+  }
+
+  private static <T> Set<T> get(Cache<Key, Set<T>> cache, Key key, Function<String, Set<T>> loader) {
+    try {
+      return cache.get(key, () -> loader.apply(key.uuid));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Fail to load permissions on " + key.uuid, e.getCause());
+    }
+  }
+
+  /**
+   * A user and the groups of the user, at a given version of the cache
+   */
+  static final class Subject {
+    private final long version;
+    @CheckForNull
+    private final Integer userId;
+    private final Collection<Integer> groupIds;
+
+    private Subject(long version, @Nullable Integer userId, Collection<Integer> groupIds) {
+      this.version = version;
+      this.userId = userId;
+      this.groupIds = groupIds;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Subject that = (Subject) o;
+      return version == that.version && Objects.equals(userId, that.userId) && groupIds.equals(that.groupIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(version, userId, groupIds);
+    }
+  }
+
+  private static final class Key {
+    private final Subject subject;
+    private final String uuid;
+
+    private Key(Subject subject, String uuid) {
+      this.subject = subject;
+      this.uuid = uuid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      Key that = (Key) o;
+      return subject.equals(that.subject) && uuid.equals(that.uuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(subject, uuid);
+    }
+  }
+}
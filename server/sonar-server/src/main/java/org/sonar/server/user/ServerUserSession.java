@@ -21,7 +21,10 @@ package org.sonar.server.user;
 
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -42,8 +45,6 @@ import org.sonar.db.user.UserDto;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationFlags;
 
-import static com.google.common.collect.Maps.newHashMap;
-
 /**
  * Implementation of {@link UserSession} used in web server
  */
@@ -53,20 +54,24 @@ public class ServerUserSession extends AbstractUserSession {
   private final DbClient dbClient;
   private final OrganizationFlags organizationFlags;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final AuthorizationCache authorizationCache;
   private final Supplier<Collection<GroupDto>> groups = Suppliers.memoize(this::loadGroups);
   private final Supplier<Boolean> isSystemAdministratorSupplier = Suppliers.memoize(this::loadIsSystemAdministrator);
-  private final Map<String, String> projectUuidByComponentUuid = newHashMap();
-  private Map<String, Set<OrganizationPermission>> permissionsByOrganizationUuid;
-  private Map<String, Set<String>> permissionsByProjectUuid;
+  private final Supplier<AuthorizationCache.Subject> subject = Suppliers.memoize(this::loadSubject);
 
   ServerUserSession(DbClient dbClient, OrganizationFlags organizationFlags,
-    DefaultOrganizationProvider defaultOrganizationProvider, @Nullable UserDto userDto) {
+    DefaultOrganizationProvider defaultOrganizationProvider, AuthorizationCache authorizationCache, @Nullable UserDto userDto) {
     this.dbClient = dbClient;
     this.organizationFlags = organizationFlags;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.authorizationCache = authorizationCache;
     this.userDto = userDto;
   }
 
+  private AuthorizationCache.Subject loadSubject() {
+    return authorizationCache.subject(getUserId(), getGroups());
+  }
+
   private Collection<GroupDto> loadGroups() {
     if (this.userDto == null) {
       return Collections.emptyList();
@@ -111,10 +116,7 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   protected boolean hasPermissionImpl(OrganizationPermission permission, String organizationUuid) {
-    if (permissionsByOrganizationUuid == null) {
-      permissionsByOrganizationUuid = new HashMap<>();
-    }
-    Set<OrganizationPermission> permissions = permissionsByOrganizationUuid.computeIfAbsent(organizationUuid, this::loadOrganizationPermissions);
+    Set<OrganizationPermission> permissions = authorizationCache.getOrganizationPermissions(subject.get(), organizationUuid, this::loadOrganizationPermissions);
     return permissions.contains(permission);
   }
 
@@ -134,7 +136,7 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   protected Optional<String> componentUuidToProjectUuid(String componentUuid) {
-    String projectUuid = projectUuidByComponentUuid.get(componentUuid);
+    String projectUuid = authorizationCache.getProjectUuid(componentUuid);
     if (projectUuid != null) {
       return Optional.of(projectUuid);
     }
@@ -144,17 +146,14 @@ public class ServerUserSession extends AbstractUserSession {
         return Optional.empty();
       }
       projectUuid = component.get().projectUuid();
-      projectUuidByComponentUuid.put(componentUuid, projectUuid);
+      authorizationCache.putProjectUuid(componentUuid, projectUuid);
       return Optional.of(projectUuid);
     }
   }
 
   @Override
   protected boolean hasProjectUuidPermission(String permission, String projectUuid) {
-    if (permissionsByProjectUuid == null) {
-      permissionsByProjectUuid = new HashMap<>();
-    }
-    Set<String> permissions = permissionsByProjectUuid.computeIfAbsent(projectUuid, this::loadProjectPermissions);
+    Set<String> permissions = authorizationCache.getProjectPermissions(subject.get(), projectUuid, this::loadProjectPermissions);
     return permissions.contains(permission);
   }
 
@@ -164,16 +163,20 @@ public class ServerUserSession extends AbstractUserSession {
       if (!component.isPresent()) {
         return Collections.emptySet();
       }
-      if (component.get().isPrivate()) {
-        return loadDbPermissions(dbSession, projectUuid);
-      }
-      ImmutableSet.Builder<String> builder = ImmutableSet.builder();
-      builder.addAll(ProjectPermissions.PUBLIC_PERMISSIONS);
-      builder.addAll(loadDbPermissions(dbSession, projectUuid));
-      return builder.build();
+      return toProjectPermissions(component.get(), loadDbPermissions(dbSession, projectUuid));
     }
   }
 
+  private static Set<String> toProjectPermissions(ComponentDto project, Set<String> dbPermissions) {
+    if (project.isPrivate()) {
+      return ImmutableSet.copyOf(dbPermissions);
+    }
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    builder.addAll(ProjectPermissions.PUBLIC_PERMISSIONS);
+    builder.addAll(dbPermissions);
+    return builder.build();
+  }
+
   private Set<String> loadDbPermissions(DbSession dbSession, String projectUuid) {
     if (userDto != null && userDto.getId() != null) {
       return dbClient.authorizationDao().selectProjectPermissions(dbSession, projectUuid, userDto.getId());
@@ -183,16 +186,49 @@ public class ServerUserSession extends AbstractUserSession {
 
   @Override
   protected List<ComponentDto> doKeepAuthorizedComponents(String permission, Collection<ComponentDto> components) {
+    Set<String> projectUuids = components.stream()
+      .map(ComponentDto::projectUuid)
+      .collect(MoreCollectors.toSet(components.size()));
+    Map<String, Set<String>> permissionsByProjectUuid = loadProjectPermissions(projectUuids);
+
+    return components.stream()
+      .filter(c -> permissionsByProjectUuid.get(c.projectUuid()).contains(permission))
+      .collect(MoreCollectors.toList(components.size()));
+  }
+
+  /**
+   * Permissions on the given projects. Those which are not cached yet are loaded at once, then cached.
+   */
+  private Map<String, Set<String>> loadProjectPermissions(Set<String> projectUuids) {
+    AuthorizationCache.Subject s = subject.get();
+    Map<String, Set<String>> result = new HashMap<>();
+    List<String> missingUuids = new ArrayList<>();
+    for (String projectUuid : projectUuids) {
+      Set<String> permissions = authorizationCache.getProjectPermissions(s, projectUuid);
+      if (permissions == null) {
+        missingUuids.add(projectUuid);
+      } else {
+        result.put(projectUuid, permissions);
+      }
+    }
+    if (missingUuids.isEmpty()) {
+      return result;
+    }
+
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Set<String> projectUuids = components.stream()
-        .map(ComponentDto::projectUuid)
-        .collect(MoreCollectors.toSet(components.size()));
-      Set<String> authorizedProjectUuids = dbClient.authorizationDao().keepAuthorizedProjectUuids(dbSession, projectUuids, getUserId(), permission);
-
-      return components.stream()
-        .filter(c -> authorizedProjectUuids.contains(c.projectUuid()))
-        .collect(MoreCollectors.toList(components.size()));
+      SetMultimap<String, String> dbPermissions = HashMultimap.create();
+      dbClient.authorizationDao().selectProjectPermissionsOfProjects(dbSession, missingUuids, getUserId())
+        .forEach(p -> dbPermissions.put(p.getProjectUuid(), p.getPermission()));
+      Map<String, ComponentDto> projectsByUuid = dbClient.componentDao().selectByUuids(dbSession, missingUuids).stream()
+        .collect(MoreCollectors.uniqueIndex(ComponentDto::uuid));
+      for (String projectUuid : missingUuids) {
+        ComponentDto project = projectsByUuid.get(projectUuid);
+        Set<String> permissions = project == null ? Collections.emptySet() : toProjectPermissions(project, dbPermissions.get(projectUuid));
+        authorizationCache.putProjectPermissions(s, projectUuid, permissions);
+        result.put(projectUuid, permissions);
+      }
     }
+    return result;
   }
 
   @Override
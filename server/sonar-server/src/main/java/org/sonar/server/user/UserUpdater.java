@@ -38,6 +38,7 @@ import org.sonar.db.organization.OrganizationMemberDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserGroupDto;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationCreation;
 import org.sonar.server.organization.OrganizationFlags;
@@ -76,9 +77,12 @@ public class UserUpdater {
   private final DefaultOrganizationProvider defaultOrganizationProvider;
   private final OrganizationCreation organizationCreation;
   private final DefaultGroupFinder defaultGroupFinder;
+  private final ReferenceDataCache referenceDataCache;
+  private final AuthorizationCache authorizationCache;
 
   public UserUpdater(NewUserNotifier newUserNotifier, DbClient dbClient, UserIndexer userIndexer, System2 system2, OrganizationFlags organizationFlags,
-    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, DefaultGroupFinder defaultGroupFinder) {
+    DefaultOrganizationProvider defaultOrganizationProvider, OrganizationCreation organizationCreation, DefaultGroupFinder defaultGroupFinder,
+    ReferenceDataCache referenceDataCache, AuthorizationCache authorizationCache) {
     this.newUserNotifier = newUserNotifier;
     this.dbClient = dbClient;
     this.userIndexer = userIndexer;
@@ -87,6 +91,8 @@ public class UserUpdater {
     this.defaultOrganizationProvider = defaultOrganizationProvider;
     this.organizationCreation = organizationCreation;
     this.defaultGroupFinder = defaultGroupFinder;
+    this.referenceDataCache = referenceDataCache;
+    this.authorizationCache = authorizationCache;
   }
 
   public UserDto create(DbSession dbSession, NewUser newUser) {
@@ -119,6 +125,7 @@ public class UserUpdater {
     updateUser(dbSession, existingUser);
     addUserToDefaultOrganizationAndDefaultGroup(dbSession, existingUser);
     dbSession.commit();
+    authorizationCache.invalidate();
   }
 
   public void update(DbSession dbSession, UpdateUser updateUser) {
@@ -350,6 +357,7 @@ public class UserUpdater {
     addUserToDefaultOrganizationAndDefaultGroup(dbSession, userDto);
     organizationCreation.createForUser(dbSession, userDto);
     dbSession.commit();
+    authorizationCache.invalidate();
     userIndexer.index(userDto.getLogin());
     return res;
   }
@@ -359,6 +367,7 @@ public class UserUpdater {
     userDto.setActive(true).setUpdatedAt(now);
     dbClient.userDao().update(dbSession, userDto);
     dbSession.commit();
+    referenceDataCache.invalidateUsers();
     userIndexer.index(userDto.getLogin());
   }
 
@@ -29,6 +29,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.server.es.BulkIndexer;
 import org.sonar.server.es.BulkIndexer.Size;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.StartupIndexer;
@@ -42,10 +43,12 @@ public class UserIndexer implements StartupIndexer {
 
   private final DbClient dbClient;
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
 
-  public UserIndexer(DbClient dbClient, EsClient esClient) {
+  public UserIndexer(DbClient dbClient, EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics) {
     this.dbClient = dbClient;
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
   }
 
   @Override
@@ -98,7 +101,7 @@ public class UserIndexer implements StartupIndexer {
   }
 
   private BulkIndexer newBulkIndexer(Size bulkSize) {
-    return new BulkIndexer(esClient, UserIndexDefinition.INDEX_TYPE_USER.getIndex(), bulkSize);
+    return new BulkIndexer(esClient, UserIndexDefinition.INDEX_TYPE_USER.getIndex(), bulkSize, bulkIndexerMetrics);
   }
 
   private static IndexRequest newIndexRequest(UserDoc user) {
@@ -36,7 +36,9 @@ import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.UserSession;
 import org.sonar.server.user.index.UserIndexer;
 
@@ -55,14 +57,18 @@ public class DeactivateAction implements UsersWsAction {
   private final UserSession userSession;
   private final UserJsonWriter userWriter;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final ReferenceDataCache referenceDataCache;
+  private final AuthorizationCache authorizationCache;
 
   public DeactivateAction(DbClient dbClient, UserIndexer userIndexer, UserSession userSession, UserJsonWriter userWriter,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
+    DefaultOrganizationProvider defaultOrganizationProvider, ReferenceDataCache referenceDataCache, AuthorizationCache authorizationCache) {
     this.dbClient = dbClient;
     this.userIndexer = userIndexer;
     this.userSession = userSession;
     this.userWriter = userWriter;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.referenceDataCache = referenceDataCache;
+    this.authorizationCache = authorizationCache;
   }
 
   @Override
@@ -104,6 +110,8 @@ public class DeactivateAction implements UsersWsAction {
       dbClient.userDao().deactivateUserById(dbSession, userId);
       dbSession.commit();
     }
+    referenceDataCache.invalidateUsers();
+    authorizationCache.invalidate();
 
     userIndexer.index(login);
     writeResponse(response, login);
@@ -0,0 +1,148 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.annotation.CheckForNull;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stores objects on disk with a compact binary {@link ObjectCodec}, as records prefixed by their length.
+ * Objects are traversed in the order they were appended.
+ * <p>
+ * Not thread safe. Objects must be traversed only after the appenders which wrote them are closed.
+ * </p>
+ */
+public class BinaryDiskCache<O> {
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final File file;
+  private final System2 system2;
+  private final ObjectCodec<O> codec;
+
+  public BinaryDiskCache(File file, System2 system2, ObjectCodec<O> codec) {
+    this.file = requireNonNull(file);
+    this.system2 = system2;
+    this.codec = requireNonNull(codec);
+    try {
+      // truncate any existing content
+      system2.close(new FileOutputStream(file));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write into file: " + file, e);
+    }
+  }
+
+  public DiskAppender newAppender() {
+    return new DiskAppender();
+  }
+
+  public CloseableIterator<O> traverse() {
+    try {
+      return new RecordIterator(new DataInputStream(new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to traverse file: " + file, e);
+    }
+  }
+
+  private O decode(byte[] record) {
+    try {
+      return codec.read(new DataInputStream(new ByteArrayInputStream(record)));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to decode object from file: " + file, e);
+    }
+  }
+
+  public class DiskAppender implements AutoCloseable {
+    private final DataOutputStream output;
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream record = new DataOutputStream(recordBytes);
+
+    private DiskAppender() {
+      try {
+        this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true), BUFFER_SIZE));
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to open file " + file, e);
+      }
+    }
+
+    public DiskAppender append(O object) {
+      try {
+        recordBytes.reset();
+        codec.write(object, record);
+        record.flush();
+        output.writeInt(recordBytes.size());
+        recordBytes.writeTo(output);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to write into file " + file, e);
+      }
+      return this;
+    }
+
+    @Override
+    public void close() {
+      system2.close(output);
+    }
+  }
+
+  private class RecordIterator extends CloseableIterator<O> {
+    private final DataInputStream input;
+
+    private RecordIterator(DataInputStream input) {
+      this.input = input;
+    }
+
+    @Override
+    @CheckForNull
+    protected O doNext() {
+      try {
+        int length;
+        try {
+          length = input.readInt();
+        } catch (EOFException e) {
+          return null;
+        }
+        byte[] record = new byte[length];
+        input.readFully(record);
+        return decode(record);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to read file: " + file, e);
+      }
+    }
+
+    @Override
+    protected void doClose() {
+      IOUtils.closeQuietly(input);
+    }
+  }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.search.sort.SortOrder;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
 import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -43,9 +44,11 @@ public class ViewIndex {
   private static final int SCROLL_TIME_IN_MINUTES = 3;
 
   private final EsClient esClient;
+  private final BulkIndexerMetrics bulkIndexerMetrics;
 
-  public ViewIndex(EsClient esClient) {
+  public ViewIndex(EsClient esClient, BulkIndexerMetrics bulkIndexerMetrics) {
     this.esClient = esClient;
+    this.bulkIndexerMetrics = bulkIndexerMetrics;
   }
 
   public List<String> findAllViewUuids() {
@@ -79,6 +82,6 @@ public class ViewIndex {
   public void delete(Collection<String> viewUuids) {
     SearchRequestBuilder searchRequest = esClient.prepareSearch(ViewIndexDefinition.INDEX_TYPE_VIEW)
       .setQuery(boolQuery().must(matchAllQuery()).filter(termsQuery(ViewIndexDefinition.FIELD_UUID, viewUuids)));
-    BulkIndexer.delete(esClient, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), searchRequest);
+    BulkIndexer.delete(esClient, bulkIndexerMetrics, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), searchRequest);
   }
 }
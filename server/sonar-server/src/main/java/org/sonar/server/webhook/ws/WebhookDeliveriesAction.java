@@ -23,6 +23,7 @@ import com.google.common.io.Resources;
 import java.util.List;
 import java.util.Optional;
 import javax.annotation.Nullable;
+import org.sonar.api.server.ws.Change;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -64,6 +65,7 @@ public class WebhookDeliveriesAction implements WebhooksWsAction {
         "Require 'Administer' permission on the related project.<br/>" +
         "Note that additional information are returned by api/webhooks/delivery.")
       .setResponseExample(Resources.getResource(this.getClass(), "example-deliveries.json"))
+      .setChangelog(new Change("6.5", "Field 'pending' is added"))
       .setHandler(this);
 
     action.createParam(COMPONENT_PARAM)
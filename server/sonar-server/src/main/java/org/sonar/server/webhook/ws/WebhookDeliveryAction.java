@@ -21,6 +21,7 @@ package org.sonar.server.webhook.ws;
 
 import com.google.common.io.Resources;
 import java.util.Optional;
+import org.sonar.api.server.ws.Change;
 import org.sonar.api.server.ws.Request;
 import org.sonar.api.server.ws.Response;
 import org.sonar.api.server.ws.WebService;
@@ -61,6 +62,7 @@ public class WebhookDeliveryAction implements WebhooksWsAction {
         "Require 'Administer System' permission.<br/>" +
         "Note that additional information are returned by api/webhooks/delivery.")
       .setResponseExample(Resources.getResource(this.getClass(), "example-delivery.json"))
+      .setChangelog(new Change("6.5", "Field 'pending' is added"))
       .setHandler(this);
 
     action.createParam(PARAM_ID)
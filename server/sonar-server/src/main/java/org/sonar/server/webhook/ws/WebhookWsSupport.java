@@ -39,6 +39,7 @@ class WebhookWsSupport {
       .setName(dto.getName())
       .setUrl(dto.getUrl())
       .setSuccess(dto.isSuccess())
+      .setPending(dto.isPending())
       .setCeTaskId(dto.getCeTaskUuid())
       .setComponentKey(component.getKey());
     if (dto.getHttpStatus() != null) {
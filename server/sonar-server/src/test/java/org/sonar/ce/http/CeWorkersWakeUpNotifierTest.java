@@ -0,0 +1,130 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class CeWorkersWakeUpNotifierTest {
+
+  private CeHttpClient ceHttpClient = mock(CeHttpClient.class);
+  private ManualExecutorService executorService = new ManualExecutorService();
+  private CeWorkersWakeUpNotifier underTest = new CeWorkersWakeUpNotifier(ceHttpClient, executorService);
+
+  @Test
+  public void onQueueChange_wakes_up_workers_asynchronously() {
+    underTest.onQueueChange();
+
+    verifyZeroInteractions(ceHttpClient);
+
+    executorService.runAll();
+
+    verify(ceHttpClient).wakeUpWorkers();
+  }
+
+  @Test
+  public void onQueueChange_coalesces_changes_while_call_is_pending() {
+    underTest.onQueueChange();
+    underTest.onQueueChange();
+    underTest.onQueueChange();
+
+    assertThat(executorService.tasks).hasSize(1);
+    executorService.runAll();
+
+    verify(ceHttpClient).wakeUpWorkers();
+
+    underTest.onQueueChange();
+    executorService.runAll();
+
+    verify(ceHttpClient, times(2)).wakeUpWorkers();
+  }
+
+  @Test
+  public void failure_of_call_is_ignored() {
+    doThrow(new IllegalStateException("faking CE down")).when(ceHttpClient).wakeUpWorkers();
+
+    underTest.onQueueChange();
+    executorService.runAll();
+    underTest.onQueueChange();
+    executorService.runAll();
+
+    verify(ceHttpClient, times(2)).wakeUpWorkers();
+  }
+
+  @Test
+  public void stop_shutdowns_executor() {
+    underTest.start();
+    underTest.stop();
+
+    assertThat(executorService.isShutdown()).isTrue();
+  }
+
+  private static class ManualExecutorService extends AbstractExecutorService {
+    private final List<Runnable> tasks = new ArrayList<>();
+    private boolean shutdown = false;
+
+    void runAll() {
+      List<Runnable> toRun = new ArrayList<>(tasks);
+      tasks.clear();
+      toRun.forEach(Runnable::run);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+      tasks.add(command);
+    }
+
+    @Override
+    public void shutdown() {
+      shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+      shutdown = true;
+      return new ArrayList<>(tasks);
+    }
+
+    @Override
+    public boolean isShutdown() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+      return shutdown;
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+      return true;
+    }
+  }
+}
@@ -42,6 +42,9 @@ import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.startsWith;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class CeQueueImplTest {
 
@@ -100,6 +103,40 @@ public class CeQueueImplTest {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
   }
 
+  @Test
+  public void submit_notifies_listeners() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {listener});
+
+    underTest.submit(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null));
+
+    verify(listener).onQueueChange();
+  }
+
+  @Test
+  public void submit_does_not_fail_if_a_listener_fails() {
+    CeQueueListener failingListener = mock(CeQueueListener.class);
+    doThrow(new IllegalStateException("faking a failing listener")).when(failingListener).onQueueChange();
+    CeQueueListener listener = mock(CeQueueListener.class);
+    CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {failingListener, listener});
+
+    CeTaskSubmit taskSubmit = createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null);
+    underTest.submit(taskSubmit);
+
+    verifyCeQueueDtoForTaskSubmit(taskSubmit);
+    verify(listener).onQueueChange();
+  }
+
+  @Test
+  public void massSubmit_notifies_listeners_once() {
+    CeQueueListener listener = mock(CeQueueListener.class);
+    CeQueue underTest = new CeQueueImpl(dbTester.getDbClient(), uuidFactory, defaultOrganizationProvider, new CeQueueListener[] {listener});
+
+    underTest.massSubmit(asList(createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", null), createTaskSubmit("some type")));
+
+    verify(listener).onQueueChange();
+  }
+
   @Test
   public void massSubmit_returns_tasks_for_each_CeTaskSubmit_populated_from_CeTaskSubmit_and_creates_CeQueue_row_for_each() {
     CeTaskSubmit taskSubmit1 = createTaskSubmit(CeTaskTypes.REPORT, "PROJECT_1", "rob");
@@ -33,6 +33,7 @@ import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.server.computation.task.profile.TaskProfile;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
@@ -41,6 +42,7 @@ import org.sonarqube.ws.WsCe;
 
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.db.permission.OrganizationPermission.SCAN;
 
 public class TaskActionTest {
@@ -188,6 +190,61 @@ public class TaskActionTest {
     assertThat(task.hasScannerContext()).isFalse();
   }
 
+  @Test
+  public void return_profile_of_activity_when_additionalField_is_set() {
+    logInAsRoot();
+
+    persist(createActivityDto(SOME_TASK_UUID));
+    persistProfile(SOME_TASK_UUID, TaskProfile.builder()
+      .addStep("Extract report", 12L)
+      .addVisitor("IssueCounter", 3L)
+      .setPeakHeapBytes(1_000L)
+      .setDbRowsRead(50L)
+      .setDbRowsWritten(40L)
+      .setEsDocumentsIndexed(30L)
+      .build());
+
+    WsCe.TaskResponse taskResponse = ws.newRequest()
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "profile")
+      .executeProtobuf(WsCe.TaskResponse.class);
+    WsCe.TaskProfile profile = taskResponse.getTask().getProfile();
+    assertThat(profile.getStepsList()).extracting(WsCe.TaskProfileDuration::getName, WsCe.TaskProfileDuration::getDurationMs)
+      .containsExactly(tuple("Extract report", 12L));
+    assertThat(profile.getVisitorsList()).extracting(WsCe.TaskProfileDuration::getName, WsCe.TaskProfileDuration::getDurationMs)
+      .containsExactly(tuple("IssueCounter", 3L));
+    assertThat(profile.getPeakHeapBytes()).isEqualTo(1_000L);
+    assertThat(profile.getDbRowsRead()).isEqualTo(50L);
+    assertThat(profile.getDbRowsWritten()).isEqualTo(40L);
+    assertThat(profile.getEsDocumentsIndexed()).isEqualTo(30L);
+  }
+
+  @Test
+  public void do_not_return_profile_of_activity_when_additionalField_is_not_set() {
+    logInAsRoot();
+
+    persist(createActivityDto(SOME_TASK_UUID));
+    persistProfile(SOME_TASK_UUID, TaskProfile.builder().addStep("Extract report", 12L).build());
+
+    WsCe.TaskResponse taskResponse = ws.newRequest()
+      .setParam("id", SOME_TASK_UUID)
+      .executeProtobuf(WsCe.TaskResponse.class);
+    assertThat(taskResponse.getTask().hasProfile()).isFalse();
+  }
+
+  @Test
+  public void do_not_return_profile_of_activity_without_profile() {
+    logInAsRoot();
+
+    persist(createActivityDto(SOME_TASK_UUID));
+
+    WsCe.TaskResponse taskResponse = ws.newRequest()
+      .setParam("id", SOME_TASK_UUID)
+      .setParam("additionalFields", "profile")
+      .executeProtobuf(WsCe.TaskResponse.class);
+    assertThat(taskResponse.getTask().hasProfile()).isFalse();
+  }
+
   @Test
   public void do_not_return_stacktrace_of_failed_activity_without_stacktrace() {
     logInAsRoot();
@@ -360,6 +417,11 @@ public class TaskActionTest {
     dbTester.commit();
   }
 
+  private void persistProfile(String taskUuid, TaskProfile profile) {
+    dbTester.getDbClient().ceTaskProfileDao().insert(dbTester.getSession(), taskUuid, profile.toJson());
+    dbTester.commit();
+  }
+
   private void logInAsSystemAdministrator() {
     userSession.logIn().setSystemAdministrator();
   }
@@ -33,6 +33,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.organization.OrganizationTesting;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.textsearch.ComponentTextSearchFeatureRule;
 import org.sonar.server.permission.index.AuthorizationTypeSupport;
@@ -59,7 +60,7 @@ public abstract class ComponentIndexTest {
   @Rule
   public ComponentTextSearchFeatureRule features = new ComponentTextSearchFeatureRule();
 
-  protected ComponentIndexer indexer = new ComponentIndexer(db.getDbClient(), es.client());
+  protected ComponentIndexer indexer = new ComponentIndexer(db.getDbClient(), es.client(), new BulkIndexerMetrics());
   protected ComponentIndex index = new ComponentIndex(es.client(), new AuthorizationTypeSupport(userSession));
   protected PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(es, indexer);
   private OrganizationDto organization;
@@ -32,6 +32,7 @@ import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.component.ComponentUpdateDto;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.organization.OrganizationTesting;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 
@@ -204,7 +205,7 @@ public class ComponentIndexerTest {
   }
 
   private ComponentIndexer createIndexer() {
-    return new ComponentIndexer(dbTester.getDbClient(), esTester.client());
+    return new ComponentIndexer(dbTester.getDbClient(), esTester.client(), new BulkIndexerMetrics());
   }
 
 }
@@ -41,6 +41,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.server.component.index.ComponentIndex;
 import org.sonar.server.component.index.ComponentIndexDefinition;
 import org.sonar.server.component.index.ComponentIndexer;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.favorite.FavoriteFinder;
@@ -96,7 +97,7 @@ public class SuggestionsActionTest {
   public UserSessionRule userSessionRule = UserSessionRule.standalone();
   public ResourceTypesRule resourceTypes = new ResourceTypesRule();
 
-  private ComponentIndexer componentIndexer = new ComponentIndexer(db.getDbClient(), es.client());
+  private ComponentIndexer componentIndexer = new ComponentIndexer(db.getDbClient(), es.client(), new BulkIndexerMetrics());
   private FavoriteFinder favoriteFinder = mock(FavoriteFinder.class);
   private ComponentIndex index = new ComponentIndex(es.client(), new AuthorizationTypeSupport(userSessionRule));
   private SuggestionsAction underTest = new SuggestionsAction(db.getDbClient(), index, favoriteFinder, userSessionRule, resourceTypes);
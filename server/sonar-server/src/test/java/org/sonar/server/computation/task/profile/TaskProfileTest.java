@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.profile;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class TaskProfileTest {
+
+  @Test
+  public void builder_creates_empty_profile_by_default() {
+    TaskProfile profile = TaskProfile.builder().build();
+
+    assertThat(profile.getSteps()).isEmpty();
+    assertThat(profile.getVisitors()).isEmpty();
+    assertThat(profile.getPeakHeapBytes()).isZero();
+    assertThat(profile.getDbRowsRead()).isZero();
+    assertThat(profile.getDbRowsWritten()).isZero();
+    assertThat(profile.getEsDocumentsIndexed()).isZero();
+  }
+
+  @Test
+  public void steps_and_visitors_are_kept_in_order_of_addition() {
+    TaskProfile profile = TaskProfile.builder()
+      .addStep("step B", 20L)
+      .addStep("step A", 10L)
+      .addVisitor("VisitorB", 2L)
+      .addVisitor("VisitorA", 1L)
+      .build();
+
+    assertThat(profile.getSteps()).extracting(TaskProfile.Duration::getName, TaskProfile.Duration::getDurationMs)
+      .containsExactly(tuple("step B", 20L), tuple("step A", 10L));
+    assertThat(profile.getVisitors()).extracting(TaskProfile.Duration::getName, TaskProfile.Duration::getDurationMs)
+      .containsExactly(tuple("VisitorB", 2L), tuple("VisitorA", 1L));
+  }
+
+  @Test
+  public void toJson_and_fromJson_are_symmetrical() {
+    TaskProfile profile = TaskProfile.builder()
+      .addStep("Extract report", 12L)
+      .addVisitor("IssueCounter", 3L)
+      .setPeakHeapBytes(1_000L)
+      .setDbRowsRead(50L)
+      .setDbRowsWritten(40L)
+      .setEsDocumentsIndexed(30L)
+      .build();
+
+    TaskProfile read = TaskProfile.fromJson(profile.toJson());
+
+    assertThat(read.getSteps()).extracting(TaskProfile.Duration::getName, TaskProfile.Duration::getDurationMs)
+      .containsExactly(tuple("Extract report", 12L));
+    assertThat(read.getVisitors()).extracting(TaskProfile.Duration::getName, TaskProfile.Duration::getDurationMs)
+      .containsExactly(tuple("IssueCounter", 3L));
+    assertThat(read.getPeakHeapBytes()).isEqualTo(1_000L);
+    assertThat(read.getDbRowsRead()).isEqualTo(50L);
+    assertThat(read.getDbRowsWritten()).isEqualTo(40L);
+    assertThat(read.getEsDocumentsIndexed()).isEqualTo(30L);
+  }
+}
@@ -0,0 +1,149 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.profile;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.ce.queue.CeTask;
+import org.sonar.db.DbRowCounters;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.server.es.BulkIndexerMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class TaskProfilerTest {
+
+  private static final String TASK_UUID = "TASK_1";
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  private CeTask ceTask = new CeTask.Builder().setOrganizationUuid("org1").setType(CeTaskTypes.REPORT).setUuid(TASK_UUID).build();
+  private TaskProfilesStatistics statistics = new TaskProfilesStatistics();
+  private AtomicLong heapUsage = new AtomicLong(100L);
+  private DbRowCounters taskRowCounters = mock(DbRowCounters.class);
+  private BulkIndexerMetrics taskIndexerMetrics = mock(BulkIndexerMetrics.class);
+
+  private TaskProfiler underTest = new TaskProfiler(ceTask, dbTester.getDbClient(), statistics, taskRowCounters,
+    taskIndexerMetrics, heapUsage::get);
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void finish_returns_durations_peak_heap_and_counters_of_task() {
+    when(taskRowCounters.getRowsRead()).thenReturn(10L);
+    when(taskRowCounters.getRowsWritten()).thenReturn(20L);
+    when(taskIndexerMetrics.getDocuments()).thenReturn(30L);
+    underTest.start();
+    heapUsage.set(500L);
+    underTest.addStep("step A", 10L);
+    heapUsage.set(200L);
+    underTest.addStep("step B", 20L);
+    underTest.addVisitor("VisitorA", 5L);
+
+    TaskProfile profile = underTest.finish();
+
+    assertThat(profile.getSteps()).extracting(TaskProfile.Duration::getName, TaskProfile.Duration::getDurationMs)
+      .containsExactly(tuple("step A", 10L), tuple("step B", 20L));
+    assertThat(profile.getVisitors()).extracting(TaskProfile.Duration::getName, TaskProfile.Duration::getDurationMs)
+      .containsExactly(tuple("VisitorA", 5L));
+    assertThat(profile.getPeakHeapBytes()).isEqualTo(500L);
+    assertThat(profile.getDbRowsRead()).isEqualTo(10L);
+    assertThat(profile.getDbRowsWritten()).isEqualTo(20L);
+    assertThat(profile.getEsDocumentsIndexed()).isEqualTo(30L);
+  }
+
+  @Test
+  public void finish_persists_profile_of_task() {
+    underTest.start();
+    underTest.addStep("step A", 10L);
+
+    underTest.finish();
+
+    String json = dbTester.getDbClient().ceTaskProfileDao().selectProfile(dbTester.getSession(), TASK_UUID).get();
+    assertThat(TaskProfile.fromJson(json).getSteps()).extracting(TaskProfile.Duration::getName).containsExactly("step A");
+  }
+
+  @Test
+  public void finish_replaces_profile_already_persisted_for_task() {
+    dbTester.getDbClient().ceTaskProfileDao().insert(dbTester.getSession(), TASK_UUID, "{}");
+    dbTester.commit();
+    underTest.start();
+    underTest.addStep("step A", 10L);
+
+    underTest.finish();
+
+    String json = dbTester.getDbClient().ceTaskProfileDao().selectProfile(dbTester.getSession(), TASK_UUID).get();
+    assertThat(TaskProfile.fromJson(json).getSteps()).hasSize(1);
+  }
+
+  @Test
+  public void finish_adds_profile_to_statistics() {
+    underTest.start();
+    underTest.addStep("step A", 10L);
+
+    underTest.finish();
+
+    assertThat(statistics.getTaskCount()).isEqualTo(1L);
+    assertThat(statistics.getStepDurations()).containsEntry("step A", 10L);
+  }
+
+  @Test
+  public void counters_of_task_are_bound_to_current_thread_until_finish() {
+    underTest.start();
+
+    assertThat(DbRowCounters.boundToCurrentThread()).isSameAs(taskRowCounters);
+    assertThat(BulkIndexerMetrics.boundToCurrentThread()).isSameAs(taskIndexerMetrics);
+
+    underTest.finish();
+
+    assertThat(DbRowCounters.boundToCurrentThread()).isNull();
+    assertThat(BulkIndexerMetrics.boundToCurrentThread()).isNull();
+  }
+
+  @Test
+  public void threads_created_by_task_thread_factory_are_bound_to_counters_of_task() throws InterruptedException {
+    underTest.start();
+    AtomicReference<DbRowCounters> rowCounters = new AtomicReference<>();
+    AtomicReference<BulkIndexerMetrics> indexerMetrics = new AtomicReference<>();
+
+    Thread thread = TaskProfiler.taskThreadFactory(Executors.defaultThreadFactory()).newThread(() -> {
+      rowCounters.set(DbRowCounters.boundToCurrentThread());
+      indexerMetrics.set(BulkIndexerMetrics.boundToCurrentThread());
+    });
+    thread.start();
+    thread.join();
+
+    assertThat(rowCounters.get()).isSameAs(taskRowCounters);
+    assertThat(indexerMetrics.get()).isSameAs(taskIndexerMetrics);
+  }
+}
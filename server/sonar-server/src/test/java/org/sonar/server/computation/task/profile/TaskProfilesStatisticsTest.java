@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.profile;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class TaskProfilesStatisticsTest {
+
+  private TaskProfilesStatistics underTest = new TaskProfilesStatistics();
+
+  @Test
+  public void statistics_are_empty_when_no_profile_was_added() {
+    assertThat(underTest.getTaskCount()).isZero();
+    assertThat(underTest.getStepDurations()).isEmpty();
+    assertThat(underTest.getMaxPeakHeapBytes()).isZero();
+    assertThat(underTest.getDbRowsRead()).isZero();
+    assertThat(underTest.getDbRowsWritten()).isZero();
+    assertThat(underTest.getEsDocumentsIndexed()).isZero();
+  }
+
+  @Test
+  public void add_aggregates_profiles() {
+    underTest.add(TaskProfile.builder()
+      .addStep("step A", 10L)
+      .addStep("step B", 20L)
+      .setPeakHeapBytes(500L)
+      .setDbRowsRead(1L)
+      .setDbRowsWritten(2L)
+      .setEsDocumentsIndexed(3L)
+      .build());
+    underTest.add(TaskProfile.builder()
+      .addStep("step A", 5L)
+      .setPeakHeapBytes(300L)
+      .setDbRowsRead(10L)
+      .setDbRowsWritten(20L)
+      .setEsDocumentsIndexed(30L)
+      .build());
+
+    assertThat(underTest.getTaskCount()).isEqualTo(2L);
+    assertThat(underTest.getStepDurations()).containsExactly(entry("step A", 15L), entry("step B", 20L));
+    assertThat(underTest.getMaxPeakHeapBytes()).isEqualTo(500L);
+    assertThat(underTest.getDbRowsRead()).isEqualTo(11L);
+    assertThat(underTest.getDbRowsWritten()).isEqualTo(22L);
+    assertThat(underTest.getEsDocumentsIndexed()).isEqualTo(33L);
+  }
+
+  @Test
+  public void getStepDurations_returns_a_copy() {
+    underTest.add(TaskProfile.builder().addStep("step A", 10L).build());
+
+    underTest.getStepDurations().put("step A", 0L);
+
+    assertThat(underTest.getStepDurations()).containsExactly(entry("step A", 10L));
+  }
+}
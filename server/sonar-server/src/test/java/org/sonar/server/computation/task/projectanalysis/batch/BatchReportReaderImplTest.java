@@ -25,10 +25,13 @@ import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.internal.JUnitTempFolder;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
+import org.sonar.scanner.protocol.output.SingleFileReport;
 
 import static com.google.common.collect.ImmutableList.of;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -54,6 +57,8 @@ public class BatchReportReaderImplTest {
 
   @Rule
   public JUnitTempFolder tempFolder = new JUnitTempFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
 
   private ScannerReportWriter writer;
   private BatchReportReaderImpl underTest;
@@ -288,6 +293,36 @@ public class BatchReportReaderImplTest {
     res.close();
   }
 
+  @Test
+  public void verify_readFileSource_from_single_file_report() throws IOException {
+    File file = writer.getSourceFile(COMPONENT_REF);
+    FileUtils.writeLines(file, of("1", "2", "3"));
+    File packedDir = tempFolder.newDir();
+    SingleFileReport.pack(writer.getFileStructure().root(), new FileStructure(packedDir).singleFileReport());
+
+    BatchReportReaderImpl packedReader = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(packedDir));
+    CloseableIterator<String> res = packedReader.readFileSource(COMPONENT_REF).get();
+    assertThat(res).containsExactly("1", "2", "3");
+    res.close();
+    assertThat(packedReader.readFileSource(COMPONENT_REF + 1)).isAbsent();
+  }
+
+  @Test
+  public void stop_releases_single_file_report() throws IOException {
+    writer.writeComponentCoverage(COMPONENT_REF, of(COVERAGE_1));
+    File packedDir = tempFolder.newDir();
+    SingleFileReport.pack(writer.getFileStructure().root(), new FileStructure(packedDir).singleFileReport());
+    BatchReportReaderImpl packedReader = new BatchReportReaderImpl(new ImmutableBatchReportDirectoryHolder(packedDir));
+    assertThat(packedReader.readComponentCoverage(COMPONENT_REF)).containsExactly(COVERAGE_1);
+
+    packedReader.stop();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Analysis report is closed");
+
+    packedReader.readComponentCoverage(COMPONENT_REF);
+  }
+
   @Test
   public void readTests_returns_empty_CloseableIterator_when_file_does_not_exist() {
     assertThat(underTest.readTests(COMPONENT_REF)).isEmpty();
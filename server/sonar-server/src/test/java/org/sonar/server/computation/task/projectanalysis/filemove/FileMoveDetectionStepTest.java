@@ -34,6 +34,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -422,6 +423,19 @@ public class FileMoveDetectionStepTest {
 
   @Test
   public void execute_detects_several_moves() {
+    verifyDetectionOfSeveralMoves(underTest);
+  }
+
+  @Test
+  public void execute_detects_several_moves_when_files_are_scored_by_several_threads() {
+    CeConfiguration ceConfiguration = mock(CeConfiguration.class);
+    when(ceConfiguration.getComputationStepThreadCount()).thenReturn(3);
+
+    verifyDetectionOfSeveralMoves(new FileMoveDetectionStep(analysisMetadataHolder, treeRootHolder, dbClient,
+      sourceLinesRepository, fileSimilarity, movedFilesRepository, ceConfiguration));
+  }
+
+  private void verifyDetectionOfSeveralMoves(FileMoveDetectionStep underTest) {
     // testing:
     // - file1 renamed to file3
     // - file2 deleted
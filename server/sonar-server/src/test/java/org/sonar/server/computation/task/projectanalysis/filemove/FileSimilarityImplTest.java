@@ -0,0 +1,86 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.server.computation.task.projectanalysis.filemove.FileSimilarity.File;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class FileSimilarityImplTest {
+
+  private SourceSimilarity sourceSimilarity = new SourceSimilarityImpl();
+  private FileSimilarityImpl underTest = new FileSimilarityImpl(sourceSimilarity);
+
+  @Test
+  public void score_with_min_score_is_the_same_as_score_when_min_score_is_reached() {
+    File file1 = fileOf("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+    File file2 = fileOf("a", "b", "c", "d", "e", "f", "g", "h", "i", "k");
+
+    assertThat(underTest.score(file1, file2)).isEqualTo(90);
+    assertThat(underTest.score(file1, file2, 85)).isEqualTo(90);
+    assertThat(underTest.score(file1, file2, 91)).isEqualTo(0);
+  }
+
+  @Test
+  public void empty_files_score_zero() {
+    assertThat(underTest.score(fileOf(), fileOf(), 0)).isEqualTo(0);
+  }
+
+  @Test
+  public void pairs_with_too_different_sizes_are_pruned_without_computing_edit_distance() {
+    SourceSimilarity sourceSimilarity = mock(SourceSimilarity.class);
+    FileSimilarityImpl underTest = new FileSimilarityImpl(sourceSimilarity);
+
+    assertThat(underTest.score(fileOf("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"), fileOf("a", "b", "c", "d", "e", "f", "g", "h"), 85)).isEqualTo(0);
+
+    verifyZeroInteractions(sourceSimilarity);
+  }
+
+  @Test
+  public void pairs_with_too_few_common_lines_are_pruned_without_computing_edit_distance() {
+    SourceSimilarity sourceSimilarity = mock(SourceSimilarity.class);
+    FileSimilarityImpl underTest = new FileSimilarityImpl(sourceSimilarity);
+
+    assertThat(underTest.score(fileOf("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"), fileOf("a", "b", "c", "d", "e", "f", "g", "h", "y", "z"), 85))
+      .isEqualTo(0);
+
+    verifyZeroInteractions(sourceSimilarity);
+  }
+
+  @Test
+  public void edit_distance_is_computed_when_pair_is_not_pruned() {
+    // same lines in a different order: multiset bound can not prune the pair
+    assertThat(underTest.score(fileOf("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"), fileOf("j", "i", "h", "g", "f", "e", "d", "c", "b", "a"), 85))
+      .isEqualTo(0);
+    assertThat(underTest.score(fileOf("a", "b", "c", "d", "e", "f", "g", "h", "i", "j"), fileOf("b", "a", "c", "d", "e", "f", "g", "h", "i", "j"), 80))
+      .isEqualTo(80);
+  }
+
+  private static File fileOf(String... lineHashes) {
+    List<String> hashes = lineHashes.length == 0 ? emptyList() : asList(lineHashes);
+    return new File("path", hashes);
+  }
+}
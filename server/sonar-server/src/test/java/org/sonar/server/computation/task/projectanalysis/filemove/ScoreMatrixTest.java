@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.filemove;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ScoreMatrixTest {
+
+  private ScoreMatrix underTest = new ScoreMatrix(
+    asList("A", "B"),
+    asList("1", "2", "3"),
+    new ScoreMatrix.Row[] {
+      new ScoreMatrix.Row.Builder().add(0, 90).add(1, 0).add(2, 86).build(),
+      new ScoreMatrix.Row.Builder().add(1, 99).build()
+    },
+    99);
+
+  @Test
+  public void accept_visits_only_non_zero_scores() {
+    List<String> visited = new ArrayList<>();
+    underTest.accept((dbFileKey, reportFileKey, score) -> visited.add(dbFileKey + reportFileKey + "=" + score));
+
+    assertThat(visited).containsExactly("A1=90", "A3=86", "B2=99");
+  }
+
+  @Test
+  public void toCsv_prints_zero_for_pairs_not_stored() {
+    assertThat(underTest.toCsv(';')).isEqualTo(";1;2;3;\nA;90;0;86;\nB;0;99;0;");
+  }
+
+  @Test
+  public void getMaxScore() {
+    assertThat(underTest.getMaxScore()).isEqualTo(99);
+  }
+}
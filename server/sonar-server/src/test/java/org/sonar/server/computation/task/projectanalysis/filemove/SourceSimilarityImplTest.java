@@ -19,7 +19,9 @@
  */
 package org.sonar.server.computation.task.projectanalysis.filemove;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -59,4 +61,52 @@ public class SourceSimilarityImplTest {
   public void two_empty_lists_are_not_considered_as_equal() {
     assertThat(underTest.score(emptyList(), emptyList())).isEqualTo(0);
   }
+
+  @Test
+  public void score_with_min_score_is_zero_if_min_score_can_not_be_reached() {
+    List<String> left = asList("a", "b", "c", "d", "e", "f", "g", "h", "i", "j");
+    List<String> right = asList("a", "b", "c", "d", "e", "f", "g", "h", "x", "y");
+
+    assertThat(underTest.score(left, right)).isEqualTo(80);
+    assertThat(underTest.score(left, right, 80)).isEqualTo(80);
+    assertThat(underTest.score(left, right, 81)).isEqualTo(0);
+    assertThat(underTest.score(asList("a"), asList("a", "b", "c"), 34)).isEqualTo(0);
+  }
+
+  @Test
+  public void score_with_min_score_is_the_same_as_score_when_min_score_is_reached() {
+    Random random = new Random(42);
+    for (int test = 0; test < 500; test++) {
+      List<Integer> left = randomList(random);
+      List<Integer> right = randomList(random);
+      int score = underTest.score(left, right);
+      for (int minScore = 0; minScore <= 100; minScore += 5) {
+        assertThat(underTest.score(left, right, minScore)).isEqualTo(score >= minScore ? score : 0);
+      }
+    }
+  }
+
+  @Test
+  public void max_distance_is_the_greatest_distance_reaching_min_score() {
+    for (int maxSize = 1; maxSize < 300; maxSize++) {
+      for (int minScore = 1; minScore <= 100; minScore++) {
+        int maxDistance = SourceSimilarityImpl.maxDistance(maxSize, minScore);
+        if (maxDistance >= 0) {
+          assertThat(SourceSimilarityImpl.score(maxDistance, maxSize)).isGreaterThanOrEqualTo(minScore);
+        }
+        if (maxDistance < maxSize) {
+          assertThat(SourceSimilarityImpl.score(maxDistance + 1, maxSize)).isLessThan(minScore);
+        }
+      }
+    }
+  }
+
+  private static List<Integer> randomList(Random random) {
+    int size = random.nextInt(30);
+    List<Integer> res = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      res.add(random.nextInt(4));
+    }
+    return res;
+  }
 }
@@ -0,0 +1,202 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Date;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.rule.Severity;
+import org.sonar.api.rules.RuleType;
+import org.sonar.api.utils.Duration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.DefaultIssueComment;
+import org.sonar.core.issue.FieldDiffs;
+import org.sonar.core.issue.IssueChangeContext;
+import org.sonar.db.protobuf.DbCommons;
+import org.sonar.db.protobuf.DbIssues;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+public class DefaultIssueCodecTest {
+
+  private DefaultIssueCodec underTest = new DefaultIssueCodec();
+
+  @Test
+  public void encode_and_decode_issue_with_all_fields() throws IOException {
+    DbIssues.Locations locations = DbIssues.Locations.newBuilder()
+      .setTextRange(DbCommons.TextRange.newBuilder().setStartLine(1).setEndLine(3))
+      .build();
+    DefaultIssue issue = new DefaultIssue()
+      .setKey("ISSUE_KEY")
+      .setType(RuleType.BUG)
+      .setComponentUuid("FILE_UUID")
+      .setComponentKey("FILE_KEY")
+      .setModuleUuid("MODULE_UUID")
+      .setModuleUuidPath(".MODULE_UUID.")
+      .setProjectUuid("PROJECT_UUID")
+      .setProjectKey("PROJECT_KEY")
+      .setRuleKey(RuleKey.of("java", "S001"))
+      .setLanguage("java")
+      .setSeverity(Severity.CRITICAL)
+      .setManualSeverity(true)
+      .setMessage("message with non ASCII chars: é€")
+      .setLine(12)
+      .setGap(3.5)
+      .setEffort(Duration.create(45L))
+      .setStatus("RESOLVED")
+      .setResolution("FIXED")
+      .setAssignee("john")
+      .setChecksum("CHECKSUM")
+      .setAttribute("jira", "FOO-123")
+      .setAuthorLogin("jane")
+      .setTags(asList("tag1", "tag2"))
+      .setLocations(locations)
+      .setCreationDate(new Date(1_400_000_000_000L))
+      .setUpdateDate(new Date(1_450_000_000_000L))
+      .setCloseDate(new Date(1_500_000_000_000L))
+      .setNew(false)
+      .setBeingClosed(true)
+      .setOnDisabledRule(true)
+      .setChanged(true)
+      .setSendNotifications(true)
+      .setSelectedAt(1_000L);
+    issue.addComment(new DefaultIssueComment()
+      .setKey("COMMENT_KEY")
+      .setIssueKey("ISSUE_KEY")
+      .setUserLogin("john")
+      .setMarkdownText("*comment*")
+      .setCreatedAt(new Date(1_000_000L))
+      .setUpdatedAt(new Date(2_000_000L))
+      .setNew(true));
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isEqualTo(RuleType.BUG);
+    assertThat(decoded.componentUuid()).isEqualTo("FILE_UUID");
+    assertThat(decoded.componentKey()).isEqualTo("FILE_KEY");
+    assertThat(decoded.moduleUuid()).isEqualTo("MODULE_UUID");
+    assertThat(decoded.moduleUuidPath()).isEqualTo(".MODULE_UUID.");
+    assertThat(decoded.projectUuid()).isEqualTo("PROJECT_UUID");
+    assertThat(decoded.projectKey()).isEqualTo("PROJECT_KEY");
+    assertThat(decoded.ruleKey()).isEqualTo(RuleKey.of("java", "S001"));
+    assertThat(decoded.language()).isEqualTo("java");
+    assertThat(decoded.severity()).isEqualTo(Severity.CRITICAL);
+    assertThat(decoded.manualSeverity()).isTrue();
+    assertThat(decoded.message()).isEqualTo("message with non ASCII chars: é€");
+    assertThat(decoded.line()).isEqualTo(12);
+    assertThat(decoded.gap()).isEqualTo(3.5);
+    assertThat(decoded.effort()).isEqualTo(Duration.create(45L));
+    assertThat(decoded.status()).isEqualTo("RESOLVED");
+    assertThat(decoded.resolution()).isEqualTo("FIXED");
+    assertThat(decoded.assignee()).isEqualTo("john");
+    assertThat(decoded.checksum()).isEqualTo("CHECKSUM");
+    assertThat(decoded.attributes()).containsOnly(entry("jira", "FOO-123"));
+    assertThat(decoded.authorLogin()).isEqualTo("jane");
+    assertThat(decoded.tags()).containsExactly("tag1", "tag2");
+    assertThat((DbIssues.Locations) decoded.getLocations()).isEqualTo(locations);
+    assertThat(decoded.creationDate()).isEqualTo(issue.creationDate());
+    assertThat(decoded.updateDate()).isEqualTo(issue.updateDate());
+    assertThat(decoded.closeDate()).isEqualTo(issue.closeDate());
+    assertThat(decoded.isNew()).isFalse();
+    assertThat(decoded.isBeingClosed()).isTrue();
+    assertThat(decoded.isOnDisabledRule()).isTrue();
+    assertThat(decoded.isChanged()).isTrue();
+    assertThat(decoded.mustSendNotifications()).isTrue();
+    assertThat(decoded.selectedAt()).isEqualTo(1_000L);
+    assertThat(decoded.comments()).hasSize(1);
+    DefaultIssueComment comment = (DefaultIssueComment) decoded.comments().get(0);
+    assertThat(comment.key()).isEqualTo("COMMENT_KEY");
+    assertThat(comment.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(comment.userLogin()).isEqualTo("john");
+    assertThat(comment.markdownText()).isEqualTo("*comment*");
+    assertThat(comment.createdAt()).isEqualTo(new Date(1_000_000L));
+    assertThat(comment.updatedAt()).isEqualTo(new Date(2_000_000L));
+    assertThat(comment.isNew()).isTrue();
+  }
+
+  @Test
+  public void encode_and_decode_issue_with_only_mandatory_fields() throws IOException {
+    DefaultIssue decoded = encodeAndDecode(new DefaultIssue().setKey("ISSUE_KEY"));
+
+    assertThat(decoded.key()).isEqualTo("ISSUE_KEY");
+    assertThat(decoded.type()).isNull();
+    assertThat(decoded.ruleKey()).isNull();
+    assertThat(decoded.status()).isNull();
+    assertThat(decoded.line()).isNull();
+    assertThat(decoded.gap()).isNull();
+    assertThat(decoded.effort()).isNull();
+    assertThat(decoded.creationDate()).isNull();
+    assertThat(decoded.selectedAt()).isNull();
+    assertThat((Object) decoded.getLocations()).isNull();
+    assertThat(decoded.attributes()).isEmpty();
+    assertThat(decoded.tags()).isEmpty();
+    assertThat(decoded.comments()).isEmpty();
+    assertThat(decoded.changes()).isEmpty();
+    assertThat(decoded.currentChange()).isNull();
+    assertThat(decoded.isNew()).isTrue();
+  }
+
+  @Test
+  public void encode_and_decode_changes_preserving_reference_to_current_change() throws IOException {
+    FieldDiffs previousChange = new FieldDiffs()
+      .setIssueKey("ISSUE_KEY")
+      .setUserLogin("john")
+      .setCreationDate(new Date(1_000L))
+      .setDiff("severity", "MINOR", "MAJOR");
+    DefaultIssue issue = new DefaultIssue().setKey("ISSUE_KEY");
+    issue.addChange(previousChange);
+    IssueChangeContext context = IssueChangeContext.createUser(new Date(2_000L), "jane");
+    issue.setFieldChange(context, "effort", 10L, 20L);
+    issue.setFieldChange(context, "assignee", null, "jane");
+
+    DefaultIssue decoded = encodeAndDecode(issue);
+
+    assertThat(decoded.changes()).hasSize(3);
+    FieldDiffs decodedPrevious = decoded.changes().get(0);
+    assertThat(decodedPrevious.issueKey()).isEqualTo("ISSUE_KEY");
+    assertThat(decodedPrevious.userLogin()).isEqualTo("john");
+    assertThat(decodedPrevious.creationDate()).isEqualTo(new Date(1_000L));
+    assertThat(decodedPrevious.get("severity").oldValue()).isEqualTo("MINOR");
+    assertThat(decodedPrevious.get("severity").newValue()).isEqualTo("MAJOR");
+    FieldDiffs currentChange = decoded.currentChange();
+    assertThat(decoded.changes().get(1)).isSameAs(currentChange);
+    assertThat(decoded.changes().get(2)).isSameAs(currentChange);
+    assertThat(currentChange.userLogin()).isEqualTo("jane");
+    assertThat(currentChange.get("effort").oldValue()).isEqualTo(10L);
+    assertThat(currentChange.get("effort").newValue()).isEqualTo(20L);
+    assertThat(currentChange.get("assignee").oldValue()).isNull();
+    assertThat(currentChange.get("assignee").newValue()).isEqualTo("jane");
+    assertThat(currentChange.toString()).isEqualTo(issue.currentChange().toString());
+  }
+
+  private DefaultIssue encodeAndDecode(DefaultIssue issue) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    underTest.write(issue, new DataOutputStream(bytes));
+    return underTest.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.issue;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.ce.configuration.CeConfiguration;
+import org.sonar.core.issue.DefaultIssue;
+import org.sonar.core.issue.tracking.Input;
+import org.sonar.core.issue.tracking.Tracker;
+import org.sonar.core.issue.tracking.Tracking;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class TrackerExecutionTest {
+  private static final Component FILE_1 = builder(Component.Type.FILE, 4).build();
+  private static final Component FILE_2 = builder(Component.Type.FILE, 5).build();
+  private static final Component FILE_3 = builder(Component.Type.FILE, 6).build();
+  private static final Component DIRECTORY_1 = builder(Component.Type.DIRECTORY, 2).addChildren(FILE_1, FILE_2).build();
+  private static final Component DIRECTORY_2 = builder(Component.Type.DIRECTORY, 3).addChildren(FILE_3).build();
+  private static final Component PROJECT = builder(Component.Type.PROJECT, 1).addChildren(DIRECTORY_1, DIRECTORY_2).build();
+  private static final Component[] COMPONENTS_IN_POST_ORDER = {FILE_1, FILE_2, DIRECTORY_1, FILE_3, DIRECTORY_2, PROJECT};
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule().setRoot(PROJECT);
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TrackerBaseInputFactory baseInputFactory = mock(TrackerBaseInputFactory.class);
+  private TrackerRawInputFactory rawInputFactory = mock(TrackerRawInputFactory.class);
+  private Tracker<DefaultIssue, DefaultIssue> tracker = mock(Tracker.class);
+  private CeConfiguration ceConfiguration = mock(CeConfiguration.class);
+
+  private TrackerExecution underTest;
+
+  @Before
+  public void setUp() {
+    when(ceConfiguration.getComputationStepThreadCount()).thenReturn(2);
+    for (Component component : COMPONENTS_IN_POST_ORDER) {
+      Input<DefaultIssue> rawInput = mock(Input.class);
+      Input<DefaultIssue> baseInput = mock(Input.class);
+      when(rawInputFactory.create(component)).thenReturn(rawInput);
+      when(baseInputFactory.create(component)).thenReturn(baseInput);
+      when(tracker.track(rawInput, baseInput)).thenReturn(mock(Tracking.class));
+    }
+  }
+
+  @After
+  public void tearDown() {
+    if (underTest != null) {
+      underTest.stop();
+    }
+  }
+
+  @Test
+  public void track_issues_of_component() {
+    underTest = new TrackerExecution(baseInputFactory, rawInputFactory, tracker);
+
+    assertThat(underTest.track(FILE_1)).isSameAs(expectedTracking(FILE_1));
+  }
+
+  @Test
+  public void track_issues_of_components_concurrently_in_post_order() {
+    underTest = new TrackerExecution(baseInputFactory, rawInputFactory, tracker, treeRootHolder, ceConfiguration);
+    underTest.start();
+
+    for (Component component : COMPONENTS_IN_POST_ORDER) {
+      assertThat(underTest.track(component)).isSameAs(expectedTracking(component));
+    }
+    // once by TrackerExecution, once by expectedTracking
+    for (Component component : COMPONENTS_IN_POST_ORDER) {
+      verify(rawInputFactory, times(2)).create(component);
+    }
+  }
+
+  @Test
+  public void track_issues_of_component_requested_out_of_order() {
+    underTest = new TrackerExecution(baseInputFactory, rawInputFactory, tracker, treeRootHolder, ceConfiguration);
+    underTest.start();
+
+    assertThat(underTest.track(FILE_2)).isSameAs(expectedTracking(FILE_2));
+    assertThat(underTest.track(FILE_1)).isSameAs(expectedTracking(FILE_1));
+    assertThat(underTest.track(PROJECT)).isSameAs(expectedTracking(PROJECT));
+  }
+
+  @Test
+  public void failure_of_concurrent_tracking_is_propagated() {
+    when(baseInputFactory.create(FILE_2)).thenThrow(new IllegalArgumentException("faking failure of tracking"));
+    underTest = new TrackerExecution(baseInputFactory, rawInputFactory, tracker, treeRootHolder, ceConfiguration);
+    underTest.start();
+
+    assertThat(underTest.track(FILE_1)).isSameAs(expectedTracking(FILE_1));
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("faking failure of tracking");
+
+    underTest.track(FILE_2);
+  }
+
+  private Tracking<DefaultIssue, DefaultIssue> expectedTracking(Component component) {
+    return tracker.track(rawInputFactory.create(component), baseInputFactory.create(component));
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+
+public class ColumnarRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file cpt key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1000).setKey("some other key").build();
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private final Metric intMetric = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private final Metric longMetric = new MetricImpl(2, "long", "long", Metric.MetricType.WORK_DUR);
+  private final Metric doubleMetric = new MetricImpl(3, "double", "double", Metric.MetricType.FLOAT, 2, null, false);
+  private final Metric booleanMetric = new MetricImpl(4, "boolean", "boolean", Metric.MetricType.BOOL);
+  private final Metric stringMetric = new MetricImpl(5, "string", "string", Metric.MetricType.STRING);
+  private final Metric levelMetric = new MetricImpl(6, "level", "level", Metric.MetricType.LEVEL);
+
+  private ColumnarRawMeasureRepository underTest = new ColumnarRawMeasureRepository(component -> component.getReportAttributes().getRef());
+
+  @Test
+  public void getBaseMeasure_is_not_supported() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.getBaseMeasure(FILE_COMPONENT, intMetric);
+  }
+
+  @Test
+  public void primitive_measures_are_restored_with_the_same_value() {
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(12));
+    underTest.add(FILE_COMPONENT, longMetric, Measure.newMeasureBuilder().create(Long.MAX_VALUE / 4096));
+    underTest.add(FILE_COMPONENT, doubleMetric, Measure.newMeasureBuilder().create(1.3456d, 2));
+    underTest.add(FILE_COMPONENT, booleanMetric, Measure.newMeasureBuilder().create(true));
+    underTest.add(OTHER_COMPONENT, intMetric, Measure.newMeasureBuilder().createNoValue());
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, intMetric).get().getIntValue()).isEqualTo(12);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, longMetric).get().getLongValue()).isEqualTo(Long.MAX_VALUE / 4096);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, doubleMetric).get().getDoubleValue()).isEqualTo(1.35d);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, booleanMetric).get().getBooleanValue()).isTrue();
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, intMetric).get().getValueType()).isEqualTo(Measure.ValueType.NO_VALUE);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, longMetric)).isAbsent();
+  }
+
+  @Test
+  public void non_primitive_measures_are_stored_as_is() {
+    Measure stringMeasure = Measure.newMeasureBuilder().create("some value");
+    Measure levelMeasure = Measure.newMeasureBuilder().create(Measure.Level.OK);
+    Measure measureWithVariation = Measure.newMeasureBuilder().setVariation(3d).create(1);
+    Measure measureWithData = Measure.newMeasureBuilder().create(5L, "some data");
+    Measure measureWithQualityGateStatus = Measure.newMeasureBuilder().setQualityGateStatus(new QualityGateStatus(Measure.Level.WARN)).create(1.2d, 1);
+
+    underTest.add(FILE_COMPONENT, stringMetric, stringMeasure);
+    underTest.add(FILE_COMPONENT, levelMetric, levelMeasure);
+    underTest.add(FILE_COMPONENT, intMetric, measureWithVariation);
+    underTest.add(FILE_COMPONENT, longMetric, measureWithData);
+    underTest.add(FILE_COMPONENT, doubleMetric, measureWithQualityGateStatus);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, stringMetric).get()).isSameAs(stringMeasure);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, levelMetric).get()).isSameAs(levelMeasure);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, intMetric).get()).isSameAs(measureWithVariation);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, longMetric).get()).isSameAs(measureWithData);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, doubleMetric).get()).isSameAs(measureWithQualityGateStatus);
+  }
+
+  @Test
+  public void update_replaces_primitive_measure_by_non_primitive_measure_and_vice_versa() {
+    Measure measure = Measure.newMeasureBuilder().create(10);
+    Measure measureWithVariation = Measure.updatedMeasureBuilder(measure).setVariation(2d).create();
+
+    underTest.add(FILE_COMPONENT, intMetric, measure);
+    underTest.update(FILE_COMPONENT, intMetric, measureWithVariation);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, intMetric).get()).isSameAs(measureWithVariation);
+
+    underTest.update(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(20));
+    Measure updated = underTest.getRawMeasure(FILE_COMPONENT, intMetric).get();
+    assertThat(updated.getIntValue()).isEqualTo(20);
+    assertThat(updated.hasVariation()).isFalse();
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(1));
+
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(2));
+  }
+
+  @Test
+  public void measure_is_added_only_once_by_concurrent_threads() throws Exception {
+    int threads = 8;
+    CountDownLatch ready = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<Boolean>> results = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        int value = i;
+        results.add(executor.submit(() -> {
+          ready.await(10, TimeUnit.SECONDS);
+          try {
+            underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(value));
+            return true;
+          } catch (UnsupportedOperationException e) {
+            return false;
+          }
+        }));
+      }
+      ready.countDown();
+
+      int added = 0;
+      for (Future<Boolean> result : results) {
+        added += result.get() ? 1 : 0;
+      }
+      assertThat(added).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  public void update_throws_UOE_if_measure_does_not_exist() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.update(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(2));
+  }
+
+  @Test
+  public void add_throws_IAE_if_valueType_of_Measure_is_not_the_same_as_the_Metric_valueType() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Measure's ValueType (STRING) is not consistent with the Metric's ValueType (INT)");
+
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create("foo"));
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_policy_keeps_existing_measure() {
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(2), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, intMetric).get().getIntValue()).isEqualTo(1);
+  }
+
+  @Test
+  public void getRawMeasures_returns_all_measures_of_component_including_developer_measures() {
+    Measure devMeasure = Measure.newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(3);
+    underTest.add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, intMetric, devMeasure);
+    underTest.add(FILE_COMPONENT, stringMetric, Measure.newMeasureBuilder().create("foo"));
+    underTest.add(OTHER_COMPONENT, longMetric, Measure.newMeasureBuilder().create(1L));
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, intMetric).get().getIntValue()).isEqualTo(1);
+    Set<Measure> intMeasures = underTest.getRawMeasures(FILE_COMPONENT, intMetric);
+    assertThat(intMeasures).hasSize(2).contains(devMeasure);
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+    assertThat(measures.keySet()).containsOnly(intMetric.getKey(), stringMetric.getKey());
+    assertThat(measures.get(intMetric.getKey())).hasSize(2);
+    assertThat(underTest.getRawMeasures(ReportComponent.builder(Component.Type.FILE, 3).build())).isEmpty();
+  }
+
+  @Test
+  public void fail_with_IAE_if_component_index_is_negative() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Index of component file cpt key can not be negative: -1");
+
+    new ColumnarRawMeasureRepository(component -> -1).add(FILE_COMPONENT, intMetric, Measure.newMeasureBuilder().create(1));
+  }
+}
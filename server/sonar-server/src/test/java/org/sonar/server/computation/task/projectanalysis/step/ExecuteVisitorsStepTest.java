@@ -23,9 +23,11 @@ import java.util.List;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.server.computation.task.ChangeLogLevel;
+import org.sonar.server.computation.task.profile.TaskProfiler;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
 import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
@@ -40,6 +42,10 @@ import org.sonar.server.computation.task.projectanalysis.metric.MetricRepository
 import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
 import static org.sonar.api.measures.CoreMetrics.NCLOC;
 import static org.sonar.api.measures.CoreMetrics.NCLOC_KEY;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.DIRECTORY;
@@ -143,6 +149,23 @@ public class ExecuteVisitorsStepTest {
     }
   }
 
+  @Test
+  public void execute_records_execution_duration_of_all_visitors_in_TaskProfiler() {
+    TaskProfiler taskProfiler = mock(TaskProfiler.class);
+    ExecuteVisitorsStep underStep = new ExecuteVisitorsStep(
+      treeRootHolder,
+      asList(new VisitorA(), new VisitorB(), new VisitorC()),
+      taskProfiler);
+
+    underStep.execute();
+
+    InOrder inOrder = inOrder(taskProfiler);
+    inOrder.verify(taskProfiler).addVisitor(eq("VisitorA"), anyLong());
+    inOrder.verify(taskProfiler).addVisitor(eq("VisitorB"), anyLong());
+    inOrder.verify(taskProfiler).addVisitor(eq("VisitorC"), anyLong());
+    inOrder.verifyNoMoreInteractions();
+  }
+
   private static class VisitorA extends TypeAwareVisitorAdapter {
     public VisitorA() {
       super(CrawlerDepthLimit.PROJECT, Order.PRE_ORDER);
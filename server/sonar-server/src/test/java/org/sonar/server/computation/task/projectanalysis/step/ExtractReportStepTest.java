@@ -34,6 +34,8 @@ import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.ce.queue.CeTask;
 import org.sonar.db.DbTester;
+import org.sonar.scanner.protocol.output.FileStructure;
+import org.sonar.scanner.protocol.output.SingleFileReport;
 import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportDirectoryHolderImpl;
 import org.sonar.server.computation.task.projectanalysis.batch.MutableBatchReportDirectoryHolder;
@@ -87,6 +89,25 @@ public class ExtractReportStepTest {
     assertThat(new File(unzippedDir, "metadata.pb")).hasContent("{metadata}");
   }
 
+  @Test
+  public void copy_report_stored_in_a_single_file_without_extracting_it() throws Exception {
+    File reportDir = tempFolder.newDir();
+    FileUtils.write(new File(reportDir, "metadata.pb"), "{metadata}");
+    File reportFile = tempFolder.newFile();
+    SingleFileReport.pack(reportDir, reportFile);
+    try (InputStream input = FileUtils.openInputStream(reportFile)) {
+      dbTester.getDbClient().ceTaskInputDao().insert(dbTester.getSession(), TASK_UUID, input);
+    }
+    dbTester.getSession().commit();
+    dbTester.getSession().close();
+
+    underTest.execute();
+
+    File dir = reportDirectoryHolder.getDirectory();
+    assertThat(dir.listFiles()).containsOnly(new File(dir, FileStructure.SINGLE_FILE_REPORT));
+    assertThat(new File(dir, FileStructure.SINGLE_FILE_REPORT)).hasSameContentAs(reportFile);
+  }
+
   private File generateReport() throws IOException {
     File zipDir = tempFolder.newDir();
     File metadataFile = new File(zipDir, "metadata.pb");
@@ -25,6 +25,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
@@ -281,7 +282,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     long past = 150000L;
     String srcHash = "137f72c3708c6bd0de00a0e5a69c699b";
     String lineHashes = "137f72c3708c6bd0de00a0e5a69c699b";
-    String dataHash = "29f25900140c94db38035128cb6de6a2";
+    String dataHash = "8d77ca075396e0c69e328e31cf58cea0";
 
     dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
       .setProjectUuid(PROJECT_UUID)
@@ -362,7 +363,7 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
       .setDataType(Type.SOURCE)
       // Source hash is missing, update will be made
       .setLineHashes("137f72c3708c6bd0de00a0e5a69c699b")
-      .setDataHash("29f25900140c94db38035128cb6de6a2")
+      .setDataHash("8d77ca075396e0c69e328e31cf58cea0")
       .setSourceData(DbFileSources.Data.newBuilder()
         .addLines(DbFileSources.Line.newBuilder()
           .setLine(1)
@@ -456,6 +457,47 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getRevision()).isNull();
   }
 
+  @Test
+  public void persist_sources_of_files_concurrently() {
+    CeConfiguration ceConfiguration = mock(CeConfiguration.class);
+    when(ceConfiguration.getComputationStepThreadCount()).thenReturn(3);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository,
+      ceConfiguration);
+    int nbFiles = 20;
+    ReportComponent.Builder module = ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY");
+    for (int i = 1; i <= nbFiles; i++) {
+      int ref = 10 + i;
+      module.addChildren(ReportComponent.builder(Component.Type.FILE, ref).setUuid("FILE_" + i).setKey("MODULE_KEY:src/Foo" + i + ".java")
+        .setFileAttributes(new FileAttributes(false, null, i)).build());
+      for (int line = 1; line <= i; line++) {
+        fileSourceRepository.addLine(ref, "file" + i + "_line" + line);
+      }
+    }
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(module.build()).build());
+    dbClient.fileSourceDao().insert(session, new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid("FILE_7")
+      .setDataType(Type.SOURCE)
+      .setSourceData(DbFileSources.Data.newBuilder().addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("old")).build())
+      .setDataHash("OLD_HASH")
+      .setSrcHash("OLD_SRC_HASH")
+      .setCreatedAt(NOW - 1)
+      .setUpdatedAt(NOW - 1));
+    session.commit();
+
+    underTest.execute();
+
+    assertThat(dbTester.countRowsOfTable("file_sources")).isEqualTo(nbFiles);
+    for (int i = 1; i <= nbFiles; i++) {
+      DbFileSources.Data data = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_" + i).getSourceData();
+      assertThat(data.getLinesCount()).isEqualTo(i);
+      assertThat(data.getLines(i - 1).getSource()).isEqualTo("file" + i + "_line" + i);
+    }
+    FileSourceDto updatedDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, "FILE_7");
+    assertThat(updatedDto.getCreatedAt()).isEqualTo(NOW - 1);
+    assertThat(updatedDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
   private void initBasicReport(int numberOfLines) {
     treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
       ReportComponent.builder(Component.Type.MODULE, 2).setUuid("MODULE").setKey("MODULE_KEY").addChildren(
@@ -144,6 +144,63 @@ public class ReportComputeMeasureVariationsStepTest {
     assertThat(measureRepository.getRawMeasure(directory, ISSUES_METRIC).get().getVariation()).isEqualTo(10d);
   }
 
+  @Test
+  public void set_variation_from_measures_of_period_analysis_only() {
+    SnapshotDto period1Snapshot = newAnalysis(project);
+    SnapshotDto otherSnapshot = newAnalysis(project);
+    dbClient.snapshotDao().insert(session, period1Snapshot, otherSnapshot);
+    ComponentDto directoryDto = ComponentTesting.newDirectory(project, "dir");
+    dbClient.componentDao().insert(session, directoryDto);
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), PROJECT_UUID, period1Snapshot.getUuid(), 60d));
+    dbClient.measureDao().insert(session, newMeasureDto(DEBT_METRIC.getId(), directoryDto.uuid(), period1Snapshot.getUuid(), 5d));
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), PROJECT_UUID, otherSnapshot.getUuid(), 70d));
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), directoryDto.uuid(), otherSnapshot.getUuid(), 15d));
+    session.commit();
+
+    periodsHolder.setPeriod(newPeriod(period1Snapshot));
+
+    Component directory = ReportComponent.builder(Component.Type.DIRECTORY, 2).setUuid(directoryDto.uuid()).build();
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).addChildren(directory).build();
+    treeRootHolder.setRoot(project);
+
+    addRawMeasure(project, ISSUES_METRIC, newMeasureBuilder().create(80, null));
+    addRawMeasure(directory, ISSUES_METRIC, newMeasureBuilder().create(20, null));
+    addRawMeasure(directory, DEBT_METRIC, newMeasureBuilder().create(8L, null));
+
+    underTest.execute();
+
+    assertThat(measureRepository.getRawMeasure(project, ISSUES_METRIC).get().getVariation()).isEqualTo(20d);
+    assertThat(measureRepository.getRawMeasure(directory, ISSUES_METRIC).get().getVariation()).isEqualTo(20d);
+    assertThat(measureRepository.getRawMeasure(directory, DEBT_METRIC).get().getVariation()).isEqualTo(3d);
+  }
+
+  @Test
+  public void ignore_measures_of_files_on_period_analysis() {
+    SnapshotDto period1Snapshot = newAnalysis(project);
+    dbClient.snapshotDao().insert(session, period1Snapshot);
+    ComponentDto directoryDto = ComponentTesting.newDirectory(project, "dir");
+    ComponentDto fileDto = ComponentTesting.newFileDto(project, directoryDto);
+    dbClient.componentDao().insert(session, directoryDto, fileDto);
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), directoryDto.uuid(), period1Snapshot.getUuid(), 10d));
+    dbClient.measureDao().insert(session, newMeasureDto(ISSUES_METRIC.getId(), fileDto.uuid(), period1Snapshot.getUuid(), 4d));
+    session.commit();
+
+    periodsHolder.setPeriod(newPeriod(period1Snapshot));
+
+    Component file = ReportComponent.builder(Component.Type.FILE, 3).setUuid(fileDto.uuid()).build();
+    Component directory = ReportComponent.builder(Component.Type.DIRECTORY, 2).setUuid(directoryDto.uuid()).addChildren(file).build();
+    Component project = ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).addChildren(directory).build();
+    treeRootHolder.setRoot(project);
+
+    addRawMeasure(directory, ISSUES_METRIC, newMeasureBuilder().create(15, null));
+    addRawMeasure(file, ISSUES_METRIC, newMeasureBuilder().create(6, null));
+
+    underTest.execute();
+
+    assertThat(measureRepository.getRawMeasure(directory, ISSUES_METRIC).get().getVariation()).isEqualTo(5d);
+    assertThat(measureRepository.getRawMeasure(file, ISSUES_METRIC).get().hasVariation()).isFalse();
+  }
+
   @Test
   public void set_zero_variation_when_no_change() {
     // Project
@@ -19,10 +19,12 @@
  */
 package org.sonar.server.computation.task.projectanalysis.webhook;
 
+import java.net.SocketTimeoutException;
 import okhttp3.HttpUrl;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.DisableOnDebug;
@@ -94,6 +96,19 @@ public class WebhookCallerImplTest {
     assertThat(delivery.getPayload()).isSameAs(PAYLOAD);
   }
 
+  @Test
+  public void timeout_of_webhook_overrides_timeouts_of_http_client() throws Exception {
+    Webhook webhook = new Webhook(PROJECT_UUID, CE_TASK_UUID, "my-webhook", server.url("/ping").toString(), 100);
+    server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+    WebhookDelivery delivery = newSender().call(webhook, PAYLOAD);
+
+    // the default read timeout of the HTTP client is 10 seconds
+    assertThat(delivery.getError().get()).isInstanceOf(SocketTimeoutException.class);
+    assertThat(delivery.getHttpStatus()).isEmpty();
+    assertThat(delivery.getWebhook()).isSameAs(webhook);
+  }
+
   @Test
   public void silently_catch_error_when_url_is_incorrect() throws Exception {
     Webhook webhook = new Webhook(PROJECT_UUID, CE_TASK_UUID, "my-webhook", "this_is_not_an_url");
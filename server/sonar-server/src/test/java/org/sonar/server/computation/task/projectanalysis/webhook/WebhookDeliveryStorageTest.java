@@ -20,6 +20,8 @@
 package org.sonar.server.computation.task.projectanalysis.webhook;
 
 import java.io.IOException;
+import java.util.List;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
@@ -27,7 +29,10 @@ import org.sonar.core.util.UuidFactory;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
 import org.sonar.db.webhook.WebhookDeliveryDto;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStorage.PendingDelivery;
+import org.sonar.server.platform.cluster.ClusterMock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -38,6 +43,7 @@ import static org.sonar.db.webhook.WebhookDbTesting.selectAllDeliveryUuids;
 public class WebhookDeliveryStorageTest {
 
   private static final String DELIVERY_UUID = "abcde1234";
+  private static final String NODE_UUID = "node1";
   private static final long NOW = 1_500_000_000_000L;
   private static final long TWO_MONTHS_AGO = NOW - 60L * 24 * 60 * 60 * 1000;
   private static final long TWO_WEEKS_AGO = NOW - 14L * 24 * 60 * 60 * 1000;
@@ -50,7 +56,14 @@ public class WebhookDeliveryStorageTest {
   private DbClient dbClient = dbTester.getDbClient();
   private DbSession dbSession = dbTester.getSession();
   private UuidFactory uuidFactory = mock(UuidFactory.class);
-  private WebhookDeliveryStorage underTest = new WebhookDeliveryStorage(dbClient, system, uuidFactory);
+  private ClusterMock cluster = new ClusterMock();
+  private WebhookDeliveryStorage underTest;
+
+  @Before
+  public void setUp() {
+    when(uuidFactory.create()).thenReturn(NODE_UUID);
+    underTest = new WebhookDeliveryStorage(dbClient, system, uuidFactory, cluster);
+  }
 
   @Test
   public void persist_generates_uuid_then_inserts_record() {
@@ -70,6 +83,7 @@ public class WebhookDeliveryStorageTest {
     assertThat(dto.getDurationMs()).isEqualTo(delivery.getDurationInMs().get());
     assertThat(dto.getPayload()).isEqualTo(delivery.getPayload().getJson());
     assertThat(dto.getErrorStacktrace()).isNull();
+    assertThat(dto.isPending()).isFalse();
   }
 
   @Test
@@ -85,6 +99,108 @@ public class WebhookDeliveryStorageTest {
     assertThat(dto.getErrorStacktrace()).contains("java.io.IOException", "fail to connect");
   }
 
+  @Test
+  public void persistPending_inserts_record_without_result() {
+    when(uuidFactory.create()).thenReturn(DELIVERY_UUID);
+    when(system.now()).thenReturn(NOW);
+    Webhook webhook = new Webhook("COMPONENT1", "TASK1", "Jenkins", "http://jenkins", 5_000);
+
+    String uuid = underTest.persistPending(webhook, new WebhookPayload("my-project", "{json}"));
+
+    assertThat(uuid).isEqualTo(DELIVERY_UUID);
+    WebhookDeliveryDto dto = dbClient.webhookDeliveryDao().selectByUuid(dbSession, DELIVERY_UUID).get();
+    assertThat(dto.isPending()).isTrue();
+    assertThat(dto.isSuccess()).isFalse();
+    assertThat(dto.getComponentUuid()).isEqualTo("COMPONENT1");
+    assertThat(dto.getCeTaskUuid()).isEqualTo("TASK1");
+    assertThat(dto.getName()).isEqualTo("Jenkins");
+    assertThat(dto.getUrl()).isEqualTo("http://jenkins");
+    assertThat(dto.getTimeoutMs()).isEqualTo(5_000);
+    assertThat(dto.getPayload()).isEqualTo("{json}");
+    assertThat(dto.getCreatedAt()).isEqualTo(NOW);
+    assertThat(dto.getHttpStatus()).isNull();
+    assertThat(dto.getDurationMs()).isNull();
+    assertThat(dto.getNodeUuid()).isEqualTo(NODE_UUID);
+  }
+
+  @Test
+  public void complete_stores_result_of_pending_delivery() {
+    when(uuidFactory.create()).thenReturn(DELIVERY_UUID);
+    WebhookDelivery delivery = newBuilderTemplate().build();
+    underTest.persistPending(delivery.getWebhook(), delivery.getPayload());
+
+    underTest.complete(DELIVERY_UUID, delivery);
+
+    WebhookDeliveryDto dto = dbClient.webhookDeliveryDao().selectByUuid(dbSession, DELIVERY_UUID).get();
+    assertThat(dto.isPending()).isFalse();
+    assertThat(dto.isSuccess()).isTrue();
+    assertThat(dto.getHttpStatus()).isEqualTo(200);
+    assertThat(dto.getDurationMs()).isEqualTo(1_000);
+    assertThat(dto.getCreatedAt()).isEqualTo(delivery.getAt());
+    assertThat(dto.getNodeUuid()).isNull();
+    assertThat(selectAllDeliveryUuids(dbTester, dbSession)).containsExactly(DELIVERY_UUID);
+  }
+
+  @Test
+  public void claimPending_returns_pending_deliveries_of_existing_projects() {
+    ComponentDto project = dbTester.components().insertPrivateProject(dbTester.organizations().insert());
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D1", project.uuid(), NOW).setPending(true).setTimeoutMs(5_000));
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D2", project.uuid(), NOW).setPending(false));
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D3", "DELETED_PROJECT", NOW).setPending(true));
+    dbSession.commit();
+
+    List<PendingDelivery> pending = underTest.claimPending();
+
+    assertThat(pending).extracting(PendingDelivery::getUuid).containsExactly("D1");
+    WebhookDeliveryDto dto = dbClient.webhookDeliveryDao().selectByUuid(dbSession, "D1").get();
+    PendingDelivery delivery = pending.get(0);
+    assertThat(delivery.getWebhook().getComponentUuid()).isEqualTo(project.uuid());
+    assertThat(delivery.getWebhook().getCeTaskUuid()).isEqualTo(dto.getCeTaskUuid());
+    assertThat(delivery.getWebhook().getName()).isEqualTo(dto.getName());
+    assertThat(delivery.getWebhook().getUrl()).isEqualTo(dto.getUrl());
+    assertThat(delivery.getWebhook().getTimeoutMs()).contains(5_000);
+    assertThat(delivery.getPayload().getProjectKey()).isEqualTo(project.getKey());
+    assertThat(delivery.getPayload().getJson()).isEqualTo(dto.getPayload());
+    assertThat(dto.getNodeUuid()).isEqualTo(NODE_UUID);
+    assertThat(selectNodeUuid("D3")).isNull();
+  }
+
+  @Test
+  public void claimPending_ignores_deliveries_claimed_by_another_node_when_cluster_is_enabled() {
+    cluster.setEnabled(true);
+    underTest = new WebhookDeliveryStorage(dbClient, system, uuidFactory, cluster);
+    ComponentDto project = dbTester.components().insertPrivateProject(dbTester.organizations().insert());
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D1", project.uuid(), NOW).setPending(true).setNodeUuid("OTHER_NODE"));
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D2", project.uuid(), NOW).setPending(true));
+    dbSession.commit();
+
+    assertThat(underTest.claimPending()).extracting(PendingDelivery::getUuid).containsExactly("D2");
+    assertThat(selectNodeUuid("D1")).isEqualTo("OTHER_NODE");
+    assertThat(selectNodeUuid("D2")).isEqualTo(NODE_UUID);
+  }
+
+  @Test
+  public void claimPending_claims_deliveries_of_previous_execution_when_cluster_is_disabled() {
+    ComponentDto project = dbTester.components().insertPrivateProject(dbTester.organizations().insert());
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D1", project.uuid(), NOW).setPending(true).setNodeUuid("PREVIOUS_EXECUTION"));
+    dbSession.commit();
+
+    assertThat(underTest.claimPending()).extracting(PendingDelivery::getUuid).containsExactly("D1");
+    assertThat(selectNodeUuid("D1")).isEqualTo(NODE_UUID);
+  }
+
+  @Test
+  public void releasePending_releases_deliveries_claimed_by_the_node() {
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D1", "PROJECT_1", NOW).setPending(true).setNodeUuid(NODE_UUID));
+    dbClient.webhookDeliveryDao().insert(dbSession, newDto("D2", "PROJECT_1", NOW).setPending(true).setNodeUuid("OTHER_NODE"));
+    dbSession.commit();
+
+    underTest.releasePending();
+
+    assertThat(selectNodeUuid("D1")).isNull();
+    assertThat(selectNodeUuid("D2")).isEqualTo("OTHER_NODE");
+  }
+
   @Test
   public void purge_deletes_records_older_than_one_month_on_the_project() {
     when(system.now()).thenReturn(NOW);
@@ -99,6 +215,10 @@ public class WebhookDeliveryStorageTest {
     assertThat(selectAllDeliveryUuids(dbTester, dbSession)).containsOnly("D2", "D3");
   }
 
+  private String selectNodeUuid(String deliveryUuid) {
+    return dbClient.webhookDeliveryDao().selectByUuid(dbSession, deliveryUuid).get().getNodeUuid();
+  }
+
   private static WebhookDelivery.Builder newBuilderTemplate() {
     return new WebhookDelivery.Builder()
       .setWebhook(new Webhook("COMPONENT1", "TASK1", "Jenkins", "http://jenkins"))
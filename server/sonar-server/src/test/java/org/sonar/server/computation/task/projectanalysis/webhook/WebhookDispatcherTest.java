@@ -0,0 +1,299 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.webhook;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.server.computation.task.projectanalysis.webhook.WebhookDeliveryStorage.PendingDelivery;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WebhookDispatcherTest {
+
+  private static final long NOW = 1_500_000_000_000L;
+
+  @Rule
+  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
+
+  private final TestWebhookCaller caller = new TestWebhookCaller();
+  private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
+  private final System2 system = mock(System2.class);
+  private final WebhookPayload payload = new WebhookPayload("P1", "{json}");
+  private WebhookDispatcher underTest = new WebhookDispatcher(caller, deliveryStorage, system, 10L, 20L);
+
+  @Before
+  public void setUp() {
+    when(deliveryStorage.persistPending(any(Webhook.class), any(WebhookPayload.class)))
+      .thenAnswer(invocation -> "D_" + ((Webhook) invocation.getArguments()[0]).getName());
+    when(deliveryStorage.claimPending()).thenReturn(Collections.emptyList());
+  }
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void send_webhook_and_persist_delivery() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+    underTest.start();
+
+    Webhook webhook = newWebhook("First");
+    underTest.dispatch(webhook, payload);
+
+    verify(deliveryStorage).persistPending(webhook, payload);
+    WebhookDelivery delivery = awaitCompletedDeliveries("D_First", 1).get(0);
+    assertThat(delivery.isSuccess()).isTrue();
+    assertThat(delivery.getWebhook().getName()).isEqualTo("First");
+    assertThat(caller.countSent()).isEqualTo(1);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url/First | time=1234ms | status=200");
+  }
+
+  @Test
+  public void retry_on_connectivity_errors_and_server_errors() {
+    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    caller.enqueueSuccess(NOW, 503, 10);
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest.start();
+
+    underTest.dispatch(newWebhook("First"), payload);
+
+    WebhookDelivery delivery = awaitCompletedDeliveries("D_First", 1).get(0);
+    assertThat(delivery.getHttpStatus()).contains(200);
+    assertThat(caller.countSent()).isEqualTo(3);
+  }
+
+  @Test
+  public void do_not_retry_on_client_errors() {
+    caller.enqueueSuccess(NOW, 404, 10);
+    underTest.start();
+
+    underTest.dispatch(newWebhook("First"), payload);
+
+    WebhookDelivery delivery = awaitCompletedDeliveries("D_First", 1).get(0);
+    assertThat(delivery.getHttpStatus()).contains(404);
+    assertThat(caller.countSent()).isEqualTo(1);
+  }
+
+  @Test
+  public void persist_failure_when_all_attempts_fail() {
+    for (int i = 0; i < WebhookDispatcher.MAX_ATTEMPTS; i++) {
+      caller.enqueueFailure(NOW, new IOException("Fail to connect"));
+    }
+    underTest.start();
+
+    underTest.dispatch(newWebhook("First"), payload);
+
+    WebhookDelivery delivery = awaitCompletedDeliveries("D_First", 1).get(0);
+    assertThat(delivery.getErrorMessage()).contains("Fail to connect");
+    assertThat(caller.countSent()).isEqualTo(WebhookDispatcher.MAX_ATTEMPTS);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to send webhook 'First' | url=http://url/First | message=Fail to connect");
+  }
+
+  @Test
+  public void send_webhooks_concurrently() throws Exception {
+    CountDownLatch allCalled = new CountDownLatch(WebhookDispatcher.THREADS);
+    WebhookCaller blockingCaller = mock(WebhookCaller.class);
+    when(blockingCaller.call(any(Webhook.class), any(WebhookPayload.class))).thenAnswer(invocation -> {
+      allCalled.countDown();
+      allCalled.await(10, TimeUnit.SECONDS);
+      return new WebhookDelivery.Builder()
+        .setWebhook((Webhook) invocation.getArguments()[0])
+        .setPayload(payload)
+        .setHttpStatus(200)
+        .build();
+    });
+    underTest = new WebhookDispatcher(blockingCaller, deliveryStorage, system, 10L);
+    underTest.start();
+
+    for (int i = 0; i < WebhookDispatcher.THREADS; i++) {
+      underTest.dispatch(newWebhook("W" + i), payload);
+    }
+
+    // calls would block each other if they were not concurrent
+    assertThat(allCalled.await(10, TimeUnit.SECONDS)).isTrue();
+    verify(deliveryStorage, timeout(10_000).times(WebhookDispatcher.THREADS)).complete(anyString(), any(WebhookDelivery.class));
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage, times(WebhookDispatcher.THREADS)).complete(anyString(), captor.capture());
+    assertThat(captor.getAllValues()).allMatch(WebhookDelivery::isSuccess);
+  }
+
+  @Test
+  public void keep_deliveries_pending_on_stop() throws Exception {
+    underTest = new WebhookDispatcher(newFailingCaller(), deliveryStorage, system, 3_600_000L);
+    underTest.start();
+    underTest.dispatch(newWebhook("First"), payload);
+    awaitLog("Webhook 'First' | url=http://url/First | attempt 1 failed, retrying in 3600000ms");
+
+    underTest.stop();
+
+    assertThat(underTest.countPendingDeliveries()).isEqualTo(0);
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Webhook 'First' | url=http://url/First | delivery will be resumed on next startup");
+    verify(deliveryStorage, never()).complete(anyString(), any(WebhookDelivery.class));
+    verify(deliveryStorage, never()).persist(any(WebhookDelivery.class));
+    verify(deliveryStorage).releasePending();
+  }
+
+  @Test
+  public void stop_even_if_pending_deliveries_can_not_be_released() {
+    doThrow(new IllegalStateException("db is down")).when(deliveryStorage).releasePending();
+    underTest.start();
+
+    underTest.stop();
+
+    assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Failed to release pending webhook deliveries");
+  }
+
+  @Test
+  public void resume_pending_deliveries_on_start() {
+    caller.enqueueSuccess(NOW, 200, 10);
+    Webhook webhook = newWebhook("First");
+    when(deliveryStorage.claimPending()).thenReturn(Collections.singletonList(new PendingDelivery("D1", webhook, payload)));
+
+    underTest.start();
+
+    WebhookDelivery delivery = awaitCompletedDeliveries("D1", 1).get(0);
+    assertThat(delivery.isSuccess()).isTrue();
+    assertThat(delivery.getWebhook()).isSameAs(webhook);
+    verify(deliveryStorage, never()).persistPending(any(Webhook.class), any(WebhookPayload.class));
+    assertThat(logTester.logs(LoggerLevel.INFO)).contains("Resume 1 pending webhook deliveries");
+  }
+
+  @Test
+  public void start_even_if_pending_deliveries_can_not_be_loaded() {
+    when(deliveryStorage.claimPending()).thenThrow(new IllegalStateException("db is down"));
+    caller.enqueueSuccess(NOW, 200, 10);
+
+    underTest.start();
+    underTest.dispatch(newWebhook("First"), payload);
+
+    assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Failed to load pending webhook deliveries");
+    assertThat(awaitCompletedDeliveries("D_First", 1).get(0).isSuccess()).isTrue();
+  }
+
+  @Test
+  public void send_webhook_even_if_it_can_not_be_persisted_as_pending() {
+    doThrow(new IllegalStateException("db is down")).when(deliveryStorage).persistPending(any(Webhook.class), any(WebhookPayload.class));
+    caller.enqueueSuccess(NOW, 200, 10);
+    underTest.start();
+
+    underTest.dispatch(newWebhook("First"), payload);
+
+    WebhookDelivery delivery = awaitPersistedDeliveries(1).get(0);
+    assertThat(delivery.isSuccess()).isTrue();
+    assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Failed to persist pending delivery of webhook 'First'");
+  }
+
+  @Test
+  public void persist_failure_on_stop_of_deliveries_which_are_not_persisted_as_pending() throws Exception {
+    doThrow(new IllegalStateException("db is down")).when(deliveryStorage).persistPending(any(Webhook.class), any(WebhookPayload.class));
+    // retry is scheduled in one hour
+    underTest = new WebhookDispatcher(newFailingCaller(), deliveryStorage, system, 3_600_000L);
+    underTest.start();
+    underTest.dispatch(newWebhook("First"), payload);
+    awaitLog("Webhook 'First' | url=http://url/First | attempt 1 failed, retrying in 3600000ms");
+
+    underTest.stop();
+
+    WebhookDelivery delivery = awaitPersistedDeliveries(1).get(0);
+    assertThat(delivery.isSuccess()).isFalse();
+    assertThat(delivery.getErrorMessage()).contains("Compute Engine stopped before webhook is delivered");
+    assertThat(underTest.countPendingDeliveries()).isEqualTo(0);
+  }
+
+  @Test
+  public void persist_failure_if_not_started() {
+    underTest.dispatch(newWebhook("First"), payload);
+
+    WebhookDelivery delivery = awaitPersistedDeliveries(1).get(0);
+    assertThat(delivery.getErrorMessage()).contains("Compute Engine is not started");
+    assertThat(caller.countSent()).isEqualTo(0);
+    verify(deliveryStorage, never()).persistPending(any(Webhook.class), any(WebhookPayload.class));
+  }
+
+  @Test
+  public void failure_to_persist_delivery_is_logged() {
+    caller.enqueueSuccess(NOW, 200, 1_234);
+    doThrow(new IllegalStateException("db is down")).when(deliveryStorage).complete(anyString(), any(WebhookDelivery.class));
+    underTest.start();
+
+    underTest.dispatch(newWebhook("First"), payload);
+
+    awaitCompletedDeliveries("D_First", 1);
+    underTest.stop();
+    assertThat(logTester.logs(LoggerLevel.ERROR)).contains("Failed to persist delivery of webhook 'First'");
+  }
+
+  private List<WebhookDelivery> awaitCompletedDeliveries(String deliveryUuid, int count) {
+    verify(deliveryStorage, timeout(10_000).times(count)).complete(eq(deliveryUuid), any(WebhookDelivery.class));
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage, times(count)).complete(eq(deliveryUuid), captor.capture());
+    return captor.getAllValues();
+  }
+
+  private List<WebhookDelivery> awaitPersistedDeliveries(int count) {
+    verify(deliveryStorage, timeout(10_000).times(count)).persist(any(WebhookDelivery.class));
+    ArgumentCaptor<WebhookDelivery> captor = ArgumentCaptor.forClass(WebhookDelivery.class);
+    verify(deliveryStorage, times(count)).persist(captor.capture());
+    return captor.getAllValues();
+  }
+
+  private void awaitLog(String log) throws InterruptedException {
+    for (int i = 0; i < 1_000 && !logTester.logs(LoggerLevel.DEBUG).contains(log); i++) {
+      Thread.sleep(10L);
+    }
+    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains(log);
+  }
+
+  private WebhookCaller newFailingCaller() {
+    WebhookCaller failingCaller = mock(WebhookCaller.class);
+    when(failingCaller.call(any(Webhook.class), any(WebhookPayload.class))).thenAnswer(invocation -> new WebhookDelivery.Builder()
+      .setWebhook((Webhook) invocation.getArguments()[0])
+      .setPayload(payload)
+      .setHttpStatus(500)
+      .build());
+    return failingCaller;
+  }
+
+  private static Webhook newWebhook(String name) {
+    return new Webhook("P1_UUID", "TASK_1", name, "http://url/" + name);
+  }
+}
@@ -19,22 +19,23 @@
  */
 package org.sonar.server.computation.task.projectanalysis.webhook;
 
-import java.io.IOException;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.junit.Rule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.sonar.api.ce.posttask.CeTask;
 import org.sonar.api.ce.posttask.PostProjectAnalysisTaskTester;
 import org.sonar.api.config.MapSettings;
-import org.sonar.api.utils.log.LogTester;
-import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.server.computation.task.projectanalysis.component.SettingsRepository;
 import org.sonar.server.computation.task.projectanalysis.component.TestSettingsRepository;
 import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -47,17 +48,13 @@ import static org.sonar.server.computation.task.projectanalysis.component.Report
 
 public class WebhookPostTaskTest {
 
-  private static final long NOW = 1_500_000_000_000L;
   private static final String PROJECT_UUID = "P1_UUID";
 
-  @Rule
-  public LogTester logTester = new LogTester().setLevel(LoggerLevel.DEBUG);
-
   @Rule
   public TreeRootHolderRule rootHolder = new TreeRootHolderRule().setRoot(DUMB_PROJECT);
 
   private final MapSettings settings = new MapSettings();
-  private final TestWebhookCaller caller = new TestWebhookCaller();
+  private final WebhookDispatcher dispatcher = mock(WebhookDispatcher.class);
   private final WebhookPayloadFactory payloadFactory = new TestWebhookPayloadFactory();
   private final WebhookDeliveryStorage deliveryStorage = mock(WebhookDeliveryStorage.class);
 
@@ -65,9 +62,7 @@ public class WebhookPostTaskTest {
   public void do_nothing_if_no_webhooks() {
     execute();
 
-    assertThat(caller.countSent()).isEqualTo(0);
-    assertThat(logTester.logs(LoggerLevel.DEBUG)).isEmpty();
-    verifyZeroInteractions(deliveryStorage);
+    verifyZeroInteractions(dispatcher, deliveryStorage);
   }
 
   @Test
@@ -77,15 +72,12 @@ public class WebhookPostTaskTest {
     settings.setProperty("sonar.webhooks.global.1.url", "http://url1");
     settings.setProperty("sonar.webhooks.global.2.name", "Second");
     settings.setProperty("sonar.webhooks.global.2.url", "http://url2");
-    caller.enqueueSuccess(NOW, 200, 1_234);
-    caller.enqueueFailure(NOW, new IOException("Fail to connect"));
 
     execute();
 
-    assertThat(caller.countSent()).isEqualTo(2);
-    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
-    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Failed to send webhook 'Second' | url=http://url2 | message=Fail to connect");
-    verify(deliveryStorage, times(2)).persist(any(WebhookDelivery.class));
+    assertThat(dispatchedWebhooks(2))
+      .extracting(Webhook::getName, Webhook::getUrl, Webhook::getComponentUuid, Webhook::getCeTaskUuid)
+      .containsExactly(tuple("First", "http://url1", PROJECT_UUID, "#1"), tuple("Second", "http://url2", PROJECT_UUID, "#1"));
     verify(deliveryStorage).purge(PROJECT_UUID);
   }
 
@@ -94,16 +86,34 @@ public class WebhookPostTaskTest {
     settings.setProperty("sonar.webhooks.project", "1");
     settings.setProperty("sonar.webhooks.project.1.name", "First");
     settings.setProperty("sonar.webhooks.project.1.url", "http://url1");
-    caller.enqueueSuccess(NOW, 200, 1_234);
 
     execute();
 
-    assertThat(caller.countSent()).isEqualTo(1);
-    assertThat(logTester.logs(LoggerLevel.DEBUG)).contains("Sent webhook 'First' | url=http://url1 | time=1234ms | status=200");
-    verify(deliveryStorage).persist(any(WebhookDelivery.class));
+    assertThat(dispatchedWebhooks(1))
+      .extracting(Webhook::getName, Webhook::getUrl)
+      .containsExactly(tuple("First", "http://url1"));
     verify(deliveryStorage).purge(PROJECT_UUID);
   }
 
+  @Test
+  public void send_webhooks_with_their_timeout() {
+    settings.setProperty("sonar.webhooks.project", "1,2,3");
+    settings.setProperty("sonar.webhooks.project.1.name", "First");
+    settings.setProperty("sonar.webhooks.project.1.url", "http://url1");
+    settings.setProperty("sonar.webhooks.project.1.timeout", "3");
+    settings.setProperty("sonar.webhooks.project.2.name", "Second");
+    settings.setProperty("sonar.webhooks.project.2.url", "http://url2");
+    settings.setProperty("sonar.webhooks.project.3.name", "Third");
+    settings.setProperty("sonar.webhooks.project.3.url", "http://url3");
+    settings.setProperty("sonar.webhooks.project.3.timeout", "not_a_number");
+
+    execute();
+
+    assertThat(dispatchedWebhooks(3))
+      .extracting(Webhook::getName, Webhook::getTimeoutMs)
+      .containsExactly(tuple("First", Optional.of(3_000)), tuple("Second", Optional.empty()), tuple("Third", Optional.empty()));
+  }
+
   @Test
   public void process_only_the_10_first_global_webhooks() {
     testMaxWebhooks("sonar.webhooks.global");
@@ -119,19 +129,23 @@ public class WebhookPostTaskTest {
       .forEach(i -> {
         settings.setProperty(property + "." + i + ".name", "First");
         settings.setProperty(property + "." + i + ".url", "http://url");
-        caller.enqueueSuccess(NOW, 200, 1_234);
       });
     settings.setProperty(property, IntStream.range(1, 15).mapToObj(String::valueOf).collect(Collectors.joining(",")));
 
     execute();
 
-    assertThat(caller.countSent()).isEqualTo(10);
-    assertThat(logTester.logs(LoggerLevel.DEBUG).stream().filter(log -> log.contains("Sent"))).hasSize(10);
+    verify(dispatcher, times(10)).dispatch(any(Webhook.class), any(WebhookPayload.class));
+  }
+
+  private List<Webhook> dispatchedWebhooks(int expectedCount) {
+    ArgumentCaptor<Webhook> captor = ArgumentCaptor.forClass(Webhook.class);
+    verify(dispatcher, times(expectedCount)).dispatch(captor.capture(), any(WebhookPayload.class));
+    return captor.getAllValues();
   }
 
   private void execute() {
     SettingsRepository settingsRepository = new TestSettingsRepository(settings);
-    WebhookPostTask task = new WebhookPostTask(rootHolder, settingsRepository, payloadFactory, caller, deliveryStorage);
+    WebhookPostTask task = new WebhookPostTask(rootHolder, settingsRepository, payloadFactory, dispatcher, deliveryStorage);
 
     PostProjectAnalysisTaskTester.of(task)
       .at(new Date())
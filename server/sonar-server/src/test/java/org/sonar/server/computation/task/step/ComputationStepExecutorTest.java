@@ -27,11 +27,15 @@ import org.junit.rules.ExpectedException;
 import org.mockito.InOrder;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.ce.configuration.CeConfiguration;
 import org.sonar.server.computation.task.ChangeLogLevel;
+import org.sonar.server.computation.task.profile.TaskProfiler;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
@@ -65,6 +69,22 @@ public class ComputationStepExecutorTest {
     inOrder.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void execute_calls_execute_on_each_ComputationStep_when_step_thread_count_is_greater_than_1() {
+    CeConfiguration ceConfiguration = mock(CeConfiguration.class);
+    when(ceConfiguration.getComputationStepThreadCount()).thenReturn(4);
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2, computationStep3), listener, ceConfiguration, null)
+      .execute();
+
+    // ComputationStep which are not ConcurrentComputationStep are executed sequentially
+    InOrder inOrder = inOrder(computationStep1, computationStep2, computationStep3);
+    inOrder.verify(computationStep1).execute();
+    inOrder.verify(computationStep2).execute();
+    inOrder.verify(computationStep3).execute();
+    verify(listener).finished(true);
+  }
+
   @Test
   public void execute_let_exception_thrown_by_ComputationStep_go_up_as_is() {
     String message = "Exception should go up";
@@ -152,6 +172,33 @@ public class ComputationStepExecutorTest {
     new ComputationStepExecutor(mockComputationSteps(computationStep1), listener).execute();
   }
 
+  @Test
+  public void execute_records_duration_of_each_ComputationStep_in_TaskProfiler() {
+    TaskProfiler taskProfiler = mock(TaskProfiler.class);
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener, null, taskProfiler)
+      .execute();
+
+    InOrder inOrder = inOrder(taskProfiler);
+    inOrder.verify(taskProfiler).addStep(eq("step1"), anyLong());
+    inOrder.verify(taskProfiler).addStep(eq("step2"), anyLong());
+    inOrder.verifyNoMoreInteractions();
+  }
+
+  @Test
+  public void execute_records_duration_of_each_ComputationStep_in_TaskProfiler_when_step_thread_count_is_greater_than_1() {
+    CeConfiguration ceConfiguration = mock(CeConfiguration.class);
+    when(ceConfiguration.getComputationStepThreadCount()).thenReturn(4);
+    TaskProfiler taskProfiler = mock(TaskProfiler.class);
+
+    new ComputationStepExecutor(mockComputationSteps(computationStep1, computationStep2), listener, ceConfiguration, taskProfiler)
+      .execute();
+
+    verify(taskProfiler).addStep(eq("step1"), anyLong());
+    verify(taskProfiler).addStep(eq("step2"), anyLong());
+    verifyNoMoreInteractions(taskProfiler);
+  }
+
   private static ComputationSteps mockComputationSteps(ComputationStep... computationSteps) {
     ComputationSteps steps = mock(ComputationSteps.class);
     when(steps.instances()).thenReturn(Arrays.asList(computationSteps));
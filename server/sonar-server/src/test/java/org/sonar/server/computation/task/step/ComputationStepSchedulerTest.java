@@ -0,0 +1,186 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.step;
+
+import com.google.common.collect.ImmutableSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class ComputationStepSchedulerTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private final List<String> executed = Collections.synchronizedList(new ArrayList<>());
+
+  @Test
+  public void non_concurrent_steps_always_conflict() {
+    ComputationStep plain = new PlainStep("plain");
+    ComputationStep concurrent = new Step("concurrent", ImmutableSet.of(), ImmutableSet.of("a"));
+
+    assertThat(ComputationStepScheduler.conflict(plain, concurrent)).isTrue();
+    assertThat(ComputationStepScheduler.conflict(concurrent, plain)).isTrue();
+    assertThat(ComputationStepScheduler.conflict(plain, plain)).isTrue();
+  }
+
+  @Test
+  public void concurrent_steps_conflict_when_one_writes_what_the_other_reads_or_writes() {
+    Step writesA = new Step("1", ImmutableSet.of(), ImmutableSet.of("a"));
+    Step readsA = new Step("2", ImmutableSet.of("a"), ImmutableSet.of("b"));
+    Step writesAToo = new Step("3", ImmutableSet.of(), ImmutableSet.of("a"));
+    Step writesC = new Step("4", ImmutableSet.of("d"), ImmutableSet.of("c"));
+
+    assertThat(ComputationStepScheduler.conflict(writesA, readsA)).isTrue();
+    assertThat(ComputationStepScheduler.conflict(readsA, writesA)).isTrue();
+    assertThat(ComputationStepScheduler.conflict(writesA, writesAToo)).isTrue();
+    assertThat(ComputationStepScheduler.conflict(writesA, writesC)).isFalse();
+    assertThat(ComputationStepScheduler.conflict(readsA, writesC)).isFalse();
+  }
+
+  @Test
+  public void independent_steps_are_executed_concurrently() throws InterruptedException {
+    CountDownLatch bothStarted = new CountDownLatch(2);
+    Step step1 = new Step("1", ImmutableSet.of(), ImmutableSet.of("a"), () -> awaitOther(bothStarted));
+    Step step2 = new Step("2", ImmutableSet.of(), ImmutableSet.of("b"), () -> awaitOther(bothStarted));
+
+    new ComputationStepScheduler(Arrays.asList(step1, step2)).execute(2, ComputationStep::execute);
+
+    assertThat(executed).containsOnly("1", "2");
+  }
+
+  @Test
+  public void conflicting_steps_are_executed_in_list_order() {
+    ComputationStep first = new PlainStep("first");
+    Step writesA = new Step("writesA", ImmutableSet.of(), ImmutableSet.of("a"));
+    Step writesB = new Step("writesB", ImmutableSet.of(), ImmutableSet.of("b"));
+    Step readsAAndB = new Step("readsAAndB", ImmutableSet.of("a", "b"), ImmutableSet.of("c"));
+    ComputationStep last = new PlainStep("last");
+
+    new ComputationStepScheduler(Arrays.asList(first, writesA, writesB, readsAAndB, last)).execute(4, ComputationStep::execute);
+
+    assertThat(executed).hasSize(5);
+    assertThat(executed.get(0)).isEqualTo("first");
+    assertThat(executed.subList(1, 3)).containsOnly("writesA", "writesB");
+    assertThat(executed.get(3)).isEqualTo("readsAAndB");
+    assertThat(executed.get(4)).isEqualTo("last");
+  }
+
+  @Test
+  public void failure_of_a_step_is_propagated_as_is_and_prevents_execution_of_dependent_steps() {
+    RuntimeException failure = new RuntimeException("Faking failure of step");
+    Step failing = new Step("failing", ImmutableSet.of(), ImmutableSet.of("a"), () -> {
+      throw failure;
+    });
+    Step dependent = new Step("dependent", ImmutableSet.of("a"), ImmutableSet.of("b"));
+
+    try {
+      new ComputationStepScheduler(Arrays.asList(failing, dependent)).execute(2, ComputationStep::execute);
+      fail("failure should have been propagated");
+    } catch (RuntimeException e) {
+      assertThat(e).isSameAs(failure);
+    }
+    assertThat(executed).isEmpty();
+  }
+
+  @Test
+  public void execute_fails_with_IAE_if_thread_count_is_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("thread count must be strictly greater than 0");
+
+    new ComputationStepScheduler(Collections.emptyList()).execute(0, ComputationStep::execute);
+  }
+
+  private static void awaitOther(CountDownLatch bothStarted) {
+    bothStarted.countDown();
+    try {
+      assertThat(bothStarted.await(10, TimeUnit.SECONDS)).isTrue();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private class PlainStep implements ComputationStep {
+    private final String description;
+
+    private PlainStep(String description) {
+      this.description = description;
+    }
+
+    @Override
+    public void execute() {
+      executed.add(description);
+    }
+
+    @Override
+    public String getDescription() {
+      return description;
+    }
+  }
+
+  private class Step implements ConcurrentComputationStep {
+    private final String description;
+    private final Set<String> readKeys;
+    private final Set<String> writtenKeys;
+    private final Runnable action;
+
+    private Step(String description, Set<String> readKeys, Set<String> writtenKeys) {
+      this(description, readKeys, writtenKeys, () -> {
+      });
+    }
+
+    private Step(String description, Set<String> readKeys, Set<String> writtenKeys, Runnable action) {
+      this.description = description;
+      this.readKeys = readKeys;
+      this.writtenKeys = writtenKeys;
+      this.action = action;
+    }
+
+    @Override
+    public Set<String> getReadKeys() {
+      return readKeys;
+    }
+
+    @Override
+    public Set<String> getWrittenKeys() {
+      return writtenKeys;
+    }
+
+    @Override
+    public void execute() {
+      action.run();
+      executed.add(description);
+    }
+
+    @Override
+    public String getDescription() {
+      return description;
+    }
+  }
+}
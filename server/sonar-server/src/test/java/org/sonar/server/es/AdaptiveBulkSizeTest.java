@@ -0,0 +1,78 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.es.AdaptiveBulkSize.INITIAL_BYTES;
+import static org.sonar.server.es.AdaptiveBulkSize.MAX_BYTES;
+import static org.sonar.server.es.AdaptiveBulkSize.MIN_BYTES;
+
+public class AdaptiveBulkSizeTest {
+
+  private AdaptiveBulkSize underTest = new AdaptiveBulkSize();
+
+  @Test
+  public void initial_size_is_1mb() {
+    assertThat(underTest.get()).isEqualTo(INITIAL_BYTES).isEqualTo(1024L * 1024);
+  }
+
+  @Test
+  public void grow_when_bulk_requests_are_fast() {
+    underTest.onSuccess(10L);
+    assertThat(underTest.get()).isEqualTo(INITIAL_BYTES + INITIAL_BYTES / 4);
+
+    for (int i = 0; i < 100; i++) {
+      underTest.onSuccess(10L);
+    }
+    assertThat(underTest.get()).isEqualTo(MAX_BYTES);
+  }
+
+  @Test
+  public void do_not_change_when_latency_is_acceptable() {
+    underTest.onSuccess(AdaptiveBulkSize.FAST_BULK_MS);
+    underTest.onSuccess(AdaptiveBulkSize.SLOW_BULK_MS);
+
+    assertThat(underTest.get()).isEqualTo(INITIAL_BYTES);
+  }
+
+  @Test
+  public void shrink_when_bulk_requests_are_slow() {
+    underTest.onSuccess(AdaptiveBulkSize.SLOW_BULK_MS + 1);
+    assertThat(underTest.get()).isEqualTo(INITIAL_BYTES - INITIAL_BYTES / 4);
+
+    for (int i = 0; i < 100; i++) {
+      underTest.onSuccess(AdaptiveBulkSize.SLOW_BULK_MS + 1);
+    }
+    assertThat(underTest.get()).isEqualTo(MIN_BYTES);
+  }
+
+  @Test
+  public void halve_on_rejection() {
+    underTest.onRejection();
+    assertThat(underTest.get()).isEqualTo(INITIAL_BYTES / 2);
+
+    for (int i = 0; i < 100; i++) {
+      underTest.onRejection();
+    }
+    assertThat(underTest.get()).isEqualTo(MIN_BYTES);
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.es;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BulkIndexerMetricsTest {
+
+  private AtomicLong now = new AtomicLong(1_000_000L);
+  private BulkIndexerMetrics underTest = new BulkIndexerMetrics(now::get);
+
+  @Test
+  public void count_documents_bytes_retries_and_failures() {
+    underTest.onBulk(10, 1_000L);
+    underTest.onBulk(5, 300L);
+    underTest.onRetry(3);
+    underTest.onFailure(2);
+
+    assertThat(underTest.getDocuments()).isEqualTo(15);
+    assertThat(underTest.getBytes()).isEqualTo(1_300L);
+    assertThat(underTest.getRetries()).isEqualTo(3);
+    assertThat(underTest.getFailures()).isEqualTo(2);
+  }
+
+  @Test
+  public void count_pending_requests() {
+    underTest.onRequestQueued();
+    underTest.onRequestQueued();
+    underTest.onRequestDone();
+
+    assertThat(underTest.getPendingRequests()).isEqualTo(1);
+  }
+
+  @Test
+  public void throughput_is_computed_over_windows_of_10_seconds() {
+    underTest.onBulk(100, 1L);
+    assertThat(underTest.getDocumentsPerSecond()).isEqualTo(0.0);
+
+    now.addAndGet(10_000L);
+    underTest.onBulk(100, 1L);
+    assertThat(underTest.getDocumentsPerSecond()).isEqualTo(20.0);
+
+    // window is not complete
+    now.addAndGet(5_000L);
+    underTest.onBulk(1_000, 1L);
+    assertThat(underTest.getDocumentsPerSecond()).isEqualTo(20.0);
+  }
+
+  @Test
+  public void throughput_is_zero_when_indexing_is_idle() {
+    underTest.onBulk(100, 1L);
+    now.addAndGet(10_000L);
+    underTest.onBulk(100, 1L);
+    assertThat(underTest.getDocumentsPerSecond()).isEqualTo(20.0);
+
+    now.addAndGet(20_000L);
+    assertThat(underTest.getDocumentsPerSecond()).isEqualTo(0.0);
+
+    // idle period is not taken into account
+    underTest.onBulk(50, 1L);
+    now.addAndGet(10_000L);
+    underTest.onBulk(50, 1L);
+    assertThat(underTest.getDocumentsPerSecond()).isEqualTo(10.0);
+  }
+}
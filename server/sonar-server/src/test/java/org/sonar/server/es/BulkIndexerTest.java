@@ -20,6 +20,11 @@
 package org.sonar.server.es;
 
 import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.elasticsearch.action.admin.indices.settings.get.GetSettingsResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.search.SearchRequestBuilder;
@@ -40,7 +45,7 @@ public class BulkIndexerTest {
 
   @Test
   public void index_nothing() {
-    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR);
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR, new BulkIndexerMetrics());
     indexer.start();
     indexer.stop();
 
@@ -49,7 +54,7 @@ public class BulkIndexerTest {
 
   @Test
   public void index_documents() {
-    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR);
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR, new BulkIndexerMetrics());
     indexer.start();
     indexer.add(newIndexRequest(42));
     indexer.add(newIndexRequest(78));
@@ -62,12 +67,29 @@ public class BulkIndexerTest {
     assertThat(count()).isEqualTo(2);
   }
 
+  @Test
+  public void flush_sends_buffered_requests() {
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.LARGE, new BulkIndexerMetrics());
+    indexer.start();
+    indexer.add(newIndexRequest(42));
+    indexer.add(newIndexRequest(78));
+
+    indexer.flush();
+    esTester.client().prepareRefresh(INDEX).get();
+    assertThat(count()).isEqualTo(2);
+
+    // indexer can still be used
+    indexer.add(newIndexRequest(99));
+    indexer.stop();
+    assertThat(count()).isEqualTo(3);
+  }
+
   @Test
   public void large_indexing() {
     // index has one replica
     assertThat(replicas()).isEqualTo(1);
 
-    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.LARGE);
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.LARGE, new BulkIndexerMetrics());
     indexer.start();
 
     // replicas are temporarily disabled
@@ -84,6 +106,72 @@ public class BulkIndexerTest {
     assertThat(replicas()).isEqualTo(1);
   }
 
+  @Test
+  public void index_documents_added_by_concurrent_threads() throws Exception {
+    BulkIndexerMetrics metrics = new BulkIndexerMetrics(System::currentTimeMillis);
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR, metrics);
+    indexer.start();
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 4; thread++) {
+      int offset = thread * 1_000;
+      futures.add(executor.submit(() -> {
+        for (int i = 0; i < 1_000; i++) {
+          indexer.add(newIndexRequest(offset + i));
+        }
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+    executor.shutdown();
+    indexer.stop();
+
+    assertThat(count()).isEqualTo(4_000);
+    assertThat(metrics.getDocuments()).isEqualTo(4_000);
+    assertThat(metrics.getBytes()).isPositive();
+    assertThat(metrics.getFailures()).isEqualTo(0);
+    assertThat(metrics.getPendingRequests()).isEqualTo(0);
+  }
+
+  @Test
+  public void report_failures_to_metrics() {
+    BulkIndexerMetrics metrics = new BulkIndexerMetrics(System::currentTimeMillis);
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR, metrics);
+    indexer.start();
+    indexer.add(newIndexRequest(42));
+    indexer.add(new IndexRequest(INDEX, INDEX_TYPE_FAKE.getType())
+      .source(ImmutableMap.of(FakeIndexDefinition.INT_FIELD, "not_an_integer")));
+    indexer.stop();
+
+    assertThat(count()).isEqualTo(1);
+    assertThat(metrics.getDocuments()).isEqualTo(2);
+    assertThat(metrics.getFailures()).isEqualTo(1);
+  }
+
+  @Test
+  public void report_documents_added_by_current_thread_to_bound_metrics() throws Exception {
+    BulkIndexerMetrics metrics = new BulkIndexerMetrics(System::currentTimeMillis);
+    BulkIndexerMetrics threadMetrics = new BulkIndexerMetrics(System::currentTimeMillis);
+    BulkIndexer indexer = new BulkIndexer(esTester.client(), INDEX, Size.REGULAR, metrics);
+    indexer.start();
+    BulkIndexerMetrics.bindToCurrentThread(threadMetrics);
+    try {
+      indexer.add(newIndexRequest(42));
+      indexer.add(newIndexRequest(78));
+      indexer.flush();
+    } finally {
+      BulkIndexerMetrics.bindToCurrentThread(null);
+    }
+    indexer.add(newIndexRequest(99));
+    indexer.stop();
+
+    assertThat(count()).isEqualTo(3);
+    assertThat(metrics.getDocuments()).isEqualTo(3);
+    assertThat(threadMetrics.getDocuments()).isEqualTo(2);
+  }
+
   @Test
   public void bulk_delete() throws Exception {
     int max = 500;
@@ -97,7 +185,7 @@ public class BulkIndexerTest {
 
     SearchRequestBuilder req = esTester.client().prepareSearch(INDEX_TYPE_FAKE)
       .setQuery(QueryBuilders.rangeQuery(FakeIndexDefinition.INT_FIELD).gte(removeFrom));
-    BulkIndexer.delete(esTester.client(), INDEX, req);
+    BulkIndexer.delete(esTester.client(), new BulkIndexerMetrics(), INDEX, req);
 
     assertThat(count()).isEqualTo(removeFrom);
   }
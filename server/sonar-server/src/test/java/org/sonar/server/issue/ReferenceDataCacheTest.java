@@ -0,0 +1,133 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import org.junit.Test;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.user.UserDto;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.core.util.stream.MoreCollectors.toList;
+import static org.sonar.db.organization.OrganizationTesting.newOrganizationDto;
+import static org.sonar.db.rule.RuleTesting.newRule;
+import static org.sonar.db.user.UserTesting.newUserDto;
+
+public class ReferenceDataCacheTest {
+
+  private ReferenceDataCache underTest = new ReferenceDataCache();
+
+  @Test
+  public void load_only_users_which_are_not_in_cache() {
+    RecordingLoader<String, UserDto> loader = new RecordingLoader<>(UserDto::getLogin, newUserDto().setLogin("u1"), newUserDto().setLogin("u2"), newUserDto().setLogin("u3"));
+
+    assertThat(underTest.getUsers(asList("u1", "u2"), loader)).extracting(UserDto::getLogin).containsOnly("u1", "u2");
+    assertThat(underTest.getUsers(asList("u1", "u2", "u3"), loader)).extracting(UserDto::getLogin).containsOnly("u1", "u2", "u3");
+    assertThat(underTest.getUsers(asList("u2", "u3"), loader)).extracting(UserDto::getLogin).containsOnly("u2", "u3");
+
+    assertThat(loader.calls).containsExactly(asList("u1", "u2"), singletonList("u3"));
+  }
+
+  @Test
+  public void users_are_reloaded_after_invalidation() {
+    RecordingLoader<String, UserDto> loader = new RecordingLoader<>(UserDto::getLogin, newUserDto().setLogin("u1"));
+    underTest.getUsers(singletonList("u1"), loader);
+
+    underTest.invalidateUsers();
+    underTest.getUsers(singletonList("u1"), loader);
+
+    assertThat(loader.calls).containsExactly(singletonList("u1"), singletonList("u1"));
+  }
+
+  @Test
+  public void missing_values_are_not_returned() {
+    RecordingLoader<String, UserDto> loader = new RecordingLoader<>(UserDto::getLogin, newUserDto().setLogin("u1"));
+
+    assertThat(underTest.getUsers(asList("u1", "unknown"), loader)).extracting(UserDto::getLogin).containsOnly("u1");
+    assertThat(underTest.getUsers(asList("u1", "unknown"), loader)).extracting(UserDto::getLogin).containsOnly("u1");
+
+    assertThat(loader.calls).containsExactly(asList("u1", "unknown"), singletonList("unknown"));
+  }
+
+  @Test
+  public void values_loaded_during_an_invalidation_are_not_kept() {
+    RecordingLoader<String, UserDto> loader = new RecordingLoader<>(UserDto::getLogin, newUserDto().setLogin("u1"));
+
+    assertThat(underTest.getUsers(singletonList("u1"), logins -> {
+      underTest.invalidateUsers();
+      return loader.apply(logins);
+    })).extracting(UserDto::getLogin).containsOnly("u1");
+    underTest.getUsers(singletonList("u1"), loader);
+
+    assertThat(loader.calls).containsExactly(singletonList("u1"), singletonList("u1"));
+  }
+
+  @Test
+  public void invalidation_of_rules_does_not_invalidate_users() {
+    RuleDefinitionDto rule = newRule();
+    RecordingLoader<RuleKey, RuleDefinitionDto> ruleLoader = new RecordingLoader<>(RuleDefinitionDto::getKey, rule);
+    RecordingLoader<String, UserDto> userLoader = new RecordingLoader<>(UserDto::getLogin, newUserDto().setLogin("u1"));
+    underTest.getRules(singletonList(rule.getKey()), ruleLoader);
+    underTest.getUsers(singletonList("u1"), userLoader);
+
+    underTest.invalidateRules();
+    underTest.getRules(singletonList(rule.getKey()), ruleLoader);
+    underTest.getUsers(singletonList("u1"), userLoader);
+
+    assertThat(ruleLoader.calls).hasSize(2);
+    assertThat(userLoader.calls).hasSize(1);
+  }
+
+  @Test
+  public void cache_organizations() {
+    OrganizationDto organization = newOrganizationDto();
+    RecordingLoader<String, OrganizationDto> loader = new RecordingLoader<>(OrganizationDto::getUuid, organization);
+
+    assertThat(underTest.getOrganizations(singletonList(organization.getUuid()), loader)).containsExactly(organization);
+    assertThat(underTest.getOrganizations(singletonList(organization.getUuid()), loader)).containsExactly(organization);
+
+    assertThat(loader.calls).hasSize(1);
+  }
+
+  private static class RecordingLoader<K, V> implements Function<Collection<K>, List<V>> {
+    private final Function<V, K> keyFunction;
+    private final List<V> values;
+    private final List<List<K>> calls = new ArrayList<>();
+
+    @SafeVarargs
+    private RecordingLoader(Function<V, K> keyFunction, V... values) {
+      this.keyFunction = keyFunction;
+      this.values = asList(values);
+    }
+
+    @Override
+    public List<V> apply(Collection<K> keys) {
+      calls.add(new ArrayList<>(keys));
+      return values.stream().filter(value -> keys.contains(keyFunction.apply(value))).collect(toList());
+    }
+  }
+}
@@ -34,6 +34,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.es.SearchResult;
@@ -66,7 +67,7 @@ public class IssueIndexDebtTest {
 
   private System2 system2 = System2.INSTANCE;
   private IssueIndex index;
-  private IssueIndexer issueIndexer = new IssueIndexer(tester.client(), new IssueIteratorFactory(null));
+  private IssueIndexer issueIndexer = new IssueIndexer(tester.client(), new BulkIndexerMetrics(), new IssueIteratorFactory(null));
   private PermissionIndexerTester authorizationIndexerTester = new PermissionIndexerTester(tester, issueIndexer);
 
   @Before
@@ -25,6 +25,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.NoSuchElementException;
 import org.apache.commons.lang.StringUtils;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -37,6 +38,7 @@ import org.sonar.db.issue.IssueDto;
 import org.sonar.db.issue.IssueTesting;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 
@@ -61,7 +63,7 @@ public class IssueIndexerTest {
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
 
-  private IssueIndexer underTest = new IssueIndexer(esTester.client(), new IssueIteratorFactory(dbTester.getDbClient()));
+  private IssueIndexer underTest = new IssueIndexer(esTester.client(), new BulkIndexerMetrics(), new IssueIteratorFactory(dbTester.getDbClient()));
 
   @Test
   public void index_on_startup() {
@@ -94,6 +96,68 @@ public class IssueIndexerTest {
     verifyDoc(docs.get(0), org, project, file, rule, issue);
   }
 
+  @Test
+  public void indexOnStartup_indexes_issues_of_all_projects_concurrently() {
+    OrganizationDto org = dbTester.organizations().insert();
+    RuleDto rule = dbTester.rules().insertRule();
+    List<String> issueKeys = new ArrayList<>();
+    for (int i = 0; i < 30; i++) {
+      ComponentDto project = dbTester.components().insertPrivateProject(org);
+      ComponentDto file = dbTester.components().insertComponent(ComponentTesting.newFileDto(project));
+      issueKeys.add(dbTester.issues().insertIssue(IssueTesting.newDto(rule, file, project)).getKey());
+      issueKeys.add(dbTester.issues().insertIssue(IssueTesting.newDto(rule, file, project)).getKey());
+    }
+    IssueIndexer indexer = new IssueIndexer(esTester.client(), new BulkIndexerMetrics(), dbTester.getDbClient(), new IssueIteratorFactory(dbTester.getDbClient()));
+
+    indexer.indexOnStartup(null);
+
+    assertThat(esTester.getIds(IssueIndexDefinition.INDEX_TYPE_ISSUE)).containsOnlyElementsOf(issueKeys).hasSize(issueKeys.size());
+    assertThat(dbTester.getDbClient().internalPropertiesDao().selectByKey(dbTester.getSession(), IssueStartupIndexing.CHECKPOINT_PROPERTY)).isEmpty();
+  }
+
+  @Test
+  public void indexOnStartup_resumes_from_checkpoint() {
+    OrganizationDto org = dbTester.organizations().insert();
+    RuleDto rule = dbTester.rules().insertRule();
+    ComponentDto project1 = dbTester.components().insertPrivateProject(org, "P1");
+    ComponentDto project2 = dbTester.components().insertPrivateProject(org, "P2");
+    dbTester.issues().insertIssue(IssueTesting.newDto(rule, project1, project1));
+    IssueDto issue2 = dbTester.issues().insertIssue(IssueTesting.newDto(rule, project2, project2));
+    saveCheckpoint(getIndexUuid() + ":P2");
+    IssueIndexer indexer = new IssueIndexer(esTester.client(), new BulkIndexerMetrics(), dbTester.getDbClient(), new IssueIteratorFactory(dbTester.getDbClient()));
+
+    indexer.indexOnStartup(null);
+
+    assertThat(esTester.getIds(IssueIndexDefinition.INDEX_TYPE_ISSUE)).containsOnly(issue2.getKey());
+    assertThat(dbTester.getDbClient().internalPropertiesDao().selectByKey(dbTester.getSession(), IssueStartupIndexing.CHECKPOINT_PROPERTY)).isEmpty();
+  }
+
+  @Test
+  public void indexOnStartup_ignores_checkpoint_of_another_index() {
+    OrganizationDto org = dbTester.organizations().insert();
+    RuleDto rule = dbTester.rules().insertRule();
+    ComponentDto project1 = dbTester.components().insertPrivateProject(org, "P1");
+    ComponentDto project2 = dbTester.components().insertPrivateProject(org, "P2");
+    IssueDto issue1 = dbTester.issues().insertIssue(IssueTesting.newDto(rule, project1, project1));
+    IssueDto issue2 = dbTester.issues().insertIssue(IssueTesting.newDto(rule, project2, project2));
+    saveCheckpoint("another_index_uuid:P2");
+    IssueIndexer indexer = new IssueIndexer(esTester.client(), new BulkIndexerMetrics(), dbTester.getDbClient(), new IssueIteratorFactory(dbTester.getDbClient()));
+
+    indexer.indexOnStartup(null);
+
+    assertThat(esTester.getIds(IssueIndexDefinition.INDEX_TYPE_ISSUE)).containsOnly(issue1.getKey(), issue2.getKey());
+  }
+
+  private void saveCheckpoint(String value) {
+    dbTester.getDbClient().internalPropertiesDao().save(dbTester.getSession(), IssueStartupIndexing.CHECKPOINT_PROPERTY, value);
+    dbTester.commit();
+  }
+
+  private String getIndexUuid() {
+    String index = IssueIndexDefinition.INDEX_TYPE_ISSUE.getIndex();
+    return esTester.client().nativeClient().admin().indices().prepareGetSettings(index).get().getSetting(index, IndexMetaData.SETTING_INDEX_UUID);
+  }
+
   @Test
   public void index_loads_and_indexes_issues_with_specified_keys() {
     OrganizationDto org = dbTester.organizations().insert();
@@ -243,7 +307,7 @@ public class IssueIndexerTest {
     issueDoc.setKey("key");
     issueDoc.setTechnicalUpdateDate(new Date());
     issueDoc.setProjectUuid("non-exitsing-parent");
-    new IssueIndexer(esTester.client(), new IssueIteratorFactory(dbTester.getDbClient()))
+    new IssueIndexer(esTester.client(), new BulkIndexerMetrics(), new IssueIteratorFactory(dbTester.getDbClient()))
       .index(asList(issueDoc).iterator());
 
     assertThat(esTester.countDocuments(IssueIndexDefinition.INDEX_TYPE_ISSUE)).isEqualTo(1L);
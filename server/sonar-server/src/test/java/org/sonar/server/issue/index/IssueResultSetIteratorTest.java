@@ -135,6 +135,27 @@ public class IssueResultSetIteratorTest {
     assertThat(issuesByKey).hasSize(2);
   }
 
+  @Test
+  public void iterator_over_issues_from_range_of_projects() {
+    dbTester.prepareDbUnit(getClass(), "many_projects.xml");
+
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange(null, "THE_PROJECT_2"))).containsOnlyKeys("ABCDE", "BCDEF");
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange("THE_PROJECT_2", null))).containsOnlyKeys("EDCBA");
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange("THE_PROJECT_1", "THE_PROJECT_2"))).containsOnlyKeys("ABCDE", "BCDEF");
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange(null, null))).hasSize(3);
+    assertThat(issuesByKey(factory -> factory.createForProjectUuidRange("THE_PROJECT_3", null))).isEmpty();
+  }
+
+  @Test
+  public void select_root_uuids() {
+    dbTester.prepareDbUnit(getClass(), "many_projects.xml");
+    IssueIteratorFactory underTest = new IssueIteratorFactory(dbTester.getDbClient());
+
+    assertThat(underTest.selectRootUuids(null)).containsExactly("THE_PROJECT_1", "THE_PROJECT_2");
+    assertThat(underTest.selectRootUuids("THE_PROJECT_2")).containsExactly("THE_PROJECT_2");
+    assertThat(underTest.selectRootUuids("THE_PROJECT_3")).isEmpty();
+  }
+
   @Test
   public void extract_directory_path() {
     dbTester.prepareDbUnit(getClass(), "extract_directory_path.xml");
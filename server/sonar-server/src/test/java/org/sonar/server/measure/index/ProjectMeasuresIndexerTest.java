@@ -31,6 +31,7 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.component.SnapshotDto;
 import org.sonar.db.organization.OrganizationDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 
@@ -62,7 +63,7 @@ public class ProjectMeasuresIndexerTest {
   public DbTester dbTester = DbTester.create(system2);
 
   private ComponentDbTester componentDbTester = new ComponentDbTester(dbTester);
-  private ProjectMeasuresIndexer underTest = new ProjectMeasuresIndexer(dbTester.getDbClient(), esTester.client());
+  private ProjectMeasuresIndexer underTest = new ProjectMeasuresIndexer(dbTester.getDbClient(), esTester.client(), new BulkIndexerMetrics());
 
   @Test
   public void index_on_startup() {
@@ -24,6 +24,7 @@ import com.google.common.collect.Multimap;
 import java.io.InvalidClassException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.junit.Before;
@@ -37,6 +38,7 @@ import org.sonar.db.notification.NotificationQueueDao;
 import org.sonar.db.notification.NotificationQueueDto;
 import org.sonar.db.property.PropertiesDao;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.inOrder;
@@ -106,6 +108,38 @@ public class DefaultNotificationManagerTest {
     inOrder.verify(notificationQueueDao).delete(dtos);
   }
 
+  @Test
+  public void getFromQueue_by_batch() throws Exception {
+    NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
+    NotificationQueueDto dto2 = mock(NotificationQueueDto.class);
+    Notification notification1 = new Notification("type1");
+    Notification notification2 = new Notification("type2");
+    when(dto1.toNotification()).thenReturn(notification1);
+    when(dto2.toNotification()).thenReturn(notification2);
+    List<NotificationQueueDto> dtos = Arrays.asList(dto1, dto2);
+    when(notificationQueueDao.selectOldest(10)).thenReturn(dtos).thenReturn(Collections.emptyList());
+
+    assertThat(manager.getFromQueue(10)).containsExactly(notification1, notification2);
+    assertThat(manager.getFromQueue(10)).isEmpty();
+
+    verify(notificationQueueDao).delete(dtos);
+  }
+
+  @Test
+  public void getFromQueue_by_batch_skips_notifications_that_can_not_be_deserialized() throws Exception {
+    NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
+    NotificationQueueDto dto2 = mock(NotificationQueueDto.class);
+    Notification notification = new Notification("type");
+    when(dto1.toNotification()).thenThrow(new InvalidClassException("Pouet"));
+    when(dto2.toNotification()).thenReturn(notification);
+    when(notificationQueueDao.selectOldest(1)).thenReturn(singletonList(dto1)).thenReturn(singletonList(dto2));
+
+    assertThat(manager.getFromQueue(1)).containsExactly(notification);
+
+    verify(notificationQueueDao).delete(singletonList(dto1));
+    verify(notificationQueueDao).delete(singletonList(dto2));
+  }
+
   // SONAR-4739
   @Test
   public void shouldNotFailWhenUnableToDeserialize() throws Exception {
@@ -0,0 +1,63 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.notification;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class NotificationDeliveryMetricsTest {
+
+  private NotificationDeliveryMetrics underTest = new NotificationDeliveryMetrics();
+
+  @Test
+  public void no_deliveries() {
+    assertThat(underTest.getByChannel()).isEmpty();
+    assertThat(underTest.getDelivered()).isEqualTo(0L);
+    assertThat(underTest.getFailures()).isEqualTo(0L);
+    assertThat(underTest.toString()).isEmpty();
+  }
+
+  @Test
+  public void count_deliveries_by_channel() {
+    underTest.onDelivery("email", true, 100L);
+    underTest.onDelivery("email", true, 200L);
+    underTest.onDelivery("email", false, 100L);
+    underTest.onDelivery("slack", true, 0L);
+
+    assertThat(underTest.getDelivered()).isEqualTo(3L);
+    assertThat(underTest.getFailures()).isEqualTo(1L);
+    assertThat(underTest.getByChannel()).containsOnlyKeys("email", "slack");
+
+    NotificationDeliveryMetrics.ChannelMetrics email = underTest.getByChannel().get("email");
+    assertThat(email.getDelivered()).isEqualTo(2L);
+    assertThat(email.getFailures()).isEqualTo(1L);
+    assertThat(email.getDeliveriesPerSecond()).isCloseTo(7.5, within(0.01));
+
+    NotificationDeliveryMetrics.ChannelMetrics slack = underTest.getByChannel().get("slack");
+    assertThat(slack.getDelivered()).isEqualTo(1L);
+    assertThat(slack.getFailures()).isEqualTo(0L);
+    assertThat(slack.getDeliveriesPerSecond()).isEqualTo(0.0);
+
+    assertThat(underTest.toString())
+      .isEqualTo("email: delivered=2, failures=1, deliveries/s=7.5 | slack: delivered=1, failures=0, deliveries/s=0.0");
+  }
+}
@@ -46,13 +46,16 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserMembershipDto;
 import org.sonar.db.user.UserMembershipQuery;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.language.LanguageTesting;
+import org.sonar.server.platform.cluster.ClusterMock;
 import org.sonar.server.qualityprofile.ActiveRuleChange;
 import org.sonar.server.qualityprofile.DefinedQProfile;
 import org.sonar.server.qualityprofile.DefinedQProfileInsertRule;
 import org.sonar.server.qualityprofile.DefinedQProfileRepositoryRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -104,12 +107,12 @@ public class OrganizationCreationImplTest {
   private UuidFactory uuidFactory = mock(UuidFactory.class);
   private OrganizationValidation organizationValidation = mock(OrganizationValidation.class);
   private MapSettings settings = new MapSettings();
-  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
+  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client(), new BulkIndexerMetrics());
   private UserIndex userIndex = new UserIndex(es.client());
   private DefaultGroupCreator defaultGroupCreator = new DefaultGroupCreatorImpl(dbClient);
 
   private OrganizationCreationImpl underTest = new OrganizationCreationImpl(dbClient, system2, uuidFactory, organizationValidation, settings, userIndexer,
-    definedQProfileRepositoryRule, definedQProfileCreationRule, defaultGroupCreator);
+    definedQProfileRepositoryRule, definedQProfileCreationRule, defaultGroupCreator, new AuthorizationCache(new ClusterMock()));
 
   private UserDto someUser;
 
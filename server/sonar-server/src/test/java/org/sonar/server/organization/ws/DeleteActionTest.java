@@ -41,6 +41,7 @@ import org.sonar.db.qualityprofile.QualityProfileDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
 import org.sonar.server.component.ComponentCleanerService;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.exceptions.ForbiddenException;
@@ -51,6 +52,7 @@ import org.sonar.server.organization.TestOrganizationFlags;
 import org.sonar.server.qualityprofile.QProfileFactory;
 import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -60,6 +62,7 @@ import org.sonar.server.ws.WsActionTester;
 import static com.google.common.collect.ImmutableList.of;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.sonar.db.permission.OrganizationPermission.ADMINISTER;
@@ -83,9 +86,11 @@ public class DeleteActionTest {
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
   private QProfileFactory qProfileFactory = new QProfileFactory(dbClient, mock(UuidFactory.class), System2.INSTANCE, mock(ActiveRuleIndexer.class));
   private UserIndex userIndex = new UserIndex(es.client());
-  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
+  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client(), new BulkIndexerMetrics());
 
-  private DeleteAction underTest = new DeleteAction(userSession, dbClient, defaultOrganizationProvider, componentCleanerService, organizationFlags, userIndexer, qProfileFactory);
+  private AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
+  private DeleteAction underTest = new DeleteAction(userSession, dbClient, defaultOrganizationProvider, componentCleanerService, organizationFlags, userIndexer, qProfileFactory,
+    authorizationCache);
 
   private WsActionTester wsTester = new WsActionTester(underTest);
 
@@ -293,6 +298,7 @@ public class DeleteActionTest {
       .extracting(row -> (String) row.get("role"))
       .doesNotContain("u1", "u3", "u4", "u5")
       .contains("not deleted u1", "not deleted u3", "not deleted u4", "not deleted u5");
+    verify(authorizationCache, atLeastOnce()).invalidate();
   }
 
   @Test
@@ -39,12 +39,14 @@ import org.sonar.db.property.PropertyDto;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -56,6 +58,8 @@ import org.sonar.server.ws.WsActionTester;
 import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.api.CoreProperties.DEFAULT_ISSUE_ASSIGNEE;
 import static org.sonar.api.web.UserRole.CODEVIEWER;
 import static org.sonar.api.web.UserRole.USER;
@@ -78,9 +82,10 @@ public class RemoveMemberActionTest {
   private DbSession dbSession = db.getSession();
 
   private UserIndex userIndex = new UserIndex(es.client());
-  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
+  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client(), new BulkIndexerMetrics());
 
-  private WsActionTester ws = new WsActionTester(new RemoveMemberAction(dbClient, userSession, userIndexer));
+  private AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
+  private WsActionTester ws = new WsActionTester(new RemoveMemberAction(dbClient, userSession, userIndexer, authorizationCache));
 
   private OrganizationDto organization;
   private ComponentDto project;
@@ -162,6 +167,7 @@ public class RemoveMemberActionTest {
     assertProjectPermissionsOfUser(user, project);
     assertProjectPermissionsOfUser(user, anotherProject, CODEVIEWER, USER);
     assertProjectPermissionsOfUser(anotherUser, project, CODEVIEWER, USER);
+    verify(authorizationCache).invalidate();
   }
 
   @Test
@@ -33,6 +33,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.permission.OrganizationPermission;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.issue.ws.AvatarResolverImpl;
@@ -68,7 +69,7 @@ public class SearchMembersActionTest {
   private DbClient dbClient = db.getDbClient();
 
   private DefaultOrganizationProvider organizationProvider = TestDefaultOrganizationProvider.from(db);
-  private UserIndexer indexer = new UserIndexer(dbClient, es.client());
+  private UserIndexer indexer = new UserIndexer(dbClient, es.client(), new BulkIndexerMetrics());
 
   private WsActionTester ws = new WsActionTester(new SearchMembersAction(dbClient, new UserIndex(es.client()), organizationProvider, userSession, new AvatarResolverImpl()));
 
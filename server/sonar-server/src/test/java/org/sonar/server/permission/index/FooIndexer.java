@@ -22,6 +22,7 @@ package org.sonar.server.permission.index;
 import com.google.common.collect.ImmutableMap;
 import org.sonar.server.component.index.ComponentIndexDefinition;
 import org.sonar.server.es.BulkIndexer;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.ProjectIndexer;
 
@@ -64,7 +65,7 @@ public class FooIndexer implements ProjectIndexer, NeedAuthorizationIndexer {
 
   @Override
   public void deleteProject(String projectUuid) {
-    BulkIndexer.delete(esClient, FOO_INDEX, esClient.prepareSearch(FOO_INDEX)
+    BulkIndexer.delete(esClient, new BulkIndexerMetrics(), FOO_INDEX, esClient.prepareSearch(FOO_INDEX)
       .setTypes(FOO_TYPE)
       .setQuery(boolQuery()
         .filter(
@@ -24,6 +24,7 @@ import java.util.stream.Stream;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 
 import static java.util.Arrays.asList;
@@ -34,7 +35,7 @@ public class PermissionIndexerTester {
 
   public PermissionIndexerTester(EsTester esTester, NeedAuthorizationIndexer indexer, NeedAuthorizationIndexer... others) {
     NeedAuthorizationIndexer[] indexers = Stream.concat(Stream.of(indexer), Arrays.stream(others)).toArray(NeedAuthorizationIndexer[]::new);
-    this.permissionIndexer = new PermissionIndexer(null, esTester.client(), indexers);
+    this.permissionIndexer = new PermissionIndexer(null, esTester.client(), new BulkIndexerMetrics(), indexers);
   }
 
   public PermissionIndexerTester allowOnlyAnyone(ComponentDto project) {
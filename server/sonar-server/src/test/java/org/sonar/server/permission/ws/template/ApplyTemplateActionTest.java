@@ -36,6 +36,8 @@ import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.permission.PermissionTemplateService;
 import org.sonar.server.permission.index.PermissionIndexer;
 import org.sonar.server.permission.ws.BasePermissionWsTest;
+import org.sonar.server.platform.cluster.ClusterMock;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.TestResponse;
 
@@ -60,7 +62,7 @@ public class ApplyTemplateActionTest extends BasePermissionWsTest<ApplyTemplateA
   private PermissionTemplateDto template2;
 
   private PermissionTemplateService permissionTemplateService = new PermissionTemplateService(db.getDbClient(),
-    mock(PermissionIndexer.class), userSession, defaultTemplatesResolver);
+    mock(PermissionIndexer.class), userSession, defaultTemplatesResolver, new AuthorizationCache(new ClusterMock()));
 
   @Override
   protected ApplyTemplateAction buildWsAction() {
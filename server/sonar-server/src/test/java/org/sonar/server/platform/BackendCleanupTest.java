@@ -32,6 +32,7 @@ import org.sonar.db.rule.RuleTesting;
 import org.sonar.server.component.index.ComponentDoc;
 import org.sonar.server.component.index.ComponentIndexDefinition;
 import org.sonar.server.component.index.ComponentIndexer;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.issue.IssueDocTesting;
 import org.sonar.server.issue.index.IssueIndexDefinition;
@@ -58,7 +59,7 @@ public class BackendCleanupTest {
   @Rule
   public DbTester dbTester = DbTester.create(System2.INSTANCE);
 
-  private BackendCleanup underTest = new BackendCleanup(esTester.client(), dbTester.getDbClient());
+  private BackendCleanup underTest = new BackendCleanup(esTester.client(), new BulkIndexerMetrics(), dbTester.getDbClient());
   private OrganizationDto organization;
 
   @Before
@@ -0,0 +1,58 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import org.junit.Test;
+import org.sonar.server.es.BulkIndexerMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EsBulkMonitorTest {
+
+  private BulkIndexerMetrics metrics = mock(BulkIndexerMetrics.class);
+  private EsBulkMonitor underTest = new EsBulkMonitor(metrics);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("ElasticsearchBulk");
+  }
+
+  @Test
+  public void attributes() {
+    when(metrics.getDocuments()).thenReturn(100L);
+    when(metrics.getBytes()).thenReturn(2_000L);
+    when(metrics.getDocumentsPerSecond()).thenReturn(12.5);
+    when(metrics.getRetries()).thenReturn(3L);
+    when(metrics.getFailures()).thenReturn(1L);
+    when(metrics.getPendingRequests()).thenReturn(2L);
+
+    assertThat(underTest.attributes())
+      .containsEntry("Indexed Documents", 100L)
+      .containsEntry("Indexed Bytes", 2_000L)
+      .containsEntry("Indexed Documents per Second", 12.5)
+      .containsEntry("Retried Documents", 3L)
+      .containsEntry("Failed Documents", 1L)
+      .containsEntry("Pending Bulk Requests", 2L);
+    assertThat(underTest.getIndexedDocuments()).isEqualTo(100L);
+    assertThat(underTest.getPendingBulkRequests()).isEqualTo(2L);
+  }
+}
@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.platform.monitoring;
+
+import com.google.common.collect.ImmutableSortedMap;
+import java.util.Map;
+import org.junit.Test;
+import org.sonar.server.notification.DefaultNotificationManager;
+import org.sonar.server.notification.NotificationDeliveryMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class NotificationsMonitorTest {
+
+  private DefaultNotificationManager manager = mock(DefaultNotificationManager.class);
+  private NotificationDeliveryMetrics metrics = mock(NotificationDeliveryMetrics.class);
+  private NotificationsMonitor underTest = new NotificationsMonitor(manager, metrics);
+
+  @Test
+  public void name() {
+    assertThat(underTest.name()).isEqualTo("Notifications");
+  }
+
+  @Test
+  public void attributes() {
+    NotificationDeliveryMetrics.ChannelMetrics email = mock(NotificationDeliveryMetrics.ChannelMetrics.class);
+    when(email.getDelivered()).thenReturn(10L);
+    when(email.getFailures()).thenReturn(2L);
+    when(email.getDeliveriesPerSecond()).thenReturn(4.5);
+    when(manager.count()).thenReturn(5L);
+    when(metrics.getDelivered()).thenReturn(10L);
+    when(metrics.getFailures()).thenReturn(2L);
+    when(metrics.getByChannel()).thenReturn(ImmutableSortedMap.of("email", email));
+
+    Map<String, Object> attributes = underTest.attributes();
+
+    assertThat(attributes)
+      .containsEntry("Pending Notifications", 5L)
+      .containsEntry("Delivered Notifications", 10L)
+      .containsEntry("Failed Notifications", 2L);
+    assertThat((Map<String, Object>) attributes.get("email"))
+      .containsEntry("Delivered", 10L)
+      .containsEntry("Failures", 2L)
+      .containsEntry("Deliveries per Second", 4.5);
+    assertThat(underTest.getPendingNotifications()).isEqualTo(5L);
+  }
+}
@@ -52,7 +52,9 @@ import org.sonar.server.exceptions.UnauthorizedException;
 import org.sonar.server.organization.BillingValidations;
 import org.sonar.server.organization.BillingValidationsProxy;
 import org.sonar.server.permission.index.PermissionIndexer;
+import org.sonar.server.platform.cluster.ClusterMock;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.WsActionTester;
 
@@ -92,7 +94,7 @@ public class UpdateVisibilityActionTest {
   private BillingValidationsProxy billingValidations = mock(BillingValidationsProxy.class);
 
   private UpdateVisibilityAction underTest = new UpdateVisibilityAction(dbClient, new ComponentFinder(dbClient), userSessionRule, permissionIndexer,
-    new ProjectsWsSupport(dbClient, billingValidations));
+    new ProjectsWsSupport(dbClient, billingValidations), new AuthorizationCache(new ClusterMock()));
   private WsActionTester actionTester = new WsActionTester(underTest);
 
   private final Random random = new Random();
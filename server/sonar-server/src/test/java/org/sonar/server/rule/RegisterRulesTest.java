@@ -43,6 +43,7 @@ import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleRepositoryDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.organization.OrganizationFlags;
@@ -93,9 +94,9 @@ public class RegisterRulesTest {
   @Before
   public void before() {
     when(system.now()).thenReturn(DATE1.getTime());
-    ruleIndexer = new RuleIndexer(esTester.client(), dbClient);
+    ruleIndexer = new RuleIndexer(esTester.client(), new BulkIndexerMetrics(), dbClient);
     ruleIndex = new RuleIndex(esTester.client());
-    activeRuleIndexer = new ActiveRuleIndexer(system, dbClient, esTester.client());
+    activeRuleIndexer = new ActiveRuleIndexer(system, dbClient, esTester.client(), new BulkIndexerMetrics());
     defaultOrganization = dbTester.getDefaultOrganization();
   }
 
@@ -40,9 +40,11 @@ import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleDto.Format;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleTesting;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.rule.index.RuleIndex;
 import org.sonar.server.rule.index.RuleIndexDefinition;
@@ -69,11 +71,11 @@ public class RuleCreatorTest {
   public EsTester es = new EsTester(new RuleIndexDefinition(new MapSettings()));
 
   private RuleIndex ruleIndex = new RuleIndex(es.client());
-  private RuleIndexer ruleIndexer = new RuleIndexer(es.client(), db.getDbClient());
+  private RuleIndexer ruleIndexer = new RuleIndexer(es.client(), new BulkIndexerMetrics(), db.getDbClient());
   private DbSession dbSession = db.getSession();
 
-  private RuleCreator underTest = new RuleCreator(system2, new RuleIndexer(es.client(), db.getDbClient()), db.getDbClient(), newFullTypeValidations(),
-    TestDefaultOrganizationProvider.from(db));
+  private RuleCreator underTest = new RuleCreator(system2, new RuleIndexer(es.client(), new BulkIndexerMetrics(), db.getDbClient()), db.getDbClient(), newFullTypeValidations(),
+    TestDefaultOrganizationProvider.from(db), new ReferenceDataCache());
 
   @Test
   public void create_custom_rule() {
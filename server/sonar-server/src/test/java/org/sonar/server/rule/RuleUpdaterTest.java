@@ -47,8 +47,10 @@ import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleParamDto;
 import org.sonar.db.rule.RuleTesting;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchOptions;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.qualityprofile.QProfileTesting;
 import org.sonar.server.rule.index.RuleIndex;
@@ -60,6 +62,7 @@ import org.sonar.server.tester.UserSessionRule;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 public class RuleUpdaterTest {
 
@@ -80,11 +83,12 @@ public class RuleUpdaterTest {
   public EsTester es = new EsTester(new RuleIndexDefinition(new MapSettings()));
 
   private RuleIndex ruleIndex = new RuleIndex(es.client());
-  private RuleIndexer ruleIndexer = new RuleIndexer(es.client(), db.getDbClient());
+  private RuleIndexer ruleIndexer = new RuleIndexer(es.client(), new BulkIndexerMetrics(), db.getDbClient());
   private DbSession dbSession = db.getSession();
   private TestDefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
 
-  private RuleUpdater underTest = new RuleUpdater(db.getDbClient(), ruleIndexer, system2);
+  private ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+  private RuleUpdater underTest = new RuleUpdater(db.getDbClient(), ruleIndexer, system2, referenceDataCache);
 
   @Test
   public void do_not_update_rule_with_removed_status() {
@@ -388,6 +392,8 @@ public class RuleUpdaterTest {
 
     assertThat(ruleIndex.search(new RuleQuery().setQueryText("Old name"), new SearchOptions()).getTotal()).isZero();
     assertThat(ruleIndex.search(new RuleQuery().setQueryText("Old description"), new SearchOptions()).getTotal()).isZero();
+
+    verify(referenceDataCache).invalidateRules();
   }
 
   @Test
@@ -36,6 +36,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.qualityprofile.ActiveRuleKey;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleMetadataDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.SearchIdResult;
 import org.sonar.server.es.SearchOptions;
@@ -101,8 +102,8 @@ public class RuleIndexTest {
 
   @Before
   public void setUp() {
-    ruleIndexer = new RuleIndexer(tester.client(), dbTester.getDbClient());
-    activeRuleIndexer = new ActiveRuleIndexer(system2, dbTester.getDbClient(), tester.client());
+    ruleIndexer = new RuleIndexer(tester.client(), new BulkIndexerMetrics(), dbTester.getDbClient());
+    activeRuleIndexer = new ActiveRuleIndexer(system2, dbTester.getDbClient(), tester.client(), new BulkIndexerMetrics());
     index = new RuleIndex(tester.client());
   }
 
@@ -33,6 +33,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleDto;
 import org.sonar.db.rule.RuleTesting;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 
 import static com.google.common.collect.Sets.newHashSet;
@@ -48,7 +49,7 @@ public class RuleIndexerTest {
   public DbTester dbTester = DbTester.create();
 
   private DbClient dbClient = dbTester.getDbClient();
-  private final RuleIndexer underTest = new RuleIndexer(esTester.client(), dbClient);
+  private final RuleIndexer underTest = new RuleIndexer(esTester.client(), new BulkIndexerMetrics(), dbClient);
   private DbSession dbSession = dbTester.getSession();
   private RuleDefinitionDto rule = new RuleDefinitionDto()
     .setRuleKey("S001")
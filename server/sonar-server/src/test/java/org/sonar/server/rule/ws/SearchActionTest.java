@@ -33,6 +33,7 @@ import org.sonar.db.DbTester;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleMetadataDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.organization.DefaultOrganizationProvider;
@@ -76,7 +77,7 @@ public class SearchActionTest {
   private WsAction underTest = new SearchAction(ruleIndex, activeRuleCompleter, ruleQueryFactory, dbClient, mapper);
   private WsActionTester actionTester = new WsActionTester(underTest);
 
-  private RuleIndexer ruleIndexer = new RuleIndexer(esClient, dbClient);
+  private RuleIndexer ruleIndexer = new RuleIndexer(esClient, new BulkIndexerMetrics(), dbClient);
 
   @Before
   public void before() {
@@ -38,6 +38,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.qualityprofile.QualityProfileDto;
 import org.sonar.db.rule.RuleDefinitionDto;
 import org.sonar.db.rule.RuleMetadataDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.NotFoundException;
@@ -87,7 +88,7 @@ public class ShowActionTest {
   private WsAction underTest = new ShowAction(dbClient, mapper, activeRuleCompleter, defaultOrganizationProvider);
   private WsActionTester actionTester = new WsActionTester(underTest);
 
-  private RuleIndexer ruleIndexer = new RuleIndexer(esClient, dbClient);
+  private RuleIndexer ruleIndexer = new RuleIndexer(esClient, new BulkIndexerMetrics(), dbClient);
 
   @Before
   public void before() {
@@ -150,7 +151,7 @@ public class ShowActionTest {
       .build();
     Mockito.doReturn(singletonList(active)).when(activeRuleCompleter).completeShow(any(DbSession.class), orgCaptor.capture(), ruleCaptor.capture());
 
-    new ActiveRuleIndexer(System2.INSTANCE, dbClient, esClient).index();
+    new ActiveRuleIndexer(System2.INSTANCE, dbClient, esClient, new BulkIndexerMetrics()).index();
 
     TestResponse response = actionTester.newRequest().setMethod("GET")
       .setMediaType(PROTOBUF)
@@ -184,7 +185,7 @@ public class ShowActionTest {
     RuleMetadataDto ruleMetadata = dbTester.rules().insertOrUpdateMetadata(rule, organization);
 
     dbTester.qualityProfiles().activateRule(profile, rule, a -> a.setSeverity("BLOCKER"));
-    new ActiveRuleIndexer(System2.INSTANCE, dbClient, esClient).index();
+    new ActiveRuleIndexer(System2.INSTANCE, dbClient, esClient, new BulkIndexerMetrics()).index();
 
     TestResponse response = actionTester.newRequest().setMethod("GET")
       .setParam(ShowAction.PARAM_KEY, rule.getKey().toString())
@@ -29,6 +29,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbTester;
 import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsClient;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
@@ -55,7 +56,7 @@ public class TagsActionTest {
   private DbClient dbClient = dbTester.getDbClient();
   private EsClient esClient = esTester.client();
   private RuleIndex ruleIndex = new RuleIndex(esClient);
-  private RuleIndexer ruleIndexer = new RuleIndexer(esClient, dbClient);
+  private RuleIndexer ruleIndexer = new RuleIndexer(esClient, new BulkIndexerMetrics(), dbClient);
 
   private WsActionTester tester = new WsActionTester(new org.sonar.server.rule.ws.TagsAction(ruleIndex, dbClient, TestDefaultOrganizationProvider.from(dbTester)));
   private OrganizationDto organization;
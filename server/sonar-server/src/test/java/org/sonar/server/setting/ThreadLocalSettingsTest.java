@@ -33,6 +33,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.utils.internal.TestSystem2;
 
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
@@ -47,6 +48,7 @@ public class ThreadLocalSettingsTest {
   public ExpectedException expectedException = ExpectedException.none();
 
   private MapSettingLoader dbSettingLoader = new MapSettingLoader();
+  private TestSystem2 system = new TestSystem2().setNow(1_000L);
 
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
@@ -125,7 +127,7 @@ public class ThreadLocalSettingsTest {
   private ThreadLocalSettings create(Map<String, String> systemProps) {
     Properties p = new Properties();
     p.putAll(systemProps);
-    return new ThreadLocalSettings(new PropertyDefinitions(), p, dbSettingLoader);
+    return new ThreadLocalSettings(new PropertyDefinitions(), p, dbSettingLoader, system);
   }
 
   @Test
@@ -138,17 +140,70 @@ public class ThreadLocalSettingsTest {
   }
 
   @Test
-  public void database_properties_are_not_cached_by_default() {
+  public void database_properties_are_read_from_snapshot_until_invalidated() {
     insertPropertyIntoDb("foo", "from db");
     underTest = create(Collections.emptyMap());
 
     assertThat(underTest.get("foo").get()).isEqualTo("from db");
 
     deletePropertyFromDb("foo");
-    // no cache, change is visible immediately
+    assertThat(underTest.get("foo").get()).isEqualTo("from db");
+
+    underTest.invalidate();
     assertThat(underTest.get("foo")).isNotPresent();
   }
 
+  @Test
+  public void all_database_properties_are_loaded_at_once() {
+    insertPropertyIntoDb("foo", "1");
+    insertPropertyIntoDb("bar", "2");
+    underTest = create(Collections.emptyMap());
+
+    assertThat(underTest.get("foo").get()).isEqualTo("1");
+    assertThat(underTest.get("bar").get()).isEqualTo("2");
+    assertThat(underTest.get("missing")).isNotPresent();
+
+    assertThat(dbSettingLoader.loadAllCalls).isEqualTo(1);
+    assertThat(dbSettingLoader.loadCalls).isEqualTo(0);
+  }
+
+  @Test
+  public void snapshot_expires_after_ttl() {
+    insertPropertyIntoDb("foo", "v1");
+    underTest = create(Collections.emptyMap());
+    assertThat(underTest.get("foo").get()).isEqualTo("v1");
+
+    insertPropertyIntoDb("foo", "v2");
+    system.setNow(1_000L + ThreadLocalSettings.SNAPSHOT_TTL_MS - 1);
+    assertThat(underTest.get("foo").get()).isEqualTo("v1");
+
+    system.setNow(1_000L + ThreadLocalSettings.SNAPSHOT_TTL_MS);
+    assertThat(underTest.get("foo").get()).isEqualTo("v2");
+    assertThat(dbSettingLoader.loadAllCalls).isEqualTo(2);
+  }
+
+  @Test
+  public void changing_a_property_invalidates_the_snapshot() {
+    insertPropertyIntoDb("foo", "v1");
+    underTest = create(Collections.emptyMap());
+    assertThat(underTest.get("foo").get()).isEqualTo("v1");
+
+    insertPropertyIntoDb("foo", "v2");
+    underTest.setProperty("foo", "v2");
+
+    assertThat(underTest.get("foo").get()).isEqualTo("v2");
+  }
+
+  @Test
+  public void setting_loader_is_used_as_soon_as_it_is_changed() {
+    underTest = create(Collections.emptyMap());
+    assertThat(underTest.get("foo")).isNotPresent();
+
+    underTest.setSettingLoader(new MapSettingLoader().put("foo", "bar"));
+
+    assertThat(underTest.get("foo").get()).isEqualTo("bar");
+  }
+
   @Test
   public void system_settings_have_precedence_over_database() {
     insertPropertyIntoDb("foo", "from db");
@@ -176,11 +231,13 @@ public class ThreadLocalSettingsTest {
     assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
 
     deletePropertyFromDb(A_KEY);
+    underTest.invalidate();
     // the main thread still has "v1" in cache, but not new thread
     assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
     verifyValueInNewThread(underTest, null);
 
     insertPropertyIntoDb(A_KEY, "v2");
+    underTest.invalidate();
     // the main thread still has the old value "v1" in cache, but new thread loads "v2"
     assertThat(underTest.get(A_KEY).get()).isEqualTo("v1");
     verifyValueInNewThread(underTest, "v2");
@@ -231,6 +288,21 @@ public class ThreadLocalSettingsTest {
     assertThat(underTest.get(A_KEY)).isNotPresent();
     assertThat(underTest.get(A_KEY)).isNotPresent();
     underTest.unload();
+
+    assertThat(dbSettingLoader.loadAllCalls).isEqualTo(1);
+  }
+
+  @Test
+  public void getProperties_includes_changes_done_in_thread_cache() {
+    insertPropertyIntoDb("db", "from db");
+    insertPropertyIntoDb("removed", "from db");
+    underTest = create(ImmutableMap.of("system", "from system"));
+    underTest.load();
+
+    underTest.setProperty("added", "in thread");
+    underTest.removeProperty("removed");
+
+    assertThat(underTest.getProperties()).containsOnly(entry("system", "from system"), entry("db", "from db"), entry("added", "in thread"));
   }
 
   private void insertPropertyIntoDb(String key, @Nullable String value) {
@@ -272,6 +344,8 @@ public class ThreadLocalSettingsTest {
 
   private static class MapSettingLoader implements SettingLoader {
     private final Map<String, String> map = new HashMap<>();
+    private int loadCalls = 0;
+    private int loadAllCalls = 0;
 
     public MapSettingLoader put(String key, String value) {
       map.put(key, value);
@@ -285,11 +359,13 @@ public class ThreadLocalSettingsTest {
 
     @Override
     public String load(String key) {
+      loadCalls++;
       return map.get(key);
     }
 
     @Override
     public void loadAll(ImmutableMap.Builder<String, String> appendTo) {
+      loadAllCalls++;
       appendTo.putAll(map);
     }
   }
@@ -42,6 +42,7 @@ import org.sonar.server.component.ComponentFinder;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.i18n.I18nRule;
+import org.sonar.server.platform.SettingsChangeNotifier;
 import org.sonar.server.tester.UserSessionRule;
 import org.sonar.server.ws.TestRequest;
 import org.sonar.server.ws.TestResponse;
@@ -50,6 +51,9 @@ import org.sonarqube.ws.MediaTypes;
 
 import static java.net.HttpURLConnection.HTTP_NO_CONTENT;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.sonar.api.resources.Qualifiers.PROJECT;
 import static org.sonar.api.resources.Qualifiers.VIEW;
 import static org.sonar.api.web.UserRole.ADMIN;
@@ -79,7 +83,8 @@ public class ResetActionTest {
   private SettingsUpdater settingsUpdater = new SettingsUpdater(dbClient, definitions);
   private SettingValidations settingValidations = new SettingValidations(definitions, dbClient, i18n);
   private ComponentDto project;
-  private ResetAction underTest = new ResetAction(dbClient, componentFinder, settingsUpdater, userSession, definitions, settingValidations);
+  private SettingsChangeNotifier settingsChangeNotifier = mock(SettingsChangeNotifier.class);
+  private ResetAction underTest = new ResetAction(dbClient, componentFinder, settingsUpdater, userSession, definitions, settingValidations, settingsChangeNotifier);
   private WsActionTester ws = new WsActionTester(underTest);
 
   @Before
@@ -95,6 +100,7 @@ public class ResetActionTest {
 
     executeRequestOnGlobalSetting("foo");
     assertGlobalPropertyDoesNotExist("foo");
+    verify(settingsChangeNotifier).onGlobalPropertyChange("foo", null);
   }
 
   @Test
@@ -114,6 +120,7 @@ public class ResetActionTest {
 
     executeRequestOnProjectSetting("foo");
     assertProjectPropertyDoesNotExist("foo");
+    verifyZeroInteractions(settingsChangeNotifier);
   }
 
   @Test
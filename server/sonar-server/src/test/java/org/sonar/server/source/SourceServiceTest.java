@@ -20,21 +20,32 @@
 package org.sonar.server.source;
 
 import com.google.common.collect.Lists;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import net.jpountz.lz4.LZ4BlockOutputStream;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDao;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.source.index.FileSourceTesting;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class SourceServiceTest {
@@ -120,4 +131,85 @@ public class SourceServiceTest {
     assertThat(lines.isPresent()).isFalse();
   }
 
+  @Test
+  public void getLines_decodes_only_the_chunks_of_the_range_and_caches_them() throws IOException {
+    insertSource("BIG_FILE_UUID", FileSourceTesting.newFakeData(1_200).build(), "HASH_1");
+
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 498, 502))).containsExactly(498, 499, 500, 501, 502);
+    assertThat(underTest.getCacheHitCount()).isEqualTo(0L);
+
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 499, 501))).containsExactly(499, 500, 501);
+    assertThat(underTest.getCacheHitCount()).isEqualTo(2L);
+
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 1_199, 1_300))).containsExactly(1_199, 1_200);
+    assertThat(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 5_000, 5_010).get()).isEmpty();
+    assertThat(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 1, Integer.MAX_VALUE).get()).hasSize(1_200);
+  }
+
+  @Test
+  public void getLines_does_not_return_cached_lines_when_sources_are_updated() throws IOException {
+    insertSource("BIG_FILE_UUID", FileSourceTesting.newFakeData(10).build(), "HASH_1");
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 1, 100))).hasSize(10);
+
+    FileSourceDto dto = dbTester.getDbClient().fileSourceDao().selectSourceByFileUuid(dbTester.getSession(), "BIG_FILE_UUID");
+    dto.setSourceData(FileSourceTesting.newFakeData(3).build()).setDataHash("HASH_2");
+    dbTester.getDbClient().fileSourceDao().update(dbTester.getSession(), dto);
+    dbTester.commit();
+
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "BIG_FILE_UUID", 1, 100))).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void getLines_reads_sources_which_are_not_chunked() throws IOException {
+    insertLegacySource("LEGACY_FILE_UUID", FileSourceTesting.newFakeData(3).build(), "HASH_1");
+
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "LEGACY_FILE_UUID", 2, 3))).containsExactly(2, 3);
+  }
+
+  @Test
+  public void getLines_loads_sources_which_are_not_chunked_only_once_per_call() throws IOException {
+    insertLegacySource("LEGACY_FILE_UUID", FileSourceTesting.newFakeData(3).build(), "HASH_1");
+    DbClient dbClient = spy(dbTester.getDbClient());
+    FileSourceDao fileSourceDao = spy(dbTester.getDbClient().fileSourceDao());
+    when(dbClient.fileSourceDao()).thenReturn(fileSourceDao);
+    underTest = new SourceService(dbClient, htmlDecorator);
+
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "LEGACY_FILE_UUID", 1, 3))).containsExactly(1, 2, 3);
+    assertThat(lineNumbers(underTest.getLines(dbTester.getSession(), "LEGACY_FILE_UUID", 2, 3))).containsExactly(2, 3);
+
+    verify(fileSourceDao, times(2)).selectSourceByFileUuid(any(DbSession.class), eq("LEGACY_FILE_UUID"));
+  }
+
+  private void insertLegacySource(String fileUuid, DbFileSources.Data data, String dataHash) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (LZ4BlockOutputStream output = new LZ4BlockOutputStream(bytes)) {
+      data.writeTo(output);
+    }
+    FileSourceDto dto = new FileSourceDto()
+      .setFileUuid(fileUuid)
+      .setProjectUuid("PROJECT_UUID")
+      .setDataType(FileSourceDto.Type.SOURCE)
+      .setBinaryData(bytes.toByteArray())
+      .setDataHash(dataHash);
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), dto);
+    dbTester.commit();
+  }
+
+  private void insertSource(String fileUuid, DbFileSources.Data data, String dataHash) {
+    FileSourceDto dto = new FileSourceDto()
+      .setFileUuid(fileUuid)
+      .setProjectUuid("PROJECT_UUID")
+      .setSourceData(data)
+      .setDataHash(dataHash);
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), dto);
+    dbTester.commit();
+  }
+
+  private static List<Integer> lineNumbers(Optional<Iterable<DbFileSources.Line>> lines) {
+    assertThat(lines.isPresent()).isTrue();
+    List<Integer> result = new ArrayList<>();
+    lines.get().forEach(line -> result.add(line.getLine()));
+    return result;
+  }
+
 }
@@ -36,6 +36,7 @@ import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.es.ProjectIndexer;
 import org.sonar.server.source.index.FileSourcesUpdaterHelper;
@@ -67,7 +68,7 @@ public class TestIndexerTest {
   @Rule
   public DbTester db = DbTester.create(system2);
 
-  private TestIndexer underTest = new TestIndexer(db.getDbClient(), es.client());
+  private TestIndexer underTest = new TestIndexer(db.getDbClient(), es.client(), new BulkIndexerMetrics());
 
   @Test
   public void index_on_startup() {
@@ -31,6 +31,7 @@ import org.sonar.db.component.ComponentTesting;
 import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.db.source.FileSourceDto;
 import org.sonar.server.component.ComponentFinder;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
@@ -72,7 +73,7 @@ public class ListActionTest {
   private DbClient dbClient = db.getDbClient();
 
   private TestIndex testIndex = new TestIndex(es.client());
-  private TestIndexer testIndexer = new TestIndexer(db.getDbClient(), es.client());
+  private TestIndexer testIndexer = new TestIndexer(db.getDbClient(), es.client(), new BulkIndexerMetrics());
 
   private ComponentDto project;
   private ComponentDto mainFile;
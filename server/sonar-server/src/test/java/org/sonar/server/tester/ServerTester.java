@@ -43,10 +43,12 @@ import org.sonar.core.platform.ComponentContainer;
 import org.sonar.process.ProcessEntryPoint;
 import org.sonar.process.ProcessProperties;
 import org.sonar.server.es.EsServerHolder;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.platform.BackendCleanup;
 import org.sonar.server.platform.Platform;
 import org.sonar.server.platform.ServerTesterPlatform;
 import org.sonar.server.plugins.UpdateCenterClient;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.ws.WsTester;
 
 import static org.sonar.server.platform.Platform.Startup.ALL;
@@ -264,6 +266,19 @@ public class ServerTester extends ExternalResource {
   public void clearDbAndIndexes() {
     checkStarted();
     get(BackendCleanup.class).clearAll();
+    clearCaches();
+  }
+
+  private void clearCaches() {
+    ReferenceDataCache referenceDataCache = get(ReferenceDataCache.class);
+    if (referenceDataCache != null) {
+      referenceDataCache.invalidateRules();
+      referenceDataCache.invalidateUsers();
+    }
+    AuthorizationCache authorizationCache = get(AuthorizationCache.class);
+    if (authorizationCache != null) {
+      authorizationCache.invalidate();
+    }
   }
 
   public void clearIndexes() {
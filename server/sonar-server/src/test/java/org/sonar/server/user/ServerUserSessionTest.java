@@ -39,6 +39,7 @@ import org.sonar.db.user.UserDto;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.organization.TestOrganizationFlags;
+import org.sonar.server.platform.cluster.ClusterMock;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.sonar.core.permission.GlobalPermissions.PROVISIONING;
@@ -78,6 +79,7 @@ public class ServerUserSessionTest {
   private OrganizationDto organization;
   private ComponentDto publicProject;
   private ComponentDto privateProject;
+  private AuthorizationCache authorizationCache = new AuthorizationCache(new ClusterMock());
 
   @Before
   public void setUp() throws Exception {
@@ -389,6 +391,82 @@ public class ServerUserSessionTest {
     assertThat(hasComponentPermissionByDtoOrUuid(underTest, UserRole.ISSUE_ADMIN, publicProject)).isFalse();
   }
 
+  @Test
+  public void permissions_are_shared_by_sessions_until_cache_is_invalidated() {
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+    db.users().insertPermissionOnUser(organization, user, PROVISION_PROJECTS);
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+    assertThat(newUserSession(user).hasPermission(PROVISION_PROJECTS, organization)).isTrue();
+
+    db.users().deletePermissionFromUser(privateProject, user, UserRole.ADMIN);
+    db.users().deletePermissionFromUser(organization, user, PROVISION_PROJECTS);
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+    assertThat(newUserSession(user).hasPermission(PROVISION_PROJECTS, organization)).isTrue();
+
+    authorizationCache.invalidate();
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isFalse();
+    assertThat(newUserSession(user).hasPermission(PROVISION_PROJECTS, organization)).isFalse();
+  }
+
+  @Test
+  public void permissions_are_not_shared_by_sessions_when_cluster_is_enabled() {
+    authorizationCache = new AuthorizationCache(new ClusterMock().setEnabled(true));
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+    db.users().insertPermissionOnUser(organization, user, PROVISION_PROJECTS);
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+    assertThat(newUserSession(user).hasPermission(PROVISION_PROJECTS, organization)).isTrue();
+
+    db.users().deletePermissionFromUser(privateProject, user, UserRole.ADMIN);
+    db.users().deletePermissionFromUser(organization, user, PROVISION_PROJECTS);
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isFalse();
+    assertThat(newUserSession(user).hasPermission(PROVISION_PROJECTS, organization)).isFalse();
+  }
+
+  @Test
+  public void changes_of_group_membership_do_not_require_to_invalidate_cache() {
+    db.users().insertProjectPermissionOnGroup(groupOfUser, UserRole.ADMIN, privateProject);
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isFalse();
+
+    db.users().insertMember(groupOfUser, user);
+
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+  }
+
+  @Test
+  public void permissions_are_not_shared_between_users() {
+    UserDto otherUser = db.users().insertUser();
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+    assertThat(newUserSession(otherUser).hasComponentPermission(UserRole.ADMIN, privateProject)).isFalse();
+    assertThat(newAnonymousSession().hasComponentPermission(UserRole.ADMIN, privateProject)).isFalse();
+  }
+
+  @Test
+  public void keepAuthorizedComponents_caches_permissions_of_all_projects() {
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, publicProject);
+    assertThat(newUserSession(user).keepAuthorizedComponents(UserRole.ADMIN, Arrays.asList(privateProject, publicProject))).hasSize(2);
+
+    db.users().deletePermissionFromUser(privateProject, user, UserRole.ADMIN);
+    db.users().deletePermissionFromUser(publicProject, user, UserRole.ADMIN);
+
+    UserSession underTest = newUserSession(user);
+    assertThat(underTest.hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+    assertThat(underTest.hasComponentPermission(UserRole.ADMIN, publicProject)).isTrue();
+    assertThat(underTest.hasComponentPermission(UserRole.USER, publicProject)).isTrue();
+    assertThat(underTest.hasComponentPermission(UserRole.USER, privateProject)).isFalse();
+  }
+
+  @Test
+  public void keepAuthorizedComponents_uses_permissions_already_in_cache() {
+    db.users().insertProjectPermissionOnUser(user, UserRole.ADMIN, privateProject);
+    assertThat(newUserSession(user).hasComponentPermission(UserRole.ADMIN, privateProject)).isTrue();
+    db.users().deletePermissionFromUser(privateProject, user, UserRole.ADMIN);
+
+    assertThat(newUserSession(user).keepAuthorizedComponents(UserRole.ADMIN, Arrays.asList(privateProject, publicProject))).containsExactly(privateProject);
+  }
+
   private boolean hasComponentPermissionByDtoOrUuid(UserSession underTest, String permission, ComponentDto component) {
     return new Random().nextBoolean() ? underTest.hasComponentPermission(permission, component) : underTest.hasComponentUuidPermission(permission, component.uuid());
   }
@@ -513,7 +591,7 @@ public class ServerUserSessionTest {
   }
 
   private ServerUserSession newUserSession(@Nullable UserDto userDto) {
-    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, userDto);
+    return new ServerUserSession(dbClient, organizationFlags, defaultOrganizationProvider, authorizationCache, userDto);
   }
 
   private ServerUserSession newAnonymousSession() {
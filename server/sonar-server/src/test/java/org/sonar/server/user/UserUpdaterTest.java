@@ -39,8 +39,10 @@ import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.GroupTesting;
 import org.sonar.db.user.UserDto;
 import org.sonar.db.user.UserTesting;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationCreation;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
@@ -86,12 +88,14 @@ public class UserUpdaterTest {
   private NewUserNotifier newUserNotifier = mock(NewUserNotifier.class);
   private ArgumentCaptor<NewUserHandler.Context> newUserHandler = ArgumentCaptor.forClass(NewUserHandler.Context.class);
   private DbSession session = db.getSession();
-  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client());
+  private UserIndexer userIndexer = new UserIndexer(dbClient, es.client(), new BulkIndexerMetrics());
   private OrganizationCreation organizationCreation = mock(OrganizationCreation.class);
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
   private TestOrganizationFlags organizationFlags = TestOrganizationFlags.standalone();
+  private ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+  private AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
   private UserUpdater underTest = new UserUpdater(newUserNotifier, dbClient, userIndexer, system2, organizationFlags, defaultOrganizationProvider, organizationCreation,
-    new DefaultGroupFinder(dbClient));
+    new DefaultGroupFinder(dbClient), referenceDataCache, authorizationCache);
 
   @Before
   public void setUp() {
@@ -561,6 +565,7 @@ public class UserUpdaterTest {
     assertThat(dto.getUpdatedAt()).isEqualTo(NOW);
 
     assertThat(dbClient.userDao().selectByLogin(session, DEFAULT_LOGIN).isActive()).isTrue();
+    verify(authorizationCache).invalidate();
   }
 
   @Test
@@ -736,6 +741,8 @@ public class UserUpdaterTest {
         entry("login", DEFAULT_LOGIN),
         entry("name", "Marius2"),
         entry("email", "marius2@mail.com"));
+
+    verify(referenceDataCache).invalidateUsers();
   }
 
   @Test
@@ -27,6 +27,7 @@ import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -41,7 +42,7 @@ public class UserIndexerTest {
   @Rule
   public EsTester es = new EsTester(new UserIndexDefinition(new MapSettings()));
 
-  private UserIndexer underTest = new UserIndexer(db.getDbClient(), es.client());
+  private UserIndexer underTest = new UserIndexer(db.getDbClient(), es.client(), new BulkIndexerMetrics());
 
   @Test
   public void index_nothing_on_startup() {
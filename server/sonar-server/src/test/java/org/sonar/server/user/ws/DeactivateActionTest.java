@@ -37,14 +37,17 @@ import org.sonar.db.property.PropertyDto;
 import org.sonar.db.property.PropertyQuery;
 import org.sonar.db.user.GroupDto;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.BadRequestException;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
 import org.sonar.server.exceptions.UnauthorizedException;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.index.UserIndex;
 import org.sonar.server.user.index.UserIndexDefinition;
 import org.sonar.server.user.index.UserIndexer;
@@ -53,6 +56,8 @@ import org.sonar.server.ws.WsActionTester;
 
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.sonar.api.web.UserRole.CODEVIEWER;
 import static org.sonar.api.web.UserRole.USER;
 import static org.sonar.core.permission.GlobalPermissions.SYSTEM_ADMIN;
@@ -84,11 +89,13 @@ public class DeactivateActionTest {
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(db);
   private UserIndex index = new UserIndex(esTester.client());
   private DbClient dbClient = db.getDbClient();
-  private UserIndexer userIndexer = new UserIndexer(dbClient, esTester.client());
+  private UserIndexer userIndexer = new UserIndexer(dbClient, esTester.client(), new BulkIndexerMetrics());
   private DbSession dbSession = db.getSession();
+  private ReferenceDataCache referenceDataCache = mock(ReferenceDataCache.class);
+  private AuthorizationCache authorizationCache = mock(AuthorizationCache.class);
 
   private WsActionTester ws = new WsActionTester(new DeactivateAction(
-    dbClient, userIndexer, userSession, new UserJsonWriter(userSession), defaultOrganizationProvider));
+    dbClient, userIndexer, userSession, new UserJsonWriter(userSession), defaultOrganizationProvider, referenceDataCache, authorizationCache));
 
   @Test
   public void deactivate_user_and_delete_his_related_data() {
@@ -103,6 +110,8 @@ public class DeactivateActionTest {
 
     verifyThatUserIsDeactivated(user.getLogin());
     assertThat(index.getNullableByLogin(user.getLogin()).active()).isFalse();
+    verify(referenceDataCache).invalidateUsers();
+    verify(authorizationCache).invalidate();
   }
 
   @Test
@@ -29,14 +29,18 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.user.UserDto;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 import org.sonar.server.exceptions.ForbiddenException;
 import org.sonar.server.exceptions.NotFoundException;
+import org.sonar.server.issue.ReferenceDataCache;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 import org.sonar.server.organization.OrganizationCreation;
 import org.sonar.server.organization.TestDefaultOrganizationProvider;
 import org.sonar.server.organization.TestOrganizationFlags;
+import org.sonar.server.platform.cluster.ClusterMock;
 import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.user.AuthorizationCache;
 import org.sonar.server.user.NewUserNotifier;
 import org.sonar.server.user.UserUpdater;
 import org.sonar.server.user.index.UserIndexDefinition;
@@ -74,10 +78,10 @@ public class UpdateActionTest {
   @Before
   public void setUp() {
     dbTester.users().insertDefaultGroup(dbTester.getDefaultOrganization(), "sonar-users");
-    userIndexer = new UserIndexer(dbClient, esTester.client());
+    userIndexer = new UserIndexer(dbClient, esTester.client(), new BulkIndexerMetrics());
     tester = new WsTester(new UsersWs(new UpdateAction(
       new UserUpdater(mock(NewUserNotifier.class), dbClient, userIndexer, system2, organizationFlags, defaultOrganizationProvider, ORGANIZATION_CREATION_NOT_USED_FOR_UPDATE,
-        new DefaultGroupFinder(dbTester.getDbClient())),
+        new DefaultGroupFinder(dbTester.getDbClient()), new ReferenceDataCache(), new AuthorizationCache(new ClusterMock())),
       userSessionRule,
       new UserJsonWriter(userSessionRule), dbClient)));
   }
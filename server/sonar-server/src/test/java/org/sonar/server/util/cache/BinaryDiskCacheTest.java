@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.util.cache;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.System2;
+import org.sonar.core.util.CloseableIterator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BinaryDiskCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void write_and_read() throws Exception {
+    BinaryDiskCache<String> cache = newCache();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).isEmpty();
+    }
+
+    cache.newAppender()
+      .append("foo")
+      .append("bar")
+      .close();
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar");
+    }
+  }
+
+  @Test
+  public void read_objects_written_by_successive_appenders() throws Exception {
+    BinaryDiskCache<String> cache = newCache();
+    cache.newAppender().append("foo").close();
+    cache.newAppender().append("bar").append("baz").close();
+
+    try (CloseableIterator<String> traverse = cache.traverse()) {
+      assertThat(traverse).containsExactly("foo", "bar", "baz");
+    }
+  }
+
+  @Test
+  public void fail_if_file_is_not_writable() throws Exception {
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to write into file");
+
+    new BinaryDiskCache<>(temp.newFolder(), System2.INSTANCE, new StringCodec());
+  }
+
+  @Test
+  public void fail_to_encode() throws Exception {
+    ObjectCodec<String> failingCodec = new StringCodec() {
+      @Override
+      public void write(String object, DataOutput output) throws IOException {
+        throw new IOException("expected error");
+      }
+    };
+    BinaryDiskCache<String> cache = new BinaryDiskCache<>(temp.newFile(), System2.INSTANCE, failingCodec);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to write into file");
+
+    cache.newAppender().append("foo");
+  }
+
+  private BinaryDiskCache<String> newCache() throws IOException {
+    return new BinaryDiskCache<>(temp.newFile(), System2.INSTANCE, new StringCodec());
+  }
+
+  private static class StringCodec implements ObjectCodec<String> {
+    @Override
+    public void write(String object, DataOutput output) throws IOException {
+      output.writeUTF(object);
+    }
+
+    @Override
+    public String read(DataInput input) throws IOException {
+      return input.readUTF();
+    }
+  }
+}
@@ -23,6 +23,7 @@ import java.util.List;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.config.MapSettings;
+import org.sonar.server.es.BulkIndexerMetrics;
 import org.sonar.server.es.EsTester;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -35,7 +36,7 @@ public class ViewIndexTest {
   @Rule
   public EsTester esTester = new EsTester(new ViewIndexDefinition(new MapSettings()));
 
-  ViewIndex index = new ViewIndex(esTester.client());
+  ViewIndex index = new ViewIndex(esTester.client(), new BulkIndexerMetrics());
 
   @Test
   public void find_all_view_uuids() throws Exception {
@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.server.ws.Change;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.utils.System2;
 import org.sonar.api.web.UserRole;
@@ -41,6 +42,7 @@ import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.Webhooks;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.sonar.db.webhook.WebhookDbTesting.newWebhookDeliveryDto;
 import static org.sonar.test.JsonAssert.assertJson;
 
@@ -73,6 +75,8 @@ public class WebhookDeliveryActionTest {
     assertThat(definition.isPost()).isFalse();
     assertThat(definition.isInternal()).isFalse();
     assertThat(definition.responseExampleAsString()).isNotEmpty();
+    assertThat(definition.changelog()).extracting(Change::getVersion, Change::getDescription).containsExactly(
+      tuple("6.5", "Field 'pending' is added"));
 
     assertThat(definition.params()).hasSize(1);
     assertThat(definition.param("deliveryId").isRequired()).isTrue();
@@ -144,6 +148,28 @@ public class WebhookDeliveryActionTest {
     assertThat(actual.getErrorStacktrace()).isEqualTo(dto.getErrorStacktrace());
   }
 
+  @Test
+  public void return_delivery_that_is_pending() throws Exception {
+    WebhookDeliveryDto dto = newWebhookDeliveryDto()
+      .setComponentUuid(project.uuid())
+      .setSuccess(false)
+      .setPending(true)
+      .setHttpStatus(503)
+      .setErrorStacktrace(null);
+    dbClient.webhookDeliveryDao().insert(db.getSession(), dto);
+    db.commit();
+    userSession.logIn().addProjectPermission(UserRole.ADMIN, project);
+
+    Webhooks.DeliveryWsResponse response = ws.newRequest()
+      .setParam("deliveryId", dto.getUuid())
+      .executeProtobuf(Webhooks.DeliveryWsResponse.class);
+
+    Webhooks.Delivery actual = response.getDelivery();
+    assertThat(actual.getPending()).isTrue();
+    assertThat(actual.getSuccess()).isFalse();
+    assertThat(actual.getHttpStatus()).isEqualTo(503);
+  }
+
   @Test
   public void throw_ForbiddenException_if_not_admin_of_project() throws Exception {
     WebhookDeliveryDto dto = newWebhookDeliveryDto()
@@ -32,6 +32,7 @@ public class WebhookProperties {
   public static final String PROJECT_KEY = "sonar.webhooks.project";
   public static final String NAME_FIELD = "name";
   public static final String URL_FIELD = "url";
+  public static final String TIMEOUT_FIELD = "timeout";
 
   /**
    * Maximum allowed number of webhooks per type (globally or per project).
@@ -51,6 +52,9 @@ public class WebhookProperties {
     "An HTTP POST request including a JSON payload is sent to each of the first ten provided URLs. <br/>" +
     "Learn more in the <a href=\"https://redirect.sonarsource.com/doc/webhooks.html\">Webhooks documentation</a>.";
 
+  private static final String TIMEOUT_DESCRIPTION = "Maximum number of seconds to connect to the URL and to wait for the response. " +
+    "Default is 10 seconds.";
+
   private WebhookProperties() {
     // only static stuff
   }
@@ -69,6 +73,11 @@ public class WebhookProperties {
           PropertyFieldDefinition.build(URL_FIELD)
             .name("URL")
             .type(PropertyType.STRING)
+            .build(),
+          PropertyFieldDefinition.build(TIMEOUT_FIELD)
+            .name("Timeout")
+            .description(TIMEOUT_DESCRIPTION)
+            .type(PropertyType.INTEGER)
             .build())
         .build(),
 
@@ -85,6 +94,11 @@ public class WebhookProperties {
           PropertyFieldDefinition.build(URL_FIELD)
             .name("URL")
             .type(PropertyType.STRING)
+            .build(),
+          PropertyFieldDefinition.build(TIMEOUT_FIELD)
+            .name("Timeout")
+            .description(TIMEOUT_DESCRIPTION)
+            .type(PropertyType.INTEGER)
             .build())
         .build());
   }
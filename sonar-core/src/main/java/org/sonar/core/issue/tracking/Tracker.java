@@ -19,38 +19,38 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
-import javax.annotation.Nonnull;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
-import org.sonar.api.rule.RuleKey;
 
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
 public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
+  private static final int NONE = -1;
+
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
 
     // 1. match issues with same rule, same line and same line hash, but not necessarily with same message
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    match(tracking, SearchKey.LINE_AND_LINE_HASH);
 
     // 2. detect code moves by comparing blocks of codes
     detectCodeMoves(rawInput, baseInput, tracking);
 
     // 3. match issues with same rule, same message and same line hash
-    match(tracking, LineHashAndMessageKeyFactory.INSTANCE);
+    match(tracking, SearchKey.LINE_HASH_AND_MESSAGE);
 
     // 4. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    match(tracking, SearchKey.LINE_AND_MESSAGE);
 
     // 5. match issues with same rule and same line hash but different line and different message.
     // See SONAR-2812
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    match(tracking, SearchKey.LINE_HASH);
 
     return tracking;
   }
@@ -61,189 +61,150 @@ public class Tracker<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
+  /**
+   * Matches the unmatched raws and bases which have the same key.
+   * <p>
+   * Keys are not materialized: unmatched bases are indexed by the hash of their key in chains of indices, and a
+   * candidate base is compared field by field with the raw. A raw is matched with the first unmatched base, in the
+   * order of the bases, which has the same key.
+   * </p>
+   */
+  private void match(Tracking<RAW, BASE> tracking, SearchKey searchKey) {
     if (tracking.isComplete()) {
       return;
     }
 
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(factory.create(base), base);
-    }
-
-    for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.create(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (!bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.remove(rawKey, match);
-      }
+    List<BASE> bases = new ArrayList<>();
+    tracking.getUnmatchedBases().forEach(bases::add);
+    if (bases.isEmpty()) {
+      return;
     }
-  }
-
-  private interface SearchKey {
-  }
-
-  private interface SearchKeyFactory {
-    SearchKey create(Trackable trackable);
-  }
-
-  private static class LineAndLineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
-    private final Integer line;
 
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
+    int size = bases.size();
+    int mask = Integer.highestOneBit(size * 2 - 1) * 2 - 1;
+    int[] hashes = new int[size];
+    int[] heads = new int[mask + 1];
+    int[] next = new int[size];
+    Arrays.fill(heads, NONE);
+    // bases are added in reverse order so that chains are in the order of the bases
+    for (int i = size - 1; i >= 0; i--) {
+      int hash = searchKey.hash(bases.get(i));
+      int bucket = hash & mask;
+      hashes[i] = hash;
+      next[i] = heads[bucket];
+      heads[bucket] = i;
     }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+    for (RAW raw : tracking.getUnmatchedRaws()) {
+      int hash = searchKey.hash(raw);
+      int bucket = hash & mask;
+      int previous = NONE;
+      for (int i = heads[bucket]; i != NONE; previous = i, i = next[i]) {
+        BASE base = bases.get(i);
+        if (hashes[i] == hash && searchKey.equals(raw, base)) {
+          // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
+          // Message could be checked to take the best one.
+          tracking.match(raw, base);
+          // unlink the matched base from its chain
+          if (previous == NONE) {
+            heads[bucket] = next[i];
+          } else {
+            next[previous] = next[i];
+          }
+          break;
+        }
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndLineHashKey(t);
     }
   }
 
-  private static class LineHashAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final String lineHash;
-
-    LineHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
-
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+  /**
+   * The different keys on which raws and bases are matched. Hash and equality of keys are computed directly from the
+   * {@link Trackable}s.
+   */
+  private enum SearchKey {
+    /**
+     * same rule, same line and same line hash
+     */
+    LINE_AND_LINE_HASH {
+      @Override
+      int hash(Trackable t) {
+        int result = t.getRuleKey().hashCode();
+        result = 31 * result + lineHash(t).hashCode();
+        return 31 * result + lineHashCode(t);
       }
-      LineHashAndMessageKey that = (LineHashAndMessageKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
-    }
-  }
-
-  private enum LineHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashAndMessageKey(t);
-    }
-  }
-
-  private static class LineAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final Integer line;
 
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
-    }
-
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      @Override
+      boolean equals(Trackable a, Trackable b) {
+        // start with most discriminant field
+        return Objects.equals(a.getLine(), b.getLine())
+          && lineHash(a).equals(lineHash(b))
+          && a.getRuleKey().equals(b.getRuleKey());
+      }
+    },
+    /**
+     * same rule, same message and same line hash
+     */
+    LINE_HASH_AND_MESSAGE {
+      @Override
+      int hash(Trackable t) {
+        int result = t.getRuleKey().hashCode();
+        result = 31 * result + t.getMessage().hashCode();
+        return 31 * result + lineHash(t).hashCode();
       }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
+      @Override
+      boolean equals(Trackable a, Trackable b) {
+        return lineHash(a).equals(lineHash(b))
+          && a.getMessage().equals(b.getMessage())
+          && a.getRuleKey().equals(b.getRuleKey());
+      }
+    },
+    /**
+     * same rule, same line and same message
+     */
+    LINE_AND_MESSAGE {
+      @Override
+      int hash(Trackable t) {
+        int result = t.getRuleKey().hashCode();
+        result = 31 * result + t.getMessage().hashCode();
+        return 31 * result + lineHashCode(t);
+      }
 
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndMessageKey(t);
-    }
-  }
+      @Override
+      boolean equals(Trackable a, Trackable b) {
+        return Objects.equals(a.getLine(), b.getLine())
+          && a.getMessage().equals(b.getMessage())
+          && a.getRuleKey().equals(b.getRuleKey());
+      }
+    },
+    /**
+     * same rule and same line hash
+     */
+    LINE_HASH {
+      @Override
+      int hash(Trackable t) {
+        int result = t.getRuleKey().hashCode();
+        return 31 * result + lineHash(t).hashCode();
+      }
 
-  private static class LineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
+      @Override
+      boolean equals(Trackable a, Trackable b) {
+        return lineHash(a).equals(lineHash(b))
+          && a.getRuleKey().equals(b.getRuleKey());
+      }
+    };
 
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+    abstract int hash(Trackable t);
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
-      }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
+    abstract boolean equals(Trackable a, Trackable b);
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
+    private static String lineHash(Trackable t) {
+      return StringUtils.defaultString(t.getLineHash(), "");
     }
-  }
 
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashKey(t);
+    private static int lineHashCode(Trackable t) {
+      Integer line = t.getLine();
+      return line != null ? line.hashCode() : 0;
     }
   }
 }
@@ -35,6 +35,7 @@ import org.picocontainer.LifecycleStrategy;
 import org.picocontainer.MutablePicoContainer;
 import org.picocontainer.PicoContainer;
 import org.picocontainer.behaviors.OptInCaching;
+import org.picocontainer.behaviors.Synchronizing;
 import org.picocontainer.lifecycle.ReflectionLifecycleStrategy;
 import org.picocontainer.monitors.NullComponentMonitor;
 import org.sonar.api.batch.ScannerSide;
@@ -312,6 +313,19 @@ public class ComponentContainer implements ContainerPopulator.Container {
   }
 
   public static MutablePicoContainer createPicoContainer() {
+    return createPicoContainer(new OptInCaching());
+  }
+
+  /**
+   * Same as {@link #createPicoContainer()}, except that components are instantiated under a lock, so that
+   * components which are lazily instantiated are created only once even if they are requested by concurrent threads.
+   * Child containers inherit this behavior.
+   */
+  public static MutablePicoContainer createThreadSafePicoContainer() {
+    return createPicoContainer(new Synchronizing().wrap(new OptInCaching()));
+  }
+
+  private static MutablePicoContainer createPicoContainer(ComponentFactory componentFactory) {
     ReflectionLifecycleStrategy lifecycleStrategy = new ReflectionLifecycleStrategy(new NullComponentMonitor(), "start", "stop", "close") {
       @Override
       public void start(Object component) {
@@ -321,7 +335,7 @@ public class ComponentContainer implements ContainerPopulator.Container {
         profiler.stopTrace(component.getClass().getCanonicalName() + " started");
       }
     };
-    return new ExtendedDefaultPicoContainer(new OptInCaching(), lifecycleStrategy, null);
+    return new ExtendedDefaultPicoContainer(componentFactory, lifecycleStrategy, null);
   }
 
   public ComponentContainer getParent() {
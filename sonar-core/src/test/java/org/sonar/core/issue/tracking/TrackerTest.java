@@ -196,6 +196,50 @@ public class TrackerTest {
   /**
    * SONAR-3072
    */
+  @Test
+  public void issues_with_same_key_are_matched_in_order() {
+    FakeInput baseInput = new FakeInput("H1", "H2");
+    Issue base1 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base2 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue base3 = baseInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    FakeInput rawInput = new FakeInput("H1", "H2");
+    Issue raw1 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+    Issue raw2 = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    assertThat(tracking.baseFor(raw1)).isSameAs(base1);
+    assertThat(tracking.baseFor(raw2)).isSameAs(base2);
+    assertThat(tracking.getUnmatchedBases()).containsOnly(base3);
+  }
+
+  @Test
+  public void many_issues_are_matched_on_their_own_key() {
+    int count = 1_000;
+    String[] lineHashes = new String[count];
+    for (int i = 0; i < count; i++) {
+      lineHashes[i] = "H" + i;
+    }
+    FakeInput baseInput = new FakeInput(lineHashes);
+    FakeInput rawInput = new FakeInput(lineHashes);
+    List<Issue> bases = new ArrayList<>();
+    List<Issue> raws = new ArrayList<>();
+    for (int i = 1; i <= count; i++) {
+      RuleKey ruleKey = i % 2 == 0 ? RULE_SYSTEM_PRINT : RULE_USE_DIAMOND;
+      bases.add(baseInput.createIssueOnLine(i, ruleKey, "msg" + i));
+    }
+    // raws are created in reverse order and with different messages
+    for (int i = count; i >= 1; i--) {
+      RuleKey ruleKey = i % 2 == 0 ? RULE_SYSTEM_PRINT : RULE_USE_DIAMOND;
+      raws.add(0, rawInput.createIssueOnLine(i, ruleKey, "other msg" + i));
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+    for (int i = 0; i < count; i++) {
+      assertThat(tracking.baseFor(raws.get(i))).isSameAs(bases.get(i));
+    }
+  }
+
   @Test
   public void recognize_blocks_1() {
     FakeInput baseInput = FakeInput.createForSourceLines(
@@ -20,6 +20,10 @@
 package org.sonar.core.platform;
 
 import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
@@ -338,6 +342,36 @@ public class ComponentContainerTest {
     assertThat(component.isClosedAfterStop).isTrue();
   }
 
+  @Test
+  public void lazy_components_of_thread_safe_container_are_instantiated_once_by_concurrent_threads() throws Exception {
+    ComponentContainer parent = new ComponentContainer(ComponentContainer.createThreadSafePicoContainer());
+    parent.add(SlowComponent.class);
+    parent.startComponents();
+    ComponentContainer child1 = parent.createChild();
+    ComponentContainer child2 = parent.createChild();
+    SlowComponent.INSTANCES.set(0);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<SlowComponent> first = executor.submit(() -> child1.getComponentByType(SlowComponent.class));
+      Future<SlowComponent> second = executor.submit(() -> child2.getComponentByType(SlowComponent.class));
+
+      assertThat(first.get()).isSameAs(second.get());
+      assertThat(SlowComponent.INSTANCES.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  public static class SlowComponent {
+    static final AtomicInteger INSTANCES = new AtomicInteger();
+
+    public SlowComponent() throws InterruptedException {
+      INSTANCES.incrementAndGet();
+      Thread.sleep(100L);
+    }
+  }
+
   public static class StartableComponent {
     public boolean started = false;
     public boolean stopped = false;
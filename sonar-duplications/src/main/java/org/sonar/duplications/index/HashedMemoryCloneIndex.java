@@ -0,0 +1,483 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import javax.annotation.Nullable;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+import org.sonar.duplications.utils.FastStringComparator;
+
+/**
+ * Implementation of {@link CloneIndex} which, unlike {@link PackedMemoryCloneIndex}, never needs to be sorted:
+ * <ul>
+ * <li>blocks are stored as flat records of ints, either on heap or off heap (see {@link Storage}),</li>
+ * <li>blocks of a same resource are linked together and the first block of each resource is stored in a table of
+ * resources, so that {@link #getByResourceId(String)} does not require any search,</li>
+ * <li>blocks with the same hash are linked together and the first block of each distinct hash is stored in a hash
+ * directory using open addressing, so that {@link #getBySequenceHash(ByteArray)} is a constant time lookup.</li>
+ * </ul>
+ * Blocks can be added at any time and all the blocks of a resource can be removed with {@link #remove(String)},
+ * which allows to update the index incrementally when only some resources change. Slots of removed blocks are reused.
+ * <p>
+ * Lookups can be executed concurrently as long as the index is not modified.
+ * </p>
+ */
+public class HashedMemoryCloneIndex extends AbstractCloneIndex {
+
+  public enum Storage {
+    /**
+     * Blocks are stored in an array of ints
+     */
+    HEAP,
+    /**
+     * Blocks are stored in a direct buffer, out of the Java heap
+     */
+    OFF_HEAP
+  }
+
+  private static final int DEFAULT_INITIAL_CAPACITY = 1024;
+  private static final int NONE = -1;
+  private static final int REMOVED = -2;
+
+  // offsets of the fields of a block record, after the hash
+  private static final int INDEX_IN_FILE = 0;
+  private static final int START_LINE = 1;
+  private static final int END_LINE = 2;
+  private static final int START_UNIT = 3;
+  private static final int END_UNIT = 4;
+  private static final int RESOURCE = 5;
+  private static final int NEXT_SAME_RESOURCE = 6;
+  private static final int PREVIOUS_SAME_HASH = 7;
+  private static final int NEXT_SAME_HASH = 8;
+  private static final int FIELDS = 9;
+
+  private final int hashInts;
+  private final int blockInts;
+  private IntStorage blockData;
+  /**
+   * Number of block slots in use, including the slots of removed blocks.
+   */
+  private int slots = 0;
+  /**
+   * First free slot, the next free slots being linked through the {@link #NEXT_SAME_HASH} field.
+   */
+  private int firstFreeSlot = NONE;
+
+  /**
+   * Hash directory: slot of the first block of each distinct hash, {@link #NONE} for an empty entry and
+   * {@link #REMOVED} for an entry which is not used anymore.
+   */
+  private int[] directory;
+  private int directoryUsedEntries = 0;
+
+  private final Map<String, Resource> resourcesById = new HashMap<>();
+  private final List<Resource> resourcesByIndex = new ArrayList<>();
+
+  public HashedMemoryCloneIndex() {
+    this(8, DEFAULT_INITIAL_CAPACITY, Storage.HEAP);
+  }
+
+  /**
+   * @param hashBytes size of hash in bytes
+   * @param initialCapacity the initial number of blocks
+   */
+  public HashedMemoryCloneIndex(int hashBytes, int initialCapacity, Storage storage) {
+    this.hashInts = hashBytes / 4;
+    this.blockInts = hashInts + FIELDS;
+    int capacity = Math.max(1, initialCapacity);
+    this.blockData = storage == Storage.HEAP ? new HeapIntStorage(capacity * blockInts) : new DirectIntStorage(capacity * blockInts);
+    this.directory = newDirectory(Integer.highestOneBit(capacity) << 1);
+  }
+
+  @Override
+  public Collection<Block> getByResourceId(String resourceId) {
+    Resource resource = resourcesById.get(resourceId);
+    if (resource == null) {
+      return new ArrayList<>(0);
+    }
+    List<Block> result = new ArrayList<>(resource.blocks);
+    for (int slot = resource.firstSlot; slot != NONE; slot = field(slot, NEXT_SAME_RESOURCE)) {
+      result.add(createBlock(slot, resourceId, null));
+    }
+    return result;
+  }
+
+  @Override
+  public Collection<Block> getBySequenceHash(ByteArray sequenceHash) {
+    int[] hash = toHash(sequenceHash);
+    List<Block> result = new ArrayList<>();
+    int entry = findEntry(hash);
+    if (directory[entry] >= 0) {
+      for (int slot = directory[entry]; slot != NONE; slot = field(slot, NEXT_SAME_HASH)) {
+        result.add(createBlock(slot, resourcesByIndex.get(field(slot, RESOURCE)).id, sequenceHash));
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void insert(Block block) {
+    int[] hash = toHash(block.getBlockHash());
+    Resource resource = resourcesById.computeIfAbsent(block.getResourceId(), this::newResource);
+    int slot = allocateSlot();
+
+    int offset = slot * blockInts;
+    for (int i = 0; i < hashInts; i++) {
+      blockData.set(offset + i, hash[i]);
+    }
+    setField(slot, INDEX_IN_FILE, block.getIndexInFile());
+    setField(slot, START_LINE, block.getStartLine());
+    setField(slot, END_LINE, block.getEndLine());
+    setField(slot, START_UNIT, block.getStartUnit());
+    setField(slot, END_UNIT, block.getEndUnit());
+    setField(slot, RESOURCE, resource.index);
+
+    // append to the blocks of the resource
+    setField(slot, NEXT_SAME_RESOURCE, NONE);
+    if (resource.lastSlot == NONE) {
+      resource.firstSlot = slot;
+    } else {
+      setField(resource.lastSlot, NEXT_SAME_RESOURCE, slot);
+    }
+    resource.lastSlot = slot;
+    resource.blocks++;
+
+    // prepend to the blocks with the same hash
+    int entry = findEntry(hash);
+    int head = directory[entry];
+    setField(slot, PREVIOUS_SAME_HASH, NONE);
+    if (head >= 0) {
+      setField(slot, NEXT_SAME_HASH, head);
+      setField(head, PREVIOUS_SAME_HASH, slot);
+      directory[entry] = slot;
+    } else {
+      setField(slot, NEXT_SAME_HASH, NONE);
+      addToDirectory(entry, slot);
+    }
+  }
+
+  /**
+   * Removes all the blocks of the specified resource. Does nothing if the resource is not in the index.
+   */
+  public void remove(String resourceId) {
+    Resource resource = resourcesById.remove(resourceId);
+    if (resource == null) {
+      return;
+    }
+    resourcesByIndex.set(resource.index, null);
+    int slot = resource.firstSlot;
+    while (slot != NONE) {
+      int next = field(slot, NEXT_SAME_RESOURCE);
+      unlinkFromSameHash(slot);
+      // add slot to the free list
+      setField(slot, NEXT_SAME_HASH, firstFreeSlot);
+      firstFreeSlot = slot;
+      slot = next;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * Resources are sorted by id, as in {@link PackedMemoryCloneIndex}, and blocks of each resource are in insertion
+   * order.
+   * </p>
+   */
+  @Override
+  public Iterator<ResourceBlocks> iterator() {
+    String[] resourceIds = resourcesById.keySet().toArray(new String[resourcesById.size()]);
+    Arrays.sort(resourceIds, FastStringComparator.INSTANCE);
+    return new Iterator<ResourceBlocks>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < resourceIds.length;
+      }
+
+      @Override
+      public ResourceBlocks next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        String resourceId = resourceIds[index];
+        index++;
+        return new ResourceBlocks(resourceId, getByResourceId(resourceId));
+      }
+    };
+  }
+
+  @Override
+  public int noResources() {
+    return resourcesById.size();
+  }
+
+  private Resource newResource(String resourceId) {
+    Resource resource = new Resource(resourceId, resourcesByIndex.size());
+    resourcesByIndex.add(resource);
+    return resource;
+  }
+
+  private int[] toHash(ByteArray byteArray) {
+    int[] hash = byteArray.toIntArray();
+    if (hash.length != hashInts) {
+      throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
+    }
+    return hash;
+  }
+
+  private int field(int slot, int field) {
+    return blockData.get(slot * blockInts + hashInts + field);
+  }
+
+  private void setField(int slot, int field, int value) {
+    blockData.set(slot * blockInts + hashInts + field, value);
+  }
+
+  private int allocateSlot() {
+    if (firstFreeSlot != NONE) {
+      int slot = firstFreeSlot;
+      firstFreeSlot = field(slot, NEXT_SAME_HASH);
+      return slot;
+    }
+    int requiredLength = (slots + 1) * blockInts;
+    if (requiredLength > blockData.length()) {
+      blockData = blockData.grow(Math.max(requiredLength, (blockData.length() / blockInts * 3 / 2 + 1) * blockInts));
+    }
+    int slot = slots;
+    slots++;
+    return slot;
+  }
+
+  private void unlinkFromSameHash(int slot) {
+    int previous = field(slot, PREVIOUS_SAME_HASH);
+    int next = field(slot, NEXT_SAME_HASH);
+    if (next != NONE) {
+      setField(next, PREVIOUS_SAME_HASH, previous);
+    }
+    if (previous != NONE) {
+      setField(previous, NEXT_SAME_HASH, next);
+      return;
+    }
+    // first block of the hash: update the directory
+    int entry = findEntry(readHash(slot));
+    directory[entry] = next == NONE ? REMOVED : next;
+  }
+
+  private int[] readHash(int slot) {
+    int[] hash = new int[hashInts];
+    int offset = slot * blockInts;
+    for (int i = 0; i < hashInts; i++) {
+      hash[i] = blockData.get(offset + i);
+    }
+    return hash;
+  }
+
+  /**
+   * Entry of the directory for the specified hash: either the entry of the hash if it is in the index, or the
+   * entry where it should be added.
+   */
+  private int findEntry(int[] hash) {
+    int mask = directory.length - 1;
+    int entry = mix(hash) & mask;
+    int firstRemoved = NONE;
+    while (true) {
+      int slot = directory[entry];
+      if (slot == NONE) {
+        return firstRemoved == NONE ? entry : firstRemoved;
+      }
+      if (slot == REMOVED) {
+        if (firstRemoved == NONE) {
+          firstRemoved = entry;
+        }
+      } else if (hashEquals(hash, slot)) {
+        return entry;
+      }
+      entry = (entry + 1) & mask;
+    }
+  }
+
+  private void addToDirectory(int entry, int slot) {
+    if (directory[entry] == NONE) {
+      directoryUsedEntries++;
+    }
+    directory[entry] = slot;
+    // keep load factor (including removed entries) below 0.5 so that probing sequences are short
+    if (directoryUsedEntries * 2 > directory.length) {
+      rehash();
+    }
+  }
+
+  private void rehash() {
+    int[] oldDirectory = directory;
+    int heads = 0;
+    for (int slot : oldDirectory) {
+      if (slot >= 0) {
+        heads++;
+      }
+    }
+    directory = newDirectory(Math.max(oldDirectory.length, Integer.highestOneBit(Math.max(1, heads)) << 2));
+    directoryUsedEntries = 0;
+    for (int slot : oldDirectory) {
+      if (slot >= 0) {
+        int entry = findEntry(readHash(slot));
+        directory[entry] = slot;
+        directoryUsedEntries++;
+      }
+    }
+  }
+
+  private static int[] newDirectory(int size) {
+    int[] res = new int[Math.max(16, size)];
+    Arrays.fill(res, NONE);
+    return res;
+  }
+
+  private boolean hashEquals(int[] hash, int slot) {
+    int offset = slot * blockInts;
+    for (int i = 0; i < hashInts; i++) {
+      if (hash[i] != blockData.get(offset + i)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int mix(int[] hash) {
+    int h = 0;
+    for (int value : hash) {
+      h = 31 * h + value;
+    }
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  private Block createBlock(int slot, String resourceId, @Nullable ByteArray byteHash) {
+    ByteArray blockHash = byteHash == null ? new ByteArray(readHash(slot)) : byteHash;
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(blockHash)
+      .setIndexInFile(field(slot, INDEX_IN_FILE))
+      .setLines(field(slot, START_LINE), field(slot, END_LINE))
+      .setUnit(field(slot, START_UNIT), field(slot, END_UNIT))
+      .build();
+  }
+
+  private static final class Resource {
+    private final String id;
+    private final int index;
+    private int firstSlot = NONE;
+    private int lastSlot = NONE;
+    private int blocks = 0;
+
+    private Resource(String id, int index) {
+      this.id = id;
+      this.index = index;
+    }
+  }
+
+  private interface IntStorage {
+    int get(int index);
+
+    void set(int index, int value);
+
+    int length();
+
+    /**
+     * Copy of this storage with a greater length
+     */
+    IntStorage grow(int newLength);
+  }
+
+  private static final class HeapIntStorage implements IntStorage {
+    private final int[] data;
+
+    private HeapIntStorage(int length) {
+      this.data = new int[length];
+    }
+
+    private HeapIntStorage(int[] data) {
+      this.data = data;
+    }
+
+    @Override
+    public int get(int index) {
+      return data[index];
+    }
+
+    @Override
+    public void set(int index, int value) {
+      data[index] = value;
+    }
+
+    @Override
+    public int length() {
+      return data.length;
+    }
+
+    @Override
+    public IntStorage grow(int newLength) {
+      return new HeapIntStorage(Arrays.copyOf(data, newLength));
+    }
+  }
+
+  private static final class DirectIntStorage implements IntStorage {
+    private final IntBuffer data;
+
+    private DirectIntStorage(int length) {
+      this.data = ByteBuffer.allocateDirect(length * 4).asIntBuffer();
+    }
+
+    @Override
+    public int get(int index) {
+      return data.get(index);
+    }
+
+    @Override
+    public void set(int index, int value) {
+      data.put(index, value);
+    }
+
+    @Override
+    public int length() {
+      return data.capacity();
+    }
+
+    @Override
+    public IntStorage grow(int newLength) {
+      DirectIntStorage res = new DirectIntStorage(newLength);
+      IntBuffer source = data.duplicate();
+      source.clear();
+      res.data.put(source);
+      return res;
+    }
+  }
+}
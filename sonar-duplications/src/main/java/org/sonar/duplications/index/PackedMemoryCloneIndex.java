@@ -44,6 +44,10 @@ import javax.annotation.Nullable;
  * <p>
  * Note that this implementation currently does not support deletion, however it's possible to implement.
  * </p>
+ * <p>
+ * Once all blocks are inserted and the index is sorted (which is the case after a call to {@link #iterator()} or
+ * {@link #noResources()}), {@link #getBySequenceHash(ByteArray)} and {@link #iterator()} can be used concurrently.
+ * </p>
  */
 public class PackedMemoryCloneIndex extends AbstractCloneIndex {
 
@@ -70,8 +74,6 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
 
   private int[] resourceIdsIndex;
 
-  private final Block.Builder blockBuilder = Block.builder();
-
   public PackedMemoryCloneIndex() {
     this(8, DEFAULT_INITIAL_CAPACITY);
   }
@@ -138,7 +140,7 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     int startUnit = blockData[offset++];
     int endUnit = blockData[offset];
 
-    return blockBuilder
+    return Block.builder()
       .setResourceId(resourceId)
       .setBlockHash(blockHash)
       .setIndexInFile(indexInFile)
@@ -222,15 +224,11 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     if (hash.length != hashInts) {
       throw new IllegalArgumentException("Expected " + hashInts + " ints in hash, but got " + hash.length);
     }
-    int offset = size * blockInts;
-    for (int i = 0; i < hashInts; i++) {
-      blockData[offset++] = hash[i];
-    }
 
-    int index = DataUtils.binarySearch(byBlockHash);
+    int index = lowerBoundByHash(hash);
 
     List<Block> result = new ArrayList<>();
-    while (index < size && !isLessByHash(size, index)) {
+    while (index < size && compareHash(hash, index) == 0) {
       // extract block (note that there is no need to extract hash)
       String resourceId = resourceIds[index];
       result.add(createBlock(index, resourceId, sequenceHash));
@@ -309,6 +307,34 @@ public class PackedMemoryCloneIndex extends AbstractCloneIndex {
     sorted = true;
   }
 
+  /**
+   * Index of the first block which hash is not less than the specified hash. Unlike {@link DataUtils#binarySearch},
+   * the searched hash does not need to be copied into {@link #blockData}, so that searches can be executed concurrently.
+   */
+  private int lowerBoundByHash(int[] hash) {
+    int lower = 0;
+    int upper = size;
+    while (lower < upper) {
+      int mid = (lower + upper) >>> 1;
+      if (compareHash(hash, mid) > 0) {
+        lower = mid + 1;
+      } else {
+        upper = mid;
+      }
+    }
+    return lower;
+  }
+
+  private int compareHash(int[] hash, int index) {
+    int offset = index * blockInts;
+    for (int k = 0; k < hashInts; k++, offset++) {
+      if (hash[k] != blockData[offset]) {
+        return hash[k] < blockData[offset] ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
   private boolean isLessByHash(int i, int j) {
     int i2 = i * blockInts;
     int j2 = j * blockInts;
@@ -0,0 +1,199 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.duplications.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.duplications.index.HashedMemoryCloneIndex.Storage;
+import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(Parameterized.class)
+public class HashedMemoryCloneIndexTest {
+
+  @Parameters
+  public static Collection<Object[]> storages() {
+    return Arrays.asList(new Object[][] {{Storage.HEAP}, {Storage.OFF_HEAP}});
+  }
+
+  private final Storage storage;
+
+  public HashedMemoryCloneIndexTest(Storage storage) {
+    this.storage = storage;
+  }
+
+  @Test
+  public void search_by_hash_and_by_resource() {
+    HashedMemoryCloneIndex index = new HashedMemoryCloneIndex(8, 1, storage);
+    index.insert(newBlock("a", 1, 1));
+    index.insert(newBlock("a", 2, 2));
+    index.insert(newBlock("b", 1, 1));
+    index.insert(newBlock("c", 1, 1));
+    index.insert(newBlock("d", 1, 1));
+    index.insert(newBlock("e", 1, 1));
+    index.insert(newBlock("e", 2, 2));
+    index.insert(newBlock("e", 3, 3));
+
+    assertThat(index.noResources()).isEqualTo(5);
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).hasSize(5);
+    assertThat(index.getBySequenceHash(new ByteArray(2L))).hasSize(2);
+    assertThat(index.getBySequenceHash(new ByteArray(3L))).hasSize(1);
+    assertThat(index.getBySequenceHash(new ByteArray(4L))).isEmpty();
+    assertThat(index.getByResourceId("a")).extracting(Block::getIndexInFile).containsExactly(1, 2);
+    assertThat(index.getByResourceId("b")).hasSize(1);
+    assertThat(index.getByResourceId("e")).extracting(Block::getIndexInFile).containsExactly(1, 2, 3);
+    assertThat(index.getByResourceId("does not exist")).isEmpty();
+  }
+
+  @Test
+  public void blocks_are_restored_with_all_their_fields() {
+    HashedMemoryCloneIndex index = new HashedMemoryCloneIndex(8, 16, storage);
+    Block block = Block.builder()
+      .setResourceId("a")
+      .setBlockHash(new ByteArray(123456789123L))
+      .setIndexInFile(4)
+      .setLines(10, 20)
+      .setUnit(100, 200)
+      .build();
+    index.insert(block);
+
+    Block restored = index.getByResourceId("a").iterator().next();
+    assertThat(restored.getResourceId()).isEqualTo("a");
+    assertThat(restored.getBlockHash()).isEqualTo(block.getBlockHash());
+    assertThat(restored.getIndexInFile()).isEqualTo(4);
+    assertThat(restored.getStartLine()).isEqualTo(10);
+    assertThat(restored.getEndLine()).isEqualTo(20);
+    assertThat(restored.getStartUnit()).isEqualTo(100);
+    assertThat(restored.getEndUnit()).isEqualTo(200);
+  }
+
+  @Test
+  public void search_by_hash_returns_blocks_with_the_requested_hash_instance() {
+    HashedMemoryCloneIndex index = new HashedMemoryCloneIndex(8, 16, storage);
+    index.insert(newBlock("a", 1, 1));
+    index.insert(newBlock("b", 1, 1));
+    ByteArray requestedHash = new ByteArray(1L);
+
+    Collection<Block> blocks = index.getBySequenceHash(requestedHash);
+
+    assertThat(blocks).hasSize(2);
+    for (Block block : blocks) {
+      assertThat(block.getBlockHash()).isSameAs(requestedHash);
+    }
+  }
+
+  @Test
+  public void iterate_over_resources_sorted_by_id() {
+    HashedMemoryCloneIndex index = new HashedMemoryCloneIndex(8, 16, storage);
+    index.insert(newBlock("a", 1, 1));
+    index.insert(newBlock("c", 1, 1));
+    index.insert(newBlock("b", 1, 1));
+    index.insert(newBlock("c", 2, 2));
+    index.insert(newBlock("a", 2, 2));
+
+    List<ResourceBlocks> resourcesBlocks = new ArrayList<>();
+    Iterator<ResourceBlocks> it = index.iterator();
+    it.forEachRemaining(resourcesBlocks::add);
+
+    assertThat(resourcesBlocks).extracting(ResourceBlocks::resourceId).containsExactly("a", "b", "c");
+    assertThat(resourcesBlocks.get(0).blocks()).hasSize(2);
+    assertThat(resourcesBlocks.get(1).blocks()).hasSize(1);
+    assertThat(resourcesBlocks.get(2).blocks()).hasSize(2);
+  }
+
+  @Test
+  public void remove_all_blocks_of_a_resource() {
+    HashedMemoryCloneIndex index = new HashedMemoryCloneIndex(8, 1, storage);
+    index.insert(newBlock("a", 1, 1));
+    index.insert(newBlock("b", 1, 1));
+    index.insert(newBlock("a", 2, 2));
+    index.insert(newBlock("c", 1, 1));
+
+    index.remove("a");
+    index.remove("does not exist");
+
+    assertThat(index.noResources()).isEqualTo(2);
+    assertThat(index.getByResourceId("a")).isEmpty();
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).extracting(Block::getResourceId).containsOnly("b", "c");
+    assertThat(index.getBySequenceHash(new ByteArray(2L))).isEmpty();
+
+    // removed slots are reused
+    index.insert(newBlock("a", 3, 2));
+    index.insert(newBlock("d", 1, 1));
+    assertThat(index.getByResourceId("a")).extracting(Block::getIndexInFile).containsExactly(3);
+    assertThat(index.getBySequenceHash(new ByteArray(2L))).extracting(Block::getResourceId).containsOnly("a");
+    assertThat(index.getBySequenceHash(new ByteArray(1L))).extracting(Block::getResourceId).containsOnly("b", "c", "d");
+  }
+
+  @Test
+  public void many_insertions_and_removals() {
+    HashedMemoryCloneIndex index = new HashedMemoryCloneIndex(8, 1, storage);
+    for (int round = 0; round < 3; round++) {
+      for (int resource = 0; resource < 100; resource++) {
+        for (int i = 0; i < 50; i++) {
+          index.insert(newBlock("r" + resource, i, resource * 10 + i));
+        }
+      }
+      for (int resource = 0; resource < 100; resource += 2) {
+        index.remove("r" + resource);
+      }
+      assertThat(index.noResources()).isEqualTo(50);
+      for (int resource = 1; resource < 100; resource += 2) {
+        assertThat(index.getByResourceId("r" + resource)).hasSize(50);
+      }
+      // hash 10 is only used by blocks of resources 0 and 1
+      assertThat(index.getBySequenceHash(new ByteArray(10L))).extracting(Block::getResourceId).containsOnly("r1");
+      for (int resource = 1; resource < 100; resource += 2) {
+        index.remove("r" + resource);
+      }
+      assertThat(index.noResources()).isEqualTo(0);
+      assertThat(index.getBySequenceHash(new ByteArray(10L))).isEmpty();
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_insert_hash_of_incorrect_size() {
+    new HashedMemoryCloneIndex(4, 1, storage).insert(newBlock("a", 1, 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void attempt_to_find_hash_of_incorrect_size() {
+    new HashedMemoryCloneIndex(4, 1, storage).getBySequenceHash(new ByteArray(1L));
+  }
+
+  private static Block newBlock(String resourceId, int indexInFile, long hash) {
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(indexInFile)
+      .setLines(1, 2)
+      .build();
+  }
+}
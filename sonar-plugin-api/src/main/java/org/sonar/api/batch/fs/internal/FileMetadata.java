@@ -20,11 +20,13 @@
 package org.sonar.api.batch.fs.internal;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.SequenceInputStream;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.CharacterCodingException;
@@ -33,6 +35,7 @@ import java.nio.charset.CharsetEncoder;
 import java.nio.charset.CodingErrorAction;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
+import java.util.Arrays;
 
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -56,6 +59,8 @@ public class FileMetadata {
 
   private static final char LINE_FEED = '\n';
   private static final char CARRIAGE_RETURN = '\r';
+  private static final int BUFFER_SIZE = 8 * 1024;
+  private static final int MAX_IN_MEMORY_SIZE = 16 * 1024 * 1024;
 
   public abstract static class CharHandler {
 
@@ -88,8 +93,7 @@ public class FileMetadata {
     @Override
     protected void handleAll(char c) {
       if (!alreadyLoggedInvalidCharacter && c == '\ufffd') {
-        LOG.warn("Invalid character encountered in file {} at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.", filePath,
-          lines, encoding, CoreProperties.ENCODING_PROPERTY);
+        logInvalidCharacter(filePath, lines, encoding);
         alreadyLoggedInvalidCharacter = true;
       }
     }
@@ -266,11 +270,57 @@ public class FileMetadata {
 
   }
 
+  static void logInvalidCharacter(String filePath, int line, Charset encoding) {
+    LOG.warn("Invalid character encountered in file {} at line {} for encoding {}. Please fix file content or configure the encoding to be used using property '{}'.", filePath,
+      line, encoding, CoreProperties.ENCODING_PROPERTY);
+  }
+
   /**
    * Compute hash of a file ignoring line ends differences.
    * Maximum performance is needed.
    */
   public Metadata readMetadata(InputStream stream, Charset encoding, String filePath, @Nullable CharHandler otherHandler) {
+    if (Utf8MetadataReader.supports(encoding)) {
+      return readMetadataFromBytes(stream, encoding, filePath, otherHandler);
+    }
+    return readMetadataFromChars(stream, encoding, filePath, otherHandler);
+  }
+
+  /**
+   * Files of the most common encodings are loaded in memory and processed byte by byte, without
+   * decoding nor per-char calls to the handlers. Other handler, if any, is fed from the loaded bytes.
+   */
+  private static Metadata readMetadataFromBytes(InputStream stream, Charset encoding, String filePath, @Nullable CharHandler otherHandler) {
+    byte[] bytes = new byte[BUFFER_SIZE];
+    int length = 0;
+    try {
+      int read;
+      while ((read = stream.read(bytes, length, bytes.length - length)) != -1) {
+        length += read;
+        if (length == bytes.length) {
+          if (length >= MAX_IN_MEMORY_SIZE) {
+            // big files are streamed
+            return readMetadataFromChars(new SequenceInputStream(new ByteArrayInputStream(bytes, 0, length), stream), encoding, filePath, otherHandler);
+          }
+          bytes = Arrays.copyOf(bytes, length * 2);
+        }
+      }
+      stream.close();
+    } catch (IOException e) {
+      throw new IllegalStateException(String.format("Fail to read file '%s' with encoding '%s'", filePath, encoding), e);
+    }
+
+    Metadata metadata = Utf8MetadataReader.read(bytes, length, encoding, filePath);
+    if (metadata == null) {
+      return readMetadataFromChars(new ByteArrayInputStream(bytes, 0, length), encoding, filePath, otherHandler);
+    }
+    if (otherHandler != null) {
+      readFile(new ByteArrayInputStream(bytes, 0, length), encoding, filePath, new CharHandler[] {otherHandler});
+    }
+    return metadata;
+  }
+
+  private static Metadata readMetadataFromChars(InputStream stream, Charset encoding, String filePath, @Nullable CharHandler otherHandler) {
     LineCounter lineCounter = new LineCounter(filePath, encoding);
     FileHashComputer fileHashComputer = new FileHashComputer(filePath);
     LineOffsetCounter lineOffsetCounter = new LineOffsetCounter();
@@ -0,0 +1,158 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Computes the same {@link Metadata} as the {@link FileMetadata.CharHandler}s, directly from the bytes of a file
+ * and in a single loop. Supports UTF-8 content and ASCII content of ISO-8859-1 and US-ASCII files. Other content,
+ * like malformed UTF-8, is not supported and must be decoded into chars.
+ */
+class Utf8MetadataReader {
+
+  private static final byte LINE_FEED = '\n';
+  private static final byte CARRIAGE_RETURN = '\r';
+  private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+  private static final boolean[] ASCII_WHITESPACES = new boolean[128];
+
+  static {
+    for (char c = 0; c < ASCII_WHITESPACES.length; c++) {
+      ASCII_WHITESPACES[c] = Character.isWhitespace(c);
+    }
+  }
+
+  private Utf8MetadataReader() {
+    // only static methods
+  }
+
+  static boolean supports(Charset encoding) {
+    return StandardCharsets.UTF_8.equals(encoding) || StandardCharsets.ISO_8859_1.equals(encoding) || StandardCharsets.US_ASCII.equals(encoding);
+  }
+
+  /**
+   * @return null if the content is not supported
+   */
+  @CheckForNull
+  static Metadata read(byte[] bytes, int length, Charset encoding, String filePath) {
+    boolean utf8 = StandardCharsets.UTF_8.equals(encoding);
+    MessageDigest md5 = DigestUtils.getMd5Digest();
+    IntArrayList lineOffsets = new IntArrayList();
+    lineOffsets.add(0);
+    int lines = 1;
+    int nonBlankLines = 0;
+    boolean blankLine = true;
+    boolean alreadyLoggedInvalidCharacter = false;
+    // offsets are in chars, like in the decoded content
+    long offset = 0;
+    // first byte of the current line that is not hashed yet
+    int lineStart = 0;
+    int i = 0;
+    while (i < length) {
+      byte b = bytes[i];
+      if (b == LINE_FEED || b == CARRIAGE_RETURN) {
+        // line ends are hashed as a single line feed
+        md5.update(bytes, lineStart, i - lineStart);
+        md5.update(LINE_FEED);
+        int eolLength = b == CARRIAGE_RETURN && i + 1 < length && bytes[i + 1] == LINE_FEED ? 2 : 1;
+        i += eolLength;
+        offset += eolLength;
+        lineStart = i;
+        lineOffsets.add(checkOffset(offset));
+        lines++;
+        if (!blankLine) {
+          nonBlankLines++;
+        }
+        blankLine = true;
+      } else if (b >= 0) {
+        blankLine &= ASCII_WHITESPACES[b];
+        i++;
+        offset++;
+      } else {
+        int codePoint = utf8 ? decodeUtf8(bytes, i, length) : -1;
+        if (codePoint < 0) {
+          return null;
+        }
+        if (!alreadyLoggedInvalidCharacter && codePoint == REPLACEMENT_CHARACTER) {
+          FileMetadata.logInvalidCharacter(filePath, lines, encoding);
+          alreadyLoggedInvalidCharacter = true;
+        }
+        // supplementary characters are made of two chars, which are not whitespaces
+        blankLine &= Character.isBmpCodePoint(codePoint) && Character.isWhitespace(codePoint);
+        i += utf8Length(b);
+        offset += Character.charCount(codePoint);
+      }
+    }
+    md5.update(bytes, lineStart, length - lineStart);
+    if (!blankLine) {
+      nonBlankLines++;
+    }
+    return new Metadata(lines, nonBlankLines, Hex.encodeHexString(md5.digest()), lineOffsets.trimAndGet(), checkOffset(offset));
+  }
+
+  private static int checkOffset(long offset) {
+    if (offset > Integer.MAX_VALUE) {
+      throw new IllegalStateException("File is too big: " + offset);
+    }
+    return (int) offset;
+  }
+
+  private static int utf8Length(byte firstByte) {
+    int b = firstByte & 0xFF;
+    if (b >= 0xC2 && b <= 0xDF) {
+      return 2;
+    }
+    if (b >= 0xE0 && b <= 0xEF) {
+      return 3;
+    }
+    if (b >= 0xF0 && b <= 0xF4) {
+      return 4;
+    }
+    return -1;
+  }
+
+  /**
+   * @return the code point of the well-formed UTF-8 sequence starting at the given index, else -1
+   */
+  private static int decodeUtf8(byte[] bytes, int index, int length) {
+    int sequenceLength = utf8Length(bytes[index]);
+    if (sequenceLength < 0 || index + sequenceLength > length) {
+      return -1;
+    }
+    int codePoint = bytes[index] & (0xFF >> (sequenceLength + 1));
+    for (int i = index + 1; i < index + sequenceLength; i++) {
+      if ((bytes[i] & 0xC0) != 0x80) {
+        return -1;
+      }
+      codePoint = (codePoint << 6) | (bytes[i] & 0x3F);
+    }
+    boolean overlong = (sequenceLength == 3 && codePoint < 0x800) || (sequenceLength == 4 && codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT);
+    boolean surrogate = codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE;
+    if (overlong || surrogate || codePoint > Character.MAX_CODE_POINT) {
+      return -1;
+    }
+    return codePoint;
+  }
+}
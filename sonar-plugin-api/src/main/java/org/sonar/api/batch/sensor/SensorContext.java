@@ -25,6 +25,8 @@ import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.InputModule;
 import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.error.NewAnalysisError;
@@ -165,4 +167,24 @@ public interface SensorContext {
    */
   void markForPublishing(InputFile inputFile);
 
+  /**
+   * Returns true if the data cached by sensors is kept from one analysis of the project to the next one.
+   * When disabled, {@link #previousCache()} is empty and data written to {@link #nextCache()} is dropped.
+   * @since 6.5
+   */
+  boolean isCacheEnabled();
+
+  /**
+   * Data cached by sensors during the previous analysis of the project. The cache is empty when the active rules or the
+   * plugins changed since then. Keys are shared by all the sensors, so they should be prefixed by the plugin key.
+   * @since 6.5
+   */
+  ReadCache previousCache();
+
+  /**
+   * Cache of the next analysis of the project.
+   * @since 6.5
+   */
+  WriteCache nextCache();
+
 }
@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.cache;
+
+import java.io.InputStream;
+
+/**
+ * Data stored by the sensors for the next analysis of the project. Data which is not written again
+ * during the current analysis is lost.
+ * See {@link org.sonar.api.batch.sensor.SensorContext#nextCache()}
+ *
+ * @since 6.5
+ */
+public interface WriteCache {
+
+  /**
+   * Saves the data of the given stream. The stream is fully read but not closed.
+   *
+   * @throws IllegalArgumentException if the cache already contains the key
+   */
+  void write(String key, InputStream data);
+
+  /**
+   * Saves the given bytes.
+   *
+   * @throws IllegalArgumentException if the cache already contains the key
+   */
+  void write(String key, byte[] data);
+
+  /**
+   * Copies the data cached during the previous analysis, usually because the related input did not change.
+   *
+   * @throws IllegalArgumentException if the previous cache doesn't contain the key, or if the cache already contains the key
+   */
+  void copyFromPrevious(String key);
+
+}
@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.internal;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * In-memory cache of sensors, used by {@link SensorContextTester}. This is not an API.
+ */
+public class InMemorySensorCache implements ReadCache, WriteCache {
+
+  private final Map<String, byte[]> data = new HashMap<>();
+  private final ReadCache previous;
+
+  public InMemorySensorCache() {
+    this(null);
+  }
+
+  /**
+   * @param previous cache used by {@link #copyFromPrevious(String)}
+   */
+  public InMemorySensorCache(@Nullable ReadCache previous) {
+    this.previous = previous;
+  }
+
+  @Override
+  public InputStream read(String key) {
+    checkArgument(contains(key), "Cache doesn't contain key '%s'", key);
+    return new ByteArrayInputStream(data.get(key));
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return data.containsKey(key);
+  }
+
+  @Override
+  public void write(String key, InputStream data) {
+    try {
+      write(key, ByteStreams.toByteArray(data));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read data of key " + key, e);
+    }
+  }
+
+  @Override
+  public void write(String key, byte[] data) {
+    checkArgument(!this.data.containsKey(key), "Cache already contains key '%s'", key);
+    this.data.put(key, data.clone());
+  }
+
+  @Override
+  public void copyFromPrevious(String key) {
+    checkArgument(previous != null && previous.contains(key), "Previous cache doesn't contain key '%s'", key);
+    try (InputStream stream = previous.read(key)) {
+      write(key, stream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to copy data of key " + key, e);
+    }
+  }
+}
@@ -47,6 +47,8 @@ import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
 import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
@@ -99,6 +101,9 @@ public class SensorContextTester implements SensorContext {
   private InputModule module;
   private SonarRuntime runtime;
   private boolean cancelled;
+  private boolean cacheEnabled;
+  private ReadCache previousCache;
+  private WriteCache nextCache;
 
   private SensorContextTester(Path moduleBaseDir) {
     this.settings = new MapSettings();
@@ -107,6 +112,8 @@ public class SensorContextTester implements SensorContext {
     this.sensorStorage = new InMemorySensorStorage();
     this.module = new DefaultInputModule("projectKey");
     this.runtime = SonarRuntimeImpl.forSonarQube(ApiVersion.load(System2.INSTANCE), SonarQubeSide.SCANNER);
+    this.previousCache = new InMemorySensorCache();
+    this.nextCache = new InMemorySensorCache(previousCache);
   }
 
   public static SensorContextTester create(File moduleBaseDir) {
@@ -345,4 +352,38 @@ public class SensorContextTester implements SensorContext {
     DefaultInputFile file = (DefaultInputFile) inputFile;
     file.setPublish(true);
   }
+
+  @Override
+  public boolean isCacheEnabled() {
+    return cacheEnabled;
+  }
+
+  public SensorContextTester setCacheEnabled(boolean cacheEnabled) {
+    this.cacheEnabled = cacheEnabled;
+    return this;
+  }
+
+  @Override
+  public ReadCache previousCache() {
+    return previousCache;
+  }
+
+  /**
+   * Also resets the next cache, so that it copies from the given cache
+   */
+  public SensorContextTester setPreviousCache(ReadCache previousCache) {
+    this.previousCache = previousCache;
+    this.nextCache = new InMemorySensorCache(previousCache);
+    return this;
+  }
+
+  @Override
+  public WriteCache nextCache() {
+    return nextCache;
+  }
+
+  public SensorContextTester setNextCache(WriteCache nextCache) {
+    this.nextCache = nextCache;
+    return this;
+  }
 }
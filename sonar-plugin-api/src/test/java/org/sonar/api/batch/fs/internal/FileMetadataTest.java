@@ -19,8 +19,10 @@
  */
 package org.sonar.api.batch.fs.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.StringReader;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 
@@ -31,6 +33,7 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.fs.internal.FileMetadata.CharHandler;
 import org.sonar.api.batch.fs.internal.FileMetadata.LineHashConsumer;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
@@ -99,6 +102,48 @@ public class FileMetadataTest {
     assertThat(metadata.originalLineOffsets()).containsOnly(0, 5, 10, 18);
   }
 
+  @Test
+  public void same_metadata_from_utf_8_bytes_as_from_decoded_chars() throws Exception {
+    String[] contents = {"", "\n", "\r\r\n", " \t\n\u2003\r\n\u00a0", "f\u00f6o\r\nb\u00e0r\n\n\uD83D\uDE00\r", "x\u20ac\u0800\u07ff\uFFFD\n  \uD834\uDD1E y"};
+    for (String content : contents) {
+      Metadata fromBytes = new FileMetadata().readMetadata(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, "foo");
+      Metadata fromChars = new FileMetadata().readMetadata(new StringReader(content));
+
+      assertThat(fromBytes.lines()).as(content).isEqualTo(fromChars.lines());
+      assertThat(fromBytes.nonBlankLines()).as(content).isEqualTo(fromChars.nonBlankLines());
+      assertThat(fromBytes.hash()).as(content).isEqualTo(fromChars.hash());
+      assertThat(fromBytes.originalLineOffsets()).as(content).isEqualTo(fromChars.originalLineOffsets());
+      assertThat(fromBytes.lastValidOffset()).as(content).isEqualTo(fromChars.lastValidOffset());
+    }
+  }
+
+  @Test
+  public void non_ascii_iso_8859_1() throws Exception {
+    File tempFile = temp.newFile();
+    FileUtils.write(tempFile, "f\u00f6o\r\nbar", StandardCharsets.ISO_8859_1, true);
+
+    Metadata metadata = new FileMetadata().readMetadata(new FileInputStream(tempFile), StandardCharsets.ISO_8859_1, tempFile.getName());
+    assertThat(metadata.lines()).isEqualTo(2);
+    assertThat(metadata.hash()).isEqualTo(md5Hex("f\u00f6o\nbar"));
+    assertThat(metadata.originalLineOffsets()).containsOnly(0, 5);
+    assertThat(metadata.lastValidOffset()).isEqualTo(8);
+  }
+
+  @Test
+  public void feed_other_handler_with_chars_of_utf_8_file() throws Exception {
+    StringBuilder chars = new StringBuilder();
+    CharHandler handler = new CharHandler() {
+      @Override
+      protected void handleAll(char c) {
+        chars.append(c);
+      }
+    };
+
+    new FileMetadata().readMetadata(new ByteArrayInputStream("f\u00f6o\r\nbar".getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8, "foo", handler);
+
+    assertThat(chars.toString()).isEqualTo("f\u00f6o\r\nbar");
+  }
+
   @Test
   public void non_ascii_utf_16() throws Exception {
     File tempFile = temp.newFile();
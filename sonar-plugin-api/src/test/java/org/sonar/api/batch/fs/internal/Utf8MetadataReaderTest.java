@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.fs.internal;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import org.junit.Test;
+
+import static org.apache.commons.codec.digest.DigestUtils.md5Hex;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class Utf8MetadataReaderTest {
+
+  @Test
+  public void read_utf_8_content() {
+    byte[] bytes = "aé\r\n😀€\n".getBytes(StandardCharsets.UTF_8);
+
+    Metadata metadata = Utf8MetadataReader.read(bytes, bytes.length, StandardCharsets.UTF_8, "foo");
+
+    assertThat(metadata.lines()).isEqualTo(3);
+    assertThat(metadata.nonBlankLines()).isEqualTo(2);
+    assertThat(metadata.hash()).isEqualTo(md5Hex("aé\n😀€\n".getBytes(StandardCharsets.UTF_8)));
+    assertThat(metadata.originalLineOffsets()).containsExactly(0, 4, 8);
+    assertThat(metadata.lastValidOffset()).isEqualTo(8);
+  }
+
+  @Test
+  public void read_only_given_length() {
+    byte[] bytes = "foo\nbar".getBytes(StandardCharsets.UTF_8);
+
+    Metadata metadata = Utf8MetadataReader.read(bytes, 3, StandardCharsets.US_ASCII, "foo");
+
+    assertThat(metadata.lines()).isEqualTo(1);
+    assertThat(metadata.hash()).isEqualTo(md5Hex("foo"));
+  }
+
+  @Test
+  public void do_not_support_malformed_utf_8() {
+    assertThat(read(StandardCharsets.UTF_8, 'a', 0x80)).isNull();
+    // overlong encoding of '/'
+    assertThat(read(StandardCharsets.UTF_8, 0xC0, 0xAF)).isNull();
+    assertThat(read(StandardCharsets.UTF_8, 0xE0, 0x80, 0xAF)).isNull();
+    // truncated sequence
+    assertThat(read(StandardCharsets.UTF_8, 'a', 0xE2, 0x82)).isNull();
+    // encoded surrogate
+    assertThat(read(StandardCharsets.UTF_8, 0xED, 0xA0, 0x80)).isNull();
+    // greater than U+10FFFF
+    assertThat(read(StandardCharsets.UTF_8, 0xF4, 0x90, 0x80, 0x80)).isNull();
+  }
+
+  @Test
+  public void do_not_support_non_ascii_content_of_other_encodings() {
+    assertThat(read(StandardCharsets.ISO_8859_1, 'a', 0xE9)).isNull();
+    assertThat(read(StandardCharsets.ISO_8859_1, 'a', 'b')).isNotNull();
+  }
+
+  @Test
+  public void supported_encodings() {
+    assertThat(Utf8MetadataReader.supports(StandardCharsets.UTF_8)).isTrue();
+    assertThat(Utf8MetadataReader.supports(StandardCharsets.ISO_8859_1)).isTrue();
+    assertThat(Utf8MetadataReader.supports(StandardCharsets.US_ASCII)).isTrue();
+    assertThat(Utf8MetadataReader.supports(StandardCharsets.UTF_16)).isFalse();
+  }
+
+  private static Metadata read(Charset encoding, int... values) {
+    byte[] bytes = new byte[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bytes[i] = (byte) values[i];
+    }
+    return Utf8MetadataReader.read(bytes, bytes.length, encoding, "foo");
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.api.batch.sensor.internal;
+
+import java.io.ByteArrayInputStream;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class InMemorySensorCacheTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private InMemorySensorCache previous = new InMemorySensorCache();
+  private InMemorySensorCache underTest = new InMemorySensorCache(previous);
+
+  @Test
+  public void write_and_read() {
+    underTest.write("foo", new byte[] {1, 2, 3});
+    underTest.write("bar", new ByteArrayInputStream(new byte[] {4}));
+
+    assertThat(underTest.contains("foo")).isTrue();
+    assertThat(underTest.contains("other")).isFalse();
+    assertThat(underTest.read("foo")).hasSameContentAs(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+    assertThat(underTest.read("bar")).hasSameContentAs(new ByteArrayInputStream(new byte[] {4}));
+  }
+
+  @Test
+  public void copy_from_previous() {
+    previous.write("foo", new byte[] {1});
+
+    underTest.copyFromPrevious("foo");
+
+    assertThat(underTest.read("foo")).hasSameContentAs(new ByteArrayInputStream(new byte[] {1}));
+  }
+
+  @Test
+  public void fail_to_write_key_twice() {
+    underTest.write("foo", new byte[] {1});
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Cache already contains key 'foo'");
+
+    underTest.write("foo", new byte[] {2});
+  }
+
+  @Test
+  public void fail_to_read_missing_key() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Cache doesn't contain key 'foo'");
+
+    underTest.read("foo");
+  }
+
+  @Test
+  public void fail_to_copy_key_missing_from_previous_cache() {
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Previous cache doesn't contain key 'foo'");
+
+    underTest.copyFromPrevious("foo");
+  }
+}
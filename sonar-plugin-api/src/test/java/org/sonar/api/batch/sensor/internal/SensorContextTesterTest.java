@@ -19,6 +19,7 @@
  */
 package org.sonar.api.batch.sensor.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import org.junit.Before;
 import org.junit.Rule;
@@ -344,4 +345,21 @@ public class SensorContextTesterTest {
     tester.addContextProperty("foo", "bar");
     assertThat(tester.getContextProperties()).containsOnly(entry("foo", "bar"));
   }
+
+  @Test
+  public void testCache() throws Exception {
+    assertThat(tester.isCacheEnabled()).isFalse();
+    tester.setCacheEnabled(true);
+    assertThat(tester.isCacheEnabled()).isTrue();
+
+    InMemorySensorCache previousCache = new InMemorySensorCache();
+    previousCache.write("foo", new byte[] {1, 2});
+    tester.setPreviousCache(previousCache);
+    assertThat(tester.previousCache().contains("foo")).isTrue();
+
+    tester.nextCache().copyFromPrevious("foo");
+    tester.nextCache().write("bar", new byte[] {3});
+    assertThat(((InMemorySensorCache) tester.nextCache()).read("foo")).hasSameContentAs(new ByteArrayInputStream(new byte[] {1, 2}));
+    assertThat(((InMemorySensorCache) tester.nextCache()).contains("bar")).isTrue();
+  }
 }
@@ -52,7 +52,8 @@ public class GlobalContainer extends ComponentContainer {
   private final Map<String, String> bootstrapProperties;
 
   private GlobalContainer(Map<String, String> bootstrapProperties) {
-    super();
+    // modules may be scanned concurrently, so the components shared by modules may be lazily instantiated concurrently
+    super(createThreadSafePicoContainer());
     this.bootstrapProperties = bootstrapProperties;
   }
 
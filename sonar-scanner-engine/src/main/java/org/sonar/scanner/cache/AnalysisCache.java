@@ -0,0 +1,256 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cache;
+
+import com.google.common.collect.ImmutableSet;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.picocontainer.Startable;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.AnalysisMode;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.core.platform.PluginRepository;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.analysis.AnalysisProperties;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.sonar.core.config.WebhookProperties.ANALYSIS_PROPERTY_PREFIX;
+
+/**
+ * Data cached from one analysis of the project to the next one, stored in the local cache of the scanner
+ * ({@code <sonar.userHome>/cache/_analysis}). The cache of the previous analysis is dropped as soon as
+ * the active rules, the installed plugins or the version of the API change, as data cached by sensors
+ * may depend on them, and as soon as the analysis settings (exclusions, properties of sensors, branch) change.
+ */
+@ScannerSide
+public class AnalysisCache implements Startable {
+
+  /**
+   * Enables the cache. Default is false.
+   */
+  public static final String ENABLED_PROPERTY = "sonar.scanner.analysisCache";
+
+  static final int FORMAT_VERSION = 1;
+  static final String FILENAME = "analysis-cache.bin";
+
+  private static final Logger LOG = Loggers.get(AnalysisCache.class);
+  private static final WriteCache NO_OP_WRITE_CACHE = new NoOpWriteCache();
+
+  /**
+   * Settings which change on every analysis or which don't change the data computed by sensors
+   */
+  private static final Set<String> IGNORED_SETTINGS = ImmutableSet.of(ENABLED_PROPERTY, CoreProperties.LOGIN, CoreProperties.PASSWORD,
+    CoreProperties.PROJECT_DATE_PROPERTY, CoreProperties.PROJECT_VERSION_PROPERTY, "sonar.host.url", "sonar.verbose", "sonar.log.level",
+    "sonar.showProfiling");
+  private static final String SCANNER_PROPERTY_PREFIX = "sonar.scanner.";
+
+  private final AnalysisProperties props;
+  private final Settings settings;
+  private final AnalysisMode analysisMode;
+  private final FileCache fileCache;
+  private final TempFolder tempFolder;
+  private final InputModuleHierarchy moduleHierarchy;
+  private final ActiveRules activeRules;
+  private final PluginRepository pluginRepository;
+  private final SonarRuntime sonarRuntime;
+
+  private PreviousAnalysisCache previous;
+  private NextAnalysisCache next;
+
+  public AnalysisCache(AnalysisProperties props, Settings settings, AnalysisMode analysisMode, FileCache fileCache, TempFolder tempFolder,
+    InputModuleHierarchy moduleHierarchy, ActiveRules activeRules, PluginRepository pluginRepository, SonarRuntime sonarRuntime) {
+    this.props = props;
+    this.settings = settings;
+    this.analysisMode = analysisMode;
+    this.fileCache = fileCache;
+    this.tempFolder = tempFolder;
+    this.moduleHierarchy = moduleHierarchy;
+    this.activeRules = activeRules;
+    this.pluginRepository = pluginRepository;
+    this.sonarRuntime = sonarRuntime;
+  }
+
+  /**
+   * The cache is written only by analyses which are published, as preview and issues modes don't reflect
+   * the state of the project.
+   */
+  public boolean isEnabled() {
+    return analysisMode.isPublish() && Boolean.parseBoolean(props.property(ENABLED_PROPERTY));
+  }
+
+  public ReadCache previous() {
+    if (!isEnabled()) {
+      return PreviousAnalysisCache.empty();
+    }
+    load();
+    return previous;
+  }
+
+  public WriteCache next() {
+    if (!isEnabled()) {
+      return NO_OP_WRITE_CACHE;
+    }
+    load();
+    return next;
+  }
+
+  private synchronized void load() {
+    if (previous != null) {
+      return;
+    }
+    String contextHash = contextHash();
+    previous = PreviousAnalysisCache.open(cacheFile(), contextHash);
+    LOG.debug("Load analysis cache ({} entries)", previous.size());
+    next = new NextAnalysisCache(tempFolder.newFile("analysis-cache", ".bin").toPath(), contextHash, previous);
+  }
+
+  /**
+   * Replaces the cache of the previous analysis by the data written during this analysis. Must be called
+   * only when the analysis succeeds.
+   */
+  public synchronized void persist() {
+    if (next == null) {
+      return;
+    }
+    Path target = cacheFile();
+    try {
+      closeCaches();
+      Files.createDirectories(target.getParent());
+      Files.move(next.file(), target, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to save analysis cache to " + target, e);
+    }
+    previous = null;
+    next = null;
+  }
+
+  Path cacheFile() {
+    String projectKey = moduleHierarchy.root().definition().getKeyWithBranch();
+    return fileCache.getDir().toPath().resolve("_analysis").resolve(DigestUtils.md5Hex(projectKey)).resolve(FILENAME);
+  }
+
+  /**
+   * Hash of everything which may change the data stored by sensors for unchanged files.
+   */
+  String contextHash() {
+    StringBuilder sb = new StringBuilder();
+    sb.append("api:").append(sonarRuntime.getApiVersion()).append('\n');
+    pluginRepository.getPluginInfos().stream()
+      .sorted(Comparator.comparing(PluginInfo::getKey))
+      .forEach(p -> sb.append("plugin:").append(p.getKey()).append(':').append(p.getVersion()).append('\n'));
+    activeRules.findAll().stream()
+      .sorted(Comparator.comparing(r -> r.ruleKey().toString()))
+      .forEach(r -> appendRule(sb, r));
+    appendSettings(sb, "setting:", settings.getProperties());
+    appendModule(sb, moduleHierarchy.root());
+    return DigestUtils.sha1Hex(sb.toString());
+  }
+
+  /**
+   * Properties declared in the modules of the reactor may override project settings, for example the exclusions
+   */
+  private void appendModule(StringBuilder sb, DefaultInputModule module) {
+    appendSettings(sb, "module:" + module.key() + ':', module.definition().properties());
+    moduleHierarchy.children(module).stream()
+      .sorted(Comparator.comparing(DefaultInputModule::key))
+      .forEach(child -> appendModule(sb, child));
+  }
+
+  private static void appendSettings(StringBuilder sb, String prefix, Map<String, String> properties) {
+    new TreeMap<>(properties).forEach((k, v) -> {
+      if (!isIgnoredSetting(k)) {
+        sb.append(prefix).append(k).append('=').append(v).append('\n');
+      }
+    });
+  }
+
+  private static boolean isIgnoredSetting(String key) {
+    return IGNORED_SETTINGS.contains(key) || key.endsWith(".secured") || key.startsWith(SCANNER_PROPERTY_PREFIX)
+      || key.startsWith(ANALYSIS_PROPERTY_PREFIX);
+  }
+
+  private static void appendRule(StringBuilder sb, ActiveRule rule) {
+    sb.append("rule:").append(rule.ruleKey()).append(':').append(rule.severity())
+      .append(':').append(rule.templateRuleKey()).append(':').append(rule.internalKey());
+    Map<String, String> params = new TreeMap<>(rule.params());
+    params.forEach((k, v) -> sb.append(':').append(k).append('=').append(v));
+    sb.append('\n');
+  }
+
+  @Override
+  public void start() {
+    // nothing to do, the cache is loaded on first use
+  }
+
+  @Override
+  public synchronized void stop() {
+    try {
+      closeCaches();
+    } catch (IOException e) {
+      LOG.debug("Fail to close analysis cache", e);
+    }
+  }
+
+  private void closeCaches() throws IOException {
+    if (previous != null) {
+      previous.close();
+    }
+    if (next != null) {
+      next.close();
+    }
+  }
+
+  private static class NoOpWriteCache implements WriteCache {
+    @Override
+    public void write(String key, InputStream data) {
+      // cache is disabled
+    }
+
+    @Override
+    public void write(String key, byte[] data) {
+      // cache is disabled
+    }
+
+    @Override
+    public void copyFromPrevious(String key) {
+      checkArgument(false, "Previous cache doesn't contain key '%s'", key);
+    }
+  }
+}
@@ -0,0 +1,104 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cache;
+
+import com.google.common.io.ByteStreams;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Appends the entries of the current analysis to a temporary file. Entries are written as they come, so that the
+ * cache never has to fit in memory.
+ */
+class NextAnalysisCache implements WriteCache, Closeable {
+
+  private final Path file;
+  private final ReadCache previous;
+  private final Set<String> keys = new HashSet<>();
+  private final DataOutputStream output;
+
+  NextAnalysisCache(Path file, String contextHash, ReadCache previous) {
+    this.file = file;
+    this.previous = previous;
+    try {
+      this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+      output.writeInt(AnalysisCache.FORMAT_VERSION);
+      writeBytes(contextHash.getBytes(StandardCharsets.UTF_8));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create analysis cache " + file, e);
+    }
+  }
+
+  Path file() {
+    return file;
+  }
+
+  @Override
+  public void write(String key, InputStream data) {
+    try {
+      write(key, ByteStreams.toByteArray(data));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read data of key " + key, e);
+    }
+  }
+
+  @Override
+  public synchronized void write(String key, byte[] data) {
+    checkArgument(keys.add(key), "Cache already contains key '%s'", key);
+    try {
+      writeBytes(key.getBytes(StandardCharsets.UTF_8));
+      writeBytes(data);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write data of key " + key + " to analysis cache", e);
+    }
+  }
+
+  private void writeBytes(byte[] bytes) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  @Override
+  public void copyFromPrevious(String key) {
+    checkArgument(previous.contains(key), "Previous cache doesn't contain key '%s'", key);
+    try (InputStream stream = previous.read(key)) {
+      write(key, stream);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to copy data of key " + key, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    output.close();
+  }
+}
@@ -0,0 +1,174 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cache;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Read-only view of the file persisted by the previous analysis. Only the offsets of the entries are
+ * loaded in memory, data is read from disk on demand.
+ */
+class PreviousAnalysisCache implements ReadCache, Closeable {
+
+  private static final Logger LOG = Loggers.get(PreviousAnalysisCache.class);
+
+  private final Map<String, Entry> entries;
+  private final FileChannel channel;
+
+  private PreviousAnalysisCache(Map<String, Entry> entries, @CheckForNull FileChannel channel) {
+    this.entries = entries;
+    this.channel = channel;
+  }
+
+  static PreviousAnalysisCache empty() {
+    return new PreviousAnalysisCache(new HashMap<>(), null);
+  }
+
+  /**
+   * Loads the entries of the given file, if it exists and if it has been written with the same context hash.
+   * Otherwise the cache is empty.
+   */
+  static PreviousAnalysisCache open(Path file, String contextHash) {
+    if (!Files.isRegularFile(file)) {
+      return empty();
+    }
+    try {
+      Map<String, Entry> entries = readIndex(file, contextHash);
+      if (entries == null) {
+        LOG.info("Analysis cache is outdated, it is ignored");
+        return empty();
+      }
+      return new PreviousAnalysisCache(entries, FileChannel.open(file, StandardOpenOption.READ));
+    } catch (IOException e) {
+      LOG.warn("Analysis cache {} can't be read, it is ignored: {}", file, e.getMessage());
+      return empty();
+    }
+  }
+
+  @CheckForNull
+  private static Map<String, Entry> readIndex(Path file, String contextHash) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (input.readInt() != AnalysisCache.FORMAT_VERSION || !contextHash.equals(readString(input))) {
+        return null;
+      }
+      long position = 4L + 4L + contextHash.getBytes(StandardCharsets.UTF_8).length;
+      Map<String, Entry> entries = new HashMap<>();
+      while (true) {
+        int keyLength;
+        try {
+          keyLength = input.readInt();
+        } catch (EOFException e) {
+          return entries;
+        }
+        byte[] key = new byte[keyLength];
+        input.readFully(key);
+        int dataLength = input.readInt();
+        position += 4L + keyLength + 4L;
+        entries.put(new String(key, StandardCharsets.UTF_8), new Entry(position, dataLength));
+        skipFully(input, dataLength);
+        position += dataLength;
+      }
+    }
+  }
+
+  private static String readString(DataInputStream input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void skipFully(DataInputStream input, int length) throws IOException {
+    int skipped = 0;
+    while (skipped < length) {
+      int n = input.skipBytes(length - skipped);
+      if (n <= 0) {
+        throw new EOFException("Truncated analysis cache");
+      }
+      skipped += n;
+    }
+  }
+
+  @Override
+  public InputStream read(String key) {
+    Entry entry = entries.get(key);
+    checkArgument(entry != null, "Cache doesn't contain key '%s'", key);
+    return new ByteArrayInputStream(readBytes(key, entry));
+  }
+
+  private synchronized byte[] readBytes(String key, Entry entry) {
+    ByteBuffer buffer = ByteBuffer.allocate(entry.length);
+    try {
+      while (buffer.hasRemaining()) {
+        if (channel.read(buffer, entry.position + buffer.position()) < 0) {
+          throw new EOFException("Truncated analysis cache");
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read data of key " + key + " from analysis cache", e);
+    }
+    return buffer.array();
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return entries.containsKey(key);
+  }
+
+  int size() {
+    return entries.size();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private static class Entry {
+    private final long position;
+    private final int length;
+
+    Entry(long position, int length) {
+      this.position = position;
+      this.length = length;
+    }
+  }
+}
@@ -22,15 +22,21 @@ package org.sonar.scanner.cpd;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
-
+import javax.annotation.CheckForNull;
 import org.sonar.api.batch.fs.InputComponent;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputComponent;
@@ -63,6 +69,11 @@ public class CpdExecutor {
   private static final int TIMEOUT = 5 * 60 * 1000;
   static final int MAX_CLONE_GROUP_PER_FILE = 100;
   static final int MAX_CLONE_PART_PER_GROUP = 100;
+  /**
+   * Number of threads used to detect duplications. Default is the number of available processors minus one.
+   */
+  static final String THREADS_PROPERTY = "sonar.cpd.threads";
+  private static final int MAX_PENDING_TASKS_PER_THREAD = 2;
 
   private final SonarCpdBlockIndex index;
   private final ReportPublisher publisher;
@@ -91,49 +102,84 @@ public class CpdExecutor {
     if (filesWithoutBlocks > 0) {
       LOG.info("{} {} had no CPD blocks", filesWithoutBlocks, pluralize(filesWithoutBlocks));
     }
+    int threads = getThreads();
     progressReport.start(String.format("Calculating CPD for %d %s", total, pluralize(total)));
-    ExecutorService executorService = Executors.newSingleThreadExecutor();
+    ExecutorService executorService = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("CpdExecutor-%d").setDaemon(true).build());
     try {
+      // the index is read-only from now on: detections are executed concurrently but results are saved in the order of
+      // the index, so that the report does not depend on the number of threads
       Iterator<ResourceBlocks> it = index.iterator();
-
-      while (it.hasNext()) {
-        ResourceBlocks resourceBlocks = it.next();
-        runCpdAnalysis(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks(), timeout);
-        count++;
+      Deque<CpdTask> pendingTasks = new ArrayDeque<>();
+      while (it.hasNext() || !pendingTasks.isEmpty()) {
+        while (it.hasNext() && pendingTasks.size() < MAX_PENDING_TASKS_PER_THREAD * threads) {
+          ResourceBlocks resourceBlocks = it.next();
+          CpdTask task = submit(executorService, resourceBlocks.resourceId(), resourceBlocks.blocks());
+          if (task != null) {
+            pendingTasks.add(task);
+          }
+        }
+        CpdTask task = pendingTasks.poll();
+        if (task != null) {
+          complete(task, timeout);
+        }
       }
       progressReport.stop("CPD calculation finished");
     } catch (Exception e) {
       progressReport.stop("");
       throw e;
     } finally {
-      executorService.shutdown();
+      executorService.shutdownNow();
     }
   }
 
+  private int getThreads() {
+    int threads = settings.getInt(THREADS_PROPERTY);
+    if (threads <= 0) {
+      threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+    }
+    return threads;
+  }
+
   private static String pluralize(int files) {
     return files == 1 ? "file" : "files";
   }
 
   @VisibleForTesting
   void runCpdAnalysis(ExecutorService executorService, String componentKey, final Collection<Block> fileBlocks, long timeout) {
+    CpdTask task = submit(executorService, componentKey, fileBlocks);
+    if (task != null) {
+      complete(task, timeout);
+    }
+  }
+
+  @CheckForNull
+  private CpdTask submit(ExecutorService executorService, String componentKey, Collection<Block> fileBlocks) {
     DefaultInputComponent component = (DefaultInputComponent) componentStore.getByKey(componentKey);
     if (component == null) {
       LOG.error("Resource not found in component store: {}. Skipping CPD computation for it", componentKey);
-      return;
+      return null;
     }
+    CpdTask task = new CpdTask((InputFile) component, fileBlocks);
+    task.future = executorService.submit(task);
+    return task;
+  }
 
-    InputFile inputFile = (InputFile) component;
+  private void complete(CpdTask task, long timeout) {
+    InputFile inputFile = task.inputFile;
     LOG.debug("Detection of duplications for {}", inputFile.absolutePath());
     progressReport.message(String.format("%d/%d - current file: %s", count, total, inputFile.absolutePath()));
+    count++;
 
     List<CloneGroup> duplications;
-    Future<List<CloneGroup>> futureResult = executorService.submit(() -> SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks));
     try {
-      duplications = futureResult.get(timeout, TimeUnit.MILLISECONDS);
+      duplications = task.await(timeout);
     } catch (TimeoutException e) {
       LOG.warn("Timeout during detection of duplications for " + inputFile.absolutePath());
-      futureResult.cancel(true);
+      task.future.cancel(true);
       return;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted during detection of duplication for " + inputFile.absolutePath(), e);
     } catch (Exception e) {
       throw new IllegalStateException("Fail during detection of duplication for " + inputFile.absolutePath(), e);
     }
@@ -146,7 +192,7 @@ public class CpdExecutor {
       filtered = duplications;
     }
 
-    saveDuplications(component, filtered);
+    saveDuplications((DefaultInputComponent) inputFile, filtered);
   }
 
   @VisibleForTesting
@@ -221,4 +267,38 @@ public class CpdExecutor {
     }
     return dupBuilder.build();
   }
+
+  /**
+   * Detection of the duplications of a single file. The timeout of a detection starts when it is actually
+   * executed by a thread of the pool, not when it is submitted.
+   */
+  private final class CpdTask implements Callable<List<CloneGroup>> {
+    private final InputFile inputFile;
+    private final Collection<Block> fileBlocks;
+    private final CountDownLatch started = new CountDownLatch(1);
+    private volatile long startNanos;
+    private Future<List<CloneGroup>> future;
+
+    private CpdTask(InputFile inputFile, Collection<Block> fileBlocks) {
+      this.inputFile = inputFile;
+      this.fileBlocks = fileBlocks;
+    }
+
+    @Override
+    public List<CloneGroup> call() {
+      startNanos = System.nanoTime();
+      started.countDown();
+      return SuffixTreeCloneDetectionAlgorithm.detect(index, fileBlocks);
+    }
+
+    private List<CloneGroup> await(long timeoutMs) throws InterruptedException, ExecutionException, TimeoutException {
+      if (!started.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+        // no thread of the pool became available during the whole timeout, for example because they are all stuck
+        // on detections which have timed out but do not support interruption
+        return future.get(0, TimeUnit.MILLISECONDS);
+      }
+      long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      return future.get(Math.max(0, timeoutMs - elapsedMs), TimeUnit.MILLISECONDS);
+    }
+  }
 }
@@ -0,0 +1,120 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.deprecated;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.CheckForNull;
+import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.scanner.cache.AnalysisCache;
+
+/**
+ * Reuses the duplication blocks computed by the previous analysis for the files which did not change,
+ * so that they don't have to be tokenized again. Blocks are stored in the {@link AnalysisCache} along
+ * with the hash of the file and the key of the tokenizer which produced them.
+ */
+@ScannerSide
+public class CpdBlocksCache {
+
+  private static final String KEY_PREFIX = "cpd:";
+
+  private final AnalysisCache analysisCache;
+
+  public CpdBlocksCache(AnalysisCache analysisCache) {
+    this.analysisCache = analysisCache;
+  }
+
+  /**
+   * Returns the blocks of the previous analysis if the file and the tokenizer did not change, otherwise
+   * computes them with the given supplier. In both cases blocks are saved for the next analysis.
+   */
+  public List<Block> getOrChunk(DefaultInputFile inputFile, String tokenizerKey, Supplier<List<Block>> chunker) {
+    if (!analysisCache.isEnabled()) {
+      return chunker.get();
+    }
+    String key = KEY_PREFIX + inputFile.key();
+    List<Block> blocks = readPrevious(key, inputFile, tokenizerKey);
+    if (blocks != null) {
+      analysisCache.next().copyFromPrevious(key);
+      return blocks;
+    }
+    blocks = chunker.get();
+    analysisCache.next().write(key, serialize(inputFile, tokenizerKey, blocks));
+    return blocks;
+  }
+
+  @CheckForNull
+  private List<Block> readPrevious(String key, DefaultInputFile inputFile, String tokenizerKey) {
+    if (!analysisCache.previous().contains(key)) {
+      return null;
+    }
+    try (DataInputStream input = new DataInputStream(analysisCache.previous().read(key))) {
+      if (!inputFile.hash().equals(input.readUTF()) || !tokenizerKey.equals(input.readUTF())) {
+        return null;
+      }
+      int count = input.readInt();
+      List<Block> blocks = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        byte[] hash = new byte[input.readInt()];
+        input.readFully(hash);
+        blocks.add(Block.builder()
+          .setResourceId(inputFile.key())
+          .setBlockHash(new ByteArray(hash))
+          .setIndexInFile(input.readInt())
+          .setLines(input.readInt(), input.readInt())
+          .setUnit(input.readInt(), input.readInt())
+          .build());
+      }
+      return blocks;
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to read duplication blocks of " + inputFile + " from analysis cache", e);
+    }
+  }
+
+  private static byte[] serialize(DefaultInputFile inputFile, String tokenizerKey, List<Block> blocks) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream output = new DataOutputStream(bytes)) {
+      output.writeUTF(inputFile.hash());
+      output.writeUTF(tokenizerKey);
+      output.writeInt(blocks.size());
+      for (Block block : blocks) {
+        byte[] hash = block.getBlockHash().getBytes();
+        output.writeInt(hash.length);
+        output.write(hash);
+        output.writeInt(block.getIndexInFile());
+        output.writeInt(block.getStartLine());
+        output.writeInt(block.getEndLine());
+        output.writeInt(block.getStartUnit());
+        output.writeInt(block.getEndUnit());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to serialize duplication blocks of " + inputFile, e);
+    }
+    return bytes.toByteArray();
+  }
+}
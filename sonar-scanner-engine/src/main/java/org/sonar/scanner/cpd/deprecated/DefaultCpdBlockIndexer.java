@@ -45,12 +45,14 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   private final FileSystem fs;
   private final Settings settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlocksCache blocksCache;
 
-  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Settings settings, SonarCpdBlockIndex index) {
+  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Settings settings, SonarCpdBlockIndex index, CpdBlocksCache blocksCache) {
     this.mappings = mappings;
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.blocksCache = blocksCache;
   }
 
   @Override
@@ -82,22 +84,27 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   }
 
   private void populateIndex(String languageKey, List<InputFile> sourceFiles, CpdMapping mapping) {
-    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), getBlockSize(languageKey));
+    int blockSize = getBlockSize(languageKey);
+    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), blockSize);
+    String tokenizerKey = languageKey + ":" + blockSize;
     for (InputFile inputFile : sourceFiles) {
       if (!index.isIndexed(inputFile)) {
         LOG.debug("Populating index from {}", inputFile.absolutePath());
-        String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
-        List<Block> blocks;
-        try (InputStreamReader isr = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
-          blocks = bridge.chunk(resourceEffectiveKey, inputFile.absolutePath(), isr);
-        } catch (IOException e) {
-          throw new IllegalStateException("Unable to read content of file " + inputFile.absolutePath(), e);
-        }
+        DefaultInputFile defaultInputFile = (DefaultInputFile) inputFile;
+        List<Block> blocks = blocksCache.getOrChunk(defaultInputFile, tokenizerKey, () -> chunk(bridge, defaultInputFile));
         index.insert(inputFile, blocks);
       }
     }
   }
 
+  private static List<Block> chunk(TokenizerBridge bridge, DefaultInputFile inputFile) {
+    try (InputStreamReader isr = new InputStreamReader(inputFile.inputStream(), inputFile.charset())) {
+      return bridge.chunk(inputFile.key(), inputFile.absolutePath(), isr);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to read content of file " + inputFile.absolutePath(), e);
+    }
+  }
+
   @VisibleForTesting
   int getBlockSize(String languageKey) {
     int blockSize = settings.getInt("sonar.cpd." + languageKey + ".minimumLines");
@@ -48,15 +48,18 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
   private static final Logger LOG = Loggers.get(JavaCpdBlockIndexer.class);
 
   private static final int BLOCK_SIZE = 10;
+  private static final String TOKENIZER_KEY = "java:" + BLOCK_SIZE;
 
   private final FileSystem fs;
   private final Settings settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlocksCache blocksCache;
 
-  public JavaCpdBlockIndexer(FileSystem fs, Settings settings, SonarCpdBlockIndex index) {
+  public JavaCpdBlockIndexer(FileSystem fs, Settings settings, SonarCpdBlockIndex index, CpdBlocksCache blocksCache) {
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.blocksCache = blocksCache;
   }
 
   @Override
@@ -86,26 +89,28 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
 
     for (InputFile inputFile : sourceFiles) {
       LOG.debug("Populating index from {}", inputFile);
-      String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
+      DefaultInputFile defaultInputFile = (DefaultInputFile) inputFile;
+      List<Block> blocks = blocksCache.getOrChunk(defaultInputFile, TOKENIZER_KEY, () -> chunk(tokenChunker, statementChunker, blockChunker, defaultInputFile));
+      index.insert(inputFile, blocks);
+    }
+  }
 
-      List<Statement> statements;
+  private static List<Block> chunk(TokenChunker tokenChunker, StatementChunker statementChunker, BlockChunker blockChunker, DefaultInputFile inputFile) {
+    List<Statement> statements;
 
-      try (InputStream is = inputFile.inputStream();
-        Reader reader = new InputStreamReader(is, inputFile.charset())) {
-        statements = statementChunker.chunk(tokenChunker.chunk(reader));
-      } catch (FileNotFoundException e) {
-        throw new IllegalStateException("Cannot find file " + inputFile.file(), e);
-      } catch (IOException e) {
-        throw new IllegalStateException("Exception handling file: " + inputFile.file(), e);
-      }
+    try (InputStream is = inputFile.inputStream();
+      Reader reader = new InputStreamReader(is, inputFile.charset())) {
+      statements = statementChunker.chunk(tokenChunker.chunk(reader));
+    } catch (FileNotFoundException e) {
+      throw new IllegalStateException("Cannot find file " + inputFile.file(), e);
+    } catch (IOException e) {
+      throw new IllegalStateException("Exception handling file: " + inputFile.file(), e);
+    }
 
-      List<Block> blocks;
-      try {
-        blocks = blockChunker.chunk(resourceEffectiveKey, statements);
-      } catch (Exception e) {
-        throw new IllegalStateException("Cannot process file " + inputFile.file(), e);
-      }
-      index.insert(inputFile, blocks);
+    try {
+      return blockChunker.chunk(inputFile.key(), statements);
+    } catch (Exception e) {
+      throw new IllegalStateException("Cannot process file " + inputFile.file(), e);
     }
   }
 }
@@ -35,15 +35,19 @@ import org.sonar.duplications.block.Block;
 import org.sonar.duplications.block.ByteArray;
 import org.sonar.duplications.index.AbstractCloneIndex;
 import org.sonar.duplications.index.CloneIndex;
-import org.sonar.duplications.index.PackedMemoryCloneIndex;
+import org.sonar.duplications.index.HashedMemoryCloneIndex;
 import org.sonar.duplications.index.PackedMemoryCloneIndex.ResourceBlocks;
 import org.sonar.scanner.protocol.output.FileStructure;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.scanner.report.ReportPublisher;
 
+/**
+ * Blocks of all the files of the project. Indexing is thread-safe, as modules may be scanned concurrently. Lookups are
+ * not synchronized so that duplications can be detected in parallel: they only start once all the modules are scanned.
+ */
 public class SonarCpdBlockIndex extends AbstractCloneIndex {
   private static final Logger LOG = Loggers.get(SonarCpdBlockIndex.class);
-  private final CloneIndex mem = new PackedMemoryCloneIndex();
+  private final CloneIndex mem = new HashedMemoryCloneIndex();
   private final ReportPublisher publisher;
   private final Settings settings;
   // Files already tokenized
@@ -54,7 +58,7 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     this.settings = settings;
   }
 
-  public void insert(InputFile inputFile, Collection<Block> blocks) {
+  public synchronized void insert(InputFile inputFile, Collection<Block> blocks) {
     if (isCrossProjectDuplicationEnabled(settings)) {
       int id = ((DefaultInputFile) inputFile).batchId();
       if (publisher.getWriter().hasComponentData(FileStructure.Domain.CPD_TEXT_BLOCKS, id)) {
@@ -80,11 +84,11 @@ public class SonarCpdBlockIndex extends AbstractCloneIndex {
     indexedFiles.add(inputFile);
   }
 
-  public int noIndexedFiles() {
+  public synchronized int noIndexedFiles() {
     return indexedFiles.size();
   }
 
-  public boolean isIndexed(InputFile inputFile) {
+  public synchronized boolean isIndexed(InputFile inputFile) {
     return indexedFiles.contains(inputFile);
   }
 
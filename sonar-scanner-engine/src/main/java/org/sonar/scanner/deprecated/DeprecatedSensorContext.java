@@ -39,6 +39,7 @@ import org.sonar.api.measures.Metric;
 import org.sonar.api.resources.Resource;
 import org.sonar.api.resources.ResourceUtils;
 import org.sonar.core.component.ComponentKeys;
+import org.sonar.scanner.cache.AnalysisCache;
 import org.sonar.scanner.index.DefaultIndex;
 import org.sonar.scanner.sensor.DefaultSensorContext;
 
@@ -47,8 +48,8 @@ public class DeprecatedSensorContext extends DefaultSensorContext implements Sen
   private final InputModule module;
 
   public DeprecatedSensorContext(InputModule module, DefaultIndex index, Settings settings, FileSystem fs, ActiveRules activeRules,
-    AnalysisMode analysisMode, SensorStorage sensorStorage, SonarRuntime sonarRuntime) {
-    super(module, settings, fs, activeRules, analysisMode, sensorStorage, sonarRuntime);
+    AnalysisMode analysisMode, SensorStorage sensorStorage, SonarRuntime sonarRuntime, AnalysisCache analysisCache) {
+    super(module, settings, fs, activeRules, analysisMode, sensorStorage, sonarRuntime, analysisCache);
     this.index = index;
     this.module = module;
   }
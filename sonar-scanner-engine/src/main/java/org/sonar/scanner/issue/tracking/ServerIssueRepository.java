@@ -58,7 +58,7 @@ public class ServerIssueRepository {
   public void load() {
     Profiler profiler = Profiler.create(LOG).startInfo(LOG_MSG);
     this.issuesCache = caches.createCache("previousIssues");
-    caches.registerValueCoder(ServerIssue.class, new ServerIssueValueCoder());
+    caches.registerCodec(ServerIssue.class, new ServerIssueValueCoder());
     previousIssuesLoader.load(reactor.getRoot().getKeyWithBranch(), this::store);
     profiler.stopInfo();
   }
@@ -24,6 +24,7 @@ import com.google.common.base.Throwables;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Writer;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
@@ -31,9 +32,13 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 import javax.annotation.Nullable;
 import okhttp3.HttpUrl;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.output.CountingOutputStream;
 import org.picocontainer.Startable;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.ScannerSide;
@@ -41,13 +46,12 @@ import org.sonar.api.batch.bootstrap.ProjectDefinition;
 import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.api.utils.MessageException;
-import org.sonar.api.utils.TempFolder;
-import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
+import org.sonar.scanner.protocol.output.SingleFileReport;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsCe;
@@ -65,28 +69,36 @@ public class ReportPublisher implements Startable {
   public static final String KEEP_REPORT_PROP_KEY = "sonar.batch.keepReport";
   public static final String VERBOSE_KEY = "sonar.verbose";
   public static final String METADATA_DUMP_FILENAME = "report-task.txt";
+  /**
+   * When enabled, the report is uploaded as a single uncompressed file that the Compute Engine
+   * reads in place instead of a zip that has to be extracted first.
+   */
+  public static final String SINGLE_FILE_REPORT_KEY = "sonar.scanner.singleFileReport";
+  /**
+   * Deflate level of the zip report, from 0 (no compression) to 9 (best compression).
+   */
+  public static final String COMPRESSION_LEVEL_KEY = "sonar.scanner.reportCompressionLevel";
 
   private final Settings settings;
   private final ScannerWsClient wsClient;
   private final AnalysisContextReportPublisher contextPublisher;
   private final ImmutableProjectReactor projectReactor;
   private final DefaultAnalysisMode analysisMode;
-  private final TempFolder temp;
   private final ReportPublisherStep[] publishers;
   private final Server server;
 
   private File reportDir;
   private ScannerReportWriter writer;
+  private int compressionLevel;
 
   public ReportPublisher(Settings settings, ScannerWsClient wsClient, Server server, AnalysisContextReportPublisher contextPublisher,
-    ImmutableProjectReactor projectReactor, DefaultAnalysisMode analysisMode, TempFolder temp, ReportPublisherStep[] publishers) {
+    ImmutableProjectReactor projectReactor, DefaultAnalysisMode analysisMode, ReportPublisherStep[] publishers) {
     this.settings = settings;
     this.wsClient = wsClient;
     this.server = server;
     this.contextPublisher = contextPublisher;
     this.projectReactor = projectReactor;
     this.analysisMode = analysisMode;
-    this.temp = temp;
     this.publishers = publishers;
   }
 
@@ -95,6 +107,7 @@ public class ReportPublisher implements Startable {
     reportDir = new File(projectReactor.getRoot().getWorkDir(), "batch-report");
     writer = new ScannerReportWriter(reportDir);
     contextPublisher.init(writer);
+    compressionLevel = loadCompressionLevel();
 
     if (!analysisMode.isIssues() && !analysisMode.isMediumTest()) {
       String publicUrl = server.getPublicRootUrl();
@@ -123,12 +136,12 @@ public class ReportPublisher implements Startable {
     // If this is a issues mode analysis then we should not upload reports
     String taskId = null;
     if (!analysisMode.isIssues()) {
-      File report = generateReportFile();
+      generateReport();
       if (shouldKeepReport()) {
         LOG.info("Analysis report generated in " + reportDir);
       }
       if (!analysisMode.isMediumTest()) {
-        taskId = upload(report);
+        taskId = upload(reportDir);
       }
     }
     logSuccess(taskId);
@@ -138,35 +151,46 @@ public class ReportPublisher implements Startable {
     return settings.getBoolean(KEEP_REPORT_PROP_KEY) || settings.getBoolean(VERBOSE_KEY);
   }
 
-  private File generateReportFile() {
-    try {
-      long startTime = System.currentTimeMillis();
-      for (ReportPublisherStep publisher : publishers) {
-        publisher.publish(writer);
-      }
-      long stopTime = System.currentTimeMillis();
-      LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
-
-      startTime = System.currentTimeMillis();
-      File reportZip = temp.newFile("batch-report", ".zip");
-      ZipUtils.zipDir(reportDir, reportZip);
-      stopTime = System.currentTimeMillis();
-      LOG.info("Analysis reports compressed in {}ms, zip size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOf(reportZip)));
-      return reportZip;
-    } catch (IOException e) {
-      throw new IllegalStateException("Unable to prepare analysis report", e);
+  private boolean isSingleFileReport() {
+    return settings.getBoolean(SINGLE_FILE_REPORT_KEY);
+  }
+
+  private int loadCompressionLevel() {
+    if (!settings.hasKey(COMPRESSION_LEVEL_KEY)) {
+      return Deflater.DEFAULT_COMPRESSION;
+    }
+    int level = settings.getInt(COMPRESSION_LEVEL_KEY);
+    if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+      throw MessageException.of(String.format("Property '%s' must be between %d and %d, got: %d", COMPRESSION_LEVEL_KEY,
+        Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION, level));
+    }
+    return level;
+  }
+
+  private void generateReport() {
+    long startTime = System.currentTimeMillis();
+    for (ReportPublisherStep publisher : publishers) {
+      publisher.publish(writer);
     }
+    long stopTime = System.currentTimeMillis();
+    LOG.info("Analysis report generated in {}ms, dir size={}", stopTime - startTime, FileUtils.byteCountToDisplaySize(FileUtils.sizeOfDirectory(reportDir)));
   }
 
   /**
-   * Uploads the report file to server and returns the generated task id
+   * Uploads the report directory to server and returns the generated task id. The report is compressed
+   * while being sent, so no archive is written to disk.
    */
   @VisibleForTesting
   String upload(File report) {
     LOG.debug("Upload report");
     long startTime = System.currentTimeMillis();
     ProjectDefinition projectDefinition = projectReactor.getRoot();
-    PostRequest.Part filePart = new PostRequest.Part(MediaTypes.ZIP, report);
+    PostRequest.Part filePart;
+    if (isSingleFileReport()) {
+      filePart = new PostRequest.Part(MediaTypes.DEFAULT, "batch-report.sqr", output -> SingleFileReport.pack(report, output));
+    } else {
+      filePart = new PostRequest.Part(MediaTypes.ZIP, "batch-report.zip", output -> zipDir(report, output, compressionLevel));
+    }
     PostRequest post = new PostRequest("api/ce/submit")
       .setMediaType(MediaTypes.PROTOBUF)
       .setParam("organization", settings.getString(CoreProperties.PROJECT_ORGANIZATION_PROPERTY))
@@ -192,6 +216,35 @@ public class ReportPublisher implements Startable {
     }
   }
 
+  private static void zipDir(File dir, OutputStream output, int level) throws IOException {
+    CountingOutputStream counting = new CountingOutputStream(output);
+    ZipOutputStream zip = new ZipOutputStream(counting);
+    zip.setLevel(level);
+    zipFiles(dir, "", zip);
+    // the request body is owned by the HTTP client, it must not be closed here
+    zip.finish();
+    LOG.debug("Analysis report compressed, zip size={}", FileUtils.byteCountToDisplaySize(counting.getByteCount()));
+  }
+
+  private static void zipFiles(File dir, String prefix, ZipOutputStream zip) throws IOException {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      throw new IllegalStateException("Fail to list files of directory " + dir.getAbsolutePath());
+    }
+    for (File file : files) {
+      String entryName = prefix + file.getName();
+      if (file.isDirectory()) {
+        zip.putNextEntry(new ZipEntry(entryName + "/"));
+        zip.closeEntry();
+        zipFiles(file, entryName + "/", zip);
+      } else {
+        zip.putNextEntry(new ZipEntry(entryName));
+        Files.copy(file.toPath(), zip);
+        zip.closeEntry();
+      }
+    }
+  }
+
   @VisibleForTesting
   void logSuccess(@Nullable String taskId) {
     if (taskId == null) {
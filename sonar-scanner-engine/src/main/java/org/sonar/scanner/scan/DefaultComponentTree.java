@@ -20,6 +20,7 @@
 package org.sonar.scanner.scan;
 
 import com.google.common.base.Preconditions;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -34,7 +35,7 @@ public class DefaultComponentTree implements InputComponentTree {
   private Map<InputComponent, InputComponent> parents = new HashMap<>();
   private Map<InputComponent, Set<InputComponent>> children = new HashMap<>();
 
-  public void index(InputComponent component, InputComponent parent) {
+  public synchronized void index(InputComponent component, InputComponent parent) {
     Preconditions.checkNotNull(component);
     Preconditions.checkNotNull(parent);
     parents.put(component, parent);
@@ -42,13 +43,13 @@ public class DefaultComponentTree implements InputComponentTree {
   }
 
   @Override
-  public Collection<InputComponent> getChildren(InputComponent component) {
-    return children.getOrDefault(component, Collections.emptySet());
+  public synchronized Collection<InputComponent> getChildren(InputComponent component) {
+    return new ArrayList<>(children.getOrDefault(component, Collections.emptySet()));
   }
 
   @CheckForNull
   @Override
-  public InputComponent getParent(InputComponent component) {
+  public synchronized InputComponent getParent(InputComponent component) {
     return parents.get(component);
   }
 }
@@ -0,0 +1,82 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
+
+/**
+ * Scans the modules of the hierarchy, each module after all its children. When more than one thread is configured,
+ * the sub-trees of sibling modules are scanned concurrently. The root module is always scanned last, by the calling thread.
+ */
+class ModuleScanScheduler {
+
+  /**
+   * Number of modules scanned concurrently. Default is 1, which scans modules one at a time. Values greater than 1
+   * require that all the plugins executed during the analysis of modules are thread-safe.
+   */
+  static final String THREADS_PROPERTY = "sonar.scanner.moduleThreads";
+
+  private final InputModuleHierarchy tree;
+  private final Consumer<DefaultInputModule> moduleScanner;
+  private final int threads;
+
+  ModuleScanScheduler(InputModuleHierarchy tree, Consumer<DefaultInputModule> moduleScanner, int threads) {
+    this.tree = tree;
+    this.moduleScanner = moduleScanner;
+    this.threads = threads;
+  }
+
+  void execute() {
+    if (threads <= 1) {
+      scanRecursively(tree.root());
+      return;
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads, new ThreadFactoryBuilder().setNameFormat("ModuleScanner-%d").setDaemon(true).build());
+    try {
+      CompletableFuture.allOf(scheduleChildren(tree.root(), executor)).join();
+    } catch (CompletionException e) {
+      // Unwrap exception thrown by the scan of a module
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new IllegalStateException(e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+    moduleScanner.accept(tree.root());
+  }
+
+  private void scanRecursively(DefaultInputModule module) {
+    for (DefaultInputModule child : tree.children(module)) {
+      scanRecursively(child);
+    }
+    moduleScanner.accept(module);
+  }
+
+  private CompletableFuture<?>[] scheduleChildren(DefaultInputModule module, ExecutorService executor) {
+    return tree.children(module).stream()
+      .map(child -> CompletableFuture.allOf(scheduleChildren(child, executor)).thenRunAsync(() -> moduleScanner.accept(child), executor))
+      .toArray(CompletableFuture[]::new);
+  }
+}
@@ -30,6 +30,7 @@ import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.resources.ResourceTypes;
 import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.api.utils.MessageException;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.core.metric.ScannerMetrics;
@@ -42,6 +43,7 @@ import org.sonar.scanner.bootstrap.ExtensionInstaller;
 import org.sonar.scanner.bootstrap.ExtensionMatcher;
 import org.sonar.scanner.bootstrap.ExtensionUtils;
 import org.sonar.scanner.bootstrap.MetricProvider;
+import org.sonar.scanner.cache.AnalysisCache;
 import org.sonar.scanner.cpd.CpdExecutor;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.deprecated.test.TestPlanBuilder;
@@ -199,6 +201,8 @@ public class ProjectScanContainer extends ComponentContainer {
       CpdExecutor.class,
       SonarCpdBlockIndex.class,
 
+      AnalysisCache.class,
+
       ScanTaskObservers.class);
 
     addIfMissing(DefaultRulesLoader.class, RulesLoader.class);
@@ -240,23 +244,43 @@ public class ProjectScanContainer extends ComponentContainer {
     }
 
     LOG.debug("Start recursive analysis of project modules");
-    scanRecursively(tree, tree.root());
+    int moduleThreads = moduleThreads();
+    if (moduleThreads > 1) {
+      LOG.info("Scan up to {} modules concurrently", moduleThreads);
+    }
+    new ModuleScanScheduler(tree, this::scan, moduleThreads).execute();
+    getComponentByType(AnalysisCache.class).persist();
 
     if (analysisMode.isMediumTest()) {
       getComponentByType(ScanTaskObservers.class).notifyEndOfScanTask();
     }
   }
 
-  private void scanRecursively(InputModuleHierarchy tree, DefaultInputModule module) {
-    for (DefaultInputModule child : tree.children(module)) {
-      scanRecursively(tree, child);
+  private int moduleThreads() {
+    String value = props.property(ModuleScanScheduler.THREADS_PROPERTY);
+    if (StringUtils.isBlank(value)) {
+      return 1;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      throw MessageException.of(String.format("Property '%s' must be an integer, got: %s", ModuleScanScheduler.THREADS_PROPERTY, value));
     }
-    scan(module);
   }
 
   @VisibleForTesting
   void scan(DefaultInputModule module) {
-    new ModuleScanContainer(this, module).execute();
+    ModuleScanContainer moduleContainer;
+    // modules may be scanned concurrently, and the list of child containers is not thread-safe
+    synchronized (this) {
+      moduleContainer = new ModuleScanContainer(this, module);
+    }
+    moduleContainer.execute();
+  }
+
+  @Override
+  public synchronized ComponentContainer removeChild(ComponentContainer childToBeRemoved) {
+    return super.removeChild(childToBeRemoved);
   }
 
   static class BatchExtensionFilter implements ExtensionMatcher {
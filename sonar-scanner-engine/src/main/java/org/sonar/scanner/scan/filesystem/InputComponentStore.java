@@ -25,12 +25,14 @@ import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Table;
 import com.google.common.collect.TreeBasedTable;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.fs.InputComponent;
@@ -45,8 +47,8 @@ import org.sonar.api.batch.fs.internal.FilenamePredicate;
 import org.sonar.api.scan.filesystem.PathResolver;
 
 /**
- * Store of all files and dirs. This cache is shared amongst all project modules. Inclusion and
- * exclusion patterns are already applied.
+ * Store of the components of the project. Inclusion and exclusion patterns are already applied. It is shared by all
+ * the modules, which may be scanned concurrently, so it is thread-safe and returns copies of its content.
  */
 @ScannerSide
 public class InputComponentStore {
@@ -68,60 +70,61 @@ public class InputComponentStore {
     this.pathResolver = pathResolver;
   }
 
-  public Collection<InputComponent> all() {
-    return inputComponents.values();
+  public synchronized Collection<InputComponent> all() {
+    return new ArrayList<>(inputComponents.values());
   }
 
-  public Iterable<DefaultInputFile> allFilesToPublish() {
+  public synchronized Iterable<DefaultInputFile> allFilesToPublish() {
     return inputFileCache.values().stream()
       .map(f -> (DefaultInputFile) f)
-      .filter(DefaultInputFile::publish)::iterator;
+      .filter(DefaultInputFile::publish)
+      .collect(Collectors.toList());
   }
 
-  public Iterable<InputFile> allFiles() {
-    return inputFileCache.values();
+  public synchronized Iterable<InputFile> allFiles() {
+    return new ArrayList<>(inputFileCache.values());
   }
 
-  public Iterable<InputDir> allDirs() {
-    return inputDirCache.values();
+  public synchronized Iterable<InputDir> allDirs() {
+    return new ArrayList<>(inputDirCache.values());
   }
 
-  public InputComponent getByKey(String key) {
+  public synchronized InputComponent getByKey(String key) {
     return inputComponents.get(key);
   }
 
   @CheckForNull
-  public InputModule root() {
+  public synchronized InputModule root() {
     return root;
   }
 
-  public Iterable<InputFile> filesByModule(String moduleKey) {
-    return inputFileCache.row(moduleKey).values();
+  public synchronized Iterable<InputFile> filesByModule(String moduleKey) {
+    return new ArrayList<>(inputFileCache.row(moduleKey).values());
   }
 
-  public Iterable<InputDir> dirsByModule(String moduleKey) {
-    return inputDirCache.row(moduleKey).values();
+  public synchronized Iterable<InputDir> dirsByModule(String moduleKey) {
+    return new ArrayList<>(inputDirCache.row(moduleKey).values());
   }
 
-  public InputComponentStore removeModule(String moduleKey) {
+  public synchronized InputComponentStore removeModule(String moduleKey) {
     inputFileCache.row(moduleKey).clear();
     inputDirCache.row(moduleKey).clear();
     return this;
   }
 
-  public InputComponentStore remove(InputFile inputFile) {
+  public synchronized InputComponentStore remove(InputFile inputFile) {
     DefaultInputFile file = (DefaultInputFile) inputFile;
     inputFileCache.remove(file.moduleKey(), inputFile.relativePath());
     return this;
   }
 
-  public InputComponentStore remove(InputDir inputDir) {
+  public synchronized InputComponentStore remove(InputDir inputDir) {
     DefaultInputDir dir = (DefaultInputDir) inputDir;
     inputDirCache.remove(dir.moduleKey(), inputDir.relativePath());
     return this;
   }
 
-  public InputComponentStore put(InputFile inputFile) {
+  public synchronized InputComponentStore put(InputFile inputFile) {
     DefaultInputFile file = (DefaultInputFile) inputFile;
     addToLanguageCache(file);
     inputFileCache.put(file.moduleKey(), inputFile.relativePath(), inputFile);
@@ -140,7 +143,7 @@ public class InputComponentStore {
     }
   }
 
-  public InputComponentStore put(InputDir inputDir) {
+  public synchronized InputComponentStore put(InputDir inputDir) {
     DefaultInputDir dir = (DefaultInputDir) inputDir;
     inputDirCache.put(dir.moduleKey(), inputDir.relativePath(), inputDir);
     globalInputDirCache.put(getProjectRelativePath(dir), inputDir);
@@ -161,31 +164,31 @@ public class InputComponentStore {
   }
 
   @CheckForNull
-  public InputFile getFile(String moduleKey, String relativePath) {
+  public synchronized InputFile getFile(String moduleKey, String relativePath) {
     return inputFileCache.get(moduleKey, relativePath);
   }
 
   @CheckForNull
-  public InputFile getFile(String relativePath) {
+  public synchronized InputFile getFile(String relativePath) {
     return globalInputFileCache.get(relativePath);
   }
 
   @CheckForNull
-  public InputDir getDir(String moduleKey, String relativePath) {
+  public synchronized InputDir getDir(String moduleKey, String relativePath) {
     return inputDirCache.get(moduleKey, relativePath);
   }
 
   @CheckForNull
-  public InputDir getDir(String relativePath) {
+  public synchronized InputDir getDir(String relativePath) {
     return globalInputDirCache.get(relativePath);
   }
 
   @CheckForNull
-  public InputModule getModule(String moduleKey) {
+  public synchronized InputModule getModule(String moduleKey) {
     return inputModuleCache.get(moduleKey);
   }
 
-  public void put(DefaultInputModule inputModule) {
+  public synchronized void put(DefaultInputModule inputModule) {
     String key = inputModule.key();
     Preconditions.checkState(!inputComponents.containsKey(key), "Module '%s' already indexed", key);
     Preconditions.checkState(!inputModuleCache.containsKey(key), "Module '%s' already indexed", key);
@@ -199,19 +202,19 @@ public class InputComponentStore {
     }
   }
 
-  public Iterable<InputFile> getFilesByName(String filename) {
-    return filesByNameCache.get(filename);
+  public synchronized Iterable<InputFile> getFilesByName(String filename) {
+    return new ArrayList<>(filesByNameCache.get(filename));
   }
 
-  public Iterable<InputFile> getFilesByExtension(String extension) {
-    return filesByExtensionCache.get(extension);
+  public synchronized Iterable<InputFile> getFilesByExtension(String extension) {
+    return new ArrayList<>(filesByExtensionCache.get(extension));
   }
 
-  public SortedSet<String> getLanguages() {
-    return globalLanguagesCache;
+  public synchronized SortedSet<String> getLanguages() {
+    return new TreeSet<>(globalLanguagesCache);
   }
 
-  public SortedSet<String> getLanguages(String moduleKey) {
-    return languagesCache.getOrDefault(moduleKey, Collections.emptySortedSet());
+  public synchronized SortedSet<String> getLanguages(String moduleKey) {
+    return new TreeSet<>(languagesCache.getOrDefault(moduleKey, Collections.emptySortedSet()));
   }
 }
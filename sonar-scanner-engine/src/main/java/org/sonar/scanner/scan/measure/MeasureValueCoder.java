@@ -19,14 +19,28 @@
  */
 package org.sonar.scanner.scan.measure;
 
-import com.persistit.Value;
-import com.persistit.encoding.CoderContext;
-import com.persistit.encoding.ValueCoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
+import org.sonar.scanner.storage.StorageCodec;
 
-class MeasureValueCoder implements ValueCoder {
+@SuppressWarnings("rawtypes")
+class MeasureValueCoder implements StorageCodec<DefaultMeasure> {
+
+  private static final byte INTEGER = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte BOOLEAN = 3;
+  private static final byte STRING = 4;
+  private static final byte SERIALIZED = 5;
 
   private final MetricFinder metricFinder;
 
@@ -35,22 +49,78 @@ class MeasureValueCoder implements ValueCoder {
   }
 
   @Override
-  public void put(Value value, Object object, CoderContext context) {
-    DefaultMeasure<?> m = (DefaultMeasure<?>) object;
+  public void encode(DefaultMeasure m, DataOutput output) throws IOException {
     org.sonar.api.batch.measure.Metric<?> metric = m.metric();
-    value.putString(metric.key());
-    value.put(m.value());
+    output.writeUTF(metric.key());
+    Serializable value = m.value();
+    if (value instanceof Integer) {
+      output.writeByte(INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte(BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof String) {
+      // data measures may exceed the 64KB limit of writeUTF()
+      byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+      output.writeByte(STRING);
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    } else {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(value);
+      }
+      output.writeByte(SERIALIZED);
+      output.writeInt(bytes.size());
+      output.write(bytes.toByteArray());
+    }
   }
 
   @Override
-  public Object get(Value value, Class clazz, CoderContext context) {
-    String metricKey = value.getString();
+  public DefaultMeasure decode(DataInput input) throws IOException {
+    String metricKey = input.readUTF();
     org.sonar.api.batch.measure.Metric<?> metric = metricFinder.findByKey(metricKey);
     if (metric == null) {
       throw new IllegalStateException("Unknow metric with key " + metricKey);
     }
     return new DefaultMeasure()
       .forMetric(metric)
-      .withValue((Serializable) value.get());
+      .withValue(decodeValue(input));
+  }
+
+  private static Serializable decodeValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case INTEGER:
+        return input.readInt();
+      case LONG:
+        return input.readLong();
+      case DOUBLE:
+        return input.readDouble();
+      case BOOLEAN:
+        return input.readBoolean();
+      case STRING:
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+      case SERIALIZED:
+        try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+          return (Serializable) objectInput.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IllegalStateException("Fail to decode measure value", e);
+        }
+      default:
+        throw new IllegalStateException("Unknown type of measure value: " + type);
+    }
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
   }
 }
@@ -28,6 +28,8 @@ import org.sonar.api.batch.fs.InputModule;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.coverage.NewCoverage;
 import org.sonar.api.batch.sensor.coverage.internal.DefaultCoverage;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
@@ -44,6 +46,7 @@ import org.sonar.api.batch.sensor.symbol.NewSymbolTable;
 import org.sonar.api.batch.sensor.symbol.internal.DefaultSymbolTable;
 import org.sonar.api.config.Settings;
 import org.sonar.api.utils.Version;
+import org.sonar.scanner.cache.AnalysisCache;
 import org.sonar.scanner.sensor.noop.NoOpNewAnalysisError;
 import org.sonar.scanner.sensor.noop.NoOpNewCpdTokens;
 import org.sonar.scanner.sensor.noop.NoOpNewHighlighting;
@@ -63,9 +66,10 @@ public class DefaultSensorContext implements SensorContext {
   private final AnalysisMode analysisMode;
   private final InputModule module;
   private final SonarRuntime sonarRuntime;
+  private final AnalysisCache analysisCache;
 
   public DefaultSensorContext(InputModule module, Settings settings, FileSystem fs, ActiveRules activeRules, AnalysisMode analysisMode, SensorStorage sensorStorage,
-    SonarRuntime sonarRuntime) {
+    SonarRuntime sonarRuntime, AnalysisCache analysisCache) {
     this.module = module;
     this.settings = settings;
     this.fs = fs;
@@ -73,6 +77,7 @@ public class DefaultSensorContext implements SensorContext {
     this.analysisMode = analysisMode;
     this.sensorStorage = sensorStorage;
     this.sonarRuntime = sonarRuntime;
+    this.analysisCache = analysisCache;
   }
 
   @Override
@@ -164,4 +169,19 @@ public class DefaultSensorContext implements SensorContext {
     DefaultInputFile file = (DefaultInputFile) inputFile;
     file.setPublish(true);
   }
+
+  @Override
+  public boolean isCacheEnabled() {
+    return analysisCache.isEnabled();
+  }
+
+  @Override
+  public ReadCache previousCache() {
+    return analysisCache.previous();
+  }
+
+  @Override
+  public WriteCache nextCache() {
+    return analysisCache.next();
+  }
 }
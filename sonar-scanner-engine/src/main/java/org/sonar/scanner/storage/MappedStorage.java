@@ -0,0 +1,155 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import javax.annotation.CheckForNull;
+
+/**
+ * Storage of {@link MappedStorageEngine}. Keys are sorted in memory and point to the location of the encoded values.
+ * Changes are serialized, reads are not blocking.
+ */
+class MappedStorage<V> extends Storage<V> {
+
+  private final ConcurrentSkipListMap<Object[], Long> index = new ConcurrentSkipListMap<>(MappedStorage::compareKeys);
+  private final MappedStorageEngine engine;
+
+  MappedStorage(MappedStorageEngine engine) {
+    this.engine = engine;
+  }
+
+  @Override
+  protected synchronized void doPut(Object[] key, V value) {
+    index.put(key.clone(), engine.write(value));
+  }
+
+  @CheckForNull
+  @Override
+  protected V doGet(Object[] key) {
+    Long location = index.get(key);
+    return location == null ? null : read(location);
+  }
+
+  @Override
+  protected boolean doContainsKey(Object[] key) {
+    return index.containsKey(key);
+  }
+
+  @Override
+  protected synchronized boolean doRemove(Object[] key) {
+    return index.remove(key) != null;
+  }
+
+  @Override
+  protected synchronized void doClear(Object[] key) {
+    Iterator<Object[]> keys = index.tailMap(key, true).keySet().iterator();
+    while (keys.hasNext() && startsWith(keys.next(), key)) {
+      keys.remove();
+    }
+  }
+
+  @Override
+  public synchronized void clear() {
+    index.clear();
+  }
+
+  @Override
+  protected Set<Object> doKeySet(Object[] parentKey) {
+    Set<Object> keys = new LinkedHashSet<>();
+    children(parentKey).forEachRemaining(entry -> keys.add(entry.getKey()[parentKey.length]));
+    return keys;
+  }
+
+  @Override
+  protected Iterable<V> doValues(Object[] parentKey) {
+    return () -> Iterators.transform(children(parentKey), entry -> read(entry.getValue()));
+  }
+
+  @Override
+  protected Iterable<Entry<V>> doEntries(Object[] parentKey) {
+    return () -> Iterators.transform(children(parentKey), entry -> new Entry<>(entry.getKey().clone(), read(entry.getValue())));
+  }
+
+  @SuppressWarnings("unchecked")
+  private V read(long location) {
+    return (V) engine.read(location);
+  }
+
+  /**
+   * Entries of the keys the parent key is a strict prefix of, in key order
+   */
+  private Iterator<Map.Entry<Object[], Long>> children(Object[] parentKey) {
+    NavigableMap<Object[], Long> tail = parentKey.length == 0 ? index : index.tailMap(parentKey, false);
+    Iterator<Map.Entry<Object[], Long>> entries = tail.entrySet().iterator();
+    return new AbstractIterator<Map.Entry<Object[], Long>>() {
+      @Override
+      protected Map.Entry<Object[], Long> computeNext() {
+        if (entries.hasNext()) {
+          Map.Entry<Object[], Long> entry = entries.next();
+          if (startsWith(entry.getKey(), parentKey)) {
+            return entry;
+          }
+        }
+        return endOfData();
+      }
+    };
+  }
+
+  private static boolean startsWith(Object[] key, Object[] prefix) {
+    if (key.length < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (compareParts(key[i], prefix[i]) != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Keys are compared part by part. A key is lower than the keys it is a prefix of.
+   */
+  private static int compareKeys(Object[] key1, Object[] key2) {
+    for (int i = 0; i < Math.min(key1.length, key2.length); i++) {
+      int c = compareParts(key1[i], key2[i]);
+      if (c != 0) {
+        return c;
+      }
+    }
+    return Integer.compare(key1.length, key2.length);
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private static int compareParts(Object part1, Object part2) {
+    if (part1.getClass().equals(part2.getClass()) && part1 instanceof Comparable) {
+      return ((Comparable) part1).compareTo(part2);
+    }
+    int c = part1.getClass().getName().compareTo(part2.getClass().getName());
+    return c != 0 ? c : part1.toString().compareTo(part2.toString());
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.sonar.core.util.FileUtils.deleteQuietly;
+
+/**
+ * Storages whose values are encoded into append-only segments of memory-mapped files, so that they are kept
+ * out of the heap. Keys are indexed in memory. A single thread writes at a time, while readers are never blocked:
+ * once appended, the bytes of a value are never modified.
+ * <p>
+ * The space of removed or replaced values is released only when the engine is closed.
+ * </p>
+ */
+class MappedStorageEngine implements StorageEngine {
+
+  static final int DEFAULT_SEGMENT_SIZE = 32 * 1024 * 1024;
+  private static final int SERIALIZED = -1;
+
+  private final Path dir;
+  private final int segmentSize;
+  private final Map<Class<?>, Integer> codecIds = new ConcurrentHashMap<>();
+  private final List<StorageCodec<?>> codecs = new CopyOnWriteArrayList<>();
+
+  // replaced, never modified, when a segment is added
+  private volatile MappedByteBuffer[] segments = new MappedByteBuffer[0];
+  private MappedByteBuffer currentSegment;
+
+  MappedStorageEngine(Path dir, int segmentSize) {
+    this.dir = dir;
+    this.segmentSize = segmentSize;
+  }
+
+  @Override
+  public synchronized <T> void registerCodec(Class<T> clazz, StorageCodec<T> codec) {
+    codecIds.put(clazz, codecs.size());
+    codecs.add(codec);
+  }
+
+  @Override
+  public <V> Storage<V> createStorage(String name) {
+    return new MappedStorage<>(this);
+  }
+
+  @Override
+  public synchronized void close() {
+    segments = new MappedByteBuffer[0];
+    currentSegment = null;
+    // files are unmapped when buffers are garbage collected
+    deleteQuietly(dir.toFile());
+  }
+
+  /**
+   * Appends the value to the last segment and returns its location
+   */
+  long write(@Nullable Object value) {
+    byte[] bytes = encode(value);
+    synchronized (this) {
+      if (currentSegment == null || currentSegment.remaining() < Integer.BYTES + bytes.length) {
+        addSegment(Math.max(segmentSize, Integer.BYTES + bytes.length));
+      }
+      int offset = currentSegment.position();
+      currentSegment.putInt(bytes.length);
+      currentSegment.put(bytes);
+      return ((long) (segments.length - 1) << 32) | offset;
+    }
+  }
+
+  @CheckForNull
+  Object read(long location) {
+    ByteBuffer buffer = segments[(int) (location >>> 32)].duplicate();
+    buffer.position((int) location);
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return decode(bytes);
+  }
+
+  private void addSegment(int size) {
+    Path file = dir.resolve("segment-" + segments.length);
+    try (FileChannel channel = FileChannel.open(file, CREATE_NEW, READ, WRITE)) {
+      // the mapping remains valid after the channel is closed
+      currentSegment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create storage segment " + file, e);
+    }
+    MappedByteBuffer[] newSegments = Arrays.copyOf(segments, segments.length + 1);
+    newSegments[segments.length] = currentSegment;
+    segments = newSegments;
+  }
+
+  @SuppressWarnings("unchecked")
+  private byte[] encode(@Nullable Object value) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      DataOutputStream output = new DataOutputStream(bytes);
+      Integer codecId = value == null ? null : codecIds.get(value.getClass());
+      if (codecId == null) {
+        output.writeInt(SERIALIZED);
+        try (ObjectOutputStream objectOutput = new ObjectOutputStream(output)) {
+          objectOutput.writeObject(value);
+        }
+      } else {
+        output.writeInt(codecId);
+        ((StorageCodec<Object>) codecs.get(codecId)).encode(value, output);
+      }
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode " + value, e);
+    }
+  }
+
+  @CheckForNull
+  private Object decode(byte[] bytes) {
+    try {
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+      int codecId = input.readInt();
+      if (codecId == SERIALIZED) {
+        try (ObjectInputStream objectInput = new ObjectInputStream(input)) {
+          return objectInput.readObject();
+        }
+      }
+      return codecs.get(codecId).decode(input);
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to decode value", e);
+    }
+  }
+}
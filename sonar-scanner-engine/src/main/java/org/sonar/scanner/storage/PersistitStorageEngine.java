@@ -0,0 +1,119 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import com.persistit.Exchange;
+import com.persistit.Persistit;
+import com.persistit.Value;
+import com.persistit.Volume;
+import com.persistit.encoding.CoderContext;
+import com.persistit.encoding.ValueCoder;
+import com.persistit.exception.PersistitException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Storages in a temporary volume of the Persistit instance of the {@link StoragesManager}
+ */
+class PersistitStorageEngine implements StorageEngine {
+
+  private final List<Exchange> exchanges = new ArrayList<>();
+  private final Persistit persistit;
+  private Volume volume;
+
+  PersistitStorageEngine(Persistit persistit) {
+    this.persistit = persistit;
+    try {
+      persistit.flush();
+      volume = persistit.createTemporaryVolume();
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to create a cache volume", e);
+    }
+  }
+
+  @Override
+  public <T> void registerCodec(Class<T> clazz, StorageCodec<T> codec) {
+    persistit.getCoderManager().registerValueCoder(clazz, new CodecValueCoder<>(codec));
+  }
+
+  @Override
+  public synchronized <V> Storage<V> createStorage(String name) {
+    try {
+      Exchange exchange = persistit.getExchange(volume, name, true);
+      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
+      exchanges.add(exchange);
+      return new PersistitStorage<>(name, exchange);
+    } catch (Exception e) {
+      throw new IllegalStateException("Fail to create cache: " + name, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    for (Exchange exchange : exchanges) {
+      persistit.releaseExchange(exchange);
+    }
+    exchanges.clear();
+
+    if (volume != null) {
+      try {
+        volume.close();
+        volume.delete();
+      } catch (PersistitException e) {
+        throw new IllegalStateException("Fail to close caches", e);
+      }
+      volume = null;
+    }
+  }
+
+  private static class CodecValueCoder<T> implements ValueCoder {
+    private final StorageCodec<T> codec;
+
+    private CodecValueCoder(StorageCodec<T> codec) {
+      this.codec = codec;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public void put(Value value, Object object, CoderContext context) {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        codec.encode((T) object, new DataOutputStream(bytes));
+        value.putByteArray(bytes.toByteArray());
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to encode " + object, e);
+      }
+    }
+
+    @Override
+    public Object get(Value value, Class<?> clazz, CoderContext context) {
+      try {
+        return codec.decode(new DataInputStream(new ByteArrayInputStream(value.getByteArray())));
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to decode " + clazz, e);
+      }
+    }
+  }
+}
@@ -20,80 +20,79 @@
 package org.sonar.scanner.storage;
 
 import com.google.common.base.Preconditions;
-import com.persistit.Exchange;
-import com.persistit.Persistit;
-import com.persistit.Value;
-import com.persistit.Volume;
-import com.persistit.encoding.CoderManager;
-import com.persistit.encoding.ValueCoder;
-import com.persistit.exception.PersistitException;
-
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.Set;
+import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.MessageException;
+import org.sonar.scanner.analysis.AnalysisProperties;
 
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = new HashMap<>();
-  private Persistit persistit;
-  private Volume volume;
 
-  public Storages(StoragesManager storagesManager) {
-    persistit = storagesManager.persistit();
-    doStart();
-  }
+  /**
+   * Engine of the storages: "persistit" (default) or "mmap", which keeps values in memory-mapped files
+   * out of the heap.
+   */
+  public static final String ENGINE_PROPERTY = "sonar.scanner.storage";
+  static final String PERSISTIT_ENGINE = "persistit";
+  static final String MAPPED_ENGINE = "mmap";
 
-  @Override
-  public void start() {
-    // done in constructor
+  private final Set<String> cacheNames = new HashSet<>();
+  private StorageEngine engine;
+
+  public Storages(StoragesManager storagesManager, AnalysisProperties props) {
+    this(storagesManager, StringUtils.defaultIfBlank(props.property(ENGINE_PROPERTY), PERSISTIT_ENGINE).trim());
   }
 
-  private void doStart() {
-    try {
-      persistit.flush();
-      volume = persistit.createTemporaryVolume();
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to create a cache volume", e);
-    }
+  public Storages(StoragesManager storagesManager) {
+    this(storagesManager, PERSISTIT_ENGINE);
   }
 
-  public void registerValueCoder(Class<?> clazz, ValueCoder coder) {
-    CoderManager cm = persistit.getCoderManager();
-    cm.registerValueCoder(clazz, coder);
+  Storages(StoragesManager storagesManager, String engineName) {
+    engine = createEngine(storagesManager, engineName);
   }
 
-  public <V> Storage<V> createCache(String cacheName) {
-    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
-    Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
-    try {
-      Exchange exchange = persistit.getExchange(volume, cacheName, true);
-      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
-      return cache;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to create cache: " + cacheName, e);
+  private static StorageEngine createEngine(StoragesManager storagesManager, String engineName) {
+    if (PERSISTIT_ENGINE.equals(engineName)) {
+      return new PersistitStorageEngine(storagesManager.persistit());
+    }
+    if (MAPPED_ENGINE.equals(engineName)) {
+      try {
+        return new MappedStorageEngine(Files.createTempDirectory(storagesManager.tempDir().toPath(), "mapped"), MappedStorageEngine.DEFAULT_SEGMENT_SIZE);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to create a cache directory", e);
+      }
     }
+    throw MessageException.of(String.format("Property '%s' must be one of %s, %s, got: %s", ENGINE_PROPERTY, PERSISTIT_ENGINE, MAPPED_ENGINE, engineName));
   }
 
   @Override
-  public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
-    }
+  public void start() {
+    // done in constructor
+  }
 
-    cacheMap.clear();
+  public <T> void registerCodec(Class<T> clazz, StorageCodec<T> codec) {
+    engine.registerCodec(clazz, codec);
+  }
 
-    if (volume != null) {
-      try {
-        volume.close();
-        volume.delete();
-      } catch (PersistitException e) {
-        throw new IllegalStateException("Fail to close caches", e);
-      }
-      volume = null;
+  public synchronized <V> Storage<V> createCache(String cacheName) {
+    Preconditions.checkState(engine != null, "Caches are not initialized");
+    Preconditions.checkState(!cacheNames.contains(cacheName), "Cache is already created: %s", cacheName);
+    Storage<V> cache = engine.createStorage(cacheName);
+    cacheNames.add(cacheName);
+    return cache;
+  }
+
+  @Override
+  public synchronized void stop() {
+    cacheNames.clear();
+    if (engine != null) {
+      engine.close();
+      engine = null;
     }
   }
 }
@@ -0,0 +1,283 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cache;
+
+import com.google.common.collect.ImmutableMap;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.AnalysisMode;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+import org.sonar.api.batch.fs.internal.InputModuleHierarchy;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.Version;
+import org.sonar.api.utils.internal.DefaultTempFolder;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.core.platform.PluginRepository;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
+import org.sonar.scanner.analysis.AnalysisProperties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class AnalysisCacheTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private Settings settings = new MapSettings();
+  private AnalysisMode analysisMode = mock(AnalysisMode.class);
+  private InputModuleHierarchy moduleHierarchy = mock(InputModuleHierarchy.class);
+  private PluginRepository pluginRepository = mock(PluginRepository.class);
+  private SonarRuntime runtime = SonarRuntimeImpl.forSonarQube(Version.parse("6.5"), SonarQubeSide.SCANNER);
+  private FileCache fileCache;
+  private File tempDir;
+
+  @Before
+  public void setUp() throws IOException {
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    tempDir = temp.newFolder();
+    when(analysisMode.isPublish()).thenReturn(true);
+    when(moduleHierarchy.root()).thenReturn(new DefaultInputModule("foo"));
+    when(pluginRepository.getPluginInfos()).thenReturn(Collections.singletonList(new PluginInfo("java").setVersion(org.sonar.updatecenter.common.Version.create("4.0"))));
+  }
+
+  @Test
+  public void is_disabled_by_default() {
+    AnalysisCache underTest = newCache(Collections.emptyMap(), activeRules("MAJOR"));
+
+    assertThat(underTest.isEnabled()).isFalse();
+    underTest.next().write("key", bytes("data"));
+    underTest.persist();
+
+    assertThat(underTest.previous().contains("key")).isFalse();
+    assertThat(underTest.cacheFile()).doesNotExist();
+  }
+
+  @Test
+  public void is_disabled_when_analysis_is_not_published() {
+    when(analysisMode.isPublish()).thenReturn(false);
+
+    assertThat(newEnabledCache(activeRules("MAJOR")).isEnabled()).isFalse();
+  }
+
+  @Test
+  public void data_written_by_an_analysis_is_read_by_the_next_one() throws IOException {
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    assertThat(first.isEnabled()).isTrue();
+    assertThat(first.previous().contains("key1")).isFalse();
+    first.next().write("key1", bytes("data1"));
+    first.next().write("key2", new ByteArrayInputStream(bytes("data2")));
+    first.persist();
+    first.stop();
+
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(read(second.previous(), "key1")).isEqualTo("data1");
+    assertThat(read(second.previous(), "key2")).isEqualTo("data2");
+    second.next().copyFromPrevious("key2");
+    second.persist();
+    second.stop();
+
+    AnalysisCache third = newEnabledCache(activeRules("MAJOR"));
+    assertThat(third.previous().contains("key1")).isFalse();
+    assertThat(read(third.previous(), "key2")).isEqualTo("data2");
+    third.stop();
+  }
+
+  @Test
+  public void previous_cache_is_dropped_when_active_rules_change() {
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+
+    AnalysisCache second = newEnabledCache(activeRules("BLOCKER"));
+    assertThat(second.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void previous_cache_is_dropped_when_plugins_change() {
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+
+    when(pluginRepository.getPluginInfos()).thenReturn(Arrays.asList(
+      new PluginInfo("java").setVersion(org.sonar.updatecenter.common.Version.create("4.1"))));
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(second.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void previous_cache_is_dropped_when_exclusions_change() {
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/**");
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+
+    settings.setProperty(CoreProperties.PROJECT_EXCLUSIONS_PROPERTY, "**/generated/**,**/vendor/**");
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(second.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void previous_cache_is_dropped_when_sensor_property_changes() {
+    settings.setProperty("sonar.java.source", "7");
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+
+    settings.setProperty("sonar.java.source", "8");
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(second.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void previous_cache_is_dropped_when_module_property_changes() {
+    DefaultInputModule root = new DefaultInputModule("foo");
+    when(moduleHierarchy.root()).thenReturn(root);
+    root.definition().setProperty("sonar.sources", "src");
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+
+    root.definition().setProperty("sonar.sources", "src,gen");
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(second.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void previous_cache_is_dropped_when_branch_target_changes() {
+    settings.setProperty("sonar.branch.name", "feature");
+    settings.setProperty("sonar.branch.target", "master");
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+
+    settings.setProperty("sonar.branch.target", "release");
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(second.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void previous_cache_is_kept_when_only_volatile_settings_change() throws IOException {
+    settings.setProperty(CoreProperties.PROJECT_DATE_PROPERTY, "2017-05-01");
+    settings.setProperty(CoreProperties.PROJECT_VERSION_PROPERTY, "1.0");
+    settings.setProperty("sonar.analysis.buildNumber", "12");
+    AnalysisCache first = newEnabledCache(activeRules("MAJOR"));
+    first.next().write("key", bytes("data"));
+    first.persist();
+    first.stop();
+
+    settings.setProperty(CoreProperties.PROJECT_DATE_PROPERTY, "2017-05-02");
+    settings.setProperty(CoreProperties.PROJECT_VERSION_PROPERTY, "1.1");
+    settings.setProperty("sonar.analysis.buildNumber", "13");
+    settings.setProperty(CoreProperties.LOGIN, "token");
+    AnalysisCache second = newEnabledCache(activeRules("MAJOR"));
+    assertThat(read(second.previous(), "key")).isEqualTo("data");
+    second.stop();
+  }
+
+  @Test
+  public void ignore_corrupted_previous_cache() throws IOException {
+    AnalysisCache underTest = newEnabledCache(activeRules("MAJOR"));
+    Files.createDirectories(underTest.cacheFile().getParent());
+    Files.write(underTest.cacheFile(), bytes("not a cache"));
+
+    assertThat(underTest.previous().contains("key")).isFalse();
+  }
+
+  @Test
+  public void fail_to_write_twice_the_same_key() {
+    AnalysisCache underTest = newEnabledCache(activeRules("MAJOR"));
+    underTest.next().write("key", bytes("data"));
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Cache already contains key 'key'");
+    underTest.next().write("key", bytes("other"));
+  }
+
+  @Test
+  public void fail_to_copy_key_missing_from_previous_cache() {
+    AnalysisCache underTest = newEnabledCache(activeRules("MAJOR"));
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Previous cache doesn't contain key 'key'");
+    underTest.next().copyFromPrevious("key");
+  }
+
+  @Test
+  public void fail_to_read_missing_key() {
+    AnalysisCache underTest = newEnabledCache(activeRules("MAJOR"));
+
+    thrown.expect(IllegalArgumentException.class);
+    thrown.expectMessage("Cache doesn't contain key 'key'");
+    underTest.previous().read("key");
+  }
+
+  private AnalysisCache newEnabledCache(ActiveRules activeRules) {
+    return newCache(ImmutableMap.of(AnalysisCache.ENABLED_PROPERTY, "true"), activeRules);
+  }
+
+  private AnalysisCache newCache(Map<String, String> props, ActiveRules activeRules) {
+    return new AnalysisCache(new AnalysisProperties(props, null), settings, analysisMode, fileCache, new DefaultTempFolder(tempDir), moduleHierarchy,
+      activeRules, pluginRepository, runtime);
+  }
+
+  private static ActiveRules activeRules(String severity) {
+    return new ActiveRulesBuilder()
+      .create(RuleKey.of("squid", "S1")).setSeverity(severity).setParam("max", "10").activate()
+      .build();
+  }
+
+  private static byte[] bytes(String s) {
+    return s.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static String read(ReadCache cache, String key) throws IOException {
+    try (InputStream input = cache.read(key)) {
+      return IOUtils.toString(input, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -239,6 +239,43 @@ public class CpdExecutorTest {
         "Timeout during detection of duplications for .*Foo2.php");
   }
 
+  @Test
+  public void execute_detects_duplications_concurrently() {
+    settings.setProperty(CpdExecutor.THREADS_PROPERTY, "4");
+    List<DefaultInputFile> components = new ArrayList<>();
+    for (int i = 1; i <= 20; i++) {
+      DefaultInputFile component = new TestInputFileBuilder("foo", "src/Bar" + i + ".java")
+        .setModuleBaseDir(baseDir.toPath())
+        .setLanguage("java")
+        .setLines(10)
+        .build();
+      componentStore.put(component);
+      List<Block> blocks = new ArrayList<>();
+      for (int j = 1; j <= 3; j++) {
+        blocks.add(Block.builder()
+          .setResourceId(component.key())
+          .setIndexInFile(j - 1)
+          .setLines(j, j + 1)
+          .setUnit(j, j + 1)
+          .setBlockHash(new ByteArray(("abcd000" + j).getBytes()))
+          .build());
+      }
+      index.insert((InputFile) component, blocks);
+      components.add(component);
+    }
+
+    executor.execute();
+
+    for (DefaultInputFile component : components) {
+      List<Duplication> duplications = new ArrayList<>();
+      try (CloseableIterator<Duplication> it = reader.readComponentDuplications(component.batchId())) {
+        it.forEachRemaining(duplications::add);
+      }
+      assertThat(duplications).hasSize(1);
+      assertDuplication(duplications.get(0), 1, 4, 19);
+    }
+  }
+
   private Duplication[] readDuplications(int expected) {
     assertThat(reader.readComponentDuplications(batchComponent1.batchId())).hasSize(expected);
     Duplication[] duplications = new Duplication[expected];
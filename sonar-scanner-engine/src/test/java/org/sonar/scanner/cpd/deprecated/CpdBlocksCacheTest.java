@@ -0,0 +1,135 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.deprecated;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+import org.junit.Before;
+import org.junit.Test;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.batch.sensor.internal.InMemorySensorCache;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.scanner.cache.AnalysisCache;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CpdBlocksCacheTest {
+
+  private AnalysisCache analysisCache = mock(AnalysisCache.class);
+  private InMemorySensorCache previous = new InMemorySensorCache();
+  private InMemorySensorCache next = new InMemorySensorCache(previous);
+  private CpdBlocksCache underTest = new CpdBlocksCache(analysisCache);
+
+  private DefaultInputFile file = new TestInputFileBuilder("foo", "src/Foo.java").setHash("abc").build();
+  private List<Block> blocks = asList(
+    block(0, 1, 10, 2, 20, "aa"),
+    block(1, 2, 11, 3, 21, "bb"));
+
+  @Before
+  public void setUp() {
+    when(analysisCache.isEnabled()).thenReturn(true);
+    when(analysisCache.previous()).thenReturn(previous);
+    when(analysisCache.next()).thenReturn(next);
+  }
+
+  @Test
+  public void chunk_and_store_blocks_when_not_in_previous_cache() {
+    Supplier<List<Block>> chunker = chunker(blocks);
+
+    assertThat(underTest.getOrChunk(file, "java:10", chunker)).isEqualTo(blocks);
+
+    verify(chunker).get();
+    assertThat(next.contains("cpd:foo:src/Foo.java")).isTrue();
+  }
+
+  @Test
+  public void reuse_blocks_of_unchanged_file() {
+    InMemorySensorCache firstAnalysis = new InMemorySensorCache();
+    when(analysisCache.next()).thenReturn(firstAnalysis);
+    underTest.getOrChunk(file, "java:10", () -> blocks);
+    previous = firstAnalysis;
+    next = new InMemorySensorCache(previous);
+    when(analysisCache.previous()).thenReturn(previous);
+    when(analysisCache.next()).thenReturn(next);
+    Supplier<List<Block>> chunker = chunker(Collections.emptyList());
+
+    List<Block> result = underTest.getOrChunk(file, "java:10", chunker);
+
+    verify(chunker, times(0)).get();
+    assertThat(result).isEqualTo(blocks);
+    assertThat(result).extracting("startLine", "endLine", "startUnit", "endUnit", "indexInFile")
+      .containsExactly(
+        tuple(1, 10, 2, 20, 0),
+        tuple(2, 11, 3, 21, 1));
+    assertThat(next.contains("cpd:foo:src/Foo.java")).isTrue();
+  }
+
+  @Test
+  public void chunk_again_when_file_or_tokenizer_changed() {
+    InMemorySensorCache firstAnalysis = new InMemorySensorCache();
+    when(analysisCache.next()).thenReturn(firstAnalysis);
+    underTest.getOrChunk(file, "java:10", () -> blocks);
+    when(analysisCache.previous()).thenReturn(firstAnalysis);
+    when(analysisCache.next()).thenReturn(new InMemorySensorCache(firstAnalysis), new InMemorySensorCache(firstAnalysis));
+
+    Supplier<List<Block>> chunker = chunker(blocks);
+    underTest.getOrChunk(file, "java:20", chunker);
+    underTest.getOrChunk(new TestInputFileBuilder("foo", "src/Foo.java").setHash("def").build(), "java:10", chunker);
+
+    verify(chunker, times(2)).get();
+  }
+
+  @Test
+  public void always_chunk_when_cache_is_disabled() {
+    when(analysisCache.isEnabled()).thenReturn(false);
+    Supplier<List<Block>> chunker = chunker(blocks);
+
+    assertThat(underTest.getOrChunk(file, "java:10", chunker)).isEqualTo(blocks);
+
+    verify(chunker).get();
+    assertThat(next.contains("cpd:foo:src/Foo.java")).isFalse();
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Supplier<List<Block>> chunker(List<Block> blocks) {
+    Supplier<List<Block>> chunker = mock(Supplier.class);
+    when(chunker.get()).thenReturn(blocks);
+    return chunker;
+  }
+
+  private static Block block(int index, int startLine, int endLine, int startUnit, int endUnit, String hash) {
+    return Block.builder()
+      .setResourceId("foo:src/Foo.java")
+      .setBlockHash(new ByteArray(hash))
+      .setIndexInFile(index)
+      .setLines(startLine, endLine)
+      .setUnit(startUnit, endUnit)
+      .build();
+  }
+}
@@ -40,6 +40,7 @@ import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.config.Settings;
 import org.sonar.duplications.block.Block;
+import org.sonar.scanner.cache.AnalysisCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -79,12 +80,12 @@ public class JavaCpdBlockIndexerTest {
     FileUtils.copyURLToFile(this.getClass().getResource("ManyStatements.java"), ioFile);
 
     settings = new MapSettings();
-    engine = new JavaCpdBlockIndexer(fs, settings, index);
+    engine = new JavaCpdBlockIndexer(fs, settings, index, new CpdBlocksCache(mock(AnalysisCache.class)));
   }
 
   @Test
   public void languageSupported() {
-    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings(), index);
+    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings(), index, null);
     assertThat(engine.isLanguageSupported(JAVA)).isTrue();
     assertThat(engine.isLanguageSupported("php")).isFalse();
   }
@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import org.apache.commons.io.FileUtils;
 import org.junit.After;
 import org.junit.Before;
@@ -39,6 +40,7 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
 import org.sonar.scanner.mediumtest.LogOutputRecorder;
 import org.sonar.scanner.mediumtest.ScannerMediumTester;
+import org.sonar.scanner.cache.AnalysisCache;
 import org.sonar.scanner.mediumtest.TaskResult;
 import org.sonar.scanner.protocol.output.ScannerReport;
 import org.sonar.xoo.XooPlugin;
@@ -108,6 +110,39 @@ public class CpdMediumTest {
     tester.stop();
   }
 
+  @Test
+  public void reuseCachedBlocksOfUnchangedFiles() throws IOException {
+    File srcDir = new File(baseDir, "src");
+    srcDir.mkdir();
+
+    String duplicatedStuff = "Sample xoo\ncontent\n"
+      + "foo\nbar\ntoto\ntiti\n"
+      + "foo\nbar\ntoto\ntiti\n"
+      + "bar\ntoto\ntiti\n"
+      + "foo\nbar\ntoto\ntiti";
+    FileUtils.write(new File(srcDir, "sample1.xoo"), duplicatedStuff);
+    FileUtils.write(new File(srcDir, "sample2.xoo"), duplicatedStuff);
+
+    Map<String, String> props = builder
+      .put("sonar.sources", "src")
+      .put("sonar.cpd.xoo.minimumTokens", "10")
+      .put("sonar.verbose", "true")
+      .put(AnalysisCache.ENABLED_PROPERTY, "true")
+      .build();
+
+    TaskResult first = tester.newTask().properties(props).start();
+    TaskResult second = tester.newTask().properties(props).start();
+
+    if (!useNewSensorApi) {
+      // blocks computed by the deprecated indexers are cached
+      assertThat(logRecorder.getAllAsString()).contains("Load analysis cache (0 entries)", "Load analysis cache (2 entries)");
+    }
+
+    assertThat(second.duplicationsFor(second.inputFile("src/sample1.xoo")))
+      .isEqualTo(first.duplicationsFor(first.inputFile("src/sample1.xoo")))
+      .hasSize(1);
+  }
+
   @Test
   public void testCrossModuleDuplications() throws IOException {
     builder.put("sonar.modules", "module1,module2")
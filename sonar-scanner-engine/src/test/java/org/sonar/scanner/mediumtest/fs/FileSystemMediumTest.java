@@ -677,4 +677,28 @@ public class FileSystemMediumTest {
     assertThat(result.inputDirs()).hasSize(4);
   }
 
+  @Test
+  public void scanMultiModuleProjectConcurrently() {
+    File projectDir = new File("src/test/resources/mediumtest/xoo/multi-modules-sample");
+    TaskResult result = tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.scanner.moduleThreads", "4")
+      .start();
+
+    assertThat(result.inputFiles()).hasSize(4);
+    assertThat(result.inputDirs()).hasSize(4);
+  }
+
+  @Test
+  public void failIfInvalidNumberOfModuleThreads() {
+    thrown.expect(MessageException.class);
+    thrown.expectMessage("Property 'sonar.scanner.moduleThreads' must be an integer, got: many");
+
+    File projectDir = new File("src/test/resources/mediumtest/xoo/multi-modules-sample");
+    tester
+      .newScanTask(new File(projectDir, "sonar-project.properties"))
+      .property("sonar.scanner.moduleThreads", "many")
+      .start();
+  }
+
 }
@@ -77,6 +77,20 @@ public class IssuesMediumTest {
     assertThat(issueListener.issueList).hasSize(0);
   }
 
+  @Test
+  public void testOneIssuePerLineWithMappedStorage() throws Exception {
+    File projectDir = new File(IssuesMediumTest.class.getResource("/mediumtest/xoo/sample").toURI());
+    File tmpDir = temp.newFolder();
+    FileUtils.copyDirectory(projectDir, tmpDir);
+
+    TaskResult result = tester
+      .newScanTask(new File(tmpDir, "sonar-project.properties"))
+      .property("sonar.scanner.storage", "mmap")
+      .start();
+
+    assertThat(result.issuesFor(result.inputFile("xources/hello/HelloJava.xoo"))).hasSize(8 /* lines */);
+  }
+
   @Test
   public void testOneIssuePerLine() throws Exception {
     File projectDir = new File(IssuesMediumTest.class.getResource("/mediumtest/xoo/sample").toURI());
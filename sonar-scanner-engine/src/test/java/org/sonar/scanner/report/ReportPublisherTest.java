@@ -19,8 +19,11 @@
  */
 package org.sonar.scanner.report;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PipedInputStream;
 import java.io.PipedOutputStream;
 import java.nio.file.Files;
@@ -39,15 +42,19 @@ import org.sonar.api.config.PropertyDefinitions;
 import org.sonar.api.config.Settings;
 import org.sonar.api.platform.Server;
 import org.sonar.api.utils.MessageException;
-import org.sonar.api.utils.TempFolder;
+import org.sonar.api.utils.ZipUtils;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 import org.sonar.core.config.CorePropertyDefinitions;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
 import org.sonar.scanner.bootstrap.ScannerWsClient;
+import org.sonar.scanner.protocol.output.ScannerReport;
+import org.sonar.scanner.protocol.output.SingleFileReport;
 import org.sonar.scanner.scan.ImmutableProjectReactor;
+import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.WsCe;
 import org.sonarqube.ws.client.HttpException;
+import org.sonarqube.ws.client.PostRequest;
 import org.sonarqube.ws.client.WsRequest;
 import org.sonarqube.ws.client.WsResponse;
 
@@ -89,7 +96,7 @@ public class ReportPublisherTest {
 
   @Test
   public void log_and_dump_information_about_report_uploading() throws IOException {
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
     settings.setProperty(CoreProperties.PROJECT_ORGANIZATION_PROPERTY, "MyOrg");
 
     underTest.logSuccess("TASK-123");
@@ -112,7 +119,7 @@ public class ReportPublisherTest {
 
   @Test
   public void parse_upload_error_message() throws IOException {
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
     HttpException ex = new HttpException("url", 404, "{\"errors\":[{\"msg\":\"Organization with key 'MyOrg' does not exist\"}]}");
     WsResponse response = mock(WsResponse.class);
     when(response.failIfNotSuccessful()).thenThrow(ex);
@@ -120,13 +127,13 @@ public class ReportPublisherTest {
 
     exception.expect(MessageException.class);
     exception.expectMessage("Failed to upload report - 404: Organization with key 'MyOrg' does not exist");
-    underTest.upload(temp.newFile());
+    underTest.upload(temp.newFolder());
   }
 
   @Test
   public void log_public_url_if_defined() throws IOException {
     when(server.getPublicRootUrl()).thenReturn("https://publicserver/sonarqube");
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
 
     underTest.logSuccess("TASK-123");
 
@@ -147,7 +154,7 @@ public class ReportPublisherTest {
   @Test
   public void fail_if_public_url_malformed() throws IOException {
     when(server.getPublicRootUrl()).thenReturn("invalid");
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
 
     exception.expect(MessageException.class);
     exception.expectMessage("Failed to parse public URL set in SonarQube server: invalid");
@@ -156,7 +163,7 @@ public class ReportPublisherTest {
 
   @Test
   public void log_but_not_dump_information_when_report_is_not_uploaded() {
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
 
     underTest.logSuccess(/* report not uploaded, no server task */null);
 
@@ -173,7 +180,7 @@ public class ReportPublisherTest {
     settings.setProperty("sonar.batch.keepReport", true);
     Path reportDir = temp.getRoot().toPath().resolve("batch-report");
     Files.createDirectory(reportDir);
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
 
     underTest.start();
     underTest.stop();
@@ -184,16 +191,76 @@ public class ReportPublisherTest {
   public void should_delete_report_by_default() throws IOException {
     Path reportDir = temp.getRoot().toPath().resolve("batch-report");
     Files.createDirectory(reportDir);
-    ReportPublisher job = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher job = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
 
     job.start();
     job.stop();
     assertThat(reportDir).doesNotExist();
   }
 
+  @Test
+  public void upload_report_compressed_while_sending_it() throws Exception {
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
+    underTest.start();
+    underTest.getWriter().writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("struts").build());
+
+    PostRequest.Part part = uploadAndCapturePart(underTest);
+
+    assertThat(part.getMediaType()).isEqualTo(MediaTypes.ZIP);
+    assertThat(part.getFile()).isNull();
+    File unzipped = ZipUtils.unzip(writePart(part), temp.newFolder());
+    assertThat(new File(unzipped, "metadata.pb")).exists();
+  }
+
+  @Test
+  public void upload_report_as_a_single_file_when_enabled() throws Exception {
+    settings.setProperty(ReportPublisher.SINGLE_FILE_REPORT_KEY, true);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
+    underTest.start();
+    underTest.getWriter().writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("struts").build());
+
+    PostRequest.Part part = uploadAndCapturePart(underTest);
+
+    assertThat(part.getMediaType()).isEqualTo(MediaTypes.DEFAULT);
+    SingleFileReport report = SingleFileReport.open(writePart(part));
+    assertThat(report.hasFile("metadata.pb")).isTrue();
+  }
+
+  @Test
+  public void fail_if_compression_level_is_invalid() {
+    settings.setProperty(ReportPublisher.COMPRESSION_LEVEL_KEY, 10);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
+
+    exception.expect(MessageException.class);
+    exception.expectMessage("Property 'sonar.scanner.reportCompressionLevel' must be between 0 and 9, got: 10");
+
+    underTest.start();
+  }
+
+  private PostRequest.Part uploadAndCapturePart(ReportPublisher underTest) throws IOException {
+    WsResponse response = mock(WsResponse.class);
+    when(response.failIfNotSuccessful()).thenReturn(response);
+    when(response.contentStream()).thenReturn(new ByteArrayInputStream(WsCe.SubmitResponse.newBuilder().setTaskId("TASK-1").build().toByteArray()));
+    when(wsClient.call(any(WsRequest.class))).thenReturn(response);
+
+    assertThat(underTest.upload(underTest.getReportDir())).isEqualTo("TASK-1");
+
+    ArgumentCaptor<PostRequest> capture = ArgumentCaptor.forClass(PostRequest.class);
+    verify(wsClient).call(capture.capture());
+    return capture.getValue().getParts().get("report");
+  }
+
+  private File writePart(PostRequest.Part part) throws IOException {
+    File file = temp.newFile();
+    try (OutputStream output = new FileOutputStream(file)) {
+      part.getContent().writeTo(output);
+    }
+    return file;
+  }
+
   @Test
   public void test_ws_parameters() throws Exception {
-    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, mock(TempFolder.class), new ReportPublisherStep[0]);
+    ReportPublisher underTest = new ReportPublisher(settings, wsClient, server, contextPublisher, reactor, mode, new ReportPublisherStep[0]);
 
     settings.setProperty(CoreProperties.PROJECT_ORGANIZATION_PROPERTY, "MyOrg");
 
@@ -208,7 +275,7 @@ public class ReportPublisherTest {
     when(response.contentStream()).thenReturn(in);
 
     when(wsClient.call(any(WsRequest.class))).thenReturn(response);
-    underTest.upload(temp.newFile());
+    underTest.upload(temp.newFolder());
 
     ArgumentCaptor<WsRequest> capture = ArgumentCaptor.forClass(WsRequest.class);
     verify(wsClient).call(capture.capture());
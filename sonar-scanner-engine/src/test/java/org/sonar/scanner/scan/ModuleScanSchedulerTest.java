@@ -0,0 +1,101 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.batch.fs.internal.DefaultInputModule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ModuleScanSchedulerTest {
+
+  @Rule
+  public ExpectedException thrown = ExpectedException.none();
+
+  private DefaultInputModuleHierarchy tree = new DefaultInputModuleHierarchy();
+  private DefaultInputModule root = new DefaultInputModule("root");
+  private DefaultInputModule mod1 = new DefaultInputModule("mod1");
+  private DefaultInputModule mod11 = new DefaultInputModule("mod11");
+  private DefaultInputModule mod12 = new DefaultInputModule("mod12");
+  private DefaultInputModule mod2 = new DefaultInputModule("mod2");
+
+  private List<String> scanned = Collections.synchronizedList(new ArrayList<>());
+  private Map<String, Thread> threads = new ConcurrentHashMap<>();
+
+  @Before
+  public void setUp() {
+    tree.setRoot(root);
+    tree.index(mod1, root);
+    tree.index(mod11, mod1);
+    tree.index(mod12, mod1);
+    tree.index(mod2, root);
+  }
+
+  @Test
+  public void scan_modules_sequentially_by_default() {
+    new ModuleScanScheduler(tree, this::scan, 1).execute();
+
+    assertThat(scanned).containsOnly("mod11", "mod12", "mod1", "mod2", "root").hasSize(5);
+    assertThat(scanned.indexOf("mod1")).isGreaterThan(scanned.indexOf("mod11")).isGreaterThan(scanned.indexOf("mod12"));
+    assertThat(scanned.get(4)).isEqualTo("root");
+    assertThat(threads.values()).containsOnly(Thread.currentThread());
+  }
+
+  @Test
+  public void scan_children_before_parents_when_concurrent() {
+    new ModuleScanScheduler(tree, this::scan, 4).execute();
+
+    assertThat(scanned).containsOnly("mod11", "mod12", "mod1", "mod2", "root").hasSize(5);
+    assertThat(scanned.indexOf("mod1")).isGreaterThan(scanned.indexOf("mod11")).isGreaterThan(scanned.indexOf("mod12"));
+    assertThat(scanned.get(4)).isEqualTo("root");
+    assertThat(threads.get("root")).isSameAs(Thread.currentThread());
+    assertThat(threads.get("mod1")).isNotSameAs(Thread.currentThread());
+  }
+
+  @Test
+  public void fail_if_scan_of_a_module_fails() {
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("Fail to scan mod12");
+
+    try {
+      new ModuleScanScheduler(tree, module -> {
+        if (module == mod12) {
+          throw new IllegalStateException("Fail to scan mod12");
+        }
+        scan(module);
+      }, 4).execute();
+    } finally {
+      assertThat(scanned).doesNotContain("mod1", "root");
+    }
+  }
+
+  private void scan(DefaultInputModule module) {
+    threads.put(module.key(), Thread.currentThread());
+    scanned.add(module.key());
+  }
+}
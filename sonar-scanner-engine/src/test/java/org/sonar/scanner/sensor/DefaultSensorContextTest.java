@@ -32,12 +32,15 @@ import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.rule.ActiveRules;
 import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
 import org.sonar.api.batch.sensor.internal.SensorStorage;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
 import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.utils.Version;
+import org.sonar.scanner.cache.AnalysisCache;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -58,6 +61,7 @@ public class DefaultSensorContextTest {
   private SensorStorage sensorStorage;
   private AnalysisMode analysisMode;
   private SonarRuntime runtime;
+  private AnalysisCache analysisCache;
 
   @Before
   public void prepare() throws Exception {
@@ -70,7 +74,8 @@ public class DefaultSensorContextTest {
     sensorStorage = mock(SensorStorage.class);
     analysisMode = mock(AnalysisMode.class);
     runtime = SonarRuntimeImpl.forSonarQube(Version.parse("5.5"), SonarQubeSide.SCANNER);
-    adaptor = new DefaultSensorContext(mock(InputModule.class), settings, fs, activeRules, analysisMode, sensorStorage, runtime);
+    analysisCache = mock(AnalysisCache.class);
+    adaptor = new DefaultSensorContext(mock(InputModule.class), settings, fs, activeRules, analysisMode, sensorStorage, runtime, analysisCache);
   }
 
   @Test
@@ -87,4 +92,17 @@ public class DefaultSensorContextTest {
     assertThat(adaptor.isCancelled()).isFalse();
   }
 
+  @Test
+  public void shouldDelegateCacheToAnalysisCache() {
+    ReadCache previous = mock(ReadCache.class);
+    WriteCache next = mock(WriteCache.class);
+    when(analysisCache.isEnabled()).thenReturn(true);
+    when(analysisCache.previous()).thenReturn(previous);
+    when(analysisCache.next()).thenReturn(next);
+
+    assertThat(adaptor.isCacheEnabled()).isTrue();
+    assertThat(adaptor.previousCache()).isSameAs(previous);
+    assertThat(adaptor.nextCache()).isSameAs(next);
+  }
+
 }
@@ -0,0 +1,138 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the tests of {@link StorageTest} on the memory-mapped engine
+ */
+public class MappedStorageTest extends StorageTest {
+
+  @Rule
+  public TemporaryFolder segmentsDir = new TemporaryFolder();
+
+  @Before
+  @Override
+  public void start() {
+    caches = new Storages(cachesManager, Storages.MAPPED_ENGINE);
+    caches.start();
+  }
+
+  @Test
+  public void values_bigger_than_segments_get_their_own_segment() throws Exception {
+    MappedStorageEngine engine = new MappedStorageEngine(segmentsDir.getRoot().toPath(), 64);
+    Storage<String> storage = engine.createStorage("big");
+
+    String big = StringUtils.repeat("a", 1_000);
+    storage.put("small1", "b");
+    storage.put("big", big);
+    storage.put("small2", "c");
+
+    assertThat(storage.get("small1")).isEqualTo("b");
+    assertThat(storage.get("big")).isEqualTo(big);
+    assertThat(storage.get("small2")).isEqualTo("c");
+    assertThat(segmentsDir.getRoot().list()).hasSize(3);
+
+    engine.close();
+    assertThat(segmentsDir.getRoot()).doesNotExist();
+  }
+
+  @Test
+  public void encode_values_with_registered_codec() {
+    caches.registerCodec(Point.class, new PointCodec());
+    Storage<Point> storage = caches.createCache("points");
+
+    storage.put("origin", new Point(0, 0));
+    storage.put("a", new Point(3, -4));
+
+    assertThat(storage.get("origin").x).isEqualTo(0);
+    assertThat(storage.get("a").x).isEqualTo(3);
+    assertThat(storage.get("a").y).isEqualTo(-4);
+  }
+
+  @Test
+  public void read_while_writing() throws Exception {
+    Storage<String> storage = caches.createCache("concurrent");
+    CountDownLatch started = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<?> writer = executor.submit(() -> {
+        for (int i = 0; i < 10_000; i++) {
+          storage.put("key", i, "value" + i);
+          started.countDown();
+        }
+      });
+      Future<?> reader = executor.submit(() -> {
+        started.await();
+        int read = 0;
+        while (read < 10_000) {
+          read = 0;
+          for (String value : storage.values("key")) {
+            assertThat(value).startsWith("value");
+            read++;
+          }
+        }
+        return read;
+      });
+      writer.get();
+      assertThat(reader.get()).isEqualTo(10_000);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static class Point implements Serializable {
+    private final int x;
+    private final int y;
+
+    private Point(int x, int y) {
+      this.x = x;
+      this.y = y;
+    }
+  }
+
+  private static class PointCodec implements StorageCodec<Point> {
+    @Override
+    public void encode(Point value, DataOutput output) throws IOException {
+      output.writeInt(value.x);
+      output.writeInt(value.y);
+    }
+
+    @Override
+    public Point decode(DataInput input) throws IOException {
+      return new Point(input.readInt(), input.readInt());
+    }
+  }
+}
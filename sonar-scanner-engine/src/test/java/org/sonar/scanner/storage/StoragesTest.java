@@ -19,10 +19,13 @@
  */
 package org.sonar.scanner.storage;
 
-import java.io.Serializable;
-
+import com.google.common.collect.ImmutableMap;
 import com.persistit.exception.PersistitException;
+import java.io.Serializable;
+import java.util.Collections;
 import org.junit.Test;
+import org.sonar.api.utils.MessageException;
+import org.sonar.scanner.analysis.AnalysisProperties;
 import org.sonar.scanner.index.AbstractCachesTest;
 import org.sonar.scanner.storage.Storage;
 import org.sonar.scanner.storage.Storages;
@@ -86,6 +89,33 @@ public class StoragesTest extends AbstractCachesTest {
     }
   }
 
+  @Test
+  public void select_engine_from_analysis_properties() {
+    caches.stop();
+    caches = new Storages(cachesManager, new AnalysisProperties(ImmutableMap.of("sonar.scanner.storage", "mmap"), null));
+
+    assertThat(caches.createCache("foo")).isInstanceOf(MappedStorage.class);
+  }
+
+  @Test
+  public void use_persistit_engine_by_default() {
+    caches.stop();
+    caches = new Storages(cachesManager, new AnalysisProperties(Collections.emptyMap(), null));
+
+    assertThat(caches.createCache("foo")).isInstanceOf(PersistitStorage.class);
+  }
+
+  @Test
+  public void fail_if_unknown_engine() {
+    caches.stop();
+    try {
+      new Storages(cachesManager, new AnalysisProperties(ImmutableMap.of("sonar.scanner.storage", "foo"), null));
+      fail();
+    } catch (MessageException e) {
+      assertThat(e).hasMessage("Property 'sonar.scanner.storage' must be one of persistit, mmap, got: foo");
+    }
+  }
+
   private static class Element implements Serializable {
     private static final long serialVersionUID = 1L;
 
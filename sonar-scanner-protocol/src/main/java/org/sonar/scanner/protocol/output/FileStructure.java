@@ -20,6 +20,7 @@
 package org.sonar.scanner.protocol.output;
 
 import java.io.File;
+import javax.annotation.CheckForNull;
 
 /**
  * Structure of files in the zipped report
@@ -48,8 +49,30 @@ public class FileStructure {
       this.filePrefix = filePrefix;
       this.fileSuffix = fileSuffix;
     }
+
+    /**
+     * @return the ref of the component of the given file name, or {@code null} if the file does not belong to this domain
+     */
+    @CheckForNull
+    Integer parseComponentRef(String fileName) {
+      if (!fileName.startsWith(filePrefix) || !fileName.endsWith(fileSuffix) || fileName.length() <= filePrefix.length() + fileSuffix.length()) {
+        return null;
+      }
+      String ref = fileName.substring(filePrefix.length(), fileName.length() - fileSuffix.length());
+      for (int i = 0; i < ref.length(); i++) {
+        if (!Character.isDigit(ref.charAt(i))) {
+          return null;
+        }
+      }
+      return Integer.parseInt(ref);
+    }
   }
 
+  /**
+   * Name of the file holding the whole report when it has been uploaded as a {@link SingleFileReport}
+   */
+  public static final String SINGLE_FILE_REPORT = "report.sqr";
+
   private final File dir;
 
   public FileStructure(File dir) {
@@ -78,7 +101,11 @@ public class FileStructure {
   public File contextProperties() {
     return new File(dir, "context-props.pb");
   }
-  
+
+  public File singleFileReport() {
+    return new File(dir, SINGLE_FILE_REPORT);
+  }
+
   public File root() {
     return dir;
   }
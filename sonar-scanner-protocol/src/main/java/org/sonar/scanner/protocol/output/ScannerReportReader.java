@@ -19,162 +19,279 @@
  */
 package org.sonar.scanner.protocol.output;
 
+import com.google.protobuf.Message;
+import com.google.protobuf.Parser;
+import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import javax.annotation.CheckForNull;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.core.util.Protobuf;
 
 import static org.sonar.core.util.CloseableIterator.emptyCloseableIterator;
 
-public class ScannerReportReader {
+/**
+ * Reads the report written by {@link ScannerReportWriter}. The directory can either contain the files
+ * of the report, or a single file {@link FileStructure#SINGLE_FILE_REPORT}, which is then memory-mapped
+ * until the reader is closed.
+ */
+public class ScannerReportReader implements Closeable {
 
   private final FileStructure fileStructure;
+  @CheckForNull
+  private final SingleFileReport singleFileReport;
 
   public ScannerReportReader(File dir) {
     this.fileStructure = new FileStructure(dir);
+    File singleFile = fileStructure.singleFileReport();
+    if (fileExists(singleFile)) {
+      try {
+        this.singleFileReport = SingleFileReport.open(singleFile);
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to open analysis report " + singleFile, e);
+      }
+    } else {
+      this.singleFileReport = null;
+    }
   }
 
   public ScannerReport.Metadata readMetadata() {
     File file = fileStructure.metadataFile();
-    if (!fileExists(file)) {
+    if (!exists(file)) {
       throw new IllegalStateException("Metadata file is missing in analysis report: " + file);
     }
-    return Protobuf.read(file, ScannerReport.Metadata.parser());
+    return read(file, ScannerReport.Metadata.parser());
   }
 
   public CloseableIterator<ScannerReport.ActiveRule> readActiveRules() {
-    File file = fileStructure.activeRules();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
-    }
-    return Protobuf.readStream(file, ScannerReport.ActiveRule.parser());
+    return readStream(fileStructure.activeRules(), ScannerReport.ActiveRule.parser());
   }
 
   public CloseableIterator<ScannerReport.Measure> readComponentMeasures(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.MEASURES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Measure.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.MEASURES, componentRef, ScannerReport.Measure.parser());
   }
 
   @CheckForNull
   public ScannerReport.Changesets readChangesets(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CHANGESETS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.read(file, ScannerReport.Changesets.parser());
+    if (exists(FileStructure.Domain.CHANGESETS, componentRef)) {
+      return read(FileStructure.Domain.CHANGESETS, componentRef, ScannerReport.Changesets.parser());
     }
     return null;
   }
 
   public ScannerReport.Component readComponent(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef);
-    if (!fileExists(file)) {
-      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: " + file);
+    if (!exists(FileStructure.Domain.COMPONENT, componentRef)) {
+      throw new IllegalStateException("Unable to find report for component #" + componentRef + ". File does not exist: "
+        + fileStructure.fileFor(FileStructure.Domain.COMPONENT, componentRef));
     }
-    return Protobuf.read(file, ScannerReport.Component.parser());
+    return read(FileStructure.Domain.COMPONENT, componentRef, ScannerReport.Component.parser());
   }
 
   public CloseableIterator<ScannerReport.Issue> readComponentIssues(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.ISSUES, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Issue.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.ISSUES, componentRef, ScannerReport.Issue.parser());
   }
 
   public CloseableIterator<ScannerReport.Duplication> readComponentDuplications(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.DUPLICATIONS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Duplication.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.DUPLICATIONS, componentRef, ScannerReport.Duplication.parser());
   }
 
   public CloseableIterator<ScannerReport.CpdTextBlock> readCpdTextBlocks(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.CpdTextBlock.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.CPD_TEXT_BLOCKS, componentRef, ScannerReport.CpdTextBlock.parser());
   }
 
   public CloseableIterator<ScannerReport.Symbol> readComponentSymbols(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYMBOLS, componentRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.Symbol.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYMBOLS, componentRef, ScannerReport.Symbol.parser());
   }
 
   public boolean hasSyntaxHighlighting(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
-    return file.exists();
+    return exists(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, componentRef);
   }
 
   public CloseableIterator<ScannerReport.SyntaxHighlightingRule> readComponentSyntaxHighlighting(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.SyntaxHighlightingRule.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.SYNTAX_HIGHLIGHTINGS, fileRef, ScannerReport.SyntaxHighlightingRule.parser());
   }
 
   public boolean hasCoverage(int componentRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, componentRef);
-    return file.exists();
+    return exists(FileStructure.Domain.COVERAGES, componentRef);
   }
 
   public CloseableIterator<ScannerReport.LineCoverage> readComponentCoverage(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGES, fileRef);
-    if (fileExists(file)) {
-      return Protobuf.readStream(file, ScannerReport.LineCoverage.parser());
-    }
-    return emptyCloseableIterator();
+    return readStream(FileStructure.Domain.COVERAGES, fileRef, ScannerReport.LineCoverage.parser());
   }
 
+  /**
+   * @throws UnsupportedOperationException if the report is stored in a single file
+   * @see #openFileSource(int)
+   */
   @CheckForNull
   public File readFileSource(int fileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.SOURCE, fileRef);
-    if (fileExists(file)) {
-      return file;
-    }
-    return null;
+    return getFile(FileStructure.Domain.SOURCE, fileRef);
   }
 
+  /**
+   * @throws UnsupportedOperationException if the report is stored in a single file
+   * @see #openTests(int)
+   */
   @CheckForNull
   public File readTests(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.TESTS, testFileRef);
-    if (fileExists(file)) {
-      return file;
+    return getFile(FileStructure.Domain.TESTS, testFileRef);
+  }
+
+  /**
+   * @throws UnsupportedOperationException if the report is stored in a single file
+   * @see #openCoverageDetails(int)
+   */
+  @CheckForNull
+  public File readCoverageDetails(int testFileRef) {
+    return getFile(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  }
+
+  /**
+   * @return the UTF-8 content of the source file, or {@code null} if the report does not contain it
+   */
+  @CheckForNull
+  public InputStream openFileSource(int fileRef) {
+    return open(FileStructure.Domain.SOURCE, fileRef);
+  }
+
+  /**
+   * @return the delimited {@link ScannerReport.Test} messages, or {@code null} if the report does not contain them
+   */
+  @CheckForNull
+  public InputStream openTests(int testFileRef) {
+    return open(FileStructure.Domain.TESTS, testFileRef);
+  }
+
+  /**
+   * @return the delimited {@link ScannerReport.CoverageDetail} messages, or {@code null} if the report does not contain them
+   */
+  @CheckForNull
+  public InputStream openCoverageDetails(int testFileRef) {
+    return open(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  }
+
+  /**
+   * @return the UTF-8 logs of the scanner, or {@code null} if the report does not contain them
+   */
+  @CheckForNull
+  public InputStream openAnalysisLog() {
+    return open(fileStructure.analysisLog());
+  }
+
+  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
+    return readStream(fileStructure.contextProperties(), ScannerReport.ContextProperty.parser());
+  }
+
+  /**
+   * @throws UnsupportedOperationException if the report is stored in a single file, as its files are not extracted
+   */
+  public FileStructure getFileStructure() {
+    checkNotSingleFile();
+    return fileStructure;
+  }
+
+  /**
+   * Releases the report stored in a single file. Does nothing if the report is a directory.
+   */
+  @Override
+  public void close() throws IOException {
+    if (singleFileReport != null) {
+      singleFileReport.close();
+    }
+  }
+
+  private boolean exists(File file) {
+    if (singleFileReport != null) {
+      return singleFileReport.hasFile(file.getName());
     }
+    return fileExists(file);
+  }
 
-    return null;
+  private boolean exists(FileStructure.Domain domain, int componentRef) {
+    if (singleFileReport != null) {
+      return singleFileReport.hasFile(domain, componentRef);
+    }
+    return fileExists(fileStructure.fileFor(domain, componentRef));
+  }
+
+  private <MSG extends Message> MSG read(File file, Parser<MSG> parser) {
+    if (singleFileReport != null) {
+      return Protobuf.read(singleFileReport.openFile(file.getName()), parser);
+    }
+    return Protobuf.read(file, parser);
+  }
+
+  private <MSG extends Message> MSG read(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    if (singleFileReport != null) {
+      return Protobuf.read(singleFileReport.openFile(domain, componentRef), parser);
+    }
+    return Protobuf.read(fileStructure.fileFor(domain, componentRef), parser);
+  }
+
+  private <MSG extends Message> CloseableIterator<MSG> readStream(File file, Parser<MSG> parser) {
+    if (!exists(file)) {
+      return emptyCloseableIterator();
+    }
+    if (singleFileReport != null) {
+      return Protobuf.readStream(singleFileReport.openFile(file.getName()), parser);
+    }
+    return Protobuf.readStream(file, parser);
+  }
+
+  private <MSG extends Message> CloseableIterator<MSG> readStream(FileStructure.Domain domain, int componentRef, Parser<MSG> parser) {
+    if (!exists(domain, componentRef)) {
+      return emptyCloseableIterator();
+    }
+    if (singleFileReport != null) {
+      return Protobuf.readStream(singleFileReport.openFile(domain, componentRef), parser);
+    }
+    return Protobuf.readStream(fileStructure.fileFor(domain, componentRef), parser);
   }
 
   @CheckForNull
-  public File readCoverageDetails(int testFileRef) {
-    File file = fileStructure.fileFor(FileStructure.Domain.COVERAGE_DETAILS, testFileRef);
+  private InputStream open(File file) {
+    if (singleFileReport != null) {
+      return singleFileReport.openFile(file.getName());
+    }
+    return fileExists(file) ? openFile(file) : null;
+  }
+
+  @CheckForNull
+  private InputStream open(FileStructure.Domain domain, int componentRef) {
+    if (singleFileReport != null) {
+      return singleFileReport.openFile(domain, componentRef);
+    }
+    File file = fileStructure.fileFor(domain, componentRef);
+    return fileExists(file) ? openFile(file) : null;
+  }
+
+  @CheckForNull
+  private File getFile(FileStructure.Domain domain, int componentRef) {
+    checkNotSingleFile();
+    File file = fileStructure.fileFor(domain, componentRef);
     if (fileExists(file)) {
       return file;
     }
-
     return null;
   }
 
-  public CloseableIterator<ScannerReport.ContextProperty> readContextProperties() {
-    File file = fileStructure.contextProperties();
-    if (!fileExists(file)) {
-      return emptyCloseableIterator();
+  private void checkNotSingleFile() {
+    if (singleFileReport != null) {
+      throw new UnsupportedOperationException("Files are not available when report is stored in a single file");
     }
-    return Protobuf.readStream(file, ScannerReport.ContextProperty.parser());
   }
 
-  private static boolean fileExists(File file) {
-    return file.exists() && file.isFile();
+  private static InputStream openFile(File file) {
+    try {
+      return new FileInputStream(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to open file " + file, e);
+    }
   }
 
-  public FileStructure getFileStructure() {
-    return fileStructure;
+  private static boolean fileExists(File file) {
+    return file.exists() && file.isFile();
   }
 }
@@ -0,0 +1,476 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.scanner.protocol.output.FileStructure.Domain;
+
+/**
+ * Analysis report stored in a single file, as an alternative to the directory described by {@link FileStructure}.
+ * The files of the report directory are concatenated, without compression, and followed by an index. The index
+ * has one segment per {@link Domain}, in which entries are sorted by component ref, so that any file of the report
+ * can be read directly from the memory-mapped report, without extracting it.
+ * <p/>
+ * The report must be closed in order to release the memory mapping. Streams returned by {@code openFile(...)}
+ * can't be read once the report is closed.
+ * <p/>
+ * Layout:
+ * <pre>
+ *   magic number (int) | version (int)
+ *   content of the files
+ *   index:
+ *     number of named files (int), then for each: name (UTF), offset (long), length (long)
+ *     for each domain: number of components (int), then for each: ref (int), offset (long), length (long)
+ *   offset of index (long) | magic number (int)
+ * </pre>
+ */
+public class SingleFileReport implements Closeable {
+
+  /**
+   * "SQRP". Can't be confused with a zip file, which starts with "PK".
+   */
+  public static final int MAGIC = 0x53515250;
+  private static final int VERSION = 1;
+  private static final int TRAILER_SIZE = Long.BYTES + Integer.BYTES;
+
+  private final File file;
+  private final FileChannel channel;
+  @CheckForNull
+  private final MappedByteBuffer mappedFile;
+  private final Map<String, long[]> namedEntries;
+  private final Map<Domain, DomainSegment> segments;
+  private volatile boolean closed = false;
+
+  private SingleFileReport(File file, FileChannel channel, @CheckForNull MappedByteBuffer mappedFile, Map<String, long[]> namedEntries,
+    Map<Domain, DomainSegment> segments) {
+    this.file = file;
+    this.channel = channel;
+    this.mappedFile = mappedFile;
+    this.namedEntries = namedEntries;
+    this.segments = segments;
+  }
+
+  /**
+   * Whether the given bytes are the start of a single-file report
+   */
+  public static boolean isSingleFileReport(byte[] header) {
+    return header.length >= Integer.BYTES
+      && (((header[0] & 0xFF) << 24) | ((header[1] & 0xFF) << 16) | ((header[2] & 0xFF) << 8) | (header[3] & 0xFF)) == MAGIC;
+  }
+
+  /**
+   * Writes all the files of the report directory to a single file. Files are streamed one after the
+   * other, so the report is never loaded in memory.
+   */
+  public static void pack(File reportDir, File toFile) throws IOException {
+    try (OutputStream output = new FileOutputStream(toFile)) {
+      pack(reportDir, output);
+    }
+  }
+
+  /**
+   * Same as {@link #pack(File, File)} but writes to a stream, for example the body of an HTTP request.
+   * The stream is flushed but not closed.
+   */
+  public static void pack(File reportDir, OutputStream toStream) throws IOException {
+    File[] files = reportDir.listFiles(File::isFile);
+    if (files == null) {
+      throw new IllegalArgumentException("Directory of analysis report does not exist: " + reportDir);
+    }
+    Arrays.sort(files);
+    Map<String, long[]> namedEntries = new HashMap<>();
+    Map<Domain, List<long[]>> domainEntries = new EnumMap<>(Domain.class);
+    CountingOutputStream counting = new CountingOutputStream(new BufferedOutputStream(toStream));
+    DataOutputStream output = new DataOutputStream(counting);
+    output.writeInt(MAGIC);
+    output.writeInt(VERSION);
+    byte[] buffer = new byte[64 * 1024];
+    for (File f : files) {
+      long offset = counting.count;
+      long length = copy(f, output, buffer);
+      register(f.getName(), offset, length, namedEntries, domainEntries);
+    }
+
+    long indexOffset = counting.count;
+    output.writeInt(namedEntries.size());
+    for (Map.Entry<String, long[]> entry : namedEntries.entrySet()) {
+      output.writeUTF(entry.getKey());
+      output.writeLong(entry.getValue()[0]);
+      output.writeLong(entry.getValue()[1]);
+    }
+    for (Domain domain : Domain.values()) {
+      List<long[]> entries = domainEntries.getOrDefault(domain, new ArrayList<>());
+      entries.sort((a, b) -> Long.compare(a[0], b[0]));
+      output.writeInt(entries.size());
+      for (long[] entry : entries) {
+        output.writeInt((int) entry[0]);
+        output.writeLong(entry[1]);
+        output.writeLong(entry[2]);
+      }
+    }
+    output.writeLong(indexOffset);
+    output.writeInt(MAGIC);
+    output.flush();
+  }
+
+  private static void register(String fileName, long offset, long length, Map<String, long[]> namedEntries, Map<Domain, List<long[]>> domainEntries) {
+    for (Domain domain : Domain.values()) {
+      Integer ref = domain.parseComponentRef(fileName);
+      if (ref != null) {
+        domainEntries.computeIfAbsent(domain, d -> new ArrayList<>()).add(new long[] {ref, offset, length});
+        return;
+      }
+    }
+    namedEntries.put(fileName, new long[] {offset, length});
+  }
+
+  private static long copy(File file, OutputStream output, byte[] buffer) throws IOException {
+    long count = 0;
+    try (InputStream input = new FileInputStream(file)) {
+      int read;
+      while ((read = input.read(buffer)) != -1) {
+        output.write(buffer, 0, read);
+        count += read;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * Memory-maps the report and reads its index. Files of the report are not read.
+   * The report must be closed once read.
+   */
+  public static SingleFileReport open(File file) throws IOException {
+    FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    try {
+      return open(file, channel);
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private static SingleFileReport open(File file, FileChannel channel) throws IOException {
+    long size = channel.size();
+    if (size < 2 * Integer.BYTES + TRAILER_SIZE) {
+      throw new IOException("Analysis report is corrupted: " + file);
+    }
+    ByteBuffer header = ByteBuffer.allocate(2 * Integer.BYTES);
+    readFully(channel, header, 0L);
+    ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+    readFully(channel, trailer, size - TRAILER_SIZE);
+    long indexOffset = trailer.getLong(0);
+    long indexSize = size - TRAILER_SIZE - indexOffset;
+    if (header.getInt(0) != MAGIC || trailer.getInt(Long.BYTES) != MAGIC || indexOffset < 2 * Integer.BYTES || indexSize < 0 || indexSize > Integer.MAX_VALUE) {
+      throw new IOException("Analysis report is corrupted: " + file);
+    }
+    if (header.getInt(Integer.BYTES) != VERSION) {
+      throw new IOException("Unsupported version " + header.getInt(Integer.BYTES) + " of analysis report: " + file);
+    }
+
+    // the index is small and read only once, so it is not mapped
+    byte[] indexBytes = new byte[(int) indexSize];
+    readFully(channel, ByteBuffer.wrap(indexBytes), indexOffset);
+    DataInputStream index = new DataInputStream(new ByteArrayInputStream(indexBytes));
+    int namedCount = index.readInt();
+    Map<String, long[]> namedEntries = new HashMap<>();
+    for (int i = 0; i < namedCount; i++) {
+      namedEntries.put(index.readUTF(), new long[] {index.readLong(), index.readLong()});
+    }
+    Map<Domain, DomainSegment> segments = new EnumMap<>(Domain.class);
+    for (Domain domain : Domain.values()) {
+      segments.put(domain, DomainSegment.read(index));
+    }
+
+    // reports bigger than 2GB can't be mapped at once. Files are then read from the channel.
+    MappedByteBuffer mappedFile = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0L, size) : null;
+    return new SingleFileReport(file, channel, mappedFile, namedEntries, segments);
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, pos);
+      if (read < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+      pos += read;
+    }
+  }
+
+  public boolean hasFile(String name) {
+    return namedEntries.containsKey(name);
+  }
+
+  public boolean hasFile(Domain domain, int componentRef) {
+    return segments.get(domain).indexOf(componentRef) >= 0;
+  }
+
+  /**
+   * @return {@code null} if the report has no file with this name
+   */
+  @CheckForNull
+  public InputStream openFile(String name) {
+    long[] entry = namedEntries.get(name);
+    if (entry == null) {
+      return null;
+    }
+    return open(entry[0], entry[1]);
+  }
+
+  /**
+   * @return {@code null} if the report has no data of this domain for the component
+   */
+  @CheckForNull
+  public InputStream openFile(Domain domain, int componentRef) {
+    DomainSegment segment = segments.get(domain);
+    int i = segment.indexOf(componentRef);
+    if (i < 0) {
+      return null;
+    }
+    return open(segment.offsets[i], segment.lengths[i]);
+  }
+
+  private InputStream open(long offset, long length) {
+    checkNotClosed();
+    if (mappedFile != null) {
+      ByteBuffer buffer = mappedFile.duplicate();
+      buffer.position((int) offset);
+      buffer.limit((int) (offset + length));
+      return new ByteBufferInputStream(buffer);
+    }
+    return new ChannelInputStream(offset, offset + length);
+  }
+
+  private void checkNotClosed() {
+    if (closed) {
+      throw new IllegalStateException("Analysis report is closed: " + file);
+    }
+  }
+
+  /**
+   * Releases the memory mapping and closes the report file.
+   */
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      channel.close();
+    } finally {
+      if (mappedFile != null) {
+        unmap(mappedFile);
+      }
+    }
+  }
+
+  /**
+   * The mapping of a {@link MappedByteBuffer} is otherwise released only when the buffer is garbage collected,
+   * which may never happen while the report file has to be deleted.
+   */
+  private static void unmap(MappedByteBuffer buffer) {
+    try {
+      Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+      cleanerMethod.setAccessible(true);
+      Object cleaner = cleanerMethod.invoke(buffer);
+      if (cleaner != null) {
+        Method cleanMethod = cleaner.getClass().getMethod("clean");
+        cleanMethod.setAccessible(true);
+        cleanMethod.invoke(cleaner);
+      }
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      // not supported by the JVM. Mapping is released by garbage collector.
+    }
+  }
+
+  private static final class DomainSegment {
+    private final int[] refs;
+    private final long[] offsets;
+    private final long[] lengths;
+
+    private DomainSegment(int size) {
+      this.refs = new int[size];
+      this.offsets = new long[size];
+      this.lengths = new long[size];
+    }
+
+    private static DomainSegment read(DataInputStream index) throws IOException {
+      DomainSegment segment = new DomainSegment(index.readInt());
+      for (int i = 0; i < segment.refs.length; i++) {
+        segment.refs[i] = index.readInt();
+        segment.offsets[i] = index.readLong();
+        segment.lengths[i] = index.readLong();
+      }
+      return segment;
+    }
+
+    private int indexOf(int ref) {
+      return Arrays.binarySearch(refs, ref);
+    }
+  }
+
+  /**
+   * Reads a file of the mapped report. Reading the buffer once unmapped would crash the JVM, so the state of the
+   * report is verified before each read.
+   */
+  private final class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buffer;
+
+    private ByteBufferInputStream(ByteBuffer buffer) {
+      this.buffer = buffer;
+    }
+
+    @Override
+    public int read() {
+      checkNotClosed();
+      return buffer.hasRemaining() ? (buffer.get() & 0xFF) : -1;
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) {
+      checkNotClosed();
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(bytes, off, count);
+      return count;
+    }
+
+    @Override
+    public long skip(long n) {
+      int count = (int) Math.min(Math.max(n, 0L), buffer.remaining());
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+  }
+
+  /**
+   * Reads a file of a report which is not mapped. Positional reads do not change the position of the
+   * channel, so that files can be read concurrently.
+   */
+  private final class ChannelInputStream extends InputStream {
+    private final long end;
+    private long position;
+
+    private ChannelInputStream(long start, long end) {
+      this.position = start;
+      this.end = end;
+    }
+
+    @Override
+    public int read() throws IOException {
+      byte[] bytes = new byte[1];
+      return read(bytes, 0, 1) == -1 ? -1 : (bytes[0] & 0xFF);
+    }
+
+    @Override
+    public int read(byte[] bytes, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (position >= end) {
+        return -1;
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(bytes, off, (int) Math.min(len, end - position));
+      int read = channel.read(buffer, position);
+      if (read < 0) {
+        throw new IOException("Unexpected end of file: " + file);
+      }
+      position += read;
+      return read;
+    }
+
+    @Override
+    public long skip(long n) {
+      long count = Math.min(Math.max(n, 0L), end - position);
+      position += count;
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return (int) Math.min(end - position, Integer.MAX_VALUE);
+    }
+  }
+
+  private static final class CountingOutputStream extends OutputStream {
+    private final OutputStream delegate;
+    private long count = 0L;
+
+    private CountingOutputStream(OutputStream delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      delegate.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      delegate.write(b, off, len);
+      count += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      delegate.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+      delegate.close();
+    }
+  }
+}
@@ -23,11 +23,13 @@ import com.google.common.collect.Lists;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.TemporaryFolder;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.scanner.protocol.output.ScannerReport.Measure.StringValue;
@@ -44,6 +46,8 @@ public class ScannerReportReaderTest {
 
   @Rule
   public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
 
   File dir;
 
@@ -377,4 +381,63 @@ public class ScannerReportReaderTest {
   public void return_null_when_no_file_source() throws Exception {
     assertThat(underTest.readFileSource(UNKNOWN_COMPONENT_REF)).isNull();
   }
+
+  @Test
+  public void read_report_stored_in_a_single_file() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    writer.writeMetadata(ScannerReport.Metadata.newBuilder().setProjectKey("PROJECT_A").build());
+    writer.writeComponent(ScannerReport.Component.newBuilder().setRef(1).setPath("src/Foo.java").build());
+    writer.writeComponentIssues(1, asList(ScannerReport.Issue.newBuilder().setMsg("issue").build()));
+    writer.writeComponentChangesets(ScannerReport.Changesets.newBuilder().setComponentRef(1).build());
+    writer.writeTests(1, asList(ScannerReport.Test.newBuilder().setName("test").build()));
+    FileUtils.write(writer.getSourceFile(1), "line1\nline2", StandardCharsets.UTF_8);
+    File singleFileDir = temp.newFolder();
+    SingleFileReport.pack(dir, new FileStructure(singleFileDir).singleFileReport());
+
+    ScannerReportReader reader = new ScannerReportReader(singleFileDir);
+
+    assertThat(reader.readMetadata().getProjectKey()).isEqualTo("PROJECT_A");
+    assertThat(reader.readComponent(1).getPath()).isEqualTo("src/Foo.java");
+    assertThat(reader.readComponentIssues(1)).extracting(ScannerReport.Issue::getMsg).containsExactly("issue");
+    assertThat(reader.readComponentIssues(2)).isEmpty();
+    assertThat(reader.readChangesets(1)).isNotNull();
+    assertThat(reader.readChangesets(2)).isNull();
+    assertThat(reader.readActiveRules()).isEmpty();
+    try (InputStream input = reader.openFileSource(1)) {
+      assertThat(IOUtils.toString(input, StandardCharsets.UTF_8)).isEqualTo("line1\nline2");
+    }
+    try (InputStream input = reader.openTests(1)) {
+      assertThat(ScannerReport.Test.parser().parseDelimitedFrom(input).getName()).isEqualTo("test");
+    }
+    assertThat(reader.openFileSource(2)).isNull();
+    assertThat(reader.openAnalysisLog()).isNull();
+  }
+
+  @Test
+  public void files_are_not_available_when_report_is_stored_in_a_single_file() throws Exception {
+    SingleFileReport.pack(dir, new FileStructure(temp.getRoot()).singleFileReport());
+
+    ScannerReportReader reader = new ScannerReportReader(temp.getRoot());
+
+    expectedException.expect(UnsupportedOperationException.class);
+    expectedException.expectMessage("Files are not available when report is stored in a single file");
+
+    reader.readFileSource(1);
+  }
+
+  @Test
+  public void open_files_of_report_directory() throws Exception {
+    ScannerReportWriter writer = new ScannerReportWriter(dir);
+    FileUtils.write(writer.getSourceFile(1), "line1", StandardCharsets.UTF_8);
+    FileUtils.write(writer.getFileStructure().analysisLog(), "logs", StandardCharsets.UTF_8);
+
+    try (InputStream input = underTest.openFileSource(1)) {
+      assertThat(IOUtils.toString(input, StandardCharsets.UTF_8)).isEqualTo("line1");
+    }
+    try (InputStream input = underTest.openAnalysisLog()) {
+      assertThat(IOUtils.toString(input, StandardCharsets.UTF_8)).isEqualTo("logs");
+    }
+    assertThat(underTest.openFileSource(2)).isNull();
+    assertThat(underTest.openCoverageDetails(1)).isNull();
+  }
 }
@@ -0,0 +1,162 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.protocol.output;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.scanner.protocol.output.FileStructure.Domain;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SingleFileReportTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void pack_and_read_files_of_report() throws IOException {
+    File dir = temp.newFolder();
+    write(new File(dir, "metadata.pb"), "metadata");
+    write(new File(dir, "analysis.log"), "logs");
+    write(new File(dir, "component-1.pb"), "component 1");
+    write(new File(dir, "component-12.pb"), "component 12");
+    write(new File(dir, "component-3.pb"), "component 3");
+    write(new File(dir, "source-3.txt"), "class Foo {}");
+    write(new File(dir, "coverages-3.pb"), "coverage");
+    write(new File(dir, "coverage-details-3.pb"), "coverage details");
+    write(new File(dir, "issues-3.pb"), "");
+    File reportFile = temp.newFile();
+
+    SingleFileReport.pack(dir, reportFile);
+    SingleFileReport underTest = SingleFileReport.open(reportFile);
+
+    assertThat(read(underTest.openFile("metadata.pb"))).isEqualTo("metadata");
+    assertThat(read(underTest.openFile("analysis.log"))).isEqualTo("logs");
+    assertThat(read(underTest.openFile(Domain.COMPONENT, 1))).isEqualTo("component 1");
+    assertThat(read(underTest.openFile(Domain.COMPONENT, 3))).isEqualTo("component 3");
+    assertThat(read(underTest.openFile(Domain.COMPONENT, 12))).isEqualTo("component 12");
+    assertThat(read(underTest.openFile(Domain.SOURCE, 3))).isEqualTo("class Foo {}");
+    assertThat(read(underTest.openFile(Domain.COVERAGES, 3))).isEqualTo("coverage");
+    assertThat(read(underTest.openFile(Domain.COVERAGE_DETAILS, 3))).isEqualTo("coverage details");
+    assertThat(read(underTest.openFile(Domain.ISSUES, 3))).isEmpty();
+    assertThat(underTest.hasFile(Domain.ISSUES, 3)).isTrue();
+    assertThat(underTest.hasFile("component-1.pb")).isFalse();
+    assertThat(underTest.hasFile("metadata.pb")).isTrue();
+
+    assertThat(underTest.openFile("unknown")).isNull();
+    assertThat(underTest.openFile(Domain.COMPONENT, 2)).isNull();
+    assertThat(underTest.openFile(Domain.SYMBOLS, 3)).isNull();
+    assertThat(underTest.hasFile(Domain.COMPONENT, 2)).isFalse();
+  }
+
+  @Test
+  public void pack_empty_report() throws IOException {
+    File reportFile = temp.newFile();
+
+    SingleFileReport.pack(temp.newFolder(), reportFile);
+    SingleFileReport underTest = SingleFileReport.open(reportFile);
+
+    assertThat(underTest.openFile("metadata.pb")).isNull();
+    assertThat(underTest.openFile(Domain.COMPONENT, 1)).isNull();
+  }
+
+  @Test
+  public void pack_to_stream_does_not_close_it() throws IOException {
+    File dir = temp.newFolder();
+    write(new File(dir, "metadata.pb"), "metadata");
+    File reportFile = temp.newFile();
+
+    try (OutputStream output = new FileOutputStream(reportFile)) {
+      SingleFileReport.pack(dir, new FilterOutputStream(output) {
+        @Override
+        public void close() {
+          throw new IllegalStateException("Stream must not be closed");
+        }
+      });
+    }
+    SingleFileReport underTest = SingleFileReport.open(reportFile);
+
+    assertThat(read(underTest.openFile("metadata.pb"))).isEqualTo("metadata");
+  }
+
+  @Test
+  public void files_can_not_be_read_once_report_is_closed() throws IOException {
+    File dir = temp.newFolder();
+    write(new File(dir, "metadata.pb"), "metadata");
+    File reportFile = temp.newFile();
+    SingleFileReport.pack(dir, reportFile);
+    SingleFileReport underTest = SingleFileReport.open(reportFile);
+    InputStream input = underTest.openFile("metadata.pb");
+
+    underTest.close();
+    // closing twice is supported
+    underTest.close();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Analysis report is closed");
+
+    input.read();
+  }
+
+  @Test
+  public void isSingleFileReport() throws IOException {
+    File reportFile = temp.newFile();
+    SingleFileReport.pack(temp.newFolder(), reportFile);
+
+    assertThat(SingleFileReport.isSingleFileReport(Files.readAllBytes(reportFile.toPath()))).isTrue();
+    assertThat(SingleFileReport.isSingleFileReport("PK\u0003\u0004".getBytes(StandardCharsets.UTF_8))).isFalse();
+    assertThat(SingleFileReport.isSingleFileReport(new byte[] {1})).isFalse();
+  }
+
+  @Test
+  public void fail_to_open_file_which_is_not_a_report() throws IOException {
+    File file = temp.newFile();
+    write(file, "this is not a report, but a text long enough to be read");
+
+    expectedException.expect(IOException.class);
+    expectedException.expectMessage("Analysis report is corrupted");
+
+    SingleFileReport.open(file);
+  }
+
+  private static void write(File file, String content) throws IOException {
+    FileUtils.write(file, content, StandardCharsets.UTF_8);
+  }
+
+  private static String read(InputStream input) throws IOException {
+    try (InputStream i = input) {
+      return IOUtils.toString(i, StandardCharsets.UTF_8);
+    }
+  }
+}
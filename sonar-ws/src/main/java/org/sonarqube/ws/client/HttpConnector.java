@@ -19,6 +19,7 @@
  */
 package org.sonarqube.ws.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.Proxy;
 import java.util.Map;
@@ -35,6 +36,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSink;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -132,10 +134,7 @@ public class HttpConnector implements WsConnector {
       MultipartBody.Builder bodyBuilder = new MultipartBody.Builder().setType(MultipartBody.FORM);
       parts.entrySet().forEach(param -> {
         PostRequest.Part part = param.getValue();
-        bodyBuilder.addFormDataPart(
-          param.getKey(),
-          part.getFile().getName(),
-          RequestBody.create(MediaType.parse(part.getMediaType()), part.getFile()));
+        bodyBuilder.addFormDataPart(param.getKey(), part.getFileName(), toRequestBody(part));
       });
       body = bodyBuilder.build();
     }
@@ -143,6 +142,27 @@ public class HttpConnector implements WsConnector {
     return doCall(reqBuilder.post(body).build());
   }
 
+  private static RequestBody toRequestBody(PostRequest.Part part) {
+    MediaType mediaType = MediaType.parse(part.getMediaType());
+    File file = part.getFile();
+    if (file != null) {
+      return RequestBody.create(mediaType, file);
+    }
+    PostRequest.Content content = part.getContent();
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return mediaType;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        // the stream is not closed, the sink is owned by the request
+        content.writeTo(sink.outputStream());
+      }
+    };
+  }
+
   private HttpUrl.Builder prepareUrlBuilder(WsRequest wsRequest) {
     String path = wsRequest.getPath();
     return baseUrl
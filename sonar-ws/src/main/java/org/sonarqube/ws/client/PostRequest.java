@@ -20,8 +20,11 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 5.3
@@ -51,19 +54,64 @@ public class PostRequest extends BaseRequest<PostRequest> {
   public static class Part {
     private final String mediaType;
     private final File file;
+    private final String fileName;
+    private final Content content;
 
     public Part(String mediaType, File file) {
       this.mediaType = mediaType;
       this.file = file;
+      this.fileName = file.getName();
+      this.content = null;
+    }
+
+    /**
+     * Part whose content is written while the request is sent, without knowing its length. It is
+     * sent with chunked transfer encoding.
+     * @since 6.5
+     */
+    public Part(String mediaType, String fileName, Content content) {
+      this.mediaType = mediaType;
+      this.file = null;
+      this.fileName = fileName;
+      this.content = content;
     }
 
     public String getMediaType() {
       return mediaType;
     }
 
+    /**
+     * @return {@code null} if the content of the part is streamed
+     */
+    @CheckForNull
     public File getFile() {
       return file;
     }
+
+    /**
+     * @since 6.5
+     */
+    public String getFileName() {
+      return fileName;
+    }
+
+    /**
+     * @return {@code null} if the part is a file
+     * @since 6.5
+     */
+    @CheckForNull
+    public Content getContent() {
+      return content;
+    }
+  }
+
+  /**
+   * Writes the content of a {@link Part}. It may be called several times if the request is retried.
+   * @since 6.5
+   */
+  @FunctionalInterface
+  public interface Content {
+    void writeTo(OutputStream output) throws IOException;
   }
 
 }
@@ -39,16 +39,19 @@ public class TaskWsRequest {
   }
 
   private static List<String> createAdditionalFields(Builder builder) {
-    if (!builder.errorStacktrace && !builder.scannerContext) {
+    if (!builder.errorStacktrace && !builder.scannerContext && !builder.profile) {
       return Collections.emptyList();
     }
-    List<String> res = new ArrayList<>(2);
+    List<String> res = new ArrayList<>(3);
     if (builder.errorStacktrace) {
       res.add("stacktrace");
     }
     if (builder.scannerContext) {
       res.add("scannerContext");
     }
+    if (builder.profile) {
+      res.add("profile");
+    }
     return ImmutableList.copyOf(res);
   }
 
@@ -64,6 +67,7 @@ public class TaskWsRequest {
     private final String taskUuid;
     private boolean errorStacktrace = false;
     private boolean scannerContext = false;
+    private boolean profile = false;
 
     private Builder(String taskUuid) {
       this.taskUuid = taskUuid;
@@ -79,6 +83,11 @@ public class TaskWsRequest {
       return this;
     }
 
+    public Builder withProfile() {
+      this.profile = true;
+      return this;
+    }
+
     public TaskWsRequest build() {
       return new TaskWsRequest(this);
     }
@@ -124,6 +124,17 @@ public class CeServiceTest {
     assertThat(serviceTester.getGetRequest().getParams()).containsOnly(entry("id", "task_id"), entry("additionalFields", "scannerContext"));
   }
 
+  @Test
+  public void task_with_profile() {
+    underTest.task(TaskWsRequest.newBuilder("task_id")
+        .withScannerContext()
+        .withProfile()
+        .build());
+
+    assertThat(serviceTester.getGetRequest().getPath()).isEqualTo("api/ce/task");
+    assertThat(serviceTester.getGetRequest().getParams()).containsOnly(entry("id", "task_id"), entry("additionalFields", "scannerContext,profile"));
+  }
+
   @Test
   public void task_with_stacktrace_only() {
     underTest.task(TaskWsRequest.newBuilder("task_id")